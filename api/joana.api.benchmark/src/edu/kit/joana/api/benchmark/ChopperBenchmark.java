@@ -0,0 +1,77 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.api.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.kit.joana.ifc.sdg.graph.SDGNode;
+import edu.kit.joana.ifc.sdg.graph.chopper.ChoppingCriterion;
+import edu.kit.joana.ifc.sdg.graph.chopper.IndexedRepsRosayChopper;
+import edu.kit.joana.ifc.sdg.graph.chopper.RepsRosayChopper;
+
+/**
+ * Computes the chops between the i-th source and the i-th sink of a subject.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChopperBenchmark {
+
+	private SDGState state;
+	private RepsRosayChopper repsRosay;
+	private IndexedRepsRosayChopper indexed;
+	private List<ChoppingCriterion> criteria;
+
+	@Setup
+	public void setup(SDGState state) {
+		this.state = state;
+		this.repsRosay = new RepsRosayChopper(state.sdg);
+		this.indexed = new IndexedRepsRosayChopper(state.sdg);
+		this.criteria = new ArrayList<ChoppingCriterion>(SDGState.CRITERIA);
+		for (int i = 0; i < SDGState.CRITERIA; i++) {
+			criteria.add(new ChoppingCriterion(state.sources.get(i), state.sinks.get(i)));
+		}
+	}
+
+	@Benchmark
+	public int repsRosayChopper() {
+		int size = 0;
+		for (int i = 0; i < SDGState.CRITERIA; i++) {
+			size += repsRosay.chop(state.sources.get(i), state.sinks.get(i)).size();
+		}
+
+		return size;
+	}
+
+	@Benchmark
+	public int indexedRepsRosayChopper() {
+		int size = 0;
+		for (Collection<SDGNode> chop : indexed.chopAll(criteria)) {
+			size += chop.size();
+		}
+
+		return size;
+	}
+}
@@ -0,0 +1,73 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.api.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import edu.kit.joana.ifc.sdg.graph.SDG;
+import edu.kit.joana.ifc.sdg.graph.SDGNode;
+
+/**
+ * The SDG of a subject and the slicing criteria of the benchmarks. The criteria are drawn with a fixed seed
+ * from the nodes ordered by id, so every run of a benchmark uses the same criteria.
+ */
+@State(Scope.Benchmark)
+public class SDGState {
+
+	/** the number of slicing criteria and of chopping criteria */
+	public static final int CRITERIA = 20;
+
+	private static final long SEED = 4711;
+
+	@Param
+	public Subject subject;
+
+	public SDG sdg;
+
+	public List<SDGNode> criteria;
+
+	public List<SDGNode> sources;
+
+	public List<SDGNode> sinks;
+
+	@Setup
+	public void setup() throws IOException {
+		sdg = subject.loadSDG();
+
+		final List<SDGNode> nodes = new ArrayList<SDGNode>(sdg.vertexSet());
+		Collections.sort(nodes, new Comparator<SDGNode>() {
+			public int compare(SDGNode n1, SDGNode n2) {
+				return n1.getId() - n2.getId();
+			}
+		});
+
+		final Random rand = new Random(SEED);
+		criteria = draw(nodes, rand);
+		sources = draw(nodes, rand);
+		sinks = draw(nodes, rand);
+	}
+
+	private static List<SDGNode> draw(List<SDGNode> nodes, Random rand) {
+		final List<SDGNode> result = new ArrayList<SDGNode>(CRITERIA);
+		for (int i = 0; i < CRITERIA; i++) {
+			result.add(nodes.get(rand.nextInt(nodes.size())));
+		}
+
+		return result;
+	}
+}
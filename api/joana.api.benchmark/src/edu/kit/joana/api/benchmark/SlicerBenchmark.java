@@ -0,0 +1,108 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.api.benchmark;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.kit.joana.ifc.sdg.graph.SDGNode;
+import edu.kit.joana.ifc.sdg.graph.slicer.BitSetSummarySlicerBackward;
+import edu.kit.joana.ifc.sdg.graph.slicer.ContextSlicerBackward;
+import edu.kit.joana.ifc.sdg.graph.slicer.SummarySlicerBackward;
+import edu.kit.joana.ifc.sdg.graph.slicer.conc.nanda.Nanda;
+import edu.kit.joana.ifc.sdg.graph.slicer.conc.nanda.NandaBackward;
+
+/**
+ * Computes the backward slices of all criteria of a subject. The slicers are created once per trial, so the
+ * precomputations of Nanda (MHP information and context graphs) and the edge index of the BitSetSummarySlicer
+ * are not measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SlicerBenchmark {
+
+	private SDGState state;
+	private SummarySlicerBackward summarySlicer;
+	private BitSetSummarySlicerBackward bitSetSlicer;
+	private ContextSlicerBackward contextSlicer;
+	private Nanda nanda;
+
+	@Setup
+	public void setup(SDGState state) {
+		this.state = state;
+		this.summarySlicer = new SummarySlicerBackward(state.sdg);
+		this.bitSetSlicer = new BitSetSummarySlicerBackward(state.sdg);
+		this.contextSlicer = new ContextSlicerBackward(state.sdg, true);
+		this.nanda = new Nanda(state.sdg, new NandaBackward());
+	}
+
+	@Benchmark
+	public int summarySlicerBackward() {
+		int size = 0;
+		for (SDGNode crit : state.criteria) {
+			size += summarySlicer.slice(crit).size();
+		}
+
+		return size;
+	}
+
+	@Benchmark
+	public int bitSetSummarySlicerBackward() {
+		int size = 0;
+		for (SDGNode crit : state.criteria) {
+			size += bitSetSlicer.slice(crit).size();
+		}
+
+		return size;
+	}
+
+	@Benchmark
+	public int bitSetSummarySlicerBackwardSliceEach() {
+		int size = 0;
+		for (Collection<SDGNode> slice : bitSetSlicer.sliceEach(state.criteria).values()) {
+			size += slice.size();
+		}
+
+		return size;
+	}
+
+	@Benchmark
+	public int contextSlicerBackward() {
+		int size = 0;
+		for (SDGNode crit : state.criteria) {
+			size += contextSlicer.slice(crit).size();
+		}
+
+		return size;
+	}
+
+	@Benchmark
+	public int nanda() {
+		int size = 0;
+		for (SDGNode crit : state.criteria) {
+			size += nanda.slice(crit).size();
+		}
+
+		return size;
+	}
+}
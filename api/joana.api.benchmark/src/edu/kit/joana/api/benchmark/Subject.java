@@ -0,0 +1,156 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.api.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.util.Properties;
+
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.graph.GraphIntegrity.UnsoundGraphException;
+
+import edu.kit.joana.api.sdg.MHPType;
+import edu.kit.joana.api.sdg.SDGConfig;
+import edu.kit.joana.api.sdg.SDGProgram;
+import edu.kit.joana.ifc.sdg.graph.SDG;
+import edu.kit.joana.ifc.sdg.graph.SDGSerializer;
+import edu.kit.joana.ifc.sdg.mhpoptimization.CSDGPreprocessor;
+import edu.kit.joana.ifc.sdg.mhpoptimization.CSDGPreprocessor.MHPPrecision;
+import edu.kit.joana.ifc.sdg.util.JavaMethodSignature;
+import edu.kit.joana.util.Stubs;
+import edu.kit.joana.wala.core.NullProgressMonitor;
+import edu.kit.joana.wala.core.SDGBuilder.ExceptionAnalysis;
+import edu.kit.joana.wala.core.SDGBuilder.FieldPropagation;
+
+/**
+ * The programs whose SDGs are used by the benchmarks. The SDGs are built once with interference edges and
+ * precise MHP information and are stored as .pdg files in <code>benchmark.sdg.dir</code>.
+ *
+ * The locations are read from system properties or from the file <code>benchmark.properties</code>.
+ */
+public enum Subject {
+
+	ALARM_CLOCK(Location.MANY_SMALL, "conc.ac.AlarmClock"),
+	DAISY(Location.MANY_SMALL, "conc.daisy.DaisyTest"),
+	DINING_PHILOSOPHERS(Location.MANY_SMALL, "conc.dp.DiningPhilosophers"),
+	DISK_SCHEDULER(Location.MANY_SMALL, "conc.ds.DiskSchedulerDriver"),
+	KNAPSACK(Location.MANY_SMALL, "conc.kn.Knapsack5"),
+	LAPLACE_GRID(Location.MANY_SMALL, "conc.lg.LaplaceGrid"),
+	PRODUCER_CONSUMER(Location.MANY_SMALL, "conc.bb.ProducerConsumer"),
+	JGF_BARRIER(Location.JAVAGRANDE, "def.JGFBarrierBench"),
+	JGF_CRYPT(Location.JAVAGRANDE, "def.JGFCryptBenchSizeA"),
+	JGF_MONTECARLO(Location.JAVAGRANDE, "def.JGFMonteCarloBenchSizeA"),
+	JGF_RAYTRACER(Location.JAVAGRANDE, "def.JGFRayTracerBenchSizeA"),
+	JGF_SYNC(Location.JAVAGRANDE, "def.JGFSyncBench"),
+	HSQLDB(Location.HSQLDB, "org.hsqldb.Server");
+
+	private enum Location { MANY_SMALL, JAVAGRANDE, HSQLDB }
+
+	private static final String PROPERTY_FILE = "benchmark.properties";
+
+	private final Location location;
+	private final String mainClass;
+
+	private Subject(Location location, String mainClass) {
+		this.location = location;
+		this.mainClass = mainClass;
+	}
+
+	public String getClassPath() {
+		switch (location) {
+		case MANY_SMALL:
+			return loadProperty("joana.many.small.programs.classpath");
+		case JAVAGRANDE:
+			return loadProperty("joana.example.jars.dir") + File.separator + "javagrande" + File.separator
+					+ "benchmarks.jar";
+		case HSQLDB:
+			return loadProperty("joana.example.jars.dir") + File.separator + "hsqldb" + File.separator
+					+ "HSQLDB.jar";
+		default:
+			throw new IllegalStateException("unknown location: " + location);
+		}
+	}
+
+	/**
+	 * @return the .pdg file of this subject. It is built if it does not exist.
+	 */
+	public String getSDGFile() throws IOException {
+		final File dir = new File(loadProperty("benchmark.sdg.dir"));
+		final File file = new File(dir, name().toLowerCase() + ".pdg");
+		if (!file.exists()) {
+			if (!dir.exists() && !dir.mkdirs()) {
+				throw new IOException("Could not create " + dir);
+			}
+
+			SDGSerializer.toPDGFormat(build(), file.getPath(), false);
+		}
+
+		return file.getPath();
+	}
+
+	/**
+	 * Reads the SDG of this subject.
+	 */
+	public SDG loadSDG() throws IOException {
+		return SDG.readFrom(getSDGFile());
+	}
+
+	private SDG build() throws IOException {
+		final SDGConfig cfg = new SDGConfig(getClassPath(),
+				JavaMethodSignature.mainMethodOfClass(mainClass).toBCString(), Stubs.JRE_14);
+		cfg.setComputeInterferences(true);
+		cfg.setExceptionAnalysis(ExceptionAnalysis.INTRAPROC);
+		cfg.setFieldPropagation(FieldPropagation.OBJ_GRAPH);
+		cfg.setMhpType(MHPType.NONE);
+
+		try {
+			final SDG sdg = SDGProgram.createSDGProgram(cfg, new PrintStream(new ByteArrayOutputStream()),
+					NullProgressMonitor.INSTANCE).getSDG();
+			CSDGPreprocessor.runMHP(sdg, MHPPrecision.PRECISE);
+
+			return sdg;
+		} catch (ClassHierarchyException e) {
+			throw new IllegalStateException(e);
+		} catch (UnsoundGraphException e) {
+			throw new IllegalStateException(e);
+		} catch (CancelException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String loadProperty(String key) {
+		final String value = System.getProperty(key);
+		if (value != null) {
+			return value;
+		}
+
+		final Properties p = new Properties();
+		try {
+			final InputStream in = new FileInputStream(PROPERTY_FILE);
+			try {
+				p.load(in);
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			// handled below
+		}
+
+		if (p.getProperty(key) == null) {
+			throw new IllegalStateException("Property '" + key + "' not provided! Either add file '" + PROPERTY_FILE
+					+ "' with an appropriate specification or provide property via -D flag to the jvm!");
+		}
+
+		return p.getProperty(key);
+	}
+}
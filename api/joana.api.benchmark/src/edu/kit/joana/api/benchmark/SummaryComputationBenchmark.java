@@ -0,0 +1,76 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.api.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ibm.wala.util.CancelException;
+
+import edu.kit.joana.ifc.sdg.graph.SDG;
+import edu.kit.joana.ifc.sdg.graph.SDGEdge;
+import edu.kit.joana.wala.core.NullProgressMonitor;
+import edu.kit.joana.wala.summary.GraphUtil;
+import edu.kit.joana.wala.summary.GraphUtil.SummaryProperties;
+import edu.kit.joana.wala.summary.SummaryComputation;
+import edu.kit.joana.wala.summary.WorkPackage;
+
+/**
+ * Recomputes the summary edges of a subject. Every invocation works on a copy of the SDG without summary
+ * edges, creating the copy is not measured. The computation runs sequentially and on several threads.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class SummaryComputationBenchmark {
+
+	@Param({"1", "4"})
+	public int threads;
+
+	private WorkPackage pack;
+
+	@Setup(Level.Invocation)
+	public void setup(SDGState state) {
+		final SDG sdg = state.sdg.clone();
+		final List<SDGEdge> summaries = new ArrayList<SDGEdge>();
+		for (SDGEdge e : sdg.edgeSet()) {
+			if (e.getKind() == SDGEdge.Kind.SUMMARY) {
+				summaries.add(e);
+			}
+		}
+		sdg.removeAllEdges(summaries);
+
+		final WorkPackage.EntryPoint ep = GraphUtil.extractEntryPoint(sdg, sdg.getRoot());
+		final SummaryProperties sumProp = GraphUtil.createSummaryProperties(sdg);
+		pack = WorkPackage.create(sdg, Collections.singleton(ep), sdg.getName(), null, sumProp.fullyConnectedIds,
+				sumProp.out2in);
+	}
+
+	@Benchmark
+	public int summaryComputation() throws CancelException {
+		return SummaryComputation.compute(pack, threads, NullProgressMonitor.INSTANCE);
+	}
+}
@@ -0,0 +1,187 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.api.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.graph.GraphIntegrity.UnsoundGraphException;
+
+import edu.kit.joana.api.IFCAnalysis;
+import edu.kit.joana.api.IFCType;
+import edu.kit.joana.api.IllicitFlow;
+import edu.kit.joana.api.annotations.IFCAnnotation;
+import edu.kit.joana.api.test.util.ApiTestException;
+import edu.kit.joana.ifc.sdg.core.conc.IncrementalPossibilisticNIChecker;
+import edu.kit.joana.ifc.sdg.core.violations.OrderConflict;
+import edu.kit.joana.ifc.sdg.core.violations.Violation;
+import edu.kit.joana.ifc.sdg.graph.SDG;
+import edu.kit.joana.ifc.sdg.graph.SDGEdge;
+import edu.kit.joana.ifc.sdg.graph.SDGNode;
+
+/**
+ * Runs the incremental possibilistic check after a series of annotation changes and compares every result with a
+ * full PossibilisticNIChecker run on the same annotations. Each round leaves out a different annotation, so the
+ * incremental checker has to drop and to re-add sources and sinks. A change of the graph itself has to invalidate all
+ * stored results.
+ */
+public class IncrementalIFCTest {
+
+	private static final String[] CLASSES = {
+		"joana.api.testdata.toy.pw.PasswordFile",
+		"joana.api.testdata.toy.demo.Demo1",
+		"joana.api.testdata.toy.declass.Declass1",
+		"joana.api.testdata.toy.rec.MyList2",
+		"joana.api.testdata.seq.ExampleLeakage",
+	};
+
+	/**
+	 * Returns the violations as strings of node ids and attacker level. The two conflicting nodes of an order
+	 * conflict are sorted, because the conflict is symmetric.
+	 */
+	static Set<String> violations(final Collection<? extends Violation> vios) {
+		final Set<String> result = new HashSet<String>();
+		for (final Violation v : vios) {
+			String nodes = v.getSource().getId() + " -> " + v.getSink().getId();
+			if (v instanceof OrderConflict) {
+				final int a = v.getSink().getId();
+				final int b = ((OrderConflict) v).getConflicting().getId();
+				nodes = v.getSource().getId() + " -> " + Math.min(a, b) + " | " + Math.max(a, b);
+			}
+
+			result.add(nodes + " for " + v.getAttackerLevel());
+		}
+
+		return result;
+	}
+
+	private static Set<String> flows(final Collection<IllicitFlow> flows) {
+		final List<Violation> vios = new ArrayList<Violation>(flows.size());
+		for (final IllicitFlow f : flows) {
+			vios.add(f.getViolation());
+		}
+
+		return violations(vios);
+	}
+
+	private static void setAnnotations(final IFCAnalysis ana, final List<IFCAnnotation> annotations) {
+		ana.clearAllAnnotations();
+		for (final IFCAnnotation a : annotations) {
+			ana.addAnnotation(a);
+		}
+	}
+
+	private static void compareIncremental(final String className) throws ClassHierarchyException, ApiTestException,
+			IOException, UnsoundGraphException, CancelException {
+		final IFCAnalysis incremental = ToyTests.buildAndAnnotate(className, ToyTests.top_sequential, false);
+		incremental.setIncremental(true);
+		final IFCAnalysis full = new IFCAnalysis(incremental.getProgram());
+		final List<IFCAnnotation> all = new ArrayList<IFCAnnotation>(incremental.getAnnotations());
+
+		int withFlows = 0;
+		// round i leaves out annotation i, the last round uses all annotations
+		for (int i = 0; i <= all.size(); i++) {
+			final List<IFCAnnotation> annotations = new ArrayList<IFCAnnotation>(all);
+			if (i < all.size()) {
+				annotations.remove(i);
+			}
+
+			setAnnotations(incremental, annotations);
+			setAnnotations(full, annotations);
+			final Set<String> actual = flows(incremental.doIFC(IFCType.POSSIBILISTIC));
+			assertTrue(incremental.getIFC() instanceof IncrementalPossibilisticNIChecker);
+			final Set<String> expected = flows(full.doIFC(IFCType.POSSIBILISTIC));
+			assertEquals("Error in round " + i + " of " + className, expected, actual);
+
+			if (!expected.isEmpty()) {
+				withFlows++;
+			}
+		}
+
+		assertTrue("no illicit flows in " + className, withFlows > 0);
+	}
+
+	@Test
+	public void incremental_MatchesFullCheck() {
+		for (final String className : CLASSES) {
+			try {
+				compareIncremental(className);
+			} catch (ClassHierarchyException e) {
+				e.printStackTrace();
+				fail(e.getMessage());
+			} catch (ApiTestException e) {
+				e.printStackTrace();
+				fail(e.getMessage());
+			} catch (IOException e) {
+				e.printStackTrace();
+				fail(e.getMessage());
+			} catch (UnsoundGraphException e) {
+				e.printStackTrace();
+				fail(e.getMessage());
+			} catch (CancelException e) {
+				e.printStackTrace();
+				fail(e.getMessage());
+			}
+		}
+	}
+
+	@Test
+	public void incremental_RecheckAfterGraphChange() {
+		try {
+			final IFCAnalysis ana = ToyTests.buildAndAnnotate(CLASSES[0], ToyTests.top_sequential, false);
+			ana.setIncremental(true);
+			final Set<String> expected = flows(ana.doIFC(IFCType.POSSIBILISTIC));
+			final IncrementalPossibilisticNIChecker ifc = (IncrementalPossibilisticNIChecker) ana.getIFC();
+			final int criteria = ifc.getRecheckedCriteria();
+			assertTrue(criteria > 0);
+
+			assertEquals(expected, flows(ana.doIFC(IFCType.POSSIBILISTIC)));
+			assertEquals(0, ifc.getRecheckedCriteria());
+
+			// the graph is changed in place, so the checker still sees the same sdg object
+			final SDG sdg = ana.getProgram().getSDG();
+			final SDGNode root = sdg.getRoot();
+			final SDGEdge help = new SDGEdge(root, root, SDGEdge.Kind.HELP);
+			sdg.addEdge(help);
+			try {
+				assertEquals(expected, flows(ana.doIFC(IFCType.POSSIBILISTIC)));
+				assertEquals(criteria, ifc.getRecheckedCriteria());
+			} finally {
+				sdg.removeEdge(help);
+			}
+		} catch (ClassHierarchyException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		} catch (ApiTestException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		} catch (IOException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		} catch (UnsoundGraphException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		} catch (CancelException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+
+}
@@ -0,0 +1,106 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.api.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.graph.GraphIntegrity.UnsoundGraphException;
+
+import edu.kit.joana.api.sdg.MHPType;
+import edu.kit.joana.api.sdg.SDGConfig;
+import edu.kit.joana.api.sdg.SDGProgram;
+import edu.kit.joana.api.test.util.JoanaPath;
+import edu.kit.joana.ifc.sdg.graph.SDG;
+import edu.kit.joana.ifc.sdg.graph.SDGEdge;
+import edu.kit.joana.ifc.sdg.util.JavaMethodSignature;
+import edu.kit.joana.util.Stubs;
+import edu.kit.joana.wala.core.SDGBuilder.ExceptionAnalysis;
+import edu.kit.joana.wala.core.SDGBuilder.FieldPropagation;
+
+/**
+ * Checks that computing the interference edges on several threads results in the same edges as computing them
+ * sequentially. The sdgs are built without MHP analysis, so all interference edges are kept.
+ */
+public class InterferenceThreadsTest {
+
+	private static final int THREADS = 4;
+
+	private static Set<String> interferenceEdges(final String classPath, final String mainClass, final int threads)
+			throws ClassHierarchyException, IOException, UnsoundGraphException, CancelException {
+		final SDGConfig config = new SDGConfig(classPath,
+				JavaMethodSignature.mainMethodOfClass(mainClass).toBCString(), Stubs.JRE_14);
+		config.setComputeInterferences(true);
+		config.setExceptionAnalysis(ExceptionAnalysis.INTRAPROC);
+		config.setFieldPropagation(FieldPropagation.OBJ_GRAPH);
+		config.setMhpType(MHPType.NONE);
+		config.setInterferenceThreads(threads);
+
+		final SDG sdg = SDGProgram.createSDGProgram(config).getSDG();
+		final Set<String> edges = new HashSet<String>();
+		for (final SDGEdge e : sdg.edgeSet()) {
+			if (e.getKind() == SDGEdge.Kind.INTERFERENCE || e.getKind() == SDGEdge.Kind.INTERFERENCE_WRITE) {
+				edges.add(e.getSource().getId() + " -" + e.getKind() + "-> " + e.getTarget().getId());
+			}
+		}
+
+		return edges;
+	}
+
+	private static void checkParallelInterference(final String classPath, final String mainClass) {
+		try {
+			final Set<String> expected = interferenceEdges(classPath, mainClass, 1);
+			assertFalse("no interference edges in " + mainClass, expected.isEmpty());
+			assertEquals("Error in " + mainClass, expected, interferenceEdges(classPath, mainClass, THREADS));
+		} catch (ClassHierarchyException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		} catch (IOException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		} catch (UnsoundGraphException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		} catch (CancelException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void parallelInterference_Mantel00Page10() {
+		checkParallelInterference(JoanaPath.JOANA_API_TEST_DATA_CLASSPATH, "joana.api.testdata.conc.Mantel00Page10");
+	}
+
+	@Test
+	public void parallelInterference_ThreadTestRW() {
+		checkParallelInterference(JoanaPath.JOANA_API_TEST_DATA_CLASSPATH, "joana.api.testdata.toy.conc.ThreadTestRW");
+	}
+
+	@Test
+	public void parallelInterference_ThreadTestArrays() {
+		checkParallelInterference(JoanaPath.JOANA_API_TEST_DATA_CLASSPATH,
+				"joana.api.testdata.toy.conc.ThreadTestArrays");
+	}
+
+	@Test
+	public void parallelInterference_FibonacciThread() {
+		checkParallelInterference(JoanaPath.JOANA_API_TEST_DATA_CLASSPATH,
+				"joana.api.testdata.toy.conc.FibonacciThread");
+	}
+
+}
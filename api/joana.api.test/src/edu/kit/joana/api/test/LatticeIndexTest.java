@@ -0,0 +1,147 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.api.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import edu.kit.joana.ifc.sdg.lattice.IStaticLattice;
+import edu.kit.joana.ifc.sdg.lattice.LatticeIndex;
+import edu.kit.joana.ifc.sdg.lattice.LatticeUtil;
+import edu.kit.joana.ifc.sdg.lattice.NotInLatticeException;
+import edu.kit.joana.ifc.sdg.lattice.WrongLatticeDefinitionException;
+
+/**
+ * Compares the LatticeIndex of a grid lattice with the lattice itself. The grid is the product of two chains, so it
+ * is not linear, and it has more than 64 elements, so the sets of elements need more than one word.
+ */
+public class LatticeIndexTest {
+
+	private static final int ROWS = 10;
+	private static final int COLUMNS = 8;
+
+	private static IStaticLattice<String> lattice;
+	private static LatticeIndex<String> index;
+
+	private static String element(final int row, final int column) {
+		return "e" + row + "_" + column;
+	}
+
+	@BeforeClass
+	public static void setUp() {
+		final StringBuilder def = new StringBuilder();
+		for (int row = 0; row < ROWS; row++) {
+			for (int column = 0; column < COLUMNS; column++) {
+				if (row + 1 < ROWS) {
+					def.append(element(row, column) + "<=" + element(row + 1, column) + "\n");
+				}
+				if (column + 1 < COLUMNS) {
+					def.append(element(row, column) + "<=" + element(row, column + 1) + "\n");
+				}
+			}
+		}
+
+		try {
+			lattice = LatticeUtil.loadLattice(def.toString());
+		} catch (WrongLatticeDefinitionException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+
+		index = new LatticeIndex<String>(lattice);
+	}
+
+	@Test
+	public void latticeIndex_MatchesLattice() {
+		assertEquals(ROWS * COLUMNS, index.size());
+		assertEquals(lattice.getElements().size(), index.size());
+		assertEquals(2, index.getWords());
+
+		for (final String a : lattice.getElements()) {
+			final int ia = index.indexOf(a);
+			assertEquals(a, index.getElement(ia));
+
+			final List<String> greater = new ArrayList<String>();
+			final List<String> lower = new ArrayList<String>();
+			for (final String b : lattice.getElements()) {
+				final int ib = index.indexOf(b);
+				final String lub = lattice.leastUpperBound(a, b);
+				final String glb = lattice.greatestLowerBound(a, b);
+				final boolean lowerOrEqual = lub.equals(b);
+
+				assertEquals("Error on " + a + " <= " + b, lowerOrEqual, index.isLowerOrEqual(ia, ib));
+				assertEquals("Error on lub of " + a + " and " + b, lub, index.getElement(index.leastUpperBound(ia, ib)));
+				assertEquals("Error on glb of " + a + " and " + b, glb,
+						index.getElement(index.greatestLowerBound(ia, ib)));
+				assertEquals(lowerOrEqual, LatticeIndex.contains(index.getGreaterOrEqual(ia), ib));
+				assertEquals(lowerOrEqual, LatticeIndex.contains(index.getLowerOrEqual(ib), ia));
+
+				if (lowerOrEqual) {
+					greater.add(b);
+				}
+				if (glb.equals(b)) {
+					lower.add(b);
+				}
+			}
+
+			assertEquals(greater, index.toElements(index.getGreaterOrEqual(ia)));
+			assertEquals(lower, index.toElements(index.getLowerOrEqual(ia)));
+		}
+
+		// the grid is not linear
+		assertFalse(index.isLowerOrEqual(index.indexOf(element(1, 0)), index.indexOf(element(0, 1))));
+		assertFalse(index.isLowerOrEqual(index.indexOf(element(0, 1)), index.indexOf(element(1, 0))));
+	}
+
+	@Test
+	public void latticeIndex_Sets() {
+		final long[] empty = index.newSet();
+		assertArrayEquals(new long[index.getWords()], empty);
+
+		// one index in each word
+		final int low = 3;
+		final int high = index.size() - 1;
+		assertTrue(high >= 64);
+
+		final long[] set = index.newSet(high);
+		assertTrue(LatticeIndex.contains(set, high));
+		assertFalse(LatticeIndex.contains(set, high - 64));
+		assertEquals(Arrays.asList(index.getElement(high)), index.toElements(set));
+		assertFalse(LatticeIndex.intersects(set, index.newSet(low)));
+		assertTrue(LatticeIndex.containsAll(set, empty));
+		assertFalse(LatticeIndex.containsAll(empty, set));
+
+		assertTrue(LatticeIndex.addAll(set, index.newSet(low)));
+		assertFalse(LatticeIndex.addAll(set, index.newSet(high)));
+		assertTrue(LatticeIndex.contains(set, low));
+		assertTrue(LatticeIndex.containsAll(set, index.newSet(low)));
+		assertTrue(LatticeIndex.intersects(set, index.newSet(high)));
+		assertEquals(Arrays.asList(index.getElement(low), index.getElement(high)), index.toElements(set));
+
+		LatticeIndex.add(empty, 64);
+		assertTrue(LatticeIndex.contains(empty, 64));
+		assertFalse(LatticeIndex.contains(empty, 0));
+		assertEquals(0, empty[0]);
+	}
+
+	@Test(expected = NotInLatticeException.class)
+	public void latticeIndex_UnknownElement() {
+		index.indexOf("unknown");
+	}
+
+}
@@ -0,0 +1,247 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.api.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import edu.kit.joana.api.test.util.BuildSDG;
+import edu.kit.joana.api.test.util.JoanaPath;
+import edu.kit.joana.ifc.sdg.graph.SDG;
+import edu.kit.joana.ifc.sdg.graph.SDGEdge;
+import edu.kit.joana.ifc.sdg.graph.SDGNode;
+import edu.kit.joana.ifc.sdg.graph.slicer.graph.threads.BitMatrix;
+import edu.kit.joana.ifc.sdg.graph.slicer.graph.threads.PersistentMHPAnalysis;
+import edu.kit.joana.ifc.sdg.graph.slicer.graph.threads.PreciseMHPAnalysis;
+import edu.kit.joana.ifc.sdg.graph.slicer.graph.threads.SymmetricBitMatrix;
+import edu.kit.joana.ifc.sdg.graph.slicer.graph.threads.ThreadRegion;
+import edu.kit.joana.ifc.sdg.graph.slicer.graph.threads.ThreadsInformation.ThreadInstance;
+
+/**
+ * Compares the parallel PreciseMHPAnalysis with the sequential one on the concurrent test programs, the result read
+ * by PersistentMHPAnalysis with the computed one, and the triangular SymmetricBitMatrix of the analysis with the
+ * dense BitMatrix it replaces.
+ */
+public class MHPAnalysisTest {
+
+	private static final String[][] TEST_DATA = {
+		{"joana.api.testdata.conc.Mantel00Page10", "mantel.pdg"},
+		{"joana.api.testdata.conc.SpawnWithinLoop", "spawn_within_loop.pdg"},
+		{"joana.api.testdata.conc.ThreadHierarchy", "thread_hierarchy.pdg"},
+		{"joana.api.testdata.conc.SimpleRecursiveSpawning", "simple_recursive_spawning.pdg"},
+	};
+
+	@BeforeClass
+	public static void setUp() {
+		for (final String[] td : TEST_DATA) {
+			final File f = new File(td[1]);
+			if (!f.exists() || !f.canRead()) {
+				final BuildSDG b = BuildSDG.standardConcSetup(JoanaPath.JOANA_API_TEST_DATA_CLASSPATH, td[0], td[1]);
+				b.run();
+			}
+		}
+	}
+
+	private static void assertSameParallelism(final PreciseMHPAnalysis expected, final PreciseMHPAnalysis actual,
+			final String sdgFile) {
+		assertEquals(expected.getThreadRegions().size(), actual.getThreadRegions().size());
+
+		int parallel = 0;
+		for (final ThreadRegion r : expected.getThreadRegions()) {
+			for (final ThreadRegion s : expected.getThreadRegions()) {
+				final boolean isParallel = expected.isParallel(r, s);
+				assertEquals("Error on regions " + r.getID() + " and " + s.getID() + " of " + sdgFile, isParallel,
+						actual.isParallel(actual.getThreadRegion(r.getID()), actual.getThreadRegion(s.getID())));
+				assertEquals(isParallel, expected.isParallel(s, r));
+
+				if (isParallel) {
+					parallel++;
+				}
+			}
+		}
+
+		assertTrue("no parallel regions in " + sdgFile, parallel > 0);
+	}
+
+	private static void compareParallel(final String sdgFile, final int threads) throws IOException {
+		final SDG sdg = SDG.readFrom(sdgFile);
+		final PreciseMHPAnalysis expected = PreciseMHPAnalysis.analyze(sdg);
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+		try {
+			final PreciseMHPAnalysis actual = PreciseMHPAnalysis.analyze(sdg, executor);
+			assertSameParallelism(expected, actual, sdgFile);
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void mhp_ParallelMatchesSequential() throws IOException {
+		for (final String[] td : TEST_DATA) {
+			compareParallel(td[1], 4);
+		}
+	}
+
+	@Test
+	public void persistentMHP_ReadMatchesAnalysis() throws IOException {
+		for (final String[] td : TEST_DATA) {
+			final SDG sdg = SDG.readFrom(td[1]);
+			final PreciseMHPAnalysis expected = PreciseMHPAnalysis.analyze(sdg);
+			final String file = PersistentMHPAnalysis.fileFor(td[1]);
+			new File(file).delete();
+
+			PersistentMHPAnalysis.write(expected, sdg, file);
+			final PreciseMHPAnalysis actual = PersistentMHPAnalysis.read(sdg, file);
+			assertNotNull("no MHP result in " + file, actual);
+			assertSameParallelism(expected, actual, td[1]);
+
+			// a freshly read sdg has the same content hash
+			final SDG again = SDG.readFrom(td[1]);
+			assertSameParallelism(expected, PersistentMHPAnalysis.loadOrAnalyze(again, file), td[1]);
+		}
+	}
+
+	@Test
+	public void persistentMHP_ChangedSDGInvalidatesFile() throws IOException {
+		final String sdgFile = TEST_DATA[0][1];
+		final SDG sdg = SDG.readFrom(sdgFile);
+		final String file = PersistentMHPAnalysis.fileFor(sdgFile);
+		PersistentMHPAnalysis.write(PreciseMHPAnalysis.analyze(sdg), sdg, file);
+		assertNotNull(PersistentMHPAnalysis.read(sdg, file));
+
+		final SDGNode from = sdg.getRoot();
+		SDGNode to = null;
+		for (final SDGNode n : sdg.vertexSet()) {
+			if (n != from && sdg.getEdge(from, n) == null) {
+				to = n;
+				break;
+			}
+		}
+		assertNotNull(to);
+
+		// edges that are no control flow edges do not change the result
+		final SDGEdge data = new SDGEdge(from, to, SDGEdge.Kind.DATA_DEP);
+		sdg.addEdge(data);
+		assertNotNull(PersistentMHPAnalysis.read(sdg, file));
+		sdg.removeEdge(data);
+
+		final SDGEdge flow = new SDGEdge(from, to, SDGEdge.Kind.CONTROL_FLOW);
+		sdg.addEdge(flow);
+		assertNull("control flow edge " + from.getId() + " -> " + to.getId() + " not detected",
+				PersistentMHPAnalysis.read(sdg, file));
+		sdg.removeEdge(flow);
+		assertNotNull(PersistentMHPAnalysis.read(sdg, file));
+
+		final ThreadInstance thread = sdg.getThreadsInfo().iterator().next();
+		thread.setDynamic(!thread.isDynamic());
+		assertNull("thread information not detected", PersistentMHPAnalysis.read(sdg, file));
+		thread.setDynamic(!thread.isDynamic());
+		assertNotNull(PersistentMHPAnalysis.read(sdg, file));
+	}
+
+	/* the triangle of this dimension has more than 2^22 bits, so it does not fit into the first block of 2^16 words */
+	private static final int BLOCK_DIMENSION = 3000;
+	private static final long BITS_PER_BLOCK = 1L << 22;
+
+	@Test
+	public void symmetricBitMatrix_AcrossBlocks() {
+		final SymmetricBitMatrix matrix = new SymmetricBitMatrix(BLOCK_DIMENSION);
+
+		// row and column of the last bit of the first block and of the first bit of the second block
+		final int[] row = new int[2];
+		final int[] col = new int[2];
+		for (int k = 0; k < 2; k++) {
+			final long offset = BITS_PER_BLOCK - 1 + k;
+			int i = 0;
+			while ((long) (i + 1) * (i + 2) / 2 <= offset) {
+				i++;
+			}
+			row[k] = i;
+			col[k] = (int) (offset - (long) i * (i + 1) / 2);
+		}
+
+		for (int k = 0; k < 2; k++) {
+			final long allocated = matrix.allocatedBytes();
+			matrix.set(col[k], row[k]);
+			assertTrue("Error on (" + row[k] + ", " + col[k] + ")", matrix.get(row[k], col[k]));
+			assertTrue("Error on (" + col[k] + ", " + row[k] + ")", matrix.get(col[k], row[k]));
+			// the bits lie in different blocks
+			assertTrue(matrix.allocatedBytes() > allocated);
+		}
+		assertEquals(2, matrix.cardinality());
+
+		matrix.clear(row[1], col[1]);
+		assertFalse(matrix.get(col[1], row[1]));
+		assertTrue(matrix.get(col[0], row[0]));
+		assertEquals(1, matrix.cardinality());
+
+		matrix.clear(col[0], row[0]);
+		assertFalse(matrix.get(row[0], col[0]));
+		assertEquals(0, matrix.cardinality());
+
+		matrix.set(0, BLOCK_DIMENSION - 1);
+		matrix.set(BLOCK_DIMENSION - 1, BLOCK_DIMENSION - 1);
+		assertTrue(matrix.get(BLOCK_DIMENSION - 1, 0));
+		assertFalse(matrix.get(BLOCK_DIMENSION - 2, BLOCK_DIMENSION - 1));
+		assertEquals(2, matrix.cardinality());
+	}
+
+	@Test
+	public void symmetricBitMatrix_MatchesBitMatrix() {
+		final Random rand = new Random(42);
+
+		for (final int dimension : new int[] {1, 63, 64, 65, 700, BLOCK_DIMENSION}) {
+			final BitMatrix expected = new BitMatrix(dimension);
+			final SymmetricBitMatrix actual = new SymmetricBitMatrix(dimension);
+
+			for (int step = 0; step < 4 * dimension; step++) {
+				final int i = rand.nextInt(dimension);
+				final int j = rand.nextInt(dimension);
+				if (rand.nextInt(4) == 0) {
+					expected.clear(i, j);
+					expected.clear(j, i);
+					actual.clear(i, j);
+				} else {
+					expected.set(i, j);
+					expected.set(j, i);
+					actual.set(i, j);
+				}
+			}
+
+			long pairs = 0;
+			for (int i = 0; i < dimension; i++) {
+				for (int j = 0; j < dimension; j++) {
+					assertEquals("Error on (" + i + ", " + j + ")", expected.get(i, j), actual.get(i, j));
+					if (j <= i && expected.get(i, j)) {
+						pairs++;
+					}
+				}
+			}
+
+			assertEquals(pairs, actual.cardinality());
+		}
+	}
+
+}
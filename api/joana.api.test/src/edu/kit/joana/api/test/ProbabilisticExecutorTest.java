@@ -0,0 +1,108 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.api.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+import edu.kit.joana.api.IFCAnalysis;
+import edu.kit.joana.api.annotations.IFCAnnotation;
+import edu.kit.joana.api.annotations.IFCAnnotationManager;
+import edu.kit.joana.api.sdg.MHPType;
+import edu.kit.joana.api.test.util.ApiTestException;
+import edu.kit.joana.ifc.sdg.core.conc.ProbabilisticNIChecker;
+import edu.kit.joana.ifc.sdg.core.violations.OrderConflict;
+import edu.kit.joana.ifc.sdg.core.violations.Violation;
+import edu.kit.joana.ifc.sdg.graph.SDG;
+import edu.kit.joana.ifc.sdg.graph.slicer.graph.threads.MHPAnalysis;
+import edu.kit.joana.ifc.sdg.graph.slicer.graph.threads.PreciseMHPAnalysis;
+import edu.kit.joana.ifc.sdg.graph.slicer.graph.threads.SimpleMHPAnalysis;
+
+/**
+ * Runs the probabilistic check of the annotated Mantel00Page10 example with and without an executor. The parallel
+ * check has to report the same violations as the sequential one, including the order of the two conflicting nodes
+ * of an order conflict.
+ */
+public class ProbabilisticExecutorTest {
+
+	/**
+	 * Returns the violations as strings of node ids and attacker level. Unlike
+	 * {@link IncrementalIFCTest#violations(Collection)} the conflicting nodes of an order conflict keep their order.
+	 */
+	private static Set<String> orderedViolations(final Collection<? extends Violation> vios) {
+		final Set<String> result = new HashSet<String>();
+		for (final Violation v : vios) {
+			String nodes = v.getSource().getId() + " -> " + v.getSink().getId();
+			if (v instanceof OrderConflict) {
+				nodes += " | " + ((OrderConflict) v).getConflicting().getId();
+			}
+
+			result.add(nodes + " for " + v.getAttackerLevel());
+		}
+
+		return result;
+	}
+
+	private static void compareExecutor(final MHPType mhpType, final boolean timeSens, final boolean expectViolations) {
+		try {
+			final IFCAnalysis ana = JoinAnalysisIFCMantelTest.buildAndAnnotateMantel(mhpType);
+			final SDG sdg = ana.getProgram().getSDG();
+			final MHPAnalysis mhp = (mhpType == MHPType.SIMPLE
+					? SimpleMHPAnalysis.analyze(sdg) : PreciseMHPAnalysis.analyze(sdg));
+
+			final IFCAnnotationManager annotations = new IFCAnnotationManager(ana.getProgram());
+			for (final IFCAnnotation a : ana.getAnnotations()) {
+				annotations.addAnnotation(a);
+			}
+
+			final ExecutorService executor = Executors.newFixedThreadPool(4);
+			annotations.applyAllAnnotations();
+
+			try {
+				final ProbabilisticNIChecker sequential =
+						new ProbabilisticNIChecker(sdg, ana.getSecurityLattice(), mhp, timeSens);
+				final Set<String> expected = orderedViolations(sequential.checkIFlow());
+
+				final ProbabilisticNIChecker parallel =
+						new ProbabilisticNIChecker(sdg, ana.getSecurityLattice(), mhp, timeSens);
+				parallel.setExecutor(executor);
+				assertEquals(expected, orderedViolations(parallel.checkIFlow()));
+
+				if (expectViolations) {
+					assertFalse(expected.isEmpty());
+				}
+			} finally {
+				annotations.unapplyAllAnnotations();
+				executor.shutdown();
+			}
+		} catch (ApiTestException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void probabilistic_SimpleMHP() {
+		compareExecutor(MHPType.SIMPLE, false, true);
+	}
+
+	@Test
+	public void probabilistic_PreciseMHP_TimeSensitive() {
+		compareExecutor(MHPType.PRECISE, true, false);
+	}
+
+}
@@ -25,6 +25,7 @@ import edu.kit.joana.api.sdg.SDGProgram;
 import edu.kit.joana.api.sdg.SDGProgramPart;
 import edu.kit.joana.api.sdg.SDGProgramPartWriter;
 import edu.kit.joana.ifc.sdg.core.IFC;
+import edu.kit.joana.ifc.sdg.core.conc.IncrementalPossibilisticNIChecker;
 import edu.kit.joana.ifc.sdg.core.conc.PossibilisticNIChecker;
 import edu.kit.joana.ifc.sdg.core.conc.ProbabilisticNIChecker;
 import edu.kit.joana.ifc.sdg.core.conc.ProbabilisticNISlicer;
@@ -34,7 +35,9 @@ import edu.kit.joana.ifc.sdg.core.violations.OrderConflict;
 import edu.kit.joana.ifc.sdg.core.violations.Violation;
 import edu.kit.joana.ifc.sdg.graph.SDG;
 import edu.kit.joana.ifc.sdg.graph.SDGNode;
-import edu.kit.joana.ifc.sdg.graph.chopper.RepsRosayChopper;
+import edu.kit.joana.ifc.sdg.graph.chopper.Chopper;
+import edu.kit.joana.ifc.sdg.graph.chopper.ChoppingCriterion;
+import edu.kit.joana.ifc.sdg.graph.chopper.IndexedRepsRosayChopper;
 import edu.kit.joana.ifc.sdg.graph.slicer.graph.threads.MHPAnalysis;
 import edu.kit.joana.ifc.sdg.graph.slicer.graph.threads.PreciseMHPAnalysis;
 import edu.kit.joana.ifc.sdg.graph.slicer.graph.threads.SimpleMHPAnalysis;
@@ -53,6 +56,8 @@ public class IFCAnalysis {
 	private IFCType ifcType = IFCType.POSSIBILISTIC;
 	private IFC ifc;
 	private boolean timeSensitiveAnalysis = false;
+	private boolean incremental = false;
+	private IncrementalPossibilisticNIChecker incrementalIFC;
 
 	public static final IStaticLattice<String> stdLattice;
 
@@ -97,7 +102,17 @@ public class IFCAnalysis {
 		this.ifcType = ifcType;
 		switch (this.ifcType) {
 		case POSSIBILISTIC:
-			this.ifc = new PossibilisticNIChecker(this.program.getSDG(), secLattice);
+			if (incremental) {
+				if (incrementalIFC == null) {
+					incrementalIFC = new IncrementalPossibilisticNIChecker(this.program.getSDG(), secLattice);
+				} else {
+					incrementalIFC.setSDG(this.program.getSDG());
+					incrementalIFC.setLattice(secLattice);
+				}
+				this.ifc = incrementalIFC;
+			} else {
+				this.ifc = new PossibilisticNIChecker(this.program.getSDG(), secLattice);
+			}
 			if (timeSensitiveAnalysis) {
 				this.ifc = new TimeSensitiveIFCDecorator(this.ifc);
 			}
@@ -125,6 +140,23 @@ public class IFCAnalysis {
 		this.timeSensitiveAnalysis = newTimeSens;
 	}
 
+	/**
+	 * Enables or disables incremental possibilistic checks. If enabled, each possibilistic {@link #doIFC(IFCType)}
+	 * only re-checks the sources and sinks whose slices contain a node whose annotation changed since the
+	 * previous check; the results of the other sources and sinks are kept from the previous check. This is
+	 * meant for sessions in which annotations are changed interactively.
+	 */
+	public void setIncremental(boolean incremental) {
+		this.incremental = incremental;
+		if (!incremental) {
+			this.incrementalIFC = null;
+		}
+	}
+
+	public boolean isIncremental() {
+		return incremental;
+	}
+
 	public void setLattice(IStaticLattice<String> secLattice) {
 		if (secLattice == null) {
 			throw new IllegalArgumentException();
@@ -177,29 +209,36 @@ public class IFCAnalysis {
 
 		List<IllicitFlow> ret = new LinkedList<IllicitFlow>();
 
-		Collection<SDGProgramPart> allParts = getProgram().getAllProgramParts();
-		for (SDGProgramPart ppart : allParts) {
-			debug.outln("Program part " + ppart + " with node(s): " + ppart.getAttachedNodes());
+		if (debug.isEnabled()) {
+			for (SDGProgramPart ppart : getProgram().getAllProgramParts()) {
+				debug.outln("Program part " + ppart + " with node(s): " + ppart.getAttachedNodes());
+			}
 		}
 
+		List<ChoppingCriterion> criteria = new LinkedList<ChoppingCriterion>();
 		for (Violation vio : vios) {
-			IllicitFlow ill = new IllicitFlow(vio, allParts);
+			IllicitFlow ill = new IllicitFlow(vio, getProgram());
 			ret.add(ill);
-			RepsRosayChopper c = new RepsRosayChopper(program.getSDG());
 			SDGProgramPart illSrc = ill.getSource();
 			SDGProgramPart illSnk = ill.getSink();
 			if (illSrc != null && illSnk != null) {
-				Collection<SDGNode> chop = c.chop(illSrc.getAttachedNodes(), illSnk.getAttachedNodes());
+				criteria.add(new ChoppingCriterion(illSrc.getAttachedNodes(), illSnk.getAttachedNodes()));
+			} else {
+				Violation v = ill.getViolation();
+				debug.outln("unidentifiable flow from " + v.getSource() + " to " + v.getSink());
+			}
+		}
+
+		if (debug.isEnabled() && !criteria.isEmpty()) {
+			// one chopper for all flows, so the slices shared by flows with the same source or sink are reused
+			Chopper c = new IndexedRepsRosayChopper(program.getSDG());
+			for (Collection<SDGNode> chop : c.chopAll(criteria)) {
 				debug.outln("Illicit flow with the following nodes involved: ");
 				Map<SDGNode, Collection<SDGNode>> groupedByProc = groupByProc(program.getSDG(), chop);
 				for (SDGNode nProc : groupedByProc.keySet()) {
 					debug.outln("In method " + nProc.getBytecodeMethod() + ": " + groupedByProc.get(nProc));
 				}
-			} else {
-				Violation v = ill.getViolation();
-				debug.outln("unidentifiable flow from " + v.getSource() + " to " + v.getSink());
 			}
-
 		}
 		
 		Collection<JoanaConflict> joanaConflicts = analyzeConflicts();
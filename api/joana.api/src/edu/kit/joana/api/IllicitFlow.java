@@ -9,6 +9,7 @@ package edu.kit.joana.api;
 
 import java.util.Collection;
 
+import edu.kit.joana.api.sdg.SDGProgram;
 import edu.kit.joana.api.sdg.SDGProgramPart;
 import edu.kit.joana.ifc.sdg.core.violations.Violation;
 import edu.kit.joana.ifc.sdg.graph.SDGNode;
@@ -26,6 +27,16 @@ public class IllicitFlow extends JoanaViolation {
 	private final SDGProgramPart sink;
 	private final String attackerLevel;
 
+	/**
+	 * Resolves source and sink of the violation with the node index of the given program.
+	 */
+	public IllicitFlow(Violation vio, SDGProgram program) {
+		this.vio = vio;
+		this.source = program.findCoveringProgramPart(vio.getSource());
+		this.sink = program.findCoveringProgramPart(vio.getSink());
+		this.attackerLevel = vio.getAttackerLevel();
+	}
+
 	public IllicitFlow(Violation vio, Collection<SDGProgramPart> pparts) {
 		this.vio = vio;
 		this.source = selectProgramPart(vio.getSource(), pparts);
@@ -7,6 +7,9 @@
  */
 package edu.kit.joana.api.sdg;
 
+import java.util.Set;
+
+import edu.kit.joana.ifc.sdg.graph.SDG;
 import edu.kit.joana.util.Stubs;
 import edu.kit.joana.wala.core.SDGBuilder.ExceptionAnalysis;
 import edu.kit.joana.wala.core.SDGBuilder.FieldPropagation;
@@ -23,6 +26,12 @@ public class SDGConfig {
 	private boolean computeAccessPaths;
 	private boolean computeInterferences;
 	private MHPType mhpType = MHPType.NONE;
+	private int intraprocThreads = 1;
+	private int summaryThreads = 1;
+	private String summaryCacheDir = null;
+	private int interferenceThreads = 1;
+	private SDG previousSDG = null;
+	private Set<String> changedClasses = null;
 
 	public SDGConfig(String classPath, String entryMethod, Stubs stubsPath) {
 		this(classPath, entryMethod, stubsPath, ExceptionAnalysis.INTERPROC, FieldPropagation.OBJ_GRAPH, PointsToPrecision.CONTEXT_SENSITIVE, false, false, MHPType.NONE);
@@ -167,5 +176,95 @@ public class SDGConfig {
 		this.computeAccessPaths = computeAccessPaths;
 	}
 
+	/**
+	 * @return the number of threads used to build the intraprocedural dependence graphs
+	 */
+	public int getIntraprocThreads() {
+		return intraprocThreads;
+	}
+
+	/**
+	 * @param intraprocThreads the number of threads used to build the intraprocedural dependence graphs.
+	 * A value of 1 builds them sequentially. The node numbering of the resulting SDG is the same in both cases.
+	 */
+	public void setIntraprocThreads(int intraprocThreads) {
+		this.intraprocThreads = intraprocThreads;
+	}
+
+	/**
+	 * @return the number of threads used to compute the summary edges
+	 */
+	public int getSummaryThreads() {
+		return summaryThreads;
+	}
+
+	/**
+	 * @param summaryThreads the number of threads used to compute the summary edges. A value of 1 computes them
+	 * sequentially, more threads process independent parts of the call graph in parallel.
+	 */
+	public void setSummaryThreads(int summaryThreads) {
+		this.summaryThreads = summaryThreads;
+	}
+
+	/**
+	 * @return the directory of the persistent summary cache, or null if no cache is used
+	 */
+	public String getSummaryCacheDir() {
+		return summaryCacheDir;
+	}
+
+	/**
+	 * @param summaryCacheDir directory where the summary information of methods is kept between runs, so only
+	 * changed methods and their callers are analyzed again. null disables the cache.
+	 */
+	public void setSummaryCacheDir(String summaryCacheDir) {
+		this.summaryCacheDir = summaryCacheDir;
+	}
 
+	/**
+	 * @return the number of threads used to compute the interference edges
+	 */
+	public int getInterferenceThreads() {
+		return interferenceThreads;
+	}
+
+	/**
+	 * @param interferenceThreads the number of threads used to compute the interference edges. A value of 1
+	 * computes them sequentially. The resulting edges are the same in both cases.
+	 */
+	public void setInterferenceThreads(int interferenceThreads) {
+		this.interferenceThreads = interferenceThreads;
+	}
+
+	/**
+	 * @return the SDG of a previous build whose node ids are kept for unchanged methods, or null
+	 */
+	public SDG getPreviousSDG() {
+		return previousSDG;
+	}
+
+	/**
+	 * @param previousSDG the SDG of a previous build of the same program. The nodes of methods that are not
+	 * declared in one of the changed classes keep their ids from this SDG. The summary edges of unchanged methods
+	 * that do not call a changed method are reused, everything else is built from scratch. null builds the whole
+	 * SDG from scratch.
+	 */
+	public void setPreviousSDG(SDG previousSDG) {
+		this.previousSDG = previousSDG;
+	}
+
+	/**
+	 * @return the names of the classes that changed since the previous SDG was built, or null if unknown
+	 */
+	public Set<String> getChangedClasses() {
+		return changedClasses;
+	}
+
+	/**
+	 * @param changedClasses fully qualified names of the classes that changed since the previous SDG was built,
+	 * like "java.lang.Object". null if unknown.
+	 */
+	public void setChangedClasses(Set<String> changedClasses) {
+		this.changedClasses = changedClasses;
+	}
 }
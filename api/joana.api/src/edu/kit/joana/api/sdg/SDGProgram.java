@@ -7,6 +7,9 @@
  */
 package edu.kit.joana.api.sdg;
 
+import gnu.trove.map.TIntObjectMap;
+import gnu.trove.map.hash.TIntObjectHashMap;
+
 import java.io.IOException;
 import java.io.PrintStream;
 import java.util.ArrayList;
@@ -17,6 +20,8 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
 
 import com.ibm.wala.classLoader.IClass;
 import com.ibm.wala.classLoader.IMethod;
@@ -35,6 +40,7 @@ import edu.kit.joana.ifc.sdg.graph.SDGEdge;
 import edu.kit.joana.ifc.sdg.graph.SDGNode;
 import edu.kit.joana.ifc.sdg.graph.SDGNode.NodeFactory;
 import edu.kit.joana.ifc.sdg.graph.SDGNode.Operation;
+import edu.kit.joana.ifc.sdg.graph.SDGTextParser;
 import edu.kit.joana.ifc.sdg.mhpoptimization.CSDGPreprocessor;
 import edu.kit.joana.ifc.sdg.util.BytecodeLocation;
 import edu.kit.joana.ifc.sdg.util.JavaMethodSignature;
@@ -57,6 +63,7 @@ public class SDGProgram {
 	private final Set<SDGClass> classes = new HashSet<SDGClass>();
 	private final SDG sdg;
 	private SDGProgramPartParserBC ppartParser;
+	private TIntObjectMap<SDGProgramPart> coveringPartIndex = null;
 	private static Logger debug = Log.getLogger(Log.L_API_DEBUG);
 
 	public SDGProgram(SDG sdg) {
@@ -68,6 +75,39 @@ public class SDGProgram {
 		return new SDGProgram(SDG.readFrom(path, new SecurityNode.SecurityNodeFactory()));
 	}
 
+	/**
+	 * Loads an uncompressed .pdg file with the parallel parser.
+	 *
+	 * @param executor parses parts of the file, is not shut down. If it is null, the file is parsed
+	 * by the calling thread.
+	 */
+	public static SDGProgram loadSDG(String path, ExecutorService executor, final IProgressMonitor monitor)
+			throws IOException, CancelException {
+		final SDGTextParser.ProgressMonitor progress = new SDGTextParser.ProgressMonitor() {
+			public void beginTask(String task, int totalWork) {
+				monitor.beginTask(task, totalWork);
+			}
+
+			public void worked(int units) {
+				monitor.worked(units);
+			}
+
+			public boolean isCanceled() {
+				return monitor.isCanceled();
+			}
+
+			public void done() {
+				monitor.done();
+			}
+		};
+
+		try {
+			return new SDGProgram(SDG.readFrom(path, new SecurityNode.SecurityNodeFactory(), executor, progress));
+		} catch (CancellationException e) {
+			throw CancelException.make(e.getMessage());
+		}
+	}
+
 	public static SDGProgram createSDGProgram(String classPath, String entryMethod) {
 		return createSDGProgram(classPath, entryMethod, false);
 	}
@@ -115,6 +155,12 @@ public class SDGProgram {
 		cfg.pts = config.getPointsToPrecision();
 		cfg.accessPath = config.computeAccessPaths();
 		cfg.stubs = config.getStubsPath().getPath();
+		cfg.intraprocThreads = config.getIntraprocThreads();
+		cfg.summaryThreads = config.getSummaryThreads();
+		cfg.summaryCacheDir = config.getSummaryCacheDir();
+		cfg.interferenceThreads = config.getInterferenceThreads();
+		cfg.previousSDG = config.getPreviousSDG();
+		cfg.changedClasses = config.getChangedClasses();
 
 		debug.outln(cfg.stubs);
 
@@ -217,17 +263,59 @@ public class SDGProgram {
 		return ret;
 	}
 	
+	/**
+	 * Returns the most specific program part which covers the given node. The first call builds an index of all
+	 * covered nodes, so subsequent calls need constant time.
+	 */
 	public SDGProgramPart findCoveringProgramPart(SDGNode node) {
-		for (SDGProgramPart ppart : getAllProgramParts()) {
-			if (ppart.covers(node)) {
-				return ppart.getCoveringComponent(node);
-			}
+		final TIntObjectMap<SDGProgramPart> index = getCoveringPartIndex();
+		if (index.containsKey(node.getId())) {
+			return index.get(node.getId());
 		}
 		
 		debug.outln("node " + node + " has no program part!");
 		return null;
 	}
 
+	/**
+	 * Maps the id of each covered node to its most specific covering program part. The parts are visited in
+	 * the order of {@link #getAllProgramParts()} and the first part covering a node determines its entry, as
+	 * in a linear search over all parts.
+	 */
+	private TIntObjectMap<SDGProgramPart> getCoveringPartIndex() {
+		if (coveringPartIndex == null) {
+			final TIntObjectMap<SDGProgramPart> index = new TIntObjectHashMap<SDGProgramPart>();
+			for (SDGProgramPart ppart : getAllProgramParts()) {
+				for (SDGNode node : getCoveredNodes(ppart)) {
+					if (node != null && !index.containsKey(node.getId())) {
+						index.put(node.getId(), ppart.getCoveringComponent(node));
+					}
+				}
+			}
+
+			coveringPartIndex = index;
+		}
+
+		return coveringPartIndex;
+	}
+
+	/**
+	 * Returns all nodes covered by the given program part. Instructions cover their root node, even if it is
+	 * not one of their attached nodes.
+	 */
+	private static Collection<SDGNode> getCoveredNodes(SDGProgramPart ppart) {
+		final Collection<SDGNode> ret = new LinkedList<SDGNode>(ppart.getAttachedNodes());
+		if (ppart instanceof SDGInstruction) {
+			ret.add(((SDGInstruction) ppart).getNode());
+		} else if (ppart instanceof SDGMethod) {
+			for (SDGInstruction i : ((SDGMethod) ppart).getInstructions()) {
+				ret.add(i.getNode());
+			}
+		}
+
+		return ret;
+	}
+
 	public Collection<SDGMethod> getMethods(String methodDesc) {
 		build();
 		return ppartParser.getMethods(methodDesc);
@@ -8,40 +8,55 @@
 package edu.kit.joana.ifc.sdg.core.conc;
 
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import edu.kit.joana.ifc.sdg.core.IFC;
 import edu.kit.joana.ifc.sdg.core.SecurityNode;
-import edu.kit.joana.ifc.sdg.core.conc.Element.ElementSet;
 import edu.kit.joana.ifc.sdg.core.interfaces.ProgressAnnouncer;
 import edu.kit.joana.ifc.sdg.core.interfaces.ProgressListener;
 import edu.kit.joana.ifc.sdg.core.violations.Violation;
 import edu.kit.joana.ifc.sdg.graph.SDG;
 import edu.kit.joana.ifc.sdg.graph.SDGEdge;
 import edu.kit.joana.ifc.sdg.graph.SDGNode;
-import edu.kit.joana.ifc.sdg.graph.slicer.graph.building.GraphModifier;
 import edu.kit.joana.ifc.sdg.lattice.IStaticLattice;
+import edu.kit.joana.ifc.sdg.lattice.LatticeIndex;
 
 
 /** Ueberprueft einen gegebenen SDG auf possibilistische Noninterferenz.
  * Verwendet intransitive Deklassifikation nach der Idee von Krinke.
  *
+ * Die Sicherheitslevel werden ueber einen {@link LatticeIndex} durchnummeriert, die bei der Traversion
+ * propagierten Mengen erlaubter Level sind Bitmengen ueber diesen Nummern.
+ *
  * @author giffhorn
  */
 public class BarrierIFCSlicer extends IFC implements ProgressAnnouncer {
 	
+    private static final String PROGRESS_TITLE = "Checking possibilistic noninterference";
+
     private ArrayList<ProgressListener> pls = new ArrayList<ProgressListener>();
-    private HashMap<SDGEdge, Set<Rule>> summaryDeclass;  // deklassifikationen an den summary-kanten
+    private Map<SDGEdge, Set<Rule>> summaryDeclass;      // deklassifikationen an den summary-kanten
+    private LatticeIndex<String> index;                   // nummerierung der sicherheitslevel
+    private HashMap<SDGEdge, int[]> summaryRules;         // summary-deklassifikationen als paare (out, in) von levelnummern
 
     /**
      * Initialisiert den IFC-Algorithmus.
      * Der uebergebene SDG muss annotiert sein, der Sicherheitsverband dazu passen.
      *
-     * Der Konstruktor berechnet ausserdem die Deklassifikationen an den Summary-Kanten.
+     * Der Konstruktor bestimmt ausserdem die Deklassifikationen an den Summary-Kanten,
+     * siehe {@link SummaryDeclassification}.
      *
      * @param g  Ein SDG.
      * @param l  Ein Sicherheitsverband.
@@ -49,7 +64,10 @@ public class BarrierIFCSlicer extends IFC implements ProgressAnnouncer {
     public BarrierIFCSlicer(SDG g, IStaticLattice<String> l) {
     	super(g, l);
 //        long time = System.currentTimeMillis();
-        summaryDeclass = computeSummaryDeclassification();
+        SummaryDeclassification sd = SummaryDeclassification.get(g, l);
+        index = sd.getLatticeIndex();
+        summaryDeclass = sd.getRules();
+        summaryRules = indexSummaryDeclassification();
 //        time = System.currentTimeMillis() - time;
 //        System.out.println("summary declass. : "+time);
 //        for (SDGEdge e : summaryDeclass.keySet()) {
@@ -58,65 +76,24 @@ public class BarrierIFCSlicer extends IFC implements ProgressAnnouncer {
     }
 
     /**
-     * Berechnet die Deklassifikationen an den Summary-Kanten.
+     * Uebersetzt die Deklassifikationen an den Summary-Kanten in Levelnummern.
      *
-     * @return Eine Map von Summary-Kanten auf die garantiert auftretenden Deklassifikationen.
+     * @return Eine Map von Summary-Kanten auf die Paare (out, in) ihrer Deklassifikationen.
      */
-    private HashMap<SDGEdge, Set<Rule>> computeSummaryDeclassification() {
-        HashMap<SDGEdge, Set<Rule>> result = new HashMap<SDGEdge, Set<Rule>>();
-        HashSet<SecurityNode> declass = new HashSet<SecurityNode>();
-        HashMap<Rule, Set<SDGNode>> rules = new HashMap<Rule, Set<SDGNode>>();
-
-        // 1. collect the different declassification rules in the SDG
-        for (SDGNode nn : g.vertexSet()) {
-            SecurityNode n = (SecurityNode) nn;
-            if (n.isDeclassification()) {
-                declass.add(n);
-                Rule r = new Rule();
-                r.in = n.getRequired();
-                r.out = n.getProvided();
-
-                Set<SDGNode> s = rules.get(r);
-                if (s == null) {
-                    s = new HashSet<SDGNode>();
-                    rules.put(r, s);
-                }
-            }
-        }
-//        System.out.println("rules: "+rules.keySet());
+    private HashMap<SDGEdge, int[]> indexSummaryDeclassification() {
+        HashMap<SDGEdge, int[]> result = new HashMap<SDGEdge, int[]>();
 
-        // 2. for every rule, collect all declassifications annotated with that rule
-        for (Rule r : rules.keySet()) {
-            Set<SDGNode> s = rules.get(r);
+        for (SDGEdge e : summaryDeclass.keySet()) {
+            Set<Rule> rules = summaryDeclass.get(e);
+            int[] pairs = new int[2 * rules.size()];
+            int i = 0;
 
-            for (SecurityNode n : declass) {
-                if (l.leastUpperBound(n.getRequired(), r.in).equals(r.in)
-                        && l.leastUpperBound(n.getProvided(), r.out).equals(n.getProvided())){
-                    s.add(n);
-                }
+            for (Rule r : rules) {
+                pairs[i++] = index.indexOf(r.out);
+                pairs[i++] = index.indexOf(r.in);
             }
-//            System.out.println("    rule: "+r);
-//            System.out.println("    declass: "+rules.get(r));
-        }
-
-        // 3. for each rule, compute the summary declassifications
-        for (Rule r : rules.keySet()) {
-            // collect all declassifications which allow Rule r
-            Set<SDGNode> barrier = rules.get(r);
-
-            // compute affected edges
-            Collection<SDGEdge> sum = GraphModifier.blockSummaryEdges(g, barrier);
-//            System.out.println("  edges: "+sum);
-            for (SDGEdge e : sum) {
-                Set<Rule> set = result.get(e);
-
-                if (set == null) {
-                    set = new HashSet<Rule>();
-                    result.put(e, set);
-                }
 
-                set.add(r);
-            }
+            result.put(e, pairs);
         }
 
         return result;
@@ -132,84 +109,231 @@ public class BarrierIFCSlicer extends IFC implements ProgressAnnouncer {
         this.pls.remove(pl);
     }
 
+    private void notifyProgressListeners(int progress, int maxProgress) {
+        for (ProgressListener pl : pls) {
+            pl.progressChanged(PROGRESS_TITLE, progress, maxProgress);
+        }
+    }
+
     /** Fuehrt den Sicherheitscheck aus.
      *
      * @return Die Menge der gefundenen Sicherheitsverletzungen.
      */
     public Set<Violation> checkIFlow() {
         // bestimme alle kritischen Punkte
-        LinkedList<Element> criteria = collectCriteria();
+        LinkedList<LabeledNode> criteria = collectCriteria();
         Set<Violation> set = new HashSet<Violation>();
+        int done = 0;
 
         // pruefe jeden kritischen Punkt auf possibilistische noninterferenz
-        for (Element e : criteria) {
+        for (LabeledNode e : criteria) {
 //            System.out.println("slice for "+e);
 //            System.out.println("**********************************************");
-            set.addAll(slice(e));
+            set.addAll(slice(e, null));
+            notifyProgressListeners(++done, criteria.size());
+        }
+
+        return set;
+    }
+
+    /** Prueft einen einzelnen annotierten Knoten.
+     *
+     * Im Gegensatz zu {@link #checkIFlow()} wird der Knoten auch dann geprueft, wenn ihn keine Quelle
+     * mit einem nicht erlaubten Level erreicht.
+     *
+     * @param criterion  Eine Quelle oder Senke.
+     * @param sliced     Falls nicht null, werden hier die Ids aller traversierten Knoten gesammelt.
+     *                   Diese Knotenmenge haengt nur vom SDG ab, nicht von den Annotationen.
+     * @return Die gefundenen Sicherheitsverletzungen.
+     */
+    public Set<Violation> checkIFlow(SecurityNode criterion, BitSet sliced) {
+        int level;
+        if (criterion.isInformationSink()) {
+            level = index.indexOf(criterion.getRequired());
+
+        } else if (criterion.isInformationSource()) {
+            level = index.indexOf(criterion.getProvided());
+
+        } else {
+            throw new IllegalArgumentException(criterion + " is neither a source nor a sink");
+        }
+
+        return slice(new LabeledNode(criterion, level, index.newSet(level)), sliced);
+    }
+
+    /** Fuehrt den Sicherheitscheck parallel aus.
+     *
+     * Die kritischen Punkte werden unabhaengig voneinander auf dem uebergebenen Executor geprueft,
+     * der SDG und die Summary-Deklassifikationen werden dabei nur gelesen. Die ProgressListener werden
+     * im aufrufenden Thread benachrichtigt. Die Ergebnisse werden in der Reihenfolge der kritischen Punkte
+     * zusammengefuehrt, das Ergebnis ist also dasselbe wie bei {@link #checkIFlow()}.
+     *
+     * @param executor  Fuehrt die Pruefungen der einzelnen kritischen Punkte aus.
+     * @return Die Menge der gefundenen Sicherheitsverletzungen.
+     * @throws InterruptedException  Falls der aufrufende Thread beim Warten unterbrochen wird.
+     */
+    public Set<Violation> checkIFlow(ExecutorService executor) throws InterruptedException {
+        // bestimme alle kritischen Punkte
+        LinkedList<LabeledNode> criteria = collectCriteria();
+        CompletionService<Set<Violation>> completion = new ExecutorCompletionService<Set<Violation>>(executor);
+        List<Future<Set<Violation>>> results = new ArrayList<Future<Set<Violation>>>(criteria.size());
+
+        try {
+            for (final LabeledNode e : criteria) {
+                results.add(completion.submit(new Callable<Set<Violation>>() {
+                    public Set<Violation> call() {
+                        return slice(e, null);
+                    }
+                }));
+            }
+
+            // warte auf alle pruefungen, der fortschritt wird in der reihenfolge ihrer fertigstellung gemeldet
+            for (int done = 1; done <= criteria.size(); done++) {
+                waitFor(completion.take());
+                notifyProgressListeners(done, criteria.size());
+            }
+
+        } finally {
+            // bei einem fehler werden die restlichen pruefungen abgebrochen
+            for (Future<Set<Violation>> f : results) {
+                f.cancel(true);
+            }
+        }
+
+        Set<Violation> set = new HashSet<Violation>();
+        for (Future<Set<Violation>> f : results) {
+            set.addAll(waitFor(f));
         }
 
         return set;
     }
 
+    private static Set<Violation> waitFor(Future<Set<Violation>> f) throws InterruptedException {
+        try {
+            return f.get();
+        } catch (ExecutionException exc) {
+            Throwable cause = exc.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            throw new IllegalStateException(cause);
+        }
+    }
+
     /** Bestimmt die kritischen Punkte im SDG.
+     * Kritische Punkte, die von keiner Quelle mit einem nicht erlaubten Level erreicht werden,
+     * koennen keine Sicherheitsverletzung haben und werden ausgelassen.
      *
-     * @return Eine Liste aller als Quelle oder Senke annotierter Knoten.
+     * @return Eine Liste aller als Quelle oder Senke annotierter Knoten, die ein Leck haben koennen.
      */
-    private LinkedList<Element> collectCriteria() {
-        LinkedList<Element> criteria = new LinkedList<Element>();
+    private LinkedList<LabeledNode> collectCriteria() {
+        LinkedList<LabeledNode> criteria = new LinkedList<LabeledNode>();
+        HashMap<SDGNode, long[]> reachingSources = computeReachingSources();
 
         // suche alle annotierten knoten (keine deklassifikationen)
         for (SDGNode o :  g.vertexSet())  {
             SecurityNode temp = (SecurityNode) o;
+            int level;
             if (temp.isInformationSink()) {
-                String label = temp.getRequired();
-                // baue ein entsprechendes Element
-                HashSet<String> set = new HashSet<String>();
-                set.add(label);
-                Element e = new Element(temp, label, set);
-                criteria.add(e);
+                level = index.indexOf(temp.getRequired());
 
             } else if (temp.isInformationSource()) {
             	// dasselbe fuer informationsquellen
-                String label = temp.getProvided();
-                HashSet<String> set = new HashSet<String>();
-                set.add(label);
-                Element e = new Element(temp, label, set);
-                criteria.add(e);
+                level = index.indexOf(temp.getProvided());
+
+            } else {
+                continue;
+            }
+
+            // jede erreichende quelle ist erlaubt, auch ohne deklassifikationen
+            long[] reaching = reachingSources.get(temp);
+            if (reaching == null || LatticeIndex.containsAll(index.getLowerOrEqual(level), reaching)) {
+                continue;
             }
+
+            // baue ein entsprechendes Element
+            criteria.add(new LabeledNode(temp, level, index.newSet(level)));
         }
 
         return criteria;
     }
 
+    /** Bestimmt fuer jeden Knoten die Level aller Quellen, von denen er im SDG erreichbar ist.
+     * Die Level werden in einem Durchlauf ueber den gesamten SDG propagiert, dabei werden alle
+     * SDG-Kanten verfolgt und Deklassifikationen ignoriert.
+     *
+     * @return Eine Map von Knoten auf die Menge der Level der Quellen, die den Knoten erreichen.
+     */
+    private HashMap<SDGNode, long[]> computeReachingSources() {
+        HashMap<SDGNode, long[]> result = new HashMap<SDGNode, long[]>();
+        LinkedList<SDGNode> worklist = new LinkedList<SDGNode>();
+
+        for (SDGNode o : g.vertexSet()) {
+            SecurityNode temp = (SecurityNode) o;
+            if (temp.isInformationSource()) {
+                result.put(temp, index.newSet(index.indexOf(temp.getProvided())));
+                worklist.add(temp);
+            }
+        }
+
+        while (!worklist.isEmpty()) {
+            SDGNode next = worklist.poll();
+            long[] levels = result.get(next);
+
+            for (SDGEdge edge : g.outgoingEdgesOf(next)) {
+                if (!edge.getKind().isSDGEdge()) continue;
+
+                SDGNode reached = edge.getTarget();
+                long[] reachedLevels = result.get(reached);
+
+                if (reachedLevels == null) {
+                    result.put(reached, levels.clone());
+                    worklist.add(reached);
+
+                } else if (LatticeIndex.addAll(reachedLevels, levels)) {
+                    worklist.add(reached);
+                }
+            }
+        }
+
+        return result;
+    }
+
     /**
      * Berechnet IFC fuer einen annotierten Knoten.
      *
      * @param criterion  Der annotierte Knoten.
+     * @param sliced     Falls nicht null, werden hier die Ids aller traversierten Knoten gesammelt.
      * @return           Die gefundenen Sicherheitsverletzungen.
      */
-    private Set<Violation> slice(Element criterion) {
-        LinkedList<Element> worklist_0 = new LinkedList<Element>();
-        LinkedList<Element> worklist_1 = new LinkedList<Element>();
-        LinkedList<Element> worklist_2 = new LinkedList<Element>();
-        ElementSet visited_0_1 = new ElementSet();
-        ElementSet visited_2 = new ElementSet();
+    private Set<Violation> slice(LabeledNode criterion, BitSet sliced) {
+        LinkedList<LabeledNode> worklist_0 = new LinkedList<LabeledNode>();
+        LinkedList<LabeledNode> worklist_1 = new LinkedList<LabeledNode>();
+        LinkedList<LabeledNode> worklist_2 = new LinkedList<LabeledNode>();
+        HashMap<SDGNode, long[]> visited_0_1 = new HashMap<SDGNode, long[]>();
+        HashMap<SDGNode, long[]> visited_2 = new HashMap<SDGNode, long[]>();
         HashSet<Violation> vio = new HashSet<Violation>();
 
         worklist_0.add(criterion);
-        visited_0_1.add(criterion);
+        visit(visited_0_1, criterion);
 
         while (!worklist_0.isEmpty()) {
             // init the next iteration
             visited_2.clear();
 
             worklist_1.add(worklist_0.poll());
-            visited_0_1.add(worklist_1.peek());
+            visit(visited_0_1, worklist_1.peek());
 
             // === phase 1 ===
             // only ascend to calling procedures
             while (!worklist_1.isEmpty()) {
-                Element next = worklist_1.poll();
+                LabeledNode next = worklist_1.poll();
+                if (sliced != null) {
+                    sliced.set(next.node.getId());
+                }
 //                System.out.println(next);
 
                 for (SDGEdge edge : g.incomingEdgesOf(next.node)) {
@@ -220,13 +344,13 @@ public class BarrierIFCSlicer extends IFC implements ProgressAnnouncer {
                             || edge.getKind() == SDGEdge.Kind.FORK) {
                         // handle inter-threadual edges
 
-                        Element newElement = declass(next, edge, visited_0_1);
+                        LabeledNode newElement = declass(next, edge, visited_0_1);
 
                         if (newElement == null) continue;
 
                         // security check
                         SecurityNode reached = (SecurityNode) edge.getSource();
-                        if (reached.isInformationSource() && isLeaking(newElement.labels, reached.getProvided())) {
+                        if (reached.isInformationSource() && isLeaking(newElement.labels, reached)) {
                         	if (criterion.node.isInformationSink()) {
                         		vio.add(Violation.createViolation(criterion.node, reached, criterion.node.getRequired()));
 
@@ -235,19 +359,19 @@ public class BarrierIFCSlicer extends IFC implements ProgressAnnouncer {
                         	}
                         }
 
-                        if (visited_0_1.add(newElement)) {
+                        if (visit(visited_0_1, newElement)) {
                             worklist_0.add(newElement);
                         }
 
                     } else if (edge.getKind() == SDGEdge.Kind.PARAMETER_OUT) {
                         // ascend into a calling procedure
-                        Element newElement = declass(next, edge, visited_2);
+                        LabeledNode newElement = declass(next, edge, visited_2);
 
                         if (newElement == null) continue;
 
                         // security check
                         SecurityNode reached = (SecurityNode) edge.getSource();
-                        if (reached.isInformationSource() && isLeaking(newElement.labels, reached.getProvided())) {
+                        if (reached.isInformationSource() && isLeaking(newElement.labels, reached)) {
                             if (criterion.node.isInformationSink()) {
                         		vio.add(Violation.createViolation(criterion.node, reached, criterion.node.getRequired()));
 
@@ -257,19 +381,19 @@ public class BarrierIFCSlicer extends IFC implements ProgressAnnouncer {
                         }
 
 
-                        if (visited_2.add(newElement)) {
+                        if (visit(visited_2, newElement)) {
                             worklist_2.add(newElement);
                         }
 
                     } else if (edge.getKind().isSDGEdge()) {
                         // for intra-procedural and descending edges
-                        Element newElement = declass(next, edge, visited_0_1);
+                        LabeledNode newElement = declass(next, edge, visited_0_1);
 
                         if (newElement == null) continue;
 
                         // security check
                         SecurityNode reached = (SecurityNode) edge.getSource();
-                        if (reached.isInformationSource() && isLeaking(newElement.labels, reached.getProvided())) {
+                        if (reached.isInformationSource() && isLeaking(newElement.labels, reached)) {
                             if (criterion.node.isInformationSink()) {
                         		vio.add(Violation.createViolation(criterion.node, reached, criterion.node.getRequired()));
 
@@ -278,7 +402,7 @@ public class BarrierIFCSlicer extends IFC implements ProgressAnnouncer {
                         	}
                         }
 
-                        if (visited_0_1.add(newElement)) {
+                        if (visit(visited_0_1, newElement)) {
                             worklist_1.add(newElement);
                         }
                     }
@@ -288,20 +412,23 @@ public class BarrierIFCSlicer extends IFC implements ProgressAnnouncer {
             // === phase 2 ===
             // visit all transitively called procedures
             while (!worklist_2.isEmpty()) {
-                Element next = worklist_2.poll();
+                LabeledNode next = worklist_2.poll();
+                if (sliced != null) {
+                    sliced.set(next.node.getId());
+                }
 //                System.out.println(next);
 
                 for (SDGEdge edge : g.incomingEdgesOf(next.node)) {
                     if (edge.getKind() == SDGEdge.Kind.INTERFERENCE) {
                         // handle interference edges: create new elements for worklist_0
                         // apply declassifications
-                        Element newElement = declass(next, edge, visited_0_1);
+                        LabeledNode newElement = declass(next, edge, visited_0_1);
 
                         if (newElement == null) continue;
 
                         // security check
                         SecurityNode reached = (SecurityNode) edge.getSource();
-                        if (reached.isInformationSource() && isLeaking(newElement.labels, reached.getProvided())) {
+                        if (reached.isInformationSource() && isLeaking(newElement.labels, reached)) {
                             if (criterion.node.isInformationSink()) {
                         		vio.add(Violation.createViolation(criterion.node, reached, criterion.node.getRequired()));
 
@@ -310,7 +437,7 @@ public class BarrierIFCSlicer extends IFC implements ProgressAnnouncer {
                         	}
                         }
 
-                        if (visited_0_1.add(newElement)) {
+                        if (visit(visited_0_1, newElement)) {
                             worklist_0.add(newElement);
                         }
 
@@ -322,13 +449,13 @@ public class BarrierIFCSlicer extends IFC implements ProgressAnnouncer {
 
                         // intra-procedural and param-out edges
                         // apply declassifications
-                        Element newElement = declass(next, edge, visited_2);
+                        LabeledNode newElement = declass(next, edge, visited_2);
 
                         if (newElement == null) continue;
 
                         // security check
                         SecurityNode reached = (SecurityNode) edge.getSource();
-                        if (reached.isInformationSource() && isLeaking(newElement.labels, reached.getProvided())) {
+                        if (reached.isInformationSource() && isLeaking(newElement.labels, reached)) {
                             if (criterion.node.isInformationSink()) {
                         		vio.add(Violation.createViolation(criterion.node, reached, criterion.node.getRequired()));
 
@@ -337,7 +464,7 @@ public class BarrierIFCSlicer extends IFC implements ProgressAnnouncer {
                         	}
                         }
 
-                        if (visited_2.add(newElement)) {
+                        if (visit(visited_2, newElement)) {
                             worklist_2.add(newElement);
                         }
                     }
@@ -356,57 +483,91 @@ public class BarrierIFCSlicer extends IFC implements ProgressAnnouncer {
      *
      * @param oldElement  Der Ausgangsknoten.
      * @param e           Eine eingehende Kante.
-     * @param set         Enthaelt die bisher besuchten Elemente.
+     * @param visited     Enthaelt die bisher besuchten Knoten mit ihren Leveln.
      * @return            Den erreichten Knoten mitsamt passender Annotationen oder null.
      */
-    private Element declass(Element oldElement, SDGEdge e, ElementSet set) {
+    private LabeledNode declass(LabeledNode oldElement, SDGEdge e, HashMap<SDGNode, long[]> visited) {
     	// get the node
         SecurityNode reached = (SecurityNode) e.getSource();
-        // create new set of labels
-        Set<String> newLabels = new HashSet<String>();
-        newLabels.addAll(oldElement.labels);
+        // the labels are copied on the first change
+        long[] newLabels = oldElement.labels;
 
         // add freshly declassified labels
         if (reached.isDeclassification()
-        		&& l.leastUpperBound(reached.getProvided(), oldElement.getLevel()).equals(oldElement.getLevel())) {
+        		&& index.isLowerOrEqual(index.indexOf(reached.getProvided()), oldElement.level)) {
 
             // reached's source level is declassified
-            newLabels.add(reached.getRequired());
+            newLabels = addLabel(newLabels, index.indexOf(reached.getRequired()));
         }
 
         if (e.getKind() == SDGEdge.Kind.SUMMARY) {
             // add the applying declassifications labels in the summarized paths
-            Set<Rule> rules = summaryDeclass.get(e);
+            int[] rules = summaryRules.get(e);
 
             if (rules != null) {
-                for (Rule r : rules) {
-                    if (l.leastUpperBound(r.out(), oldElement.getLevel()).equals(oldElement.getLevel())) {
-                        newLabels.add(r.in);
+                for (int i = 0; i < rules.length; i += 2) {
+                    if (index.isLowerOrEqual(rules[i], oldElement.level)) {
+                        newLabels = addLabel(newLabels, rules[i + 1]);
                     }
                 }
             }
         }
 
         // check if the new element would be redundant
-        Collection<String> markedLabels = set.get(reached, oldElement.label);
-        if (markedLabels == null || !markedLabels.containsAll(newLabels)) {
-            //marked.addAll(newLabels);
-            Element newElement = new Element(reached, oldElement.label, newLabels);
-            return newElement;
+        long[] markedLabels = visited.get(reached);
+        if (markedLabels == null || !LatticeIndex.containsAll(markedLabels, newLabels)) {
+            return new LabeledNode(reached, oldElement.level, newLabels);
 
         } else {
         	return null;
         }
     }
 
-    private boolean isLeaking(Collection<String> labels, String source) {
-    	for (String l : labels) {
-    		if (this.l.leastUpperBound(source, l).equals(l)) {
-    			// sichtbarkeit ist erlaubt
-    			return false;
-    		}
-    	}
+    private static long[] addLabel(long[] labels, int label) {
+        if (LatticeIndex.contains(labels, label)) {
+            return labels;
+        }
+
+        long[] result = labels.clone();
+        LatticeIndex.add(result, label);
+        return result;
+    }
 
-    	return true;
+    /**
+     * Markiert einen Knoten mit seinen Leveln als besucht.
+     *
+     * @return false, falls der Knoten bereits mit allen seinen Leveln besucht wurde.
+     */
+    private static boolean visit(HashMap<SDGNode, long[]> visited, LabeledNode e) {
+        long[] markedLabels = visited.get(e.node);
+
+        if (markedLabels == null) {
+            visited.put(e.node, e.labels.clone());
+            return true;
+        }
+
+        return LatticeIndex.addAll(markedLabels, e.labels);
+    }
+
+    private boolean isLeaking(long[] labels, SecurityNode source) {
+        // sichtbarkeit ist erlaubt, falls das level der quelle kleiner oder gleich einem der labels ist
+        return !LatticeIndex.intersects(labels, index.getGreaterOrEqual(index.indexOf(source.getProvided())));
+    }
+
+    /**
+     * Ein erreichter Knoten mit dem Level des Kriteriums und der Menge der Level, die das Level
+     * des Kriteriums auf dem bisher traversierten Pfad beeinflussen duerfen.
+     * Die Menge wird nach der Erzeugung nicht mehr veraendert.
+     */
+    private static final class LabeledNode {
+        private final SecurityNode node;
+        private final int level;
+        private final long[] labels;
+
+        private LabeledNode(SecurityNode node, int level, long[] labels) {
+            this.node = node;
+            this.level = level;
+            this.labels = labels;
+        }
     }
 }
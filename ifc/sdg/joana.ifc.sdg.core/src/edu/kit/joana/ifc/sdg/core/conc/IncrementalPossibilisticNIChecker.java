@@ -0,0 +1,204 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.ifc.sdg.core.conc;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Set;
+
+import edu.kit.joana.ifc.sdg.core.IFC;
+import edu.kit.joana.ifc.sdg.core.SecurityNode;
+import edu.kit.joana.ifc.sdg.core.violations.Violation;
+import edu.kit.joana.ifc.sdg.graph.SDG;
+import edu.kit.joana.ifc.sdg.graph.SDGNode;
+import edu.kit.joana.ifc.sdg.lattice.IStaticLattice;
+import edu.kit.joana.ifc.sdg.lattice.NotInLatticeException;
+import edu.kit.joana.util.Log;
+import edu.kit.joana.util.Logger;
+
+
+/**
+ * Prueft possibilistische Noninterferenz inkrementell, fuer wiederholte Pruefungen nach
+ * Aenderungen an den Annotationen.
+ *
+ * Die Sicherheitsverletzungen werden pro kritischem Punkt zusammen mit den Knoten seines Slices
+ * zwischengespeichert. Der Slice haengt nur vom SDG ab. Die Verletzungen eines kritischen Punktes
+ * haengen nur von den Annotationen der Knoten in seinem Slice ab, dazu gehoeren auch die
+ * Deklassifikationen auf den durch Summary-Kanten zusammengefassten Pfaden.
+ *
+ * Jeder Aufruf von {@link #checkIFlow()} vergleicht die Annotationen des SDGs mit denen des
+ * vorherigen Aufrufs und prueft nur die kritischen Punkte neu, deren Slice einen geaenderten Knoten
+ * enthaelt. Nach einem Wechsel oder einer Aenderung des SDGs, also wenn Knoten oder Kanten
+ * hinzugefuegt oder entfernt wurden, oder nach einem Wechsel des Verbands wird alles neu berechnet.
+ *
+ * Die Slices werden als sortierte Arrays von Knoten-IDs gespeichert, nicht als BitSets: ein BitSet
+ * pro kritischem Punkt braucht so viel Platz wie der ganze SDG, auch wenn der Slice klein ist.
+ */
+public class IncrementalPossibilisticNIChecker extends IFC {
+
+    private static final String PROGRESS_TITLE = "Checking possibilistic noninterference";
+
+    private final Logger debug = Log.getLogger(Log.L_SDG_INTERFERENCE_DEBUG);
+
+    private SDG checkedSDG;                         // der SDG der zwischengespeicherten ergebnisse
+    private int checkedModCount;                    // der modifikationszaehler dieses SDGs
+    private IStaticLattice<String> checkedLattice;  // der verband der zwischengespeicherten ergebnisse
+    // die annotationen beim letzten aufruf als paare (required, provided)
+    private final Map<SecurityNode, String[]> annotations = new HashMap<SecurityNode, String[]>();
+    // die aufsteigend sortierten ids der knoten im slice jedes bisher geprueften kritischen punkts
+    private final Map<SecurityNode, int[]> slices = new HashMap<SecurityNode, int[]>();
+    // die verletzungen der aktuellen kritischen punkte
+    private final Map<SecurityNode, Set<Violation>> violations = new HashMap<SecurityNode, Set<Violation>>();
+    private int rechecked = 0;
+
+    /** Erzeugt eine neue Instanz.
+     *
+     * @param sdg       Ein SDG
+     * @param lattice   Ein Sicherheitsverband
+     */
+    public IncrementalPossibilisticNIChecker(SDG sdg, IStaticLattice<String> lattice) {
+        super(sdg, lattice);
+    }
+
+    /** Berechnet, ob der SDG possibilistisch noninterferent ist.
+     *
+     * Es werden nur die kritischen Punkte geprueft, die neu sind oder deren Slice einen Knoten
+     * enthaelt, dessen Annotation sich seit dem letzten Aufruf geaendert hat.
+     *
+     * @return Eine Liste mit den gefundenen Sicherheitsverletzungen.
+     *
+     * @throws NotInLatticeException
+     */
+    public Collection<Violation> checkIFlow() throws NotInLatticeException {
+        if (g != checkedSDG || g.getModificationCount() != checkedModCount || l != checkedLattice) {
+            annotations.clear();
+            slices.clear();
+            violations.clear();
+            checkedSDG = g;
+            checkedModCount = g.getModificationCount();
+            checkedLattice = l;
+        }
+
+        // 1. bestimme die knoten mit geaenderten annotationen
+        Map<SecurityNode, String[]> current = collectAnnotations();
+        BitSet changed = new BitSet();
+
+        for (Map.Entry<SecurityNode, String[]> e : current.entrySet()) {
+            if (!Arrays.equals(e.getValue(), annotations.get(e.getKey()))) {
+                changed.set(e.getKey().getId());
+            }
+        }
+
+        for (SecurityNode n : annotations.keySet()) {
+            if (!current.containsKey(n)) {
+                changed.set(n.getId());
+            }
+        }
+
+        annotations.clear();
+        annotations.putAll(current);
+
+        int[] changedIds = toSortedArray(changed);
+
+        // 2. verwirf die ergebnisse aller kritischen punkte, deren slice einen geaenderten knoten enthaelt.
+        //    der kritische punkt selbst liegt in seinem slice.
+        for (Iterator<SecurityNode> it = violations.keySet().iterator(); it.hasNext(); ) {
+            if (intersects(slices.get(it.next()), changedIds)) {
+                it.remove();
+            }
+        }
+
+        // 3. pruefe die kritischen punkte ohne ergebnis
+        LinkedList<SecurityNode> criteria = new LinkedList<SecurityNode>();
+        for (SecurityNode n : current.keySet()) {
+            if ((n.isInformationSource() || n.isInformationSink()) && !violations.containsKey(n)) {
+                criteria.add(n);
+            }
+        }
+
+        rechecked = criteria.size();
+        debug.outln("Rechecking " + rechecked + " of " + (rechecked + violations.size()) + " criteria, "
+                + changed.cardinality() + " annotation(s) changed");
+
+        if (!criteria.isEmpty()) {
+            BarrierIFCSlicer is = new BarrierIFCSlicer(g, l);
+            int done = 0;
+
+            for (SecurityNode c : criteria) {
+                if (!slices.containsKey(c)) {
+                    BitSet slice = new BitSet();
+                    violations.put(c, is.checkIFlow(c, slice));
+                    slices.put(c, toSortedArray(slice));
+
+                } else {
+                    violations.put(c, is.checkIFlow(c, null));
+                }
+
+                progressChanged(PROGRESS_TITLE, ++done, criteria.size());
+            }
+        }
+
+        Set<Violation> ret = new HashSet<Violation>();
+        for (Set<Violation> v : violations.values()) {
+            ret.addAll(v);
+        }
+
+        progressChanged("Done", 100, 100);
+
+        return ret;
+    }
+
+    /**
+     * @return Die Anzahl der kritischen Punkte, die beim letzten Aufruf von {@link #checkIFlow()} geprueft wurden.
+     */
+    public int getRecheckedCriteria() {
+        return rechecked;
+    }
+
+    private static int[] toSortedArray(BitSet set) {
+        int[] result = new int[set.cardinality()];
+        for (int i = 0, id = set.nextSetBit(0); id >= 0; i++, id = set.nextSetBit(id + 1)) {
+            result[i] = id;
+        }
+
+        return result;
+    }
+
+    /**
+     * Prueft, ob ein Slice einen der geaenderten Knoten enthaelt. Es aendern sich meist nur wenige
+     * Annotationen, daher wird jeder geaenderte Knoten im sortierten Slice gesucht.
+     */
+    private static boolean intersects(int[] slice, int[] changed) {
+        for (int id : changed) {
+            if (Arrays.binarySearch(slice, id) >= 0) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private Map<SecurityNode, String[]> collectAnnotations() {
+        Map<SecurityNode, String[]> result = new HashMap<SecurityNode, String[]>();
+
+        for (SDGNode o : g.vertexSet()) {
+            SecurityNode n = (SecurityNode) o;
+            if (!n.isUnannotated()) {
+                result.put(n, new String[] {n.getRequired(), n.getProvided()});
+            }
+        }
+
+        return result;
+    }
+}
@@ -10,6 +10,7 @@ package edu.kit.joana.ifc.sdg.core.conc;
 import java.io.File;
 import java.io.IOException;
 import java.util.Collection;
+import java.util.concurrent.ExecutorService;
 
 import edu.kit.joana.ifc.sdg.core.IFC;
 import edu.kit.joana.ifc.sdg.core.violations.Violation;
@@ -31,6 +32,9 @@ public class PossibilisticNIChecker extends IFC {
 
 	private final Logger debug = Log.getLogger(Log.L_SDG_INTERFERENCE_DEBUG);
 	
+    // fuehrt die pruefungen der kritischen punkte aus, null fuer eine sequentielle pruefung
+    private ExecutorService executor = null;
+
     /** Erzeugt eine neue Instanz.
      *
      * @param sdg       Ein SDG
@@ -52,9 +56,24 @@ public class PossibilisticNIChecker extends IFC {
         super(sdg, lattice);
     }
 
+    /** Setzt den Executor, auf dem die kritischen Punkte parallel geprueft werden.
+     *
+     * Der Executor wird nicht heruntergefahren, das bleibt Aufgabe des Aufrufers.
+     *
+     * @param executor  Ein Executor oder null fuer eine sequentielle Pruefung.
+     */
+    public void setExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
     /** Berechnet, ob der SDG possibilistisch noninterferent ist.
      *
-     * Ruft dazu den BarrierIFCSlicer auf. Misst Ausfuehrungszeiten und aktualisiert die Progressbar.
+     * Ruft dazu den BarrierIFCSlicer auf, falls ein Executor gesetzt ist im parallelen Modus.
+     * Misst Ausfuehrungszeiten und aktualisiert die Progressbar.
      *
      * @return Eine Liste mit den gefundenen Sicherheitsverletzungen.
      *
@@ -71,7 +90,10 @@ public class PossibilisticNIChecker extends IFC {
         debug.outln("Started slicing at " + slicestart);
 
         try{
-            ret = is.checkIFlow();
+            ret = (executor == null ? is.checkIFlow() : is.checkIFlow(executor));
+        } catch(InterruptedException e) {
+        	Thread.currentThread().interrupt();
+        	Log.ERROR.outln("Possibilistic NI checker was interrupted", e);
         } catch(Exception e) {
         	Log.ERROR.outln("Exception in possibilistic NI checker", e);
         }
@@ -8,6 +8,7 @@
 package edu.kit.joana.ifc.sdg.core.conc;
 
 import java.util.Collection;
+import java.util.concurrent.ExecutorService;
 
 import edu.kit.joana.ifc.sdg.core.IFC;
 import edu.kit.joana.ifc.sdg.core.violations.Violation;
@@ -30,6 +31,9 @@ public class ProbabilisticNIChecker extends IFC {
 	private final boolean timeSens;
 	
 	private ProbabilisticNISlicer prob;
+
+	// fuehrt die teilaufgaben der pruefung aus, null fuer eine sequentielle pruefung
+	private ExecutorService executor = null;
 	
 	/**
 	 * Erzeugt eine neue Instanz.
@@ -53,6 +57,23 @@ public class ProbabilisticNIChecker extends IFC {
 		this.timeSens = timeSens;
 	}
 
+	/**
+	 * Setzt den Executor, auf dem die Konfliktkanten berechnet und die kritischen Punkte parallel
+	 * geprueft werden.
+	 * 
+	 * Der Executor wird nicht heruntergefahren, das bleibt Aufgabe des Aufrufers.
+	 * 
+	 * @param executor
+	 *            Ein Executor oder null fuer eine sequentielle Pruefung.
+	 */
+	public void setExecutor(ExecutorService executor) {
+		this.executor = executor;
+	}
+
+	public ExecutorService getExecutor() {
+		return executor;
+	}
+
 	/**
 	 * Berechnet, ob der SDG probabilistisch noninterferent ist.
 	 * 
@@ -73,7 +94,7 @@ public class ProbabilisticNIChecker extends IFC {
 		}
 
 		probInit = System.currentTimeMillis();
-		prob = ProbabilisticNISlicer.simpleCheck(g, l, mhp, this.timeSens);
+		prob = ProbabilisticNISlicer.simpleCheck(g, l, mhp, this.timeSens, executor);
 		probInit = System.currentTimeMillis() - probInit;
 
 		probCheck = System.currentTimeMillis();
@@ -8,12 +8,21 @@
 package edu.kit.joana.ifc.sdg.core.conc;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import edu.kit.joana.ifc.sdg.core.SecurityNode;
 import edu.kit.joana.ifc.sdg.core.interfaces.ProgressListener;
@@ -33,6 +42,7 @@ import edu.kit.joana.ifc.sdg.graph.slicer.conc.nanda.NandaForward;
 import edu.kit.joana.ifc.sdg.graph.slicer.graph.threads.MHPAnalysis;
 import edu.kit.joana.ifc.sdg.graph.slicer.graph.threads.PreciseMHPAnalysis;
 import edu.kit.joana.ifc.sdg.lattice.IStaticLattice;
+import edu.kit.joana.ifc.sdg.lattice.LatticeIndex;
 
 
 /**
@@ -42,10 +52,16 @@ import edu.kit.joana.ifc.sdg.lattice.IStaticLattice;
  *
  */
 public class ProbabilisticNISlicer {
+    // anzahl der interferenzkanten, die eine teilaufgabe auf data conflicts untersucht
+    private static final int INTERFERENCES_PER_TASK = 256;
+
     /**
      * Interface, das die Verwendung zweier Strategien zulaesst:
      * Entweder werden nur Quellen und Senken eines Lecks bestimmt (SimpleConflicts),
      * oder es werden zusaetzlich auch die Races bestimmt, die zu dem LEck fuehren.
+     * Die annotierten Knoten koennen parallel geprueft werden. Ihre Aktualisierungen werden dabei von
+     * RecordedConflicts aufgezeichnet und danach in der Reihenfolge der annotierten Knoten eingespielt,
+     * sodass das Ergebnis nicht von der Ausfuehrungsreihenfolge der Teilaufgaben abhaengt.
      *
      * @author giffhorn
      */
@@ -89,7 +105,7 @@ public class ProbabilisticNISlicer {
          *
          * @return Alle bisher gefundenen Konflikte.
          */
-        public Collection<Conflict> getConflicts() {
+        public synchronized Collection<Conflict> getConflicts() {
             return conflicts;
         }
 
@@ -102,7 +118,7 @@ public class ProbabilisticNISlicer {
          * @param source  Quelle des Lecks.
          * @param edge    Vom Typ SDGEdge.Kind.CONFLICT_DATA oder SDGEdge.Kind.CONFLICT_ORDER.
          */
-        public void updateConflicts(SecurityNode sink, SecurityNode source, SDGEdge edge, String attackerLevel) {
+        public synchronized void updateConflicts(SecurityNode sink, SecurityNode source, SDGEdge edge, String attackerLevel) {
             if (edge.getKind() == SDGEdge.Kind.CONFLICT_DATA) {
                 // erzeuge neuen Conflict
                 Conflict con  = new Conflict(sink, source, attackerLevel);
@@ -141,7 +157,7 @@ public class ProbabilisticNISlicer {
          *
          * @return Alle bisher gefundenen Konflikte.
          */
-        public Collection<Conflict> getConflicts() {
+        public synchronized Collection<Conflict> getConflicts() {
             return conflicts.values();
         }
 
@@ -158,7 +174,7 @@ public class ProbabilisticNISlicer {
          * @param source  Quelle des Lecks.
          * @param edge    Vom Typ SDGEdge.Kind.CONFLICT_DATA oder SDGEdge.Kind.CONFLICT_ORDER.
          */
-        public void updateConflicts(SecurityNode sink, SecurityNode source, SDGEdge edge, String attackerLevel) {
+        public synchronized void updateConflicts(SecurityNode sink, SecurityNode source, SDGEdge edge, String attackerLevel) {
             if (edge.getKind() == SDGEdge.Kind.CONFLICT_DATA) {
                 // hole den Conflict aus der map und fuege die kante hinzu
                 Conflict con  = new Conflict(sink, source, attackerLevel);
@@ -182,6 +198,42 @@ public class ProbabilisticNISlicer {
         }
     }
 
+    /**
+     * Zeichnet die Aktualisierungen der Konfliktliste auf, die bei der Pruefung eines annotierten Knotens
+     * anfallen, und gibt sie spaeter unveraendert an einen anderen ConflictManager weiter.
+     */
+    private static class RecordedConflicts implements ConflictManager {
+        private final List<SecurityNode> sinks = new ArrayList<SecurityNode>();
+        private final List<SecurityNode> sources = new ArrayList<SecurityNode>();
+        private final List<SDGEdge> edges = new ArrayList<SDGEdge>();
+        private final List<String> attackerLevels = new ArrayList<String>();
+        // laufzeiten der suche nach order und data channels
+        private long order;
+        private long data;
+
+        public Collection<Conflict> getConflicts() {
+            throw new UnsupportedOperationException("Conflicts are only recorded.");
+        }
+
+        public void updateConflicts(SecurityNode sink, SecurityNode source, SDGEdge edge, String attackerLevel) {
+            sinks.add(sink);
+            sources.add(source);
+            edges.add(edge);
+            attackerLevels.add(attackerLevel);
+        }
+
+        /**
+         * Spielt die aufgezeichneten Aktualisierungen in der Reihenfolge ihres Auftretens ein.
+         *
+         * @param conf  Der ConflictManager, der die Konflikte verwaltet.
+         */
+        void replay(ConflictManager conf) {
+            for (int i = 0; i < edges.size(); i++) {
+                conf.updateConflicts(sinks.get(i), sources.get(i), edges.get(i), attackerLevels.get(i));
+            }
+        }
+    }
+
     /**
      * Berechnet die Konfliktkanten im SDG.
      * Startpunkt ist Methode addConflictEdges()
@@ -195,20 +247,22 @@ public class ProbabilisticNISlicer {
      */
     private class ConflictEdgeManager {
     	private final boolean timeSens;
-    	private HashMap<SDGNode, Collection<SDGNode>> before = new HashMap<SDGNode, Collection<SDGNode>>();
+    	// bildet jeden knoten, der an einem konflikt beteiligt sein kann, auf die indizes (in sourceList) der
+    	// quellen ab, die ihn beeinflussen koennen
+    	private HashMap<SDGNode, BitSet> influencedBy = new HashMap<SDGNode, BitSet>();
     	private List<SDGEdge> dataConflictEdges = new LinkedList<SDGEdge>();
     	private List<SDGEdge> orderConflictEdges = new LinkedList<SDGEdge>();
-    	
+
     	ConflictEdgeManager(boolean timeSens) {
     		this.timeSens = timeSens;
     	}
-    	
+
     	/**
          * Berechnet die Konfliktkanten, die spaeter in den SDG eingefuegt werden muessen.
          */
         void computeConflictEdges() {
             // berechne die potentiellen trigger der conflicts
-        	computeBeforeMap();
+        	computeInfluencedBy();
             computeOrderConflicts();
             computeDataConflicts();
 
@@ -220,96 +274,113 @@ public class ProbabilisticNISlicer {
 
         /**
          * Fuegt Kanten fuer order conflicts ein. Ausserdem wird die 'orderConflicts2Triggers'-Map befuellt.
+         * Die Paare werden pro Knoten m parallel untersucht.
          */
         private void computeOrderConflicts() {
             // sammel alle quellen und senken ein
-            Collection<SecurityNode> annotatedNodes = new HashSet<SecurityNode>();
-            annotatedNodes.addAll(sources);
-            annotatedNodes.addAll(sinks);
-
-            for (SecurityNode m : annotatedNodes) {
-                for (SecurityNode n : annotatedNodes) {
-                    // falls m und n parallel sind, potentieller order-konflikt m -> n
-                    if (mhp.isParallel(m, n)) {
-                    	// teste, ob konflikt harmlos ist
-                    	HashSet<SecurityNode> triggers = trigger(m, n);
-                    	HashSet<SecurityNode> refined = new HashSet<SecurityNode>();
-
-                    	// ermittle mindest-angreifer
-                    	String mLevel = (m.isInformationSink()? m.getRequired() : m.getProvided());
-                    	String nLevel = (n.isInformationSink()? n.getRequired() : n.getProvided());
-                    	String attacker = l.leastUpperBound(mLevel, nLevel);
-
-                    	// jeder bzgl. des Konflikts geheime Trigger ist gefaehrlich (hier kann Information ueber die
-                    	// Ausfuehrungsreihenfolge der am Konflikt beteiligten Knoten fliessen)
-                    	for (SecurityNode t : triggers) {
-                    		// teste, ob t geheime infos hat bzgl. des attackers
-                    		if (!l.leastUpperBound(t.getProvided(), attacker).equals(attacker)) {
-                    			refined.add(t); // geheime Information beeinflusst den Order-Conflict
-                    		}
-                    	}
-
-                    	// wenn refined leer ist, ist der konflikt harmlos (es gibt keine geheimen trigger, also
-                    	// verraet die Ausfuehrungsreihenfolge nichts, was nicht verraten werden soll)
-                    	if (!refined.isEmpty()) {
-    	                	SDGEdge edge = new SDGEdge(m, n, SDGEdge.Kind.CONFLICT_ORDER);
-    	                	orderConflictEdges.add(edge);
-    	                    orderConflicts2Triggers.put(edge, triggers);
-//    	                    System.out.println("ORDER CONFLICT: "+m+" <-> "+n);
-                    	}
-                    }
-                }
+            Collection<SecurityNode> annotated = new HashSet<SecurityNode>();
+            annotated.addAll(sources);
+            annotated.addAll(sinks);
+            final List<SecurityNode> annotatedNodes = new ArrayList<SecurityNode>(annotated);
+            List<Callable<Map<SDGEdge, HashSet<SecurityNode>>>> tasks =
+            		new ArrayList<Callable<Map<SDGEdge, HashSet<SecurityNode>>>>(annotatedNodes.size());
+
+            for (final SecurityNode m : annotatedNodes) {
+            	tasks.add(new Callable<Map<SDGEdge, HashSet<SecurityNode>>>() {
+            		public Map<SDGEdge, HashSet<SecurityNode>> call() {
+            			Map<SDGEdge, HashSet<SecurityNode>> result = new LinkedHashMap<SDGEdge, HashSet<SecurityNode>>();
+
+            			for (SecurityNode n : annotatedNodes) {
+            				// falls m und n parallel sind, potentieller order-konflikt m -> n
+            				if (mhp.isParallel(m, n)) {
+            					// teste, ob konflikt harmlos ist
+            					HashSet<SecurityNode> triggers = trigger(m, n);
+
+            					// ermittle mindest-angreifer
+            					String mLevel = (m.isInformationSink()? m.getRequired() : m.getProvided());
+            					String nLevel = (n.isInformationSink()? n.getRequired() : n.getProvided());
+            					int attackerIndex = index.leastUpperBound(index.indexOf(mLevel), index.indexOf(nLevel));
+
+            					// jeder bzgl. des Konflikts geheime Trigger ist gefaehrlich (hier kann Information ueber die
+            					// Ausfuehrungsreihenfolge der am Konflikt beteiligten Knoten fliessen)
+            					// wenn es keinen gibt, ist der konflikt harmlos (die Ausfuehrungsreihenfolge verraet
+            					// nichts, was nicht verraten werden soll)
+            					for (SecurityNode t : triggers) {
+            						// teste, ob t geheime infos hat bzgl. des attackers
+            						if (!index.isLowerOrEqual(index.indexOf(t.getProvided()), attackerIndex)) {
+            							result.put(new SDGEdge(m, n, SDGEdge.Kind.CONFLICT_ORDER), triggers);
+//            							System.out.println("ORDER CONFLICT: "+m+" <-> "+n);
+            							break;
+            						}
+            					}
+            				}
+            			}
+
+            			return result;
+            		}
+            	});
+            }
+
+            for (Map<SDGEdge, HashSet<SecurityNode>> conflicts : invokeAll(tasks)) {
+            	orderConflictEdges.addAll(conflicts.keySet());
+            	orderConflicts2Triggers.putAll(conflicts);
             }
         }
 
         /**
          * Fuegt Kanten fuer data conflicts ein. Ausserdem wird hier die {@link ProbabilisticNISlicer#triggersToDataConflicts}-Map befuellt.
+         * Die Interferenzkanten werden in Bloecken parallel untersucht.
          */
         private void computeDataConflicts() {
-        	
             // suche nach interferenzen -> potentielle data-konflikte
+        	final List<SDGEdge> interferences = new ArrayList<SDGEdge>();
             for (SDGEdge edge : g.edgeSet()) {
-                if (edge.getKind() == SDGEdge.Kind.INTERFERENCE) {
-                	// teste, ob er harmlos ist
-                	HashSet<SecurityNode> triggers = trigger((SecurityNode)edge.getSource(), (SecurityNode)edge.getTarget());
-                	if (!triggers.isEmpty()) {
-                    	SDGEdge e = new SDGEdge(edge.getSource(), edge.getTarget(), SDGEdge.Kind.CONFLICT_DATA);
-                        dataConflictEdges.add(e);
-
-
-                        for (SecurityNode n : triggers) {
-                        	HashSet<SDGEdge> dataConflicts = triggersToDataConflicts.get(n);
-                        	if (dataConflicts == null) {
-                        		dataConflicts = new HashSet<SDGEdge>();
-                        		triggersToDataConflicts.put(n, dataConflicts);
-                        	}
-                        	dataConflicts.add(e);
-                        }
-                	}
-
-                } else if (edge.getKind() == SDGEdge.Kind.INTERFERENCE_WRITE) {
-
-                	// teste, ob er harmlos ist
-                	HashSet<SecurityNode> triggers = trigger((SecurityNode)edge.getSource(), (SecurityNode)edge.getTarget());
-                	if (!triggers.isEmpty()) {
-                        // bidirected conflict
-                    	SDGEdge e = new SDGEdge(edge.getSource(), edge.getTarget(), SDGEdge.Kind.CONFLICT_DATA);
-                    	SDGEdge f = new SDGEdge(edge.getTarget(), edge.getSource(), SDGEdge.Kind.CONFLICT_DATA);
-                    	dataConflictEdges.add(e);
-                    	dataConflictEdges.add(f);
-
-                        for (SecurityNode trigger : triggers) {
-                        	HashSet<SDGEdge> dataConflicts = triggersToDataConflicts.get(trigger);
-                        	if (dataConflicts == null) {
-                        		dataConflicts = new HashSet<SDGEdge>();
-                        		triggersToDataConflicts.put(trigger, dataConflicts);
-                        	}
-                        	dataConflicts.add(e);
-                        	dataConflicts.add(f); // evtl. ueberfluessig
-                        }
-                	}
+                if (edge.getKind() == SDGEdge.Kind.INTERFERENCE || edge.getKind() == SDGEdge.Kind.INTERFERENCE_WRITE) {
+                	interferences.add(edge);
                 }
             }
+
+            List<Callable<Map<SDGEdge, HashSet<SecurityNode>>>> tasks = new ArrayList<Callable<Map<SDGEdge, HashSet<SecurityNode>>>>();
+
+            for (int start = 0; start < interferences.size(); start += INTERFERENCES_PER_TASK) {
+            	final List<SDGEdge> block = interferences.subList(start, Math.min(start + INTERFERENCES_PER_TASK, interferences.size()));
+
+            	tasks.add(new Callable<Map<SDGEdge, HashSet<SecurityNode>>>() {
+            		public Map<SDGEdge, HashSet<SecurityNode>> call() {
+            			Map<SDGEdge, HashSet<SecurityNode>> result = new LinkedHashMap<SDGEdge, HashSet<SecurityNode>>();
+
+            			for (SDGEdge edge : block) {
+            				// teste, ob er harmlos ist
+            				HashSet<SecurityNode> triggers = trigger((SecurityNode)edge.getSource(), (SecurityNode)edge.getTarget());
+            				if (triggers.isEmpty()) continue;
+
+            				result.put(new SDGEdge(edge.getSource(), edge.getTarget(), SDGEdge.Kind.CONFLICT_DATA), triggers);
+
+            				if (edge.getKind() == SDGEdge.Kind.INTERFERENCE_WRITE) {
+            					// bidirected conflict
+            					result.put(new SDGEdge(edge.getTarget(), edge.getSource(), SDGEdge.Kind.CONFLICT_DATA), triggers);
+            				}
+            			}
+
+            			return result;
+            		}
+            	});
+            }
+
+            for (Map<SDGEdge, HashSet<SecurityNode>> conflicts : invokeAll(tasks)) {
+            	for (Map.Entry<SDGEdge, HashSet<SecurityNode>> c : conflicts.entrySet()) {
+            		dataConflictEdges.add(c.getKey());
+
+            		for (SecurityNode n : c.getValue()) {
+            			HashSet<SDGEdge> dataConflicts = triggersToDataConflicts.get(n);
+            			if (dataConflicts == null) {
+            				dataConflicts = new HashSet<SDGEdge>();
+            				triggersToDataConflicts.put(n, dataConflicts);
+            			}
+            			dataConflicts.add(c.getKey());
+            		}
+            	}
+            }
         }
 
         /**
@@ -322,68 +393,103 @@ public class ProbabilisticNISlicer {
         private HashSet<SecurityNode> trigger(SecurityNode a, SecurityNode b) {
         	HashSet<SecurityNode> triggers = new HashSet<SecurityNode>();
 
-            // jede quelle wird untersucht; sie muss entweder parallel zu a bzw b sein oder im CFG-slice von b bzw a liegen
-            for (SecurityNode n : sources) {
-            	/**
-            	 * n kann den Konflikt beeinflussen, wenn sowohl fuer x=a als auch fuer x=b entweder MHP(n,x) gilt, oder
-            	 * x nach n im CFG ausgefuehrt werden kann (n beeinflusst also sowohl den einen als auch den anderen
-            	 * Konfliktknoten).
-            	 */
-            	if ((before.get(n).contains(a) || mhp.isParallel(n, a))
-            			&& (before.get(n).contains(b) || mhp.isParallel(n, b))) {
-            		// kann den konflikt beeinflussen
-            		triggers.add(n);
-            	}
-            }
+        	/**
+        	 * n kann den Konflikt beeinflussen, wenn sowohl fuer x=a als auch fuer x=b entweder MHP(n,x) gilt, oder
+        	 * x nach n im CFG ausgefuehrt werden kann (n beeinflusst also sowohl den einen als auch den anderen
+        	 * Konfliktknoten).
+        	 */
+        	BitSet both = (BitSet) influencedBy.get(a).clone();
+        	both.and(influencedBy.get(b));
+
+        	for (int i = both.nextSetBit(0); i >= 0; i = both.nextSetBit(i + 1)) {
+        		triggers.add(sourceList.get(i));
+        	}
 
             return triggers;
         }
 
         /**
-         * Initialisiert die Map 'before'. before.get(n) enthaelt alle Knoten die im CFG nach n ausgefuehrt werden
-         * und damit von n beeinflusst werden koennten (CFG forward slice)
+         * Initialisiert die Map 'influencedBy'. Eine Quelle n beeinflusst einen Knoten x, falls x im CFG nach n
+         * ausgefuehrt werden kann (CFG forward slice, zeitsensitiv eingeschraenkt) oder parallel zu n ist.
+         * Es werden nur die Knoten betrachtet, die an einem Konflikt beteiligt sein koennen: die Quellen, die Senken
+         * und die Endpunkte der Interferenzkanten. Die Slices der Quellen werden parallel berechnet.
          */
-        private void computeBeforeMap() {
-        	CFGSlicer slicer = new CFGForward(g);
-        	
-        	for (SDGNode n : sources) {
-        		Collection<SDGNode> s = slicer.slice(n);
-        		before.put(n, s);
+        private void computeInfluencedBy() {
+        	// die knoten, die an einem konflikt beteiligt sein koennen
+        	Set<SDGNode> involvedSet = new LinkedHashSet<SDGNode>();
+        	involvedSet.addAll(sources);
+        	involvedSet.addAll(sinks);
+        	for (SDGEdge edge : g.edgeSet()) {
+        		if (edge.getKind() == SDGEdge.Kind.INTERFERENCE || edge.getKind() == SDGEdge.Kind.INTERFERENCE_WRITE) {
+        			involvedSet.add(edge.getSource());
+        			involvedSet.add(edge.getTarget());
+        		}
         	}
-        	
-        	if (this.timeSens) {
-        		Nanda tsfwSlicer = new Nanda(g, new NandaForward());
-        		for (SDGNode n : sources) {
-        			Collection<SDGNode> tsfwSliceOfN = tsfwSlicer.slice(n);
-        			Collection<SDGNode> maybeInfluenced = before.get(n);
-        			maybeInfluenced.retainAll(tsfwSliceOfN);
-        			before.put(n, maybeInfluenced);
+
+        	final List<SDGNode> involved = new ArrayList<SDGNode>(involvedSet);
+        	final CFGSlicer slicer = new CFGForward(g);
+        	List<Callable<BitSet>> tasks = new ArrayList<Callable<BitSet>>(sourceList.size());
+
+        	for (final SecurityNode n : sourceList) {
+        		tasks.add(new Callable<BitSet>() {
+        			public BitSet call() {
+        				Collection<SDGNode> maybeInfluenced = slicer.slice(n);
+
+        				if (timeSens) {
+        					Collection<SDGNode> tsfwSliceOfN = new Nanda(nanda, new NandaForward()).slice(n);
+        					maybeInfluenced.retainAll(tsfwSliceOfN);
+        				}
+
+        				// die indizes (in involved) der von n beeinflussten knoten
+        				BitSet result = new BitSet(involved.size());
+        				for (int i = 0; i < involved.size(); i++) {
+        					SDGNode x = involved.get(i);
+        					if (maybeInfluenced.contains(x) || mhp.isParallel(n, x)) {
+        						result.set(i);
+        					}
+        				}
+
+        				return result;
+        			}
+        		});
+        	}
+
+        	List<BitSet> influences = invokeAll(tasks);
+
+        	for (SDGNode x : involved) {
+        		influencedBy.put(x, new BitSet(sourceList.size()));
+        	}
+
+        	for (int s = 0; s < influences.size(); s++) {
+        		BitSet influenced = influences.get(s);
+        		for (int i = influenced.nextSetBit(0); i >= 0; i = influenced.nextSetBit(i + 1)) {
+        			influencedBy.get(involved.get(i)).set(s);
         		}
         	}
         }
-        
+
         void addConflictEdges() {
         	for (SDGEdge e : orderConflictEdges) {
         		g.addEdge(e);
         	}
-        	
+
         	for (SDGEdge e : dataConflictEdges) {
         		g.addEdge(e);
         	}
         }
-        
+
         void removeConflictEdges() {
         	for (SDGEdge e : orderConflictEdges) {
         		g.removeEdge(e);
         	}
-        	
+
         	for (SDGEdge e : dataConflictEdges) {
         		g.removeEdge(e);
         	}
-        	
+
         }
-        
-        
+
+
     }
 
 
@@ -391,6 +497,8 @@ public class ProbabilisticNISlicer {
 
     // der lattice
     private IStaticLattice<String> l;
+    // die nummerierung seiner elemente
+    private LatticeIndex<String> index;
     // der SDG
     private SDG g;
     // eine MHP-analyse
@@ -416,12 +524,18 @@ public class ProbabilisticNISlicer {
     private HashMap<SecurityNode, HashSet<SDGEdge>> triggersToDataConflicts;
     // der zu verwendende ConflictManager
     private ConflictManager conf;
+    // fuehrt die parallelen teilaufgaben aus, null fuer eine sequentielle pruefung
+    private ExecutorService executor;
+    // die gemeinsamen kontextgraphen der zeitsensitiven slicer, null falls nicht zeitsensitiv
+    private Nanda nanda;
     
     private ConflictEdgeManager confEdgeMan;
 
     // quellen und senken werden dazwischengespeichert
     private Collection<SecurityNode> sources;
     private Collection<SecurityNode> sinks;
+    // die quellen in fester reihenfolge, als indizes der bitmengen in ConflictEdgeManager
+    private List<SecurityNode> sourceList;
     
     private boolean timeSens;
 
@@ -438,15 +552,40 @@ public class ProbabilisticNISlicer {
     }
     
     public ProbabilisticNISlicer(SDG g, IStaticLattice<String> l, ConflictManager conf, MHPAnalysis mhp, boolean timeSens) {
+        this(g, l, conf, mhp, timeSens, null);
+    }
+
+    /**
+     * Initialisiert die Analyse und fuegt Konfliktkanten in den SDG ein.
+     *
+     * Die Berechnung der Konfliktkanten und die Pruefung der annotierten Knoten werden in unabhaengige
+     * Teilaufgaben zerlegt, die auf dem uebergebenen Executor laufen. Der SDG wird dabei nur gelesen.
+     * Der Executor wird nicht heruntergefahren, das bleibt Aufgabe des Aufrufers.
+     *
+     * @param g         Ein SDG.
+     * @param l         Ein Sicherheitsverband.
+     * @param conf      Ein ConflictManager.
+     * @param mhp       Eine MHP-Analyse des SDGs.
+     * @param timeSens  Ob zeitsensitiv geslicet wird.
+     * @param executor  Ein Executor oder null fuer eine sequentielle Pruefung.
+     */
+    public ProbabilisticNISlicer(SDG g, IStaticLattice<String> l, ConflictManager conf, MHPAnalysis mhp, boolean timeSens,
+    		ExecutorService executor) {
     	 this.l = l;
+         this.index = new LatticeIndex<String>(l);
          this.g = g;
          this.conf = conf;
          this.mhp = mhp;
          this.timeSens = timeSens;
+         this.executor = executor;
+         if (timeSens) {
+        	 nanda = new Nanda(g, new NandaBackward());
+         }
          orderConflicts2Triggers = new HashMap<SDGEdge, HashSet<SecurityNode>>();
          triggersToDataConflicts = new HashMap<SecurityNode, HashSet<SDGEdge>>();
          sources = SDGTools.getInformationSources(g);
          sinks = SDGTools.getInformationSinks(g);
+         sourceList = new ArrayList<SecurityNode>(sources);
          this.confEdgeMan = new ConflictEdgeManager(this.timeSens);
          confEdgeMan.computeConflictEdges();
     }
@@ -454,6 +593,7 @@ public class ProbabilisticNISlicer {
 
 
     /** Fuehrt den Sicherheitscheck aus.
+     * Die annotierten Knoten werden unabhaengig voneinander geprueft, mit einem Executor parallel.
      *
      * @return Die Menge der gefundenen Sicherheitsverletzungen.
      */
@@ -461,26 +601,90 @@ public class ProbabilisticNISlicer {
         // bestimme alle annotierten knoten
         LinkedList<Element> criteria = collectCriteria();
         Set<Violation> set = new HashSet<Violation>();
-        confEdgeMan.addConflictEdges();
+        List<Callable<RecordedConflicts>> tasks = new ArrayList<Callable<RecordedConflicts>>(criteria.size());
+
         // pruefe jeden annotierten knoten auf probabilistische noninterferenz
-        for (Element e : criteria) {
-        	// suche order channels
-            long tmp = System.currentTimeMillis();
-        	orderChannels(e);
-        	tmp = System.currentTimeMillis() - tmp;
-        	orderChannels += tmp;
-        	// suche data channels
-        	tmp = System.currentTimeMillis();
-            dataChannels(e);
-        	tmp = System.currentTimeMillis() - tmp;
-        	dataChannels += tmp;
+        for (final Element e : criteria) {
+        	tasks.add(new Callable<RecordedConflicts>() {
+        		public RecordedConflicts call() {
+        			RecordedConflicts rec = new RecordedConflicts();
+        			// suche order channels
+        			long order = System.currentTimeMillis();
+        			orderChannels(e, rec);
+        			rec.order = System.currentTimeMillis() - order;
+        			// suche data channels
+        			long data = System.currentTimeMillis();
+        			dataChannels(e, rec);
+        			rec.data = System.currentTimeMillis() - data;
+
+        			return rec;
+        		}
+        	});
+        }
+
+        confEdgeMan.addConflictEdges();
+        try {
+        	// in der reihenfolge der annotierten knoten einspielen, wie bei der sequentiellen pruefung
+        	for (RecordedConflicts rec : invokeAll(tasks)) {
+        		orderChannels += rec.order;
+        		dataChannels += rec.data;
+        		rec.replay(conf);
+        	}
+        } finally {
+        	confEdgeMan.removeConflictEdges();
         }
-        confEdgeMan.removeConflictEdges();
         set.addAll(conf.getConflicts());
 
         return set;
     }
 
+    /**
+     * Fuehrt die Teilaufgaben auf dem Executor aus, ohne Executor nacheinander im aufrufenden Thread.
+     *
+     * @return Die Ergebnisse in der Reihenfolge der Teilaufgaben.
+     * @throws CancellationException  Falls der aufrufende Thread beim Warten unterbrochen wird.
+     */
+    private <T> List<T> invokeAll(List<Callable<T>> tasks) {
+        List<T> results = new ArrayList<T>(tasks.size());
+
+        try {
+        	if (executor == null) {
+        		for (Callable<T> task : tasks) {
+        			results.add(task.call());
+        		}
+
+        	} else {
+        		for (Future<T> f : executor.invokeAll(tasks)) {
+        			results.add(f.get());
+        		}
+        	}
+
+        } catch (InterruptedException exc) {
+        	Thread.currentThread().interrupt();
+        	CancellationException cancel = new CancellationException("Interrupted while checking probabilistic noninterference");
+        	cancel.initCause(exc);
+        	throw cancel;
+
+        } catch (ExecutionException exc) {
+        	Throwable cause = exc.getCause();
+        	if (cause instanceof RuntimeException) {
+        		throw (RuntimeException) cause;
+        	} else if (cause instanceof Error) {
+        		throw (Error) cause;
+        	}
+
+        	throw new IllegalStateException(cause);
+
+        } catch (RuntimeException exc) {
+        	throw exc;
+
+        } catch (Exception exc) {
+        	throw new IllegalStateException(exc);
+        }
+
+        return results;
+    }
+
     public long dataChannels;
     public long orderChannels;
 
@@ -518,8 +722,9 @@ public class ProbabilisticNISlicer {
      * Untersucht das Programm nach Probabilistic Order Channels.
      *
      * @param element  Ein annotierter Knoten.
+     * @param conf     Nimmt die gefundenen Lecks auf.
      */
-    private void orderChannels(Element element) {
+    private void orderChannels(Element element, ConflictManager conf) {
     	/**
     	 * Is this element influenced by an order conflict, which has been triggered by a secret source
     	 */
@@ -560,13 +765,14 @@ public class ProbabilisticNISlicer {
      * Untersucht das Programm nach Probabilistic Data Channels.
      *
      * @param element  Ein annotierter Knoten.
+     * @param conf     Nimmt die gefundenen Lecks auf.
      */
-    private void dataChannels(Element element) {
+    private void dataChannels(Element element, ConflictManager conf) {
 
         DataConflictCollector confCollector = new DataConflictCollector();
         Slicer slicer;
         if (this.timeSens) {
-        	slicer = new Nanda(g, new NandaBackward(), confCollector);
+        	slicer = new Nanda(nanda, new NandaBackward(), confCollector);
         } else {
         	slicer = new AdhocBackwardSlicer(g, confCollector);
         }
@@ -578,10 +784,11 @@ public class ProbabilisticNISlicer {
          * Now, check if one of these data conflicts is influenced by a secret (relative to the security
          * level of the given element) source.
          */
+        int elementLevel = index.indexOf(element.label);
         for (SecurityNode source : sources) {
 
 
-        	if (l.leastUpperBound(source.getProvided(), element.label).equals(element.label)) {
+        	if (index.isLowerOrEqual(index.indexOf(source.getProvided()), elementLevel)) {
         		/**
             	 * All sources which are 'not secret enough' can safely be ignored.
             	 */
@@ -643,4 +850,14 @@ public class ProbabilisticNISlicer {
     public static ProbabilisticNISlicer detailedCheck(SDG g, IStaticLattice<String> l, MHPAnalysis mhp, boolean timeSens) {
     	return new ProbabilisticNISlicer(g, l, new DetailedConflicts(), mhp, timeSens);
     }
+
+    public static ProbabilisticNISlicer simpleCheck(SDG g, IStaticLattice<String> l, MHPAnalysis mhp, boolean timeSens,
+    		ExecutorService executor) {
+    	return new ProbabilisticNISlicer(g, l, new SimpleConflicts(), mhp, timeSens, executor);
+    }
+
+    public static ProbabilisticNISlicer detailedCheck(SDG g, IStaticLattice<String> l, MHPAnalysis mhp, boolean timeSens,
+    		ExecutorService executor) {
+    	return new ProbabilisticNISlicer(g, l, new DetailedConflicts(), mhp, timeSens, executor);
+    }
 }
@@ -0,0 +1,209 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.ifc.sdg.core.conc;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import edu.kit.joana.ifc.sdg.core.SecurityNode;
+import edu.kit.joana.ifc.sdg.graph.SDG;
+import edu.kit.joana.ifc.sdg.graph.SDGEdge;
+import edu.kit.joana.ifc.sdg.graph.SDGNode;
+import edu.kit.joana.ifc.sdg.graph.slicer.graph.building.GraphModifier;
+import edu.kit.joana.ifc.sdg.lattice.IStaticLattice;
+import edu.kit.joana.ifc.sdg.lattice.LatticeIndex;
+
+
+/** Die Deklassifikationen an den Summary-Kanten eines SDGs.
+ *
+ * Eine Summary-Kante traegt die Deklassifikation r, falls jeder von ihr zusammengefasste Pfad
+ * ueber eine Deklassifikation fuehrt, die r erlaubt. Die Barrieren aller Regeln werden in einem
+ * gemeinsamen Durchlauf mit {@link GraphModifier#blockSummaryEdges(SDG, List)} berechnet.
+ *
+ * Das Ergebnis wird pro SDG zwischengespeichert und von {@link BarrierIFCSlicer} und den modularen
+ * Analysen in <code>edu.kit.joana.ifc.sdg.core.libraries</code> geteilt. Es wird neu berechnet,
+ * sobald sich der Verband, die Deklassifikationen oder der Graph geaendert haben. Aenderungen am Graphen
+ * werden ueber {@link SDG#getModificationCount()} erkannt, also jedes Einfuegen oder Entfernen eines
+ * Knotens oder einer Kante.
+ * Instanzen werden nach der Erzeugung nicht mehr veraendert.
+ */
+public final class SummaryDeclassification {
+
+    private static final Map<SDG, SummaryDeclassification> CACHE = new WeakHashMap<SDG, SummaryDeclassification>();
+
+    private final IStaticLattice<String> lattice;           // null, falls nur blockedByAll berechnet wurde
+    private final LatticeIndex<String> index;               // nummerierung der sicherheitslevel
+    private final Map<SDGNode, Rule> declassifications;     // die deklassifikationen bei der berechnung
+    private final int modCount;                             // der aenderungszaehler des SDGs bei der berechnung
+    private final Map<SDGEdge, Set<Rule>> rules;            // deklassifikationen an den summary-kanten
+    private final Set<SDGEdge> blockedByAll;                // von allen deklassifikationen blockierte summary-kanten
+
+    private SummaryDeclassification(SDG g, IStaticLattice<String> l, LatticeIndex<String> index,
+            Map<SDGNode, Rule> declassifications) {
+        this.lattice = l;
+        this.index = index;
+        this.declassifications = declassifications;
+        this.modCount = g.getModificationCount();
+
+        // 1. collect the different declassification rules in the SDG
+        List<Rule> distinct = new ArrayList<Rule>(new HashSet<Rule>(declassifications.values()));
+        List<Set<SDGNode>> barriers = new ArrayList<Set<SDGNode>>(distinct.size() + 1);
+
+        if (l != null) {
+            // 2. for every rule, collect all declassifications which allow that rule:
+            //    a declassification n allows r, if n.required <= r.in and r.out <= n.provided
+            int[] in = new int[distinct.size()];
+            int[] out = new int[distinct.size()];
+
+            for (int i = 0; i < distinct.size(); i++) {
+                in[i] = index.indexOf(distinct.get(i).in);
+                out[i] = index.indexOf(distinct.get(i).out);
+                barriers.add(new HashSet<SDGNode>());
+            }
+
+            for (Map.Entry<SDGNode, Rule> e : declassifications.entrySet()) {
+                int req = index.indexOf(e.getValue().in);
+                int prov = index.indexOf(e.getValue().out);
+
+                for (int i = 0; i < distinct.size(); i++) {
+                    if (index.isLowerOrEqual(req, in[i]) && index.isLowerOrEqual(out[i], prov)) {
+                        barriers.get(i).add(e.getKey());
+                    }
+                }
+            }
+        }
+
+        // the barrier of all declassifications
+        barriers.add(declassifications.keySet());
+
+        // 3. compute the summary declassifications of all rules at once
+        List<Collection<SDGEdge>> blocked = GraphModifier.blockSummaryEdges(g, barriers);
+        HashMap<SDGEdge, Set<Rule>> result = new HashMap<SDGEdge, Set<Rule>>();
+
+        for (int i = 0; i < barriers.size() - 1; i++) {
+            Rule r = distinct.get(i);
+
+            for (SDGEdge e : blocked.get(i)) {
+                Set<Rule> set = result.get(e);
+
+                if (set == null) {
+                    set = new HashSet<Rule>();
+                    result.put(e, set);
+                }
+
+                set.add(r);
+            }
+        }
+
+        for (Map.Entry<SDGEdge, Set<Rule>> e : result.entrySet()) {
+            e.setValue(Collections.unmodifiableSet(e.getValue()));
+        }
+
+        this.rules = Collections.unmodifiableMap(result);
+        this.blockedByAll = Collections.unmodifiableSet(new HashSet<SDGEdge>(blocked.get(barriers.size() - 1)));
+    }
+
+    /**
+     * Liefert die Summary-Deklassifikationen eines annotierten SDGs.
+     *
+     * @param g  Ein SDG.
+     * @param l  Ein zum SDG passender Sicherheitsverband.
+     * @return   Die Summary-Deklassifikationen, moeglicherweise aus einer frueheren Berechnung.
+     */
+    public static SummaryDeclassification get(SDG g, IStaticLattice<String> l) {
+        return get(g, l, null);
+    }
+
+    /**
+     * Liefert die Summary-Deklassifikationen eines annotierten SDGs und verwendet dabei
+     * eine bereits berechnete Nummerierung des Verbands.
+     *
+     * @param g      Ein SDG.
+     * @param index  Die Nummerierung eines zum SDG passenden Sicherheitsverbands.
+     * @return       Die Summary-Deklassifikationen, moeglicherweise aus einer frueheren Berechnung.
+     */
+    public static SummaryDeclassification get(SDG g, LatticeIndex<String> index) {
+        return get(g, index.getLattice(), index);
+    }
+
+    /**
+     * Liefert die von der Menge aller Deklassifikationen blockierten Summary-Kanten.
+     * Dafuer wird kein Sicherheitsverband benoetigt.
+     *
+     * @param g  Ein annotierter SDG.
+     * @return   Die Summary-Kanten, deren zusammengefasste Pfade alle ueber eine Deklassifikation fuehren.
+     */
+    public static Set<SDGEdge> blockedByAllDeclassifications(SDG g) {
+        return get(g, null, null).blockedByAll;
+    }
+
+    private static synchronized SummaryDeclassification get(SDG g, IStaticLattice<String> l, LatticeIndex<String> index) {
+        Map<SDGNode, Rule> declassifications = collectDeclassifications(g);
+        SummaryDeclassification cached = CACHE.get(g);
+
+        if (cached != null
+                && (l == null || cached.lattice == l)
+                && cached.modCount == g.getModificationCount()
+                && cached.declassifications.equals(declassifications)) {
+            return cached;
+        }
+
+        if (index == null && l != null) {
+            index = (cached != null && cached.lattice == l ? cached.index : new LatticeIndex<String>(l));
+        }
+
+        SummaryDeclassification result = new SummaryDeclassification(g, l, index, declassifications);
+        CACHE.put(g, result);
+
+        return result;
+    }
+
+    private static Map<SDGNode, Rule> collectDeclassifications(SDG g) {
+        HashMap<SDGNode, Rule> result = new HashMap<SDGNode, Rule>();
+
+        for (SDGNode nn : g.vertexSet()) {
+            SecurityNode n = (SecurityNode) nn;
+            if (n.isDeclassification()) {
+                Rule r = new Rule();
+                r.in = n.getRequired();
+                r.out = n.getProvided();
+                result.put(n, r);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @return Die Nummerierung des Sicherheitsverbands, null falls ohne Verband berechnet.
+     */
+    public LatticeIndex<String> getLatticeIndex() {
+        return index;
+    }
+
+    /**
+     * @return Eine Map von Summary-Kanten auf die garantiert auftretenden Deklassifikationen.
+     */
+    public Map<SDGEdge, Set<Rule>> getRules() {
+        return rules;
+    }
+
+    /**
+     * @return Die von der Menge aller Deklassifikationen blockierten Summary-Kanten.
+     */
+    public Set<SDGEdge> getBlockedByAll() {
+        return blockedByAll;
+    }
+}
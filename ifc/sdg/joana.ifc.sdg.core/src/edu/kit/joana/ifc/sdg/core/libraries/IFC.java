@@ -12,12 +12,14 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 
 import edu.kit.joana.ifc.sdg.core.SecurityNode;
 import edu.kit.joana.ifc.sdg.core.conc.Element;
 import edu.kit.joana.ifc.sdg.core.conc.Rule;
+import edu.kit.joana.ifc.sdg.core.conc.SummaryDeclassification;
 import edu.kit.joana.ifc.sdg.core.conc.ViolationComparator;
 import edu.kit.joana.ifc.sdg.core.conc.Element.ElementSet;
 import edu.kit.joana.ifc.sdg.core.interfaces.ProgressAnnouncer;
@@ -26,7 +28,6 @@ import edu.kit.joana.ifc.sdg.core.violations.Violation;
 import edu.kit.joana.ifc.sdg.graph.SDG;
 import edu.kit.joana.ifc.sdg.graph.SDGEdge;
 import edu.kit.joana.ifc.sdg.graph.SDGNode;
-import edu.kit.joana.ifc.sdg.graph.slicer.graph.building.GraphModifier;
 import edu.kit.joana.ifc.sdg.lattice.IStaticLattice;
 import edu.kit.joana.ifc.sdg.lattice.LatticeUtil;
 
@@ -45,13 +46,14 @@ public class IFC implements ProgressAnnouncer {
 
     private IStaticLattice<String> l;                    // der sicherheitsverband
     private SDG g;                                     // der SDG
-    private HashMap<SDGEdge, Set<Rule>> summaryDeclass;  // deklassifikationen an den summary-kanten
+    private Map<SDGEdge, Set<Rule>> summaryDeclass;      // deklassifikationen an den summary-kanten
 
     /**
      * Initialisiert den IFC-Algorithmus.
      * Der uebergebene SDG muss annotiert sein, der Sicherheitsverband dazu passen.
      *
-     * Der Konstruktor berechnet ausserdem die Deklassifikationen an den Summary-Kanten.
+     * Der Konstruktor bestimmt ausserdem die Deklassifikationen an den Summary-Kanten,
+     * siehe {@link SummaryDeclassification}.
      *
      * @param g  Ein SDG.
      * @param l  Ein Sicherheitsverband.
@@ -59,77 +61,12 @@ public class IFC implements ProgressAnnouncer {
     public IFC(SDG g, IStaticLattice<String> l) {
         this.l = l;
         this.g = g;
-        summaryDeclass = computeSummaryDeclassification();
+        summaryDeclass = SummaryDeclassification.get(g, l).getRules();
 //        for (SDGEdge e : summaryDeclass.keySet()) {
 //            System.out.println(e+": "+summaryDeclass.get(e));
 //        }
     }
 
-    /**
-     * Berechnet die Deklassifikationen an den Summary-Kanten.
-     *
-     * @return Eine Map von Summary-Kanten auf die garantiert auftretenden Deklassifikationen.
-     */
-    private HashMap<SDGEdge, Set<Rule>> computeSummaryDeclassification() {
-        HashMap<SDGEdge, Set<Rule>> result = new HashMap<SDGEdge, Set<Rule>>();
-        HashSet<SecurityNode> declass = new HashSet<SecurityNode>();
-        HashMap<Rule, Set<SDGNode>> rules = new HashMap<Rule, Set<SDGNode>>();
-
-        // 1. collect the different declassification rules in the SDG
-        for (SDGNode nn : g.vertexSet()) {
-            SecurityNode n = (SecurityNode) nn;
-            if (n.isDeclassification()) {
-                declass.add(n);
-                Rule r = new Rule();
-                r.in(n.getRequired());
-                r.out(n.getProvided());
-
-                Set<SDGNode> s = rules.get(r);
-                if (s == null) {
-                    s = new HashSet<SDGNode>();
-                    rules.put(r, s);
-                }
-            }
-        }
-//        System.out.println("rules: "+rules.keySet());
-
-        // 2. for every rule, collect all declassifications annotated with that rule
-        for (Rule r : rules.keySet()) {
-            Set<SDGNode> s = rules.get(r);
-
-            for (SecurityNode n : declass) {
-                if (l.leastUpperBound(n.getRequired(), r.in()).equals(r.in())
-                        && l.leastUpperBound(n.getProvided(), r.out()).equals(n.getProvided())){
-                    s.add(n);
-                }
-            }
-//            System.out.println("    rule: "+r);
-//            System.out.println("    declass: "+rules.get(r));
-        }
-
-        // 3. for each rule, compute the summary declassifications
-        for (Rule r : rules.keySet()) {
-            // collect all declassifications which allow Rule r
-            Set<SDGNode> barrier = rules.get(r);
-
-            // compute affected edges
-            Collection<SDGEdge> sum = GraphModifier.blockSummaryEdges(g, barrier);
-//            System.out.println("  edges: "+sum);
-            for (SDGEdge e : sum) {
-                Set<Rule> set = result.get(e);
-
-                if (set == null) {
-                    set = new HashSet<Rule>();
-                    result.put(e, set);
-                }
-
-                set.add(r);
-            }
-        }
-
-        return result;
-    }
-
     /* ProgressListener */
 
     public void addProgressListener(ProgressListener pl) {
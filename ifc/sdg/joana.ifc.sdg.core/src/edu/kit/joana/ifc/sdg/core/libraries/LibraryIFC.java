@@ -15,6 +15,7 @@ import java.util.LinkedList;
 import java.util.Set;
 
 import edu.kit.joana.ifc.sdg.core.SecurityNode;
+import edu.kit.joana.ifc.sdg.core.conc.SummaryDeclassification;
 import edu.kit.joana.ifc.sdg.core.interfaces.ProgressAnnouncer;
 import edu.kit.joana.ifc.sdg.core.interfaces.ProgressListener;
 import edu.kit.joana.ifc.sdg.core.libraries.LibraryPropagationRules.HookInElement;
@@ -22,7 +23,6 @@ import edu.kit.joana.ifc.sdg.graph.SDG;
 import edu.kit.joana.ifc.sdg.graph.SDGEdge;
 import edu.kit.joana.ifc.sdg.graph.SDGNode;
 import edu.kit.joana.ifc.sdg.graph.chopper.SummaryMergedChopper;
-import edu.kit.joana.ifc.sdg.graph.slicer.graph.building.GraphModifier;
 
 
 /** Fuehrt modulares IFC fuer Bibliotheken durch.
@@ -103,7 +103,7 @@ public class LibraryIFC implements ProgressAnnouncer {
             }
         }
 
-        Collection<SDGEdge> sum = GraphModifier.blockSummaryEdges(g, barrier);
+        Collection<SDGEdge> sum = new HashSet<SDGEdge>(SummaryDeclassification.blockedByAllDeclassifications(g));
         sum.retainAll(edges);
 
         // 3. berechne fuer jede dieser summary-kanten, welche deklassifikationen involviert sind
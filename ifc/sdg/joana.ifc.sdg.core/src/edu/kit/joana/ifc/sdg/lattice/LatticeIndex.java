@@ -0,0 +1,254 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.ifc.sdg.lattice;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Numbers the elements of a static lattice from 0 to size() - 1, so that sets
+ * of lattice elements can be represented as bit sets in <code>long[]</code>
+ * words. A lattice with at most 64 elements needs a single word per set.
+ *
+ * The order of the lattice is precomputed as one bit set per element. For
+ * lattices with at most <code>MAX_TABLE_SIZE</code> elements the least upper
+ * and greatest lower bounds of all pairs are precomputed as well, larger
+ * lattices compute them with the wrapped lattice.
+ *
+ * Instances are immutable and may be shared between threads.
+ *
+ * @param <ElementType>
+ *            the type of the elements contained in the lattice.
+ */
+public final class LatticeIndex<ElementType> {
+
+	/** the maximal number of elements for which lub and glb tables are built */
+	public static final int MAX_TABLE_SIZE = 1024;
+
+	private final IStaticLattice<ElementType> lattice;
+
+	private final List<ElementType> elements;
+
+	private final Map<ElementType, Integer> indices;
+
+	private final int words;
+
+	/* element -> all greater or equal elements and all lower or equal elements */
+	private final long[][] greaterOrEqual;
+
+	private final long[][] lowerOrEqual;
+
+	/* lub and glb of a and b at a * size + b, null for large lattices */
+	private final int[] lub;
+
+	private final int[] glb;
+
+	/**
+	 * Builds the index of a lattice. This needs size()^2 least upper bound
+	 * computations of the given lattice.
+	 *
+	 * @param lattice
+	 *            the lattice.
+	 */
+	public LatticeIndex(IStaticLattice<ElementType> lattice) {
+		this.lattice = lattice;
+		this.elements = new ArrayList<ElementType>(lattice.getElements());
+		this.indices = new HashMap<ElementType, Integer>();
+		for (int i = 0; i < elements.size(); i++) {
+			indices.put(elements.get(i), i);
+		}
+
+		final int n = elements.size();
+		this.words = Math.max(1, (n + 63) >>> 6);
+		this.greaterOrEqual = new long[n][words];
+		this.lowerOrEqual = new long[n][words];
+		final boolean tables = n <= MAX_TABLE_SIZE;
+		this.lub = (tables ? new int[n * n] : null);
+		this.glb = (tables ? new int[n * n] : null);
+
+		for (int a = 0; a < n; a++) {
+			for (int b = 0; b < n; b++) {
+				final ElementType sup = lattice.leastUpperBound(elements.get(a), elements.get(b));
+				if (tables) {
+					lub[a * n + b] = indexOf(sup);
+					glb[a * n + b] = indexOf(lattice.greatestLowerBound(elements.get(a), elements.get(b)));
+				}
+
+				if (sup.equals(elements.get(b))) {
+					// a <= b
+					add(greaterOrEqual[a], b);
+					add(lowerOrEqual[b], a);
+				}
+			}
+		}
+	}
+
+	public IStaticLattice<ElementType> getLattice() {
+		return lattice;
+	}
+
+	/**
+	 * @return the number of elements of the lattice.
+	 */
+	public int size() {
+		return elements.size();
+	}
+
+	/**
+	 * @return the number of <code>long</code> words of a set of elements.
+	 */
+	public int getWords() {
+		return words;
+	}
+
+	/**
+	 * @param element
+	 *            an element of the lattice.
+	 * @return the index of the element.
+	 * @throws NotInLatticeException
+	 *             if the element is not part of the lattice.
+	 */
+	public int indexOf(ElementType element) {
+		final Integer index = indices.get(element);
+		if (index == null) {
+			throw new NotInLatticeException(element + " is not an element of the lattice");
+		}
+
+		return index;
+	}
+
+	public ElementType getElement(int index) {
+		return elements.get(index);
+	}
+
+	/**
+	 * @return true iff the element with index a is lower or equal to the element
+	 *         with index b.
+	 */
+	public boolean isLowerOrEqual(int a, int b) {
+		return contains(greaterOrEqual[a], b);
+	}
+
+	public int leastUpperBound(int a, int b) {
+		if (lub != null) {
+			return lub[a * elements.size() + b];
+		}
+
+		return indexOf(lattice.leastUpperBound(elements.get(a), elements.get(b)));
+	}
+
+	public int greatestLowerBound(int a, int b) {
+		if (glb != null) {
+			return glb[a * elements.size() + b];
+		}
+
+		return indexOf(lattice.greatestLowerBound(elements.get(a), elements.get(b)));
+	}
+
+	/**
+	 * @return the set of all elements that are greater or equal to the element
+	 *         with the given index. The returned set must not be modified.
+	 */
+	public long[] getGreaterOrEqual(int index) {
+		return greaterOrEqual[index];
+	}
+
+	/**
+	 * @return the set of all elements that are lower or equal to the element
+	 *         with the given index. The returned set must not be modified.
+	 */
+	public long[] getLowerOrEqual(int index) {
+		return lowerOrEqual[index];
+	}
+
+	/* SETS OF ELEMENTS */
+
+	/**
+	 * @return a new, empty set of elements.
+	 */
+	public long[] newSet() {
+		return new long[words];
+	}
+
+	/**
+	 * @return a new set that contains the element with the given index.
+	 */
+	public long[] newSet(int index) {
+		final long[] set = new long[words];
+		add(set, index);
+		return set;
+	}
+
+	public static void add(long[] set, int index) {
+		set[index >>> 6] |= 1L << index;
+	}
+
+	public static boolean contains(long[] set, int index) {
+		return (set[index >>> 6] & (1L << index)) != 0;
+	}
+
+	/**
+	 * @return true iff set contains all elements of other.
+	 */
+	public static boolean containsAll(long[] set, long[] other) {
+		for (int i = 0; i < set.length; i++) {
+			if ((other[i] & ~set[i]) != 0) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * @return true iff the sets have at least one element in common.
+	 */
+	public static boolean intersects(long[] set, long[] other) {
+		for (int i = 0; i < set.length; i++) {
+			if ((other[i] & set[i]) != 0) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Adds all elements of other to set.
+	 *
+	 * @return true iff set changed.
+	 */
+	public static boolean addAll(long[] set, long[] other) {
+		boolean changed = false;
+		for (int i = 0; i < set.length; i++) {
+			final long union = set[i] | other[i];
+			if (union != set[i]) {
+				set[i] = union;
+				changed = true;
+			}
+		}
+
+		return changed;
+	}
+
+	/**
+	 * @return the elements of the set.
+	 */
+	public List<ElementType> toElements(long[] set) {
+		final List<ElementType> result = new ArrayList<ElementType>();
+		for (int i = 0; i < elements.size(); i++) {
+			if (contains(set, i)) {
+				result.add(elements.get(i));
+			}
+		}
+
+		return result;
+	}
+}
@@ -132,7 +132,7 @@ public class ConcSlicingTests {
         String str = compareOne(array, g.getNode(100));
 
         System.out.println(str);
-        System.out.println(Nanda.elems);
+        System.out.println(Nanda.elems.get());
     }
 
     @SuppressWarnings("unchecked")
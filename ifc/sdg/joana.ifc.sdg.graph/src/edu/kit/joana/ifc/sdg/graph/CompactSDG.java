@@ -0,0 +1,484 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.ifc.sdg.graph;
+
+import edu.kit.joana.ifc.sdg.graph.slicer.graph.threads.ThreadsInformation;
+import gnu.trove.map.hash.TIntIntHashMap;
+import gnu.trove.map.hash.TIntObjectHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * An immutable, array-backed snapshot of an SDG.
+ *
+ * A JoanaGraph keeps an edge container per vertex and a heap object per edge. For large SDGs this
+ * overhead dominates the memory consumption. A CompactSDG stores the same graph in compressed sparse
+ * row (CSR) form:
+ * - every node gets a dense index in [0, size()), nodes are ordered by ascending ID,
+ * - the incoming and outgoing edges of all nodes are stored in packed int arrays,
+ * - edge kinds are stored as bytes (the ordinal of SDGEdge.Kind).
+ *
+ * The edges of a node are sorted by kind, so all edges of a certain kind occupy a contiguous range.
+ * The SDGNode objects are shared with the original SDG, the SDGEdge objects are not. Once a CompactSDG
+ * has been created, the original SDG is not referenced anymore and may be garbage collected.
+ *
+ * Besides the int-based accessors, the class offers the edge lookups the slicers use
+ * (incomingEdgesOf, outgoingEdgesOf, getOutgoingEdgesOfKind, ...). These methods materialize
+ * fresh SDGEdge objects on each call - so, as for JoanaGraphs: <br>Do not compare SDGEdges via `==' !</br>
+ *
+ * @see SDG
+ */
+public final class CompactSDG {
+
+	private static final SDGEdge.Kind[] KINDS = SDGEdge.Kind.values();
+
+	private static final int[] NO_EDGES = new int[0];
+
+	/* SDGEdge.getComparator() orders kinds by their hash codes, we need the ordinals */
+	private static final Comparator<SDGEdge> BY_KIND_AND_TARGET = new Comparator<SDGEdge>() {
+		public int compare(SDGEdge e1, SDGEdge e2) {
+			if (e1.getKind() != e2.getKind()) {
+				return e1.getKind().ordinal() - e2.getKind().ordinal();
+			}
+			return SDGNode.getIDComparator().compare(e1.getTarget(), e2.getTarget());
+		}
+	};
+
+	private static final Comparator<SDGEdge> BY_KIND_AND_SOURCE = new Comparator<SDGEdge>() {
+		public int compare(SDGEdge e1, SDGEdge e2) {
+			if (e1.getKind() != e2.getKind()) {
+				return e1.getKind().ordinal() - e2.getKind().ordinal();
+			}
+			return SDGNode.getIDComparator().compare(e1.getSource(), e2.getSource());
+		}
+	};
+
+	/** The name of the graph. Can be null. */
+	private final String name;
+	/** Stores information about the threads of the program. */
+	private final ThreadsInformation ti;
+	/** Indicates if the SDG contains precise source code info. */
+	private final boolean joanaCompiler;
+	/** Index of the root node, -1 if there is none. */
+	private final int root;
+
+	/** maps node index -> node */
+	private final SDGNode[] nodes;
+	/** maps node id -> node index */
+	private final TIntIntHashMap id2index;
+	/** maps procedure id -> index of the entry node */
+	private final TIntIntHashMap proc2entry;
+
+	/* outgoing edges of node i are stored at positions outStart[i] .. outStart[i+1] - 1 */
+	private final int[] outStart;
+	private final int[] outTarget;
+	private final byte[] outKind;
+
+	/* incoming edges of node i are stored at positions inStart[i] .. inStart[i+1] - 1 */
+	private final int[] inStart;
+	private final int[] inSource;
+	private final byte[] inKind;
+
+	/* edge labels are rare, so they are kept in sparse maps: edge position -> label */
+	private final TIntObjectHashMap<String> outLabel;
+	private final TIntObjectHashMap<String> inLabel;
+
+	/**
+	 * Creates a compact snapshot of the given SDG.
+	 * Later modifications of the SDG are not reflected by the snapshot.
+	 *
+	 * @param sdg  The graph to compact. Must not be null.
+	 */
+	public CompactSDG(SDG sdg) {
+		this.name = sdg.getName();
+		this.ti = sdg.getThreadsInfo();
+		this.joanaCompiler = sdg.getJoanaCompiler();
+
+		final int n = sdg.vertexSet().size();
+		this.nodes = sdg.vertexSet().toArray(new SDGNode[n]);
+		Arrays.sort(nodes, SDGNode.getIDComparator());
+
+		this.id2index = new TIntIntHashMap(n, 0.5f, Integer.MIN_VALUE, -1);
+		this.proc2entry = new TIntIntHashMap(16, 0.5f, Integer.MIN_VALUE, -1);
+		for (int i = 0; i < n; i++) {
+			id2index.put(nodes[i].getId(), i);
+			if (nodes[i].getKind() == SDGNode.Kind.ENTRY) {
+				proc2entry.put(nodes[i].getProc(), i);
+			}
+		}
+
+		final SDGNode r = sdg.getRoot();
+		this.root = (r == null ? -1 : id2index.get(r.getId()));
+
+		// count the edges per node
+		this.outStart = new int[n + 1];
+		this.inStart = new int[n + 1];
+		for (SDGEdge e : sdg.edgeSet()) {
+			outStart[id2index.get(e.getSource().getId()) + 1]++;
+			inStart[id2index.get(e.getTarget().getId()) + 1]++;
+		}
+
+		for (int i = 0; i < n; i++) {
+			outStart[i + 1] += outStart[i];
+			inStart[i + 1] += inStart[i];
+		}
+
+		final int m = outStart[n];
+		this.outTarget = new int[m];
+		this.outKind = new byte[m];
+		this.inSource = new int[m];
+		this.inKind = new byte[m];
+		this.outLabel = new TIntObjectHashMap<String>();
+		this.inLabel = new TIntObjectHashMap<String>();
+
+		// fill in the edges node by node, sorted by kind
+		final List<SDGEdge> buf = new ArrayList<SDGEdge>();
+		for (int i = 0; i < n; i++) {
+			buf.clear();
+			buf.addAll(sdg.outgoingEdgesOf(nodes[i]));
+			Collections.sort(buf, BY_KIND_AND_TARGET);
+			int pos = outStart[i];
+			for (SDGEdge e : buf) {
+				outTarget[pos] = id2index.get(e.getTarget().getId());
+				outKind[pos] = (byte) e.getKind().ordinal();
+				if (e.getLabel() != null) {
+					outLabel.put(pos, e.getLabel());
+				}
+				pos++;
+			}
+
+			buf.clear();
+			buf.addAll(sdg.incomingEdgesOf(nodes[i]));
+			Collections.sort(buf, BY_KIND_AND_SOURCE);
+			pos = inStart[i];
+			for (SDGEdge e : buf) {
+				inSource[pos] = id2index.get(e.getSource().getId());
+				inKind[pos] = (byte) e.getKind().ordinal();
+				if (e.getLabel() != null) {
+					inLabel.put(pos, e.getLabel());
+				}
+				pos++;
+			}
+		}
+	}
+
+	/* graph attributes */
+
+	/**
+	 * @return the name of the graph. Can be null.
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return information about the threads. Can be null.
+	 */
+	public ThreadsInformation getThreadsInfo() {
+		return ti;
+	}
+
+	/**
+	 * @return `true' if the SDGNodes in the SDG contain precise source code info.
+	 */
+	public boolean getJoanaCompiler() {
+		return joanaCompiler;
+	}
+
+	/**
+	 * @return the root of the graph, or null if the original SDG had no root.
+	 */
+	public SDGNode getRoot() {
+		return root < 0 ? null : nodes[root];
+	}
+
+	/**
+	 * @return the number of nodes.
+	 */
+	public int size() {
+		return nodes.length;
+	}
+
+	/**
+	 * @return the number of edges.
+	 */
+	public int numberOfEdges() {
+		return outTarget.length;
+	}
+
+	/**
+	 * @return an unmodifiable list of all nodes, in ascending order of their IDs.
+	 * The position of a node in the list equals its index.
+	 */
+	public List<SDGNode> vertexList() {
+		return Collections.unmodifiableList(Arrays.asList(nodes));
+	}
+
+	/* node index based access */
+
+	/**
+	 * Returns the node with the given index.
+	 * @param index  An index in [0, size()).
+	 */
+	public SDGNode nodeAt(int index) {
+		return nodes[index];
+	}
+
+	/**
+	 * Returns the index of the given node.
+	 * @return  The index or -1, if the node is not part of the graph.
+	 */
+	public int indexOf(SDGNode node) {
+		return id2index.get(node.getId());
+	}
+
+	/**
+	 * Returns the index of the node with the given ID.
+	 * @return  The index or -1, if no such node exists.
+	 */
+	public int indexOfId(int id) {
+		return id2index.get(id);
+	}
+
+	/**
+	 * Returns the node with the given ID.
+	 * @return  the corresponding node or null, if no such node exists.
+	 */
+	public SDGNode getNode(int id) {
+		final int index = id2index.get(id);
+		return index < 0 ? null : nodes[index];
+	}
+
+	/**
+	 * Returns the index of the entry node of the procedure with the given ID.
+	 * @return  The index or -1, if the procedure has no entry node.
+	 */
+	public int entryIndexOfProc(int proc) {
+		return proc2entry.get(proc);
+	}
+
+	/**
+	 * Returns the entry node of the procedure that is specified by the given node.
+	 * @return  The entry node or null, if the procedure has no entry node.
+	 */
+	public SDGNode getEntry(SDGNode node) {
+		final int index = proc2entry.get(node.getProc());
+		return index < 0 ? null : nodes[index];
+	}
+
+	/* edge position based access
+	 * The outgoing edges of node i are located at the positions outStart(i) .. outEnd(i) - 1,
+	 * the incoming edges at inStart(i) .. inEnd(i) - 1. */
+
+	public int outStart(int index) {
+		return outStart[index];
+	}
+
+	public int outEnd(int index) {
+		return outStart[index + 1];
+	}
+
+	public int outTarget(int pos) {
+		return outTarget[pos];
+	}
+
+	public SDGEdge.Kind outKind(int pos) {
+		return KINDS[outKind[pos]];
+	}
+
+	public int inStart(int index) {
+		return inStart[index];
+	}
+
+	public int inEnd(int index) {
+		return inStart[index + 1];
+	}
+
+	public int inSource(int pos) {
+		return inSource[pos];
+	}
+
+	public SDGEdge.Kind inKind(int pos) {
+		return KINDS[inKind[pos]];
+	}
+
+	/**
+	 * Returns the position of the first outgoing edge of the given kind of the given node.
+	 * All outgoing edges of that kind are located at positions outStartOfKind(i, k) .. outEndOfKind(i, k) - 1.
+	 */
+	public int outStartOfKind(int index, SDGEdge.Kind kind) {
+		return lowerBound(outKind, outStart[index], outStart[index + 1], kind.ordinal());
+	}
+
+	/**
+	 * Returns the position behind the last outgoing edge of the given kind of the given node.
+	 */
+	public int outEndOfKind(int index, SDGEdge.Kind kind) {
+		return lowerBound(outKind, outStart[index], outStart[index + 1], kind.ordinal() + 1);
+	}
+
+	/**
+	 * Returns the position of the first incoming edge of the given kind of the given node.
+	 * All incoming edges of that kind are located at positions inStartOfKind(i, k) .. inEndOfKind(i, k) - 1.
+	 */
+	public int inStartOfKind(int index, SDGEdge.Kind kind) {
+		return lowerBound(inKind, inStart[index], inStart[index + 1], kind.ordinal());
+	}
+
+	/**
+	 * Returns the position behind the last incoming edge of the given kind of the given node.
+	 */
+	public int inEndOfKind(int index, SDGEdge.Kind kind) {
+		return lowerBound(inKind, inStart[index], inStart[index + 1], kind.ordinal() + 1);
+	}
+
+	/**
+	 * Returns the indices of the targets of all outgoing edges of the given node.
+	 */
+	public int[] successors(int index) {
+		final int from = outStart[index];
+		final int to = outStart[index + 1];
+		return from == to ? NO_EDGES : Arrays.copyOfRange(outTarget, from, to);
+	}
+
+	/**
+	 * Returns the indices of the sources of all incoming edges of the given node.
+	 */
+	public int[] predecessors(int index) {
+		final int from = inStart[index];
+		final int to = inStart[index + 1];
+		return from == to ? NO_EDGES : Arrays.copyOfRange(inSource, from, to);
+	}
+
+	/* SDGEdge based access, mirrors the methods of JoanaGraph */
+
+	/**
+	 * Returns all outgoing edges of the given node.
+	 * @return  A fresh list, empty if the node is not part of the graph.
+	 */
+	public List<SDGEdge> outgoingEdgesOf(SDGNode node) {
+		final int index = indexOf(node);
+		if (index < 0) {
+			return Collections.emptyList();
+		}
+
+		return outEdges(index, outStart[index], outStart[index + 1]);
+	}
+
+	/**
+	 * Returns all incoming edges of the given node.
+	 * @return  A fresh list, empty if the node is not part of the graph.
+	 */
+	public List<SDGEdge> incomingEdgesOf(SDGNode node) {
+		final int index = indexOf(node);
+		if (index < 0) {
+			return Collections.emptyList();
+		}
+
+		return inEdges(index, inStart[index], inStart[index + 1]);
+	}
+
+	/**
+	 * Returns a list with all outgoing edges of a given kind of a given vertex.
+	 *
+	 * @param node  The vertex whose edges are needed.
+	 * @param kind  The demanded kind of edges.
+	 */
+	public List<SDGEdge> getOutgoingEdgesOfKind(SDGNode node, SDGEdge.Kind kind) {
+		final int index = indexOf(node);
+		if (index < 0) {
+			return Collections.emptyList();
+		}
+
+		return outEdges(index, outStartOfKind(index, kind), outEndOfKind(index, kind));
+	}
+
+	/**
+	 * Returns a list with all incoming edges of a given kind of a given vertex.
+	 *
+	 * @param node  The vertex whose edges are needed.
+	 * @param kind  The demanded kind of edges.
+	 */
+	public List<SDGEdge> getIncomingEdgesOfKind(SDGNode node, SDGEdge.Kind kind) {
+		final int index = indexOf(node);
+		if (index < 0) {
+			return Collections.emptyList();
+		}
+
+		return inEdges(index, inStartOfKind(index, kind), inEndOfKind(index, kind));
+	}
+
+	/**
+	 * Checks whether a given vertex has outgoing edges of a given kind.
+	 */
+	public boolean hasOutgoingEdgesOfKind(SDGNode node, SDGEdge.Kind kind) {
+		final int index = indexOf(node);
+		return index >= 0 && outStartOfKind(index, kind) < outEndOfKind(index, kind);
+	}
+
+	/**
+	 * Checks whether a given vertex has incoming edges of a given kind.
+	 */
+	public boolean hasIncomingEdgesOfKind(SDGNode node, SDGEdge.Kind kind) {
+		final int index = indexOf(node);
+		return index >= 0 && inStartOfKind(index, kind) < inEndOfKind(index, kind);
+	}
+
+	public int outDegreeOf(SDGNode node) {
+		final int index = indexOf(node);
+		return index < 0 ? 0 : outStart[index + 1] - outStart[index];
+	}
+
+	public int inDegreeOf(SDGNode node) {
+		final int index = indexOf(node);
+		return index < 0 ? 0 : inStart[index + 1] - inStart[index];
+	}
+
+	private List<SDGEdge> outEdges(int index, int from, int to) {
+		final List<SDGEdge> res = new ArrayList<SDGEdge>(to - from);
+		final SDGNode source = nodes[index];
+		for (int pos = from; pos < to; pos++) {
+			res.add(new SDGEdge(source, nodes[outTarget[pos]], KINDS[outKind[pos]], outLabel.get(pos)));
+		}
+
+		return res;
+	}
+
+	private List<SDGEdge> inEdges(int index, int from, int to) {
+		final List<SDGEdge> res = new ArrayList<SDGEdge>(to - from);
+		final SDGNode target = nodes[index];
+		for (int pos = from; pos < to; pos++) {
+			res.add(new SDGEdge(nodes[inSource[pos]], target, KINDS[inKind[pos]], inLabel.get(pos)));
+		}
+
+		return res;
+	}
+
+	/**
+	 * Returns the first position in [from, to) whose kind is not smaller than the given ordinal.
+	 * Relies on the edges of each node being sorted by kind.
+	 */
+	private static int lowerBound(byte[] kinds, int from, int to, int ordinal) {
+		int lo = from;
+		int hi = to;
+		while (lo < hi) {
+			final int mid = (lo + hi) >>> 1;
+			if (kinds[mid] < ordinal) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+
+		return lo;
+	}
+}
@@ -66,6 +66,8 @@ public abstract class JoanaGraph extends DirectedPseudograph<SDGNode, SDGEdge> {
 	/** The root node. */
 	protected SDGNode root;
 	private final TIntObjectHashMap<SDGNode> id2node = new TIntObjectHashMap<SDGNode>();
+	/** Incremented whenever a node or an edge is added or removed. */
+	private int modCount = 0;
 
 	/**
 	 * Creates a totally empty JoanaGraph.
@@ -160,6 +162,14 @@ public abstract class JoanaGraph extends DirectedPseudograph<SDGNode, SDGEdge> {
   	    return id2node.get(id);
     }
 
+    /**
+     * Returns the IDs of all nodes, in no particular order.
+     * @return  A fresh array.
+     */
+    public int[] getNodeIds() {
+    	return id2node.keys();
+    }
+
     /**
      * @return the name of the graph. Can be null.
      */
@@ -248,6 +258,7 @@ public abstract class JoanaGraph extends DirectedPseudograph<SDGNode, SDGEdge> {
 	   boolean isNew = super.addVertex(node);
 	   if (isNew) {
 		   id2node.put(node.getId(), node);
+		   modCount++;
 	   }
 
 	   return isNew;
@@ -259,11 +270,61 @@ public abstract class JoanaGraph extends DirectedPseudograph<SDGNode, SDGEdge> {
 
 	   if (isRemoved) {
 		   id2node.remove(node.getId());
+		   modCount++;
+	   }
+
+	   return isRemoved;
+   }
+
+   @Override
+   public boolean addEdge(SDGNode source, SDGNode target, SDGEdge edge) {
+	   boolean isNew = super.addEdge(source, target, edge);
+	   if (isNew) {
+		   modCount++;
+	   }
+
+	   return isNew;
+   }
+
+   @Override
+   public SDGEdge addEdge(SDGNode source, SDGNode target) {
+	   SDGEdge edge = super.addEdge(source, target);
+	   if (edge != null) {
+		   modCount++;
+	   }
+
+	   return edge;
+   }
+
+   @Override
+   public boolean removeEdge(SDGEdge edge) {
+	   boolean isRemoved = super.removeEdge(edge);
+	   if (isRemoved) {
+		   modCount++;
 	   }
 
 	   return isRemoved;
    }
 
+   @Override
+   public SDGEdge removeEdge(SDGNode source, SDGNode target) {
+	   SDGEdge edge = super.removeEdge(source, target);
+	   if (edge != null) {
+		   modCount++;
+	   }
+
+	   return edge;
+   }
+
+   /**
+    * Returns a counter that changes whenever a node or an edge is added to or removed from this graph.
+    * Can be used to check if information that was computed for this graph is still up to date.
+    * Changes of the attributes of nodes and edges are not counted.
+    */
+   public final int getModificationCount() {
+	   return modCount;
+   }
+
    public final int getMaxNodeID() {
 	   int max = -1;
 	   for (final SDGNode node : vertexSet()) {
@@ -0,0 +1,159 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.ifc.sdg.graph;
+
+/**
+ * A node of an SDG that was read with {@link SDG#readFromBinaryLazy(String, int)}. Only the attributes that the
+ * slicers need - id, kind, operation, procedure, bytecode index and thread numbers - are kept in memory. The label,
+ * type, source file, source positions, bytecode name and class loader are read from the node table of the binary
+ * file when they are requested, and recently requested attributes are cached.
+ *
+ * Setting one of the lazy attributes copies all of them into the node, which then no longer reads the file.
+ */
+final class LazySDGNode extends SDGNode {
+
+	private final SDGBinaryFormat.AttributeStore store;
+	/* index of the node in the node table of the file */
+	private final int record;
+	/* all lazy attributes, once one of them has been set */
+	private Attributes resident = null;
+
+	LazySDGNode(int id, Operation op, Kind kind, int proc, int bcIndex, SDGBinaryFormat.AttributeStore store,
+			int record) {
+		super(id, op, null, proc, null, null, -1, -1, -1, -1, null, bcIndex);
+		// synthetic nodes may have a kind that does not correspond to their operation
+		this.kind = kind;
+		this.store = store;
+		this.record = record;
+	}
+
+	private Attributes attributes() {
+		final Attributes attr = resident;
+		return (attr != null ? attr : store.get(record));
+	}
+
+	private Attributes materialize() {
+		if (resident == null) {
+			resident = store.get(record).copy();
+		}
+
+		return resident;
+	}
+
+	@Override
+	public String getLabel() {
+		return attributes().label;
+	}
+
+	@Override
+	public void setLabel(String arg0) {
+		materialize().label = arg0;
+	}
+
+	@Override
+	public String getType() {
+		return attributes().type;
+	}
+
+	@Override
+	public String getSource() {
+		return attributes().source;
+	}
+
+	@Override
+	public void setSource(String s) {
+		materialize().source = s;
+	}
+
+	@Override
+	public int getSr() {
+		return attributes().sr;
+	}
+
+	@Override
+	public int getSc() {
+		return attributes().sc;
+	}
+
+	@Override
+	public int getEr() {
+		return attributes().er;
+	}
+
+	@Override
+	public int getEc() {
+		return attributes().ec;
+	}
+
+	@Override
+	public void setLine(int start, int end) {
+		final Attributes attr = materialize();
+		attr.sr = start;
+		attr.er = end;
+	}
+
+	@Override
+	public String getBytecodeName() {
+		return attributes().bcName;
+	}
+
+	@Override
+	public String getClassLoader() {
+		return attributes().clsLoader;
+	}
+
+	@Override
+	public void setClassLoader(String clsLoader) {
+		materialize().clsLoader = clsLoader;
+	}
+
+	/**
+	 * Returns a resident copy of this node.
+	 */
+	@Override
+	public SDGNode clone() {
+		final Attributes attr = attributes();
+		final SDGNode ret = new SDGNode(kind, getId(), operation, attr.label, getProc(), attr.type, attr.source,
+				attr.sr, attr.sc, attr.er, attr.ec, attr.bcName, getBytecodeIndex());
+		if (getAllocationSites() != null) {
+			ret.setAllocationSites(getAllocationSites().clone());
+		}
+
+		return ret;
+	}
+
+	/**
+	 * The lazily loaded attributes of a node.
+	 */
+	static final class Attributes {
+
+		String label;
+		String type;
+		String source;
+		int sr, sc, er, ec;
+		String bcName;
+		String clsLoader;
+
+		Attributes(String label, String type, String source, int sr, int sc, int er, int ec, String bcName,
+				String clsLoader) {
+			this.label = label;
+			this.type = type;
+			this.source = source;
+			this.sr = sr;
+			this.sc = sc;
+			this.er = er;
+			this.ec = ec;
+			this.bcName = bcName;
+			this.clsLoader = clsLoader;
+		}
+
+		Attributes copy() {
+			return new Attributes(label, type, source, sr, sc, er, ec, bcName, clsLoader);
+		}
+	}
+}
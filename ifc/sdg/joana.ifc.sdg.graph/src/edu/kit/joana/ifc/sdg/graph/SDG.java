@@ -14,7 +14,9 @@ import gnu.trove.map.TIntIntMap;
 import gnu.trove.map.hash.TIntObjectHashMap;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
 import java.util.Collection;
 import java.util.Collections;
@@ -23,9 +25,13 @@ import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.zip.GZIPInputStream;
 
 import org.antlr.runtime.ANTLRFileStream;
+import org.antlr.runtime.ANTLRInputStream;
 import org.antlr.runtime.ANTLRReaderStream;
+import org.antlr.runtime.CharStream;
 import org.antlr.runtime.CommonTokenStream;
 import org.antlr.runtime.RecognitionException;
 
@@ -743,14 +749,31 @@ public class SDG extends JoanaGraph {
     /* FACTORIES */
 
     /**
-     * Parses a graph, using the ANTLR grammar <code>SDG_.g</code>
+     * Opens a .pdg file, files whose name ends with <code>.gz</code> are decompressed.
+     */
+    private static CharStream openStream(String sdgFile) throws IOException {
+    	if (!sdgFile.endsWith(".gz")) {
+    		return new ANTLRFileStream(sdgFile);
+    	}
+
+    	final InputStream in = new GZIPInputStream(new FileInputStream(sdgFile), 1 << 16);
+    	try {
+    		return new ANTLRInputStream(in);
+    	} finally {
+    		in.close();
+    	}
+    }
+
+    /**
+     * Parses a graph, using the ANTLR grammar <code>SDG_.g</code>.
+     * Files written with GZIP compression are read if their name ends with <code>.gz</code>.
      *
      * @param sdgFile file which is parsed
      * @throws IOException if file does not exist
      * @return a SDG representation of the file
      */
     public static SDG readFrom(String sdgFile) throws IOException {
-    	SDG_Lexer lexer = new SDG_Lexer(new ANTLRFileStream(sdgFile));
+    	SDG_Lexer lexer = new SDG_Lexer(openStream(sdgFile));
     	CommonTokenStream tokens = new CommonTokenStream();
     	tokens.setTokenSource(lexer);
     	SDG_Parser parser = new SDG_Parser(tokens);
@@ -777,7 +800,7 @@ public class SDG extends JoanaGraph {
      * @return a SDG representation of the file
      */
     public static SDG readFrom(String sdgFile, SDGNode.NodeFactory nodeFactory) throws IOException {
-    	SDG_Lexer lexer = new SDG_Lexer(new ANTLRFileStream(sdgFile));
+    	SDG_Lexer lexer = new SDG_Lexer(openStream(sdgFile));
     	CommonTokenStream tokens = new CommonTokenStream();
     	tokens.setTokenSource(lexer);
     	SDG_Parser parser = new SDG_Parser(tokens);
@@ -796,6 +819,29 @@ public class SDG extends JoanaGraph {
     	return sdg;
     }
 
+    /**
+     * Parses an uncompressed graph with {@link SDGTextParser}, which does not need ANTLR and parses
+     * the nodes in parallel.
+     *
+     * @param sdgFile file which is parsed
+     * @param nodeFactory defines the subclass of SDGNode which shall be used for node creation.
+     * @param executor parses parts of the file, may be null to parse on the calling thread
+     * @param monitor receives progress and may cancel parsing, may be null
+     * @throws IOException if file does not exist or is malformed
+     * @throws java.util.concurrent.CancellationException if the monitor was canceled
+     * @return a SDG representation of the file
+     */
+    public static SDG readFrom(String sdgFile, SDGNode.NodeFactory nodeFactory, ExecutorService executor,
+    		SDGTextParser.ProgressMonitor monitor) throws IOException {
+    	SDG sdg = SDGTextParser.parse(sdgFile, nodeFactory, executor, monitor);
+
+    	final int sepIndex = sdgFile.lastIndexOf(File.separator);
+    	String fileName = (sepIndex > 0 ? sdgFile.substring(sepIndex) : sdgFile);
+    	sdg.setFileName(fileName);
+
+    	return sdg;
+    }
+
     /**
      * Parses a graph, using the ANTLR grammar <code>SDG_.g</code>
      *
@@ -819,5 +865,60 @@ public class SDG extends JoanaGraph {
 
     	return sdg;
     }
-}
 
+    /**
+     * Reads a graph in the binary format written by {@link SDGSerializer#toBinaryFormat(SDG, java.io.OutputStream)}.
+     * The file is memory mapped, so no intermediate token stream is created.
+     *
+     * @param sdgFile file which is read
+     * @throws IOException if the file does not exist or is not a valid binary SDG file
+     * @return a SDG representation of the file
+     */
+    public static SDG readFromBinary(String sdgFile) throws IOException {
+    	return readFromBinary(sdgFile, new SDGNode.SDGNodeFactory());
+    }
+
+    /**
+     * Reads a graph in the binary format written by {@link SDGSerializer#toBinaryFormat(SDG, java.io.OutputStream)}.
+     * The file is memory mapped, so no intermediate token stream is created.
+     *
+     * @param sdgFile file which is read
+     * @param nodeFactory defines the subclass of SDGNode which shall be used for node creation.
+     * @throws IOException if the file does not exist or is not a valid binary SDG file
+     * @return a SDG representation of the file
+     */
+    public static SDG readFromBinary(String sdgFile, SDGNode.NodeFactory nodeFactory) throws IOException {
+    	SDG sdg = SDGBinaryFormat.read(sdgFile, nodeFactory);
+
+    	final int sepIndex = sdgFile.lastIndexOf(File.separator);
+    	String fileName = (sepIndex > 0 ? sdgFile.substring(sepIndex) : sdgFile);
+    	sdg.setFileName(fileName);
+
+    	return sdg;
+    }
+
+    /**
+     * Reads a graph in the binary format written by {@link SDGSerializer#toBinaryFormat(SDG, java.io.OutputStream)}
+     * without keeping all node attributes in memory. The nodes only store the attributes needed for slicing (id,
+     * kind, operation, procedure, bytecode index and thread numbers), the label, type, source file, source positions,
+     * bytecode name and class loader are read from the memory mapped file when they are requested. The attributes
+     * of the <code>cacheSize</code> most recently used nodes are cached.
+     *
+     * The file must not be changed as long as the returned graph is used. Only plain {@link SDGNode}s are created,
+     * so this cannot be used for graphs that need a custom {@link SDGNode.NodeFactory}.
+     *
+     * @param sdgFile file which is read
+     * @param cacheSize maximal number of nodes whose attributes are cached
+     * @throws IOException if the file does not exist or is not a valid binary SDG file
+     * @return a SDG representation of the file
+     */
+    public static SDG readFromBinaryLazy(String sdgFile, int cacheSize) throws IOException {
+    	SDG sdg = SDGBinaryFormat.readLazy(sdgFile, cacheSize);
+
+    	final int sepIndex = sdgFile.lastIndexOf(File.separator);
+    	String fileName = (sepIndex > 0 ? sdgFile.substring(sepIndex) : sdgFile);
+    	sdg.setFileName(fileName);
+
+    	return sdg;
+    }
+}
@@ -0,0 +1,534 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.ifc.sdg.graph;
+
+import edu.kit.joana.ifc.sdg.graph.slicer.graph.threads.ThreadsInformation;
+import edu.kit.joana.ifc.sdg.graph.slicer.graph.threads.ThreadsInformation.ThreadInstance;
+import gnu.trove.set.hash.TIntHashSet;
+
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+
+/**
+ * Constants and the reader of the binary SDG format. The writer is part of the SDGSerializer.
+ *
+ * All numbers are stored big-endian. Strings are stored exactly once in a string pool and
+ * referenced by their index in the pool (-1 stands for null). Layout of version 1:
+ * <pre>
+ * header     : int MAGIC, int VERSION, byte flags (bit 0: joana compiler)
+ * strings    : int #strings, { int #bytes, UTF-8 bytes }*
+ * graph name : int string index
+ * node table : int #nodes, { NODE_RECORD_SIZE bytes }*     (ascending node ids)
+ * node lists : { int #threads, ints, int #allocSites, ints, int #aliasDataSources, ints }*  (-1 encodes null)
+ * edges      : int #kinds, { byte kind, int #edges, { int source id, int target id }*,
+ *                            int #labels, { int edge index, int string index }* }*
+ * threads    : int #threads (-1 encodes no thread information),
+ *              { int id, int entry, int exit, int fork, int join, byte dynamic, int #context, ints }*
+ * trailer    : int MAGIC
+ * </pre>
+ * A node record consists of the ints id, kind/operation/flags, proc, label, type, source, sr, sc, er, ec,
+ * bytecode name, bytecode index and class loader. Since the records have a fixed size, the attributes of
+ * the i-th node can be found without parsing the preceding nodes. {@link SDG#readFromBinaryLazy(String, int)}
+ * uses this to read the attributes that the slicers do not need on demand.
+ *
+ * @see SDG#readFromBinary(String)
+ * @see SDGSerializer#toBinaryFormat(SDG, java.io.OutputStream)
+ */
+public final class SDGBinaryFormat {
+
+	/** 'JSDG' */
+	public static final int MAGIC = 0x4A534447;
+	/** The current version of the format. Readers reject files with other versions. */
+	public static final int VERSION = 1;
+
+	/** Size of a node record in the node table. */
+	public static final int NODE_RECORD_SIZE = 13 * 4;
+
+	/** Marks a missing node reference, e.g. the fork node of the main thread. */
+	static final int NO_NODE = Integer.MIN_VALUE;
+	static final int NO_STRING = -1;
+	static final int NO_LIST = -1;
+
+	static final int FLAG_JOANA_COMPILER = 1;
+	static final int FLAG_NON_TERMINATING = 1;
+
+	static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private SDGBinaryFormat() {}
+
+	/**
+	 * Checks if the given file starts with the magic number of the binary SDG format.
+	 */
+	public static boolean isBinaryFile(String file) throws IOException {
+		final DataInputStream in = new DataInputStream(new FileInputStream(file));
+		try {
+			return in.readInt() == MAGIC;
+		} catch (IOException e) {
+			// too short to be a binary sdg
+			return false;
+		} finally {
+			in.close();
+		}
+	}
+
+	/* packing of the second int of a node record: kind | operation << 8 | flags << 16 */
+
+	static int packKindOperation(SDGNode n) {
+		return n.getKind().ordinal() | (n.getOperation().ordinal() << 8) | ((n.mayBeNonTerminating() ? FLAG_NON_TERMINATING : 0) << 16);
+	}
+
+	static SDGNode.Kind unpackKind(int packed) {
+		return NODE_KINDS[packed & 0xFF];
+	}
+
+	static SDGNode.Operation unpackOperation(int packed) {
+		return OPERATIONS[(packed >> 8) & 0xFF];
+	}
+
+	static boolean unpackNonTerminating(int packed) {
+		return ((packed >> 16) & FLAG_NON_TERMINATING) != 0;
+	}
+
+	static final SDGNode.Kind[] NODE_KINDS = SDGNode.Kind.values();
+	static final SDGNode.Operation[] OPERATIONS = SDGNode.Operation.values();
+	static final SDGEdge.Kind[] EDGE_KINDS = SDGEdge.Kind.values();
+
+	/**
+	 * Reads an SDG in binary format from the given file. The file is memory mapped.
+	 *
+	 * @param file  The file.
+	 * @param nodeFactory  Creates the nodes. Must not be null.
+	 */
+	static SDG read(String file, SDGNode.NodeFactory nodeFactory) throws IOException {
+		final RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			final MappedInput in = new MappedInput(raf.getChannel());
+			try {
+				return read(in, nodeFactory, null);
+			} catch (BufferUnderflowException e) {
+				throw new IOException("Unexpected end of binary SDG file " + file);
+			}
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * Reads an SDG in binary format from the given file. Only the structural attributes of the nodes are read,
+	 * the others are read from the memory mapped file on demand. The file stays mapped as long as the SDG is used
+	 * and must not be changed.
+	 *
+	 * @param file  The file.
+	 * @param cacheSize  The maximal number of nodes whose lazy attributes are cached.
+	 */
+	static SDG readLazy(String file, int cacheSize) throws IOException {
+		final RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			final MappedInput in = new MappedInput(raf.getChannel());
+			try {
+				return read(in, null, new AttributeStore(raf.getChannel(), cacheSize));
+			} catch (BufferUnderflowException e) {
+				throw new IOException("Unexpected end of binary SDG file " + file);
+			}
+		} finally {
+			// the mappings stay valid after the file is closed
+			raf.close();
+		}
+	}
+
+	/**
+	 * @param nodeFactory  Creates the nodes, if they are read eagerly.
+	 * @param store  Reads the attributes of lazy nodes, null if the nodes are read eagerly.
+	 */
+	private static SDG read(MappedInput in, SDGNode.NodeFactory nodeFactory, AttributeStore store) throws IOException {
+		if (in.readInt() != MAGIC) {
+			throw new IOException("Not a binary SDG file.");
+		}
+
+		final int version = in.readInt();
+		if (version != VERSION) {
+			throw new IOException("Unsupported binary SDG version " + version + ", expected " + VERSION);
+		}
+
+		final int flags = in.readByte();
+		final String[] pool;
+		if (store == null) {
+			pool = readStringPool(in);
+		} else {
+			// only remember where the strings are
+			pool = null;
+			store.indexStringPool(in);
+		}
+		final String name = (store == null ? string(pool, in.readInt()) : store.string(in.readInt()));
+		final SDG sdg = (name == null ? new SDG() : new SDG(name));
+		sdg.setJoanaCompiler((flags & FLAG_JOANA_COMPILER) != 0);
+
+		// nodes
+		final int numNodes = in.readInt();
+		final SDGNode[] nodes = new SDGNode[numNodes];
+		final int[] rec = new int[NODE_RECORD_SIZE / 4];
+		if (store != null) {
+			store.setNodeTable(in.position());
+		}
+		for (int i = 0; i < numNodes; i++) {
+			in.readInts(rec, 0, rec.length);
+			nodes[i] = (store == null ? createNode(rec, pool, nodeFactory) : createLazyNode(rec, store, i));
+			sdg.addVertex(nodes[i]);
+		}
+
+		for (int i = 0; i < numNodes; i++) {
+			final int[] threads = readList(in);
+			if (threads != null) {
+				nodes[i].setThreadNumbers(threads);
+			}
+
+			final int[] allocSites = readList(in);
+			if (allocSites != null) {
+				nodes[i].setAllocationSites(allocSites);
+			}
+
+			final int[] aliasDataSources = readList(in);
+			if (aliasDataSources != null) {
+				nodes[i].setAliasDataSources(new TIntHashSet(aliasDataSources));
+			}
+		}
+
+		// edges
+		final int numKinds = in.readInt();
+		final int[] buf = new int[2 * 8192];
+		for (int k = 0; k < numKinds; k++) {
+			final SDGEdge.Kind kind = EDGE_KINDS[in.readByte()];
+			final int numEdges = in.readInt();
+			final SDGEdge[] edges = new SDGEdge[numEdges];
+			int pos = 0;
+			while (pos < numEdges) {
+				final int chunk = Math.min(numEdges - pos, buf.length / 2);
+				in.readInts(buf, 0, 2 * chunk);
+				for (int i = 0; i < chunk; i++) {
+					edges[pos + i] = new SDGEdge(node(sdg, buf[2 * i]), node(sdg, buf[2 * i + 1]), kind);
+				}
+				pos += chunk;
+			}
+
+			final int numLabels = in.readInt();
+			for (int i = 0; i < numLabels; i++) {
+				final int index = in.readInt();
+				final SDGEdge e = edges[index];
+				final int label = in.readInt();
+				edges[index] = new SDGEdge(e.getSource(), e.getTarget(), kind,
+						(store == null ? string(pool, label) : store.string(label)));
+			}
+
+			for (SDGEdge e : edges) {
+				sdg.addEdge(e);
+			}
+		}
+
+		// threads
+		final int numThreads = in.readInt();
+		if (numThreads >= 0) {
+			final LinkedList<ThreadInstance> tis = new LinkedList<ThreadInstance>();
+			for (int i = 0; i < numThreads; i++) {
+				final int id = in.readInt();
+				final SDGNode entry = optNode(sdg, in.readInt());
+				final SDGNode exit = optNode(sdg, in.readInt());
+				final SDGNode fork = optNode(sdg, in.readInt());
+				final SDGNode join = optNode(sdg, in.readInt());
+				final boolean dynamic = in.readByte() != 0;
+				final int[] ctx = readList(in);
+				final LinkedList<SDGNode> context = new LinkedList<SDGNode>();
+				if (ctx != null) {
+					for (int c : ctx) {
+						context.add(sdg.getNode(c));
+					}
+				}
+				tis.add(new ThreadInstance(id, entry, exit, fork, join, context, dynamic));
+			}
+			sdg.setThreadsInfo(new ThreadsInformation(tis));
+		}
+
+		if (in.readInt() != MAGIC) {
+			throw new IOException("Corrupt binary SDG file: trailer not found.");
+		}
+
+		return sdg;
+	}
+
+	static SDGNode createNode(int[] rec, String[] pool, SDGNode.NodeFactory nodeFactory) {
+		final int id = rec[0];
+		final SDGNode.Kind kind = unpackKind(rec[1]);
+		final SDGNode.Operation op = unpackOperation(rec[1]);
+		final SDGNode n = nodeFactory.createNode(op, findKindId(op, kind), id, string(pool, rec[3]), rec[2],
+				string(pool, rec[4]), string(pool, rec[5]), rec[6], rec[7], rec[8], rec[9], string(pool, rec[10]), rec[11]);
+
+		if (n.getKind() != kind) {
+			// synthetic nodes may have a kind that does not correspond to their operation
+			n.kind = kind;
+		}
+
+		if (unpackNonTerminating(rec[1])) {
+			n.setMayBeNonTerminating(true);
+		}
+
+		final String clsLoader = string(pool, rec[12]);
+		if (clsLoader != null) {
+			n.setClassLoader(clsLoader);
+		}
+
+		return n;
+	}
+
+	static SDGNode createLazyNode(int[] rec, AttributeStore store, int record) {
+		final SDGNode n = new LazySDGNode(rec[0], unpackOperation(rec[1]), unpackKind(rec[1]), rec[2], rec[11], store,
+				record);
+
+		if (unpackNonTerminating(rec[1])) {
+			n.setMayBeNonTerminating(true);
+		}
+
+		return n;
+	}
+
+	static int findKindId(final SDGNode.Operation op, final SDGNode.Kind kind) {
+		final SDGNode.Kind[] kinds = op.getCorrespondingKind();
+		for (int id = 0; id < kinds.length; id++) {
+			if (kind == kinds[id]) {
+				return id;
+			}
+		}
+
+		return 0;
+	}
+
+	static String[] readStringPool(MappedInput in) throws IOException {
+		final int num = in.readInt();
+		final String[] pool = new String[num];
+		for (int i = 0; i < num; i++) {
+			pool[i] = in.readString(in.readInt());
+		}
+
+		return pool;
+	}
+
+	private static String string(String[] pool, int index) {
+		return index == NO_STRING ? null : pool[index];
+	}
+
+	private static int[] readList(MappedInput in) throws IOException {
+		final int len = in.readInt();
+		if (len == NO_LIST) {
+			return null;
+		}
+
+		final int[] list = new int[len];
+		in.readInts(list, 0, len);
+		return list;
+	}
+
+	private static SDGNode node(SDG sdg, int id) throws IOException {
+		final SDGNode n = sdg.getNode(id);
+		if (n == null) {
+			throw new IOException("Corrupt binary SDG file: edge references unknown node " + id);
+		}
+
+		return n;
+	}
+
+	private static SDGNode optNode(SDG sdg, int id) {
+		return id == NO_NODE ? null : sdg.getNode(id);
+	}
+
+	/**
+	 * Sequential reader on top of a memory mapped file. As a single mapping is limited to 2GB,
+	 * the file is mapped in windows that are moved forward on demand.
+	 */
+	static final class MappedInput {
+
+		private static final int WINDOW = 1 << 28;
+
+		private final FileChannel channel;
+		private final long size;
+		private long windowStart = 0;
+		private MappedByteBuffer buf;
+
+		MappedInput(FileChannel channel) throws IOException {
+			this.channel = channel;
+			this.size = channel.size();
+			map(0);
+		}
+
+		private void map(long pos) throws IOException {
+			windowStart = pos;
+			buf = channel.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(WINDOW, size - pos));
+		}
+
+		/**
+		 * Makes sure that the next n bytes are accessible in the current window.
+		 */
+		private void ensure(int n) throws IOException {
+			if (buf.remaining() < n) {
+				final long pos = position();
+				if (pos + n > size) {
+					throw new BufferUnderflowException();
+				}
+				map(pos);
+			}
+		}
+
+		long position() {
+			return windowStart + buf.position();
+		}
+
+		void seek(long pos) throws IOException {
+			if (pos >= windowStart && pos - windowStart <= buf.limit()) {
+				buf.position((int) (pos - windowStart));
+			} else {
+				map(pos);
+			}
+		}
+
+		int readByte() throws IOException {
+			ensure(1);
+			return buf.get();
+		}
+
+		int readInt() throws IOException {
+			ensure(4);
+			return buf.getInt();
+		}
+
+		void readInts(int[] dst, int off, int len) throws IOException {
+			while (len > 0) {
+				ensure(4);
+				final int chunk = Math.min(len, buf.remaining() / 4);
+				buf.asIntBuffer().get(dst, off, chunk);
+				buf.position(buf.position() + 4 * chunk);
+				off += chunk;
+				len -= chunk;
+			}
+		}
+
+		String readString(int numBytes) throws IOException {
+			ensure(numBytes);
+			final byte[] bytes = new byte[numBytes];
+			buf.get(bytes);
+			return new String(bytes, UTF8);
+		}
+
+		void skip(int numBytes) throws IOException {
+			seek(position() + numBytes);
+		}
+	}
+
+	/**
+	 * Reads the lazy attributes of the nodes from a memory mapped binary SDG file. Keeps the attributes of the
+	 * most recently used nodes in a cache. Only the file offsets of the strings in the pool are kept in memory.
+	 * Thread-safe.
+	 */
+	static final class AttributeStore {
+
+		private static final long WINDOW = 1 << 30;
+
+		/* the file mapped in windows of WINDOW bytes, a value may span two windows */
+		private final MappedByteBuffer[] windows;
+		private final Map<Integer, LazySDGNode.Attributes> cache;
+		private final byte[] record = new byte[NODE_RECORD_SIZE];
+		private long[] stringOffsets;
+		private long nodeTable;
+
+		AttributeStore(FileChannel channel, final int cacheSize) throws IOException {
+			if (cacheSize < 1) {
+				throw new IllegalArgumentException("cache size has to be positive: " + cacheSize);
+			}
+
+			final long size = channel.size();
+			this.windows = new MappedByteBuffer[(int) ((size + WINDOW - 1) / WINDOW)];
+			for (int i = 0; i < windows.length; i++) {
+				final long start = i * WINDOW;
+				windows[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW, size - start));
+			}
+
+			this.cache = new LinkedHashMap<Integer, LazySDGNode.Attributes>(16, 0.75f, true) {
+				private static final long serialVersionUID = -3466010870917123315L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<Integer, LazySDGNode.Attributes> eldest) {
+					return size() > cacheSize;
+				}
+			};
+		}
+
+		/**
+		 * Skips the string pool and records the offset of every string.
+		 */
+		void indexStringPool(MappedInput in) throws IOException {
+			final int num = in.readInt();
+			stringOffsets = new long[num];
+			for (int i = 0; i < num; i++) {
+				stringOffsets[i] = in.position();
+				in.skip(in.readInt());
+			}
+		}
+
+		void setNodeTable(long offset) {
+			nodeTable = offset;
+		}
+
+		synchronized LazySDGNode.Attributes get(int node) {
+			LazySDGNode.Attributes attr = cache.get(node);
+			if (attr == null) {
+				read(nodeTable + (long) node * NODE_RECORD_SIZE, record);
+				final ByteBuffer rec = ByteBuffer.wrap(record);
+				attr = new LazySDGNode.Attributes(string(rec.getInt(12)), string(rec.getInt(16)),
+						string(rec.getInt(20)), rec.getInt(24), rec.getInt(28), rec.getInt(32), rec.getInt(36),
+						string(rec.getInt(40)), string(rec.getInt(48)));
+				cache.put(node, attr);
+			}
+
+			return attr;
+		}
+
+		synchronized String string(int index) {
+			if (index == NO_STRING) {
+				return null;
+			}
+
+			final long offset = stringOffsets[index];
+			final byte[] len = new byte[4];
+			read(offset, len);
+			final byte[] bytes = new byte[ByteBuffer.wrap(len).getInt()];
+			read(offset + 4, bytes);
+
+			return new String(bytes, UTF8);
+		}
+
+		private void read(long offset, byte[] dst) {
+			int done = 0;
+			while (done < dst.length) {
+				final long pos = offset + done;
+				final MappedByteBuffer window = windows[(int) (pos / WINDOW)];
+				final int start = (int) (pos % WINDOW);
+				final int len = Math.min(dst.length - done, window.limit() - start);
+				for (int i = 0; i < len; i++) {
+					dst[done + i] = window.get(start + i);
+				}
+				done += len;
+			}
+		}
+	}
+}
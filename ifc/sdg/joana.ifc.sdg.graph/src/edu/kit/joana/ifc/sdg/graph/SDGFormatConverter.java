@@ -0,0 +1,75 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.ifc.sdg.graph;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Converts SDG files between the textual .pdg format and the binary format.
+ * The direction is determined by the format of the input file.
+ *
+ * Usage: SDGFormatConverter &lt;input file&gt; &lt;output file&gt;
+ *
+ * @see SDGBinaryFormat
+ */
+public final class SDGFormatConverter {
+
+	private SDGFormatConverter() {}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length != 2) {
+			System.err.println("Usage: SDGFormatConverter <input file> <output file>");
+			System.exit(1);
+		}
+
+		final long start = System.currentTimeMillis();
+		final boolean toText = convert(args[0], args[1]);
+		System.out.println("converted " + args[0] + " to " + (toText ? "text" : "binary") + " format ("
+				+ (System.currentTimeMillis() - start) + "ms)");
+	}
+
+	/**
+	 * Converts the given SDG file into the respective other format.
+	 *
+	 * @return `true' if a binary file has been converted to text format,
+	 * `false' if a text file has been converted to binary format.
+	 */
+	public static boolean convert(String in, String out) throws IOException {
+		if (SDGBinaryFormat.isBinaryFile(in)) {
+			binaryToText(in, out);
+			return true;
+		} else {
+			textToBinary(in, out);
+			return false;
+		}
+	}
+
+	/**
+	 * Reads a .pdg file and writes it in binary format.
+	 */
+	public static void textToBinary(String in, String out) throws IOException {
+		final SDG sdg = SDG.readFrom(in);
+		SDGSerializer.toBinaryFormat(sdg, out);
+	}
+
+	/**
+	 * Reads a binary SDG file and writes it as .pdg file.
+	 */
+	public static void binaryToText(String in, String out) throws IOException {
+		final SDG sdg = SDG.readFromBinary(in);
+		final OutputStream os = new BufferedOutputStream(new FileOutputStream(out));
+		try {
+			SDGSerializer.toPDGFormat(sdg, os);
+		} finally {
+			os.close();
+		}
+	}
+}
@@ -517,12 +517,12 @@ public class SDGNode {
     	return bcIndex;
     }
 
-    public final String getBytecodeName() {
+    public String getBytecodeName() {
     	return bcName;
     }
 
-    public final String getBytecodeMethod() {
-    	return bcName;
+    public String getBytecodeMethod() {
+    	return getBytecodeName();
     }
 
     /**
@@ -614,19 +614,20 @@ public class SDGNode {
         if (o instanceof SDGNode) {
             SDGNode node  = (SDGNode) o;
 
+            // use the getters, the attributes of lazily loaded nodes are not stored in the fields
             if (this.id != node.getId()) return false;
             if (!this.operation.equals(node.getOperation())) return false;
-            if (this.value != null && !this.value.equals(node.getLabel())) return false;
-            if (this.value == null && node.getLabel() != null) return false;
-            if (this.sr != node.getSr()) return false;
-            if (this.sc != node.getSc()) return false;
-            if (this.er != node.getEr()) return false;
-            if (this.ec != node.getEc()) return false;
+            if (this.getLabel() != null && !this.getLabel().equals(node.getLabel())) return false;
+            if (this.getLabel() == null && node.getLabel() != null) return false;
+            if (this.getSr() != node.getSr()) return false;
+            if (this.getSc() != node.getSc()) return false;
+            if (this.getEr() != node.getEr()) return false;
+            if (this.getEc() != node.getEc()) return false;
             if (this.proc != node.getProc()) return false;
-            if (this.type != null && !this.type.equals(node.getType())) return false;
-            if (this.type == null && node.getType() != null) return false;
-            if (this.source != null && !this.source.equals(node.getSource())) return false;
-            if (this.source == null && node.getSource() != null) return false;
+            if (this.getType() != null && !this.getType().equals(node.getType())) return false;
+            if (this.getType() == null && node.getType() != null) return false;
+            if (this.getSource() != null && !this.getSource().equals(node.getSource())) return false;
+            if (this.getSource() == null && node.getSource() != null) return false;
 
             return true;
         }
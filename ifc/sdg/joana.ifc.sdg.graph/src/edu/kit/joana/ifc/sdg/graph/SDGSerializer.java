@@ -13,13 +13,28 @@ package edu.kit.joana.ifc.sdg.graph;
 
 import edu.kit.joana.ifc.sdg.graph.slicer.graph.threads.ThreadsInformation.ThreadInstance;
 import gnu.trove.iterator.TIntIterator;
-
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TIntObjectHashMap;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.Iterator;
-import java.util.SortedSet;
-import java.util.TreeSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.zip.GZIPOutputStream;
 
 
 /**
@@ -28,143 +43,378 @@ import java.util.TreeSet;
  */
 public class SDGSerializer {
 
+    private static final int BUFFER_SIZE = 1 << 16;
+
     private SDGSerializer() {}
 
-    static Iterator<SDGNode> orderedNodes(SDG g) {
-        SortedSet<SDGNode> set = new TreeSet<SDGNode>(SDGNode.getIDComparator());
-        set.addAll(g.vertexSet());
-        return set.iterator();
+    /**
+     * Iterates over the nodes of the graph in ascending order of their IDs.
+     * Only the IDs are copied and sorted, not the nodes.
+     */
+    static Iterator<SDGNode> orderedNodes(final SDG g) {
+        final int[] ids = g.getNodeIds();
+        Arrays.sort(ids);
+
+        return new Iterator<SDGNode>() {
+            private int next = 0;
+
+            public boolean hasNext() {
+                return next < ids.length;
+            }
+
+            public SDGNode next() {
+                if (next >= ids.length) {
+                    throw new NoSuchElementException();
+                }
+                return g.getNode(ids[next++]);
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
     }
 
+    /**
+     * Returns the SDG in the .pdg format. This builds the whole file in memory,
+     * use {@link #toPDGFormat(SDG, String, boolean)} to write large graphs.
+     */
     public static String toPDGFormat(SDG g) {
     	StringWriter string = new StringWriter();
     	toPDGFormat(g, new PrintWriter(string));
     	return string.toString();
     }
 
+    /**
+     * Writes the SDG in the .pdg format to the given stream and closes the stream.
+     */
     public static void toPDGFormat(SDG g, OutputStream out) {
-    	PrintWriter pw = new PrintWriter(out);
+    	PrintWriter pw = new PrintWriter(new BufferedWriter(new OutputStreamWriter(out), BUFFER_SIZE));
     	toPDGFormat(g, pw);
     }
 
+    /**
+     * Writes the SDG in the .pdg format to the given writer and closes the writer.
+     */
     public static void toPDGFormat(SDG g, PrintWriter pw) {
-        pw.print("SDG ");
+    	try {
+    		writePDG(g, pw);
+    	} catch (IOException e) {
+    		// a PrintWriter does not throw, it sets its error flag
+    	}
+        pw.close();
+    }
+
+    /**
+     * Streams the SDG in the .pdg format to the given file. The nodes are written one by one
+     * in ascending order of their IDs, so no copy of the graph or the file content is built.
+     *
+     * @param g  The graph.
+     * @param file  The file, it is created or overwritten.
+     * @param gzip  Compresses the file with GZIP. {@link SDG#readFrom(String)} decompresses files
+     *              whose name ends with <code>.gz</code>.
+     */
+    public static void toPDGFormat(SDG g, String file, boolean gzip) throws IOException {
+    	final FileOutputStream fOut = new FileOutputStream(file);
+    	try {
+    		final OutputStream out = (gzip ? new GZIPOutputStream(fOut, BUFFER_SIZE) : fOut);
+    		final Writer w = new BufferedWriter(new OutputStreamWriter(out), BUFFER_SIZE);
+    		writePDG(g, w);
+    		// also writes the GZIP trailer
+    		w.close();
+    	} finally {
+    		fOut.close();
+    	}
+    }
+
+    private static void writePDG(SDG g, Writer out) throws IOException {
+        // each node is assembled in a reused buffer and written with a single call
+        final StringBuilder sb = new StringBuilder(256);
+
+        sb.append("SDG ");
 
         if (g.getName() != null) {
-            pw.print("\"");pw.print(g.getName());pw.print("\" ");
+            sb.append('"').append(g.getName()).append("\" ");
         }
 
-        pw.print("{\n");
+        sb.append("{\n");
 
         if (g.getJoanaCompiler()) {
-            pw.print("JComp\n");
+            sb.append("JComp\n");
         }
 
+        out.append(sb);
+
         for (Iterator<SDGNode> iter = orderedNodes(g); iter.hasNext();) {
             SDGNode n = iter.next();
+            sb.setLength(0);
 
-            pw.print(n.getKind().toString());
-            pw.print(" ");
-            pw.print(n.getId());
-            pw.print(" {\n");
-            pw.print("O ");
-            pw.print(n.getOperation());
-            pw.print(";\n");
+            sb.append(n.getKind().toString()).append(' ').append(n.getId()).append(" {\n");
+            sb.append("O ").append(n.getOperation()).append(";\n");
 
             if (n.getLabel() != null) {
-                pw.print("V \"");pw.print(n.getLabel());pw.print("\";\n");
+                sb.append("V \"").append(n.getLabel()).append("\";\n");
             }
 
             if (n.getType() != null) {
-                pw.print("T \"");pw.print(n.getType());pw.print("\";\n");
+                sb.append("T \"").append(n.getType()).append("\";\n");
             }
 
-            pw.print("P ");
-            pw.print(n.getProc());
-            pw.print(";\n");
+            sb.append("P ").append(n.getProc()).append(";\n");
 
             if (n.getSource() != null) {
-                pw.print("S \"");pw.print(n.getSource());pw.print("\":");
-                pw.print(n.getSr());
-                pw.print(',');
-                pw.print(n.getSc());
-                pw.print('-');
-                pw.print(n.getEr());
-                pw.print(',');
-                pw.print(n.getEc());
-                pw.print(";\n");
+                sb.append("S \"").append(n.getSource()).append("\":");
+                sb.append(n.getSr()).append(',').append(n.getSc()).append('-');
+                sb.append(n.getEr()).append(',').append(n.getEc()).append(";\n");
             }
 
             if (n.getBytecodeName() != null) {
-            	pw.print("B \""); pw.print(n.getBytecodeName()); pw.print("\":");
-            	pw.print(n.getBytecodeIndex());
-                pw.print(";\n");
+                sb.append("B \"").append(n.getBytecodeName()).append("\":");
+                sb.append(n.getBytecodeIndex()).append(";\n");
             }
 
-            if (n.getThreadNumbers() != null && n.getThreadNumbers().length > 0) {
-                pw.print("Z ");
-                pw.print(n.getThreadNumbers()[0]);
-
-                for (int i = 1; i < n.getThreadNumbers().length; i++) {
-                    pw.print(", "+ n.getThreadNumbers()[i]);
-                }
-
-                pw.print(";\n");
+            final int[] threads = n.getThreadNumbers();
+            if (threads != null && threads.length > 0) {
+                appendList(sb, "Z ", threads);
             }
 
             final int[] allocSites = n.getAllocationSites();
             if (allocSites != null && allocSites.length > 0) {
-                pw.print("A ");
-                pw.print(allocSites[0]);
-
-                for (int i = 1; i < allocSites.length; i++) {
-                    pw.print(", "+ allocSites[i]);
-                }
-
-                pw.print(";\n");
+                appendList(sb, "A ", allocSites);
             }
 
             if (n.mayBeNonTerminating()) {
-            	pw.print("N;\n");
+                sb.append("N;\n");
             }
 
             if (n.getAliasDataSources() != null) {
-            	pw.print("D ");
-            	final TIntIterator it = n.getAliasDataSources().iterator();
-            	while (it.hasNext()) {
-            		final int id = it.next();
-           			pw.print(it.hasNext() ? id + ", " : id);
-            	}
-            	pw.print(";\n");
+                sb.append("D ");
+                final TIntIterator it = n.getAliasDataSources().iterator();
+                while (it.hasNext()) {
+                    sb.append(it.next());
+                    if (it.hasNext()) {
+                        sb.append(", ");
+                    }
+                }
+                sb.append(";\n");
             }
 
             if (n.getClassLoader() != null) {
-            	pw.print("C \"" + n.getClassLoader() + "\";\n");
+                sb.append("C \"").append(n.getClassLoader()).append("\";\n");
+            }
+
+            for (SDGEdge e : g.outgoingEdgesOf(n)) {
+                sb.append(e.getKind().toString()).append(' ').append(e.getTarget().getId());
+                if (e.getLabel() != null) {
+                    sb.append(": \"").append(e.getLabel()).append('"');
+                }
+                sb.append(";\n");
             }
 
-            printPDGDependencies(g,n, pw);
-            pw.print("}\n");
+            sb.append("}\n");
+            out.append(sb);
         }
 
-        if (g.getThreadsInfo() != null)
+        if (g.getThreadsInfo() != null) {
             for (ThreadInstance ti : g.getThreadsInfo()) {
-                pw.print(ti);
+                out.write(ti.toString());
             }
+        }
 
-        pw.print("}\n");
-        pw.close();
+        out.write("}\n");
     }
 
-    private static void printPDGDependencies(SDG g, SDGNode n, PrintWriter pw) {
-        for (SDGEdge e : g.outgoingEdgesOf(n)) {
-            SDGNode node = e.getTarget();
-            String kind = e.getKind().toString();
-            pw.print(kind + " " + node.getId());
-            if (e.getLabel() != null) {
-                pw.print(": \"" + e.getLabel() + "\"");
-            }
-            pw.print(";\n");
+    private static void appendList(StringBuilder sb, String prefix, int[] list) {
+        sb.append(prefix).append(list[0]);
+
+        for (int i = 1; i < list.length; i++) {
+            sb.append(", ").append(list[i]);
         }
+
+        sb.append(";\n");
+    }
+
+    /**
+     * Writes the SDG in the binary format to the given file.
+     * @see SDGBinaryFormat
+     */
+    public static void toBinaryFormat(SDG g, String file) throws IOException {
+    	final OutputStream out = new FileOutputStream(file);
+    	try {
+    		toBinaryFormat(g, out);
+    	} finally {
+    		out.close();
+    	}
+    }
+
+    /**
+     * Writes the SDG in the binary format to the given stream. The stream is flushed, but not closed.
+     * @see SDGBinaryFormat
+     */
+    public static void toBinaryFormat(SDG g, OutputStream os) throws IOException {
+    	final SDGNode[] nodes = g.vertexSet().toArray(new SDGNode[g.vertexSet().size()]);
+    	Arrays.sort(nodes, SDGNode.getIDComparator());
+
+    	// collect the strings and the edges per kind
+    	final StringPool pool = new StringPool();
+    	pool.add(g.getName());
+    	for (SDGNode n : nodes) {
+    		pool.add(n.getLabel());
+    		pool.add(n.getType());
+    		pool.add(n.getSource());
+    		pool.add(n.getBytecodeName());
+    		pool.add(n.getClassLoader());
+    	}
+
+    	final Map<SDGEdge.Kind, TIntArrayList> edges = new EnumMap<SDGEdge.Kind, TIntArrayList>(SDGEdge.Kind.class);
+    	final Map<SDGEdge.Kind, TIntObjectHashMap<String>> labels = new EnumMap<SDGEdge.Kind, TIntObjectHashMap<String>>(SDGEdge.Kind.class);
+    	for (SDGNode n : nodes) {
+    		for (SDGEdge e : g.outgoingEdgesOf(n)) {
+    			TIntArrayList kindEdges = edges.get(e.getKind());
+    			if (kindEdges == null) {
+    				kindEdges = new TIntArrayList();
+    				edges.put(e.getKind(), kindEdges);
+    			}
+
+    			if (e.getLabel() != null) {
+    				TIntObjectHashMap<String> kindLabels = labels.get(e.getKind());
+    				if (kindLabels == null) {
+    					kindLabels = new TIntObjectHashMap<String>();
+    					labels.put(e.getKind(), kindLabels);
+    				}
+    				kindLabels.put(kindEdges.size() / 2, e.getLabel());
+    				pool.add(e.getLabel());
+    			}
+
+    			kindEdges.add(e.getSource().getId());
+    			kindEdges.add(e.getTarget().getId());
+    		}
+    	}
+
+    	final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os, 1 << 16));
+
+    	// header and string pool
+    	out.writeInt(SDGBinaryFormat.MAGIC);
+    	out.writeInt(SDGBinaryFormat.VERSION);
+    	out.writeByte(g.getJoanaCompiler() ? SDGBinaryFormat.FLAG_JOANA_COMPILER : 0);
+    	out.writeInt(pool.size());
+    	for (byte[] str : pool.encoded) {
+    		out.writeInt(str.length);
+    		out.write(str);
+    	}
+    	out.writeInt(pool.indexOf(g.getName()));
+
+    	// node table
+    	out.writeInt(nodes.length);
+    	for (SDGNode n : nodes) {
+    		out.writeInt(n.getId());
+    		out.writeInt(SDGBinaryFormat.packKindOperation(n));
+    		out.writeInt(n.getProc());
+    		out.writeInt(pool.indexOf(n.getLabel()));
+    		out.writeInt(pool.indexOf(n.getType()));
+    		out.writeInt(pool.indexOf(n.getSource()));
+    		out.writeInt(n.getSr());
+    		out.writeInt(n.getSc());
+    		out.writeInt(n.getEr());
+    		out.writeInt(n.getEc());
+    		out.writeInt(pool.indexOf(n.getBytecodeName()));
+    		out.writeInt(n.getBytecodeIndex());
+    		out.writeInt(pool.indexOf(n.getClassLoader()));
+    	}
+
+    	for (SDGNode n : nodes) {
+    		writeList(out, n.getThreadNumbers());
+    		writeList(out, n.getAllocationSites());
+    		writeList(out, n.getAliasDataSources() == null ? null : n.getAliasDataSources().toArray());
+    	}
+
+    	// edges
+    	out.writeInt(edges.size());
+    	for (Map.Entry<SDGEdge.Kind, TIntArrayList> entry : edges.entrySet()) {
+    		final TIntArrayList kindEdges = entry.getValue();
+    		out.writeByte(entry.getKey().ordinal());
+    		out.writeInt(kindEdges.size() / 2);
+    		for (int i = 0; i < kindEdges.size(); i++) {
+    			out.writeInt(kindEdges.getQuick(i));
+    		}
+
+    		final TIntObjectHashMap<String> kindLabels = labels.get(entry.getKey());
+    		if (kindLabels == null) {
+    			out.writeInt(0);
+    		} else {
+    			final int[] keys = kindLabels.keys();
+    			Arrays.sort(keys);
+    			out.writeInt(keys.length);
+    			for (int key : keys) {
+    				out.writeInt(key);
+    				out.writeInt(pool.indexOf(kindLabels.get(key)));
+    			}
+    		}
+    	}
+
+    	// threads
+    	if (g.getThreadsInfo() == null) {
+    		out.writeInt(-1);
+    	} else {
+    		out.writeInt(g.getThreadsInfo().getNumberOfThreads());
+    		for (ThreadInstance ti : g.getThreadsInfo()) {
+    			out.writeInt(ti.getId());
+    			out.writeInt(nodeId(ti.getEntry()));
+    			out.writeInt(nodeId(ti.getExit()));
+    			out.writeInt(nodeId(ti.getFork()));
+    			out.writeInt(nodeId(ti.getJoin()));
+    			out.writeByte(ti.isDynamic() ? 1 : 0);
+    			final List<SDGNode> ctx = ti.getThreadContext();
+    			if (ctx == null) {
+    				out.writeInt(SDGBinaryFormat.NO_LIST);
+    			} else {
+    				out.writeInt(ctx.size());
+    				for (SDGNode n : ctx) {
+    					out.writeInt(n.getId());
+    				}
+    			}
+    		}
+    	}
+
+    	out.writeInt(SDGBinaryFormat.MAGIC);
+    	out.flush();
     }
 
+    private static int nodeId(SDGNode n) {
+    	return n == null ? SDGBinaryFormat.NO_NODE : n.getId();
+    }
+
+    private static void writeList(DataOutputStream out, int[] list) throws IOException {
+    	if (list == null) {
+    		out.writeInt(SDGBinaryFormat.NO_LIST);
+    	} else {
+    		out.writeInt(list.length);
+    		for (int i : list) {
+    			out.writeInt(i);
+    		}
+    	}
+    }
+
+    /**
+     * Assigns consecutive indices to distinct strings, in order of their first occurrence.
+     */
+    private static final class StringPool {
+    	private final Map<String, Integer> index = new HashMap<String, Integer>();
+    	private final List<byte[]> encoded = new ArrayList<byte[]>();
+
+    	void add(String str) {
+    		if (str != null && !index.containsKey(str)) {
+    			index.put(str, encoded.size());
+    			encoded.add(str.getBytes(SDGBinaryFormat.UTF8));
+    		}
+    	}
+
+    	int indexOf(String str) {
+    		return str == null ? SDGBinaryFormat.NO_STRING : index.get(str);
+    	}
+
+    	int size() {
+    		return encoded.size();
+    	}
+    }
 }
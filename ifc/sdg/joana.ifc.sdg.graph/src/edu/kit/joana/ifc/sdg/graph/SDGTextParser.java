@@ -0,0 +1,927 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.ifc.sdg.graph;
+
+import gnu.trove.set.hash.TIntHashSet;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import edu.kit.joana.ifc.sdg.graph.slicer.graph.threads.ThreadsInformation;
+import edu.kit.joana.ifc.sdg.graph.slicer.graph.threads.ThreadsInformation.ThreadInstance;
+
+/**
+ * A hand-written parser for the .pdg text format that creates the same SDG as the ANTLR generated
+ * {@link SDG_Parser}, without building a token stream first.
+ *
+ * The file is memory mapped. A first pass over the raw bytes finds the borders of the node blocks and
+ * splits them into chunks of about <code>CHUNK_SIZE</code> bytes, unless another chunk size is given. The
+ * chunks are parsed in parallel into node stubs, then the nodes are created with the node factory and the
+ * edges and threads are added in the order of the file.
+ *
+ * As in the ANTLR parser, a node without source code or bytecode position gets the position of the
+ * nearest preceding node that has one. Parsing starts with the undefined positions for every file.
+ */
+public final class SDGTextParser {
+
+	/**
+	 * Receives the progress of the parser and tells it to stop.
+	 * The methods are only called by the thread that started the parser.
+	 */
+	public interface ProgressMonitor {
+		void beginTask(String task, int totalWork);
+		void worked(int units);
+		boolean isCanceled();
+		void done();
+	}
+
+	/** the size of the file regions that are parsed by one task */
+	public static final int CHUNK_SIZE = 4 << 20;
+
+	/* the file is scanned in windows of this size */
+	private static final long WINDOW = 1 << 30;
+
+	/* workers check for interruption after this many nodes */
+	private static final int CANCEL_CHECK_INTERVAL = 1024;
+
+	/* the monitor is polled in this interval while waiting for the workers */
+	private static final long POLL_MILLIS = 100;
+
+	private static final Charset CHARSET = Charset.defaultCharset();
+
+	private final String file;
+	private final SDGNode.NodeFactory nodeFactory;
+	private final ExecutorService executor;
+	private final ProgressMonitor monitor;
+	private final int chunkSize;
+
+	private SDGTextParser(String file, SDGNode.NodeFactory nodeFactory, ExecutorService executor,
+			ProgressMonitor monitor, int chunkSize) {
+		this.file = file;
+		this.nodeFactory = nodeFactory;
+		this.executor = executor;
+		this.monitor = monitor;
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Parses a graph in the .pdg text format.
+	 *
+	 * @param file  The file.
+	 * @param nodeFactory  Creates the nodes.
+	 * @param executor  Parses the chunks of the file. The executor is not shut down. If it is null,
+	 *                  the chunks are parsed by the calling thread.
+	 * @param monitor  Receives one unit of work per chunk and one for linking the graph. Can be null.
+	 * @throws IOException  If the file cannot be read or is not a valid .pdg file.
+	 * @throws CancellationException  If the monitor was canceled.
+	 */
+	public static SDG parse(String file, SDGNode.NodeFactory nodeFactory, ExecutorService executor,
+			ProgressMonitor monitor) throws IOException {
+		return parse(file, nodeFactory, executor, monitor, CHUNK_SIZE);
+	}
+
+	/**
+	 * Parses a graph in the .pdg text format in chunks of the given size.
+	 *
+	 * @param chunkSize  The minimal size of the file regions that are parsed by one task, a chunk always ends
+	 *                   after a node. Smaller chunks spread small files over more tasks.
+	 * @see #parse(String, SDGNode.NodeFactory, ExecutorService, ProgressMonitor)
+	 */
+	public static SDG parse(String file, SDGNode.NodeFactory nodeFactory, ExecutorService executor,
+			ProgressMonitor monitor, int chunkSize) throws IOException {
+		if (chunkSize <= 0) {
+			throw new IllegalArgumentException("chunk size must be positive: " + chunkSize);
+		}
+
+		return new SDGTextParser(file, nodeFactory, executor, monitor, chunkSize).parse();
+	}
+
+	private void checkCanceled() {
+		if (monitor != null && monitor.isCanceled()) {
+			throw new CancellationException("Parsing " + file + " canceled.");
+		}
+	}
+
+	private SDG parse() throws IOException {
+		final RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			final FileChannel channel = raf.getChannel();
+			final Layout layout = scan(channel);
+
+			if (monitor != null) {
+				monitor.beginTask("Parsing " + file, layout.chunks.size() + 1);
+			}
+
+			try {
+				final List<Chunk> chunks = parseChunks(channel, layout);
+				checkCanceled();
+				final SDG sdg = link(channel, layout, chunks);
+				if (monitor != null) {
+					monitor.worked(1);
+				}
+
+				return sdg;
+			} finally {
+				if (monitor != null) {
+					monitor.done();
+				}
+			}
+		} finally {
+			raf.close();
+		}
+	}
+
+	/* ************************* */
+	/* pass 1: find node borders */
+	/* ************************* */
+
+	/**
+	 * The structure of the file found by the first pass.
+	 */
+	private static final class Layout {
+		private String name;
+		private boolean joanaCompiler;
+		/* start and end offsets of the chunks, the last chunk ends at the closing brace of the graph */
+		private final List<long[]> chunks = new ArrayList<long[]>();
+		private long end;
+	}
+
+	private static final int OUT = 0, LT = 1, STRING = 2, OLD_STRING = 3, OLD_STRING_QUOTE = 4;
+
+	private Layout scan(FileChannel channel) throws IOException {
+		final long size = channel.size();
+		final Layout layout = new Layout();
+
+		// the header is parsed directly
+		final Lexer header = new Lexer(channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, WINDOW)), 0);
+		header.expectWord(Keywords.SDG);
+		if (header.peekWord() == Keywords.VERSION) {
+			header.word();
+			header.number();
+		}
+		if (header.peek() == '"' || header.peek() == '<') {
+			layout.name = header.string();
+		}
+		header.expect('{');
+		if (header.peekWord() == Keywords.JCOMP) {
+			header.word();
+			layout.joanaCompiler = true;
+		}
+
+		// skip over the blocks of the nodes and threads, only braces outside of strings count
+		long chunkStart = header.offset();
+		int depth = 1;
+		int state = OUT;
+		for (long windowStart = chunkStart; windowStart < size && depth > 0; windowStart += WINDOW) {
+			final ByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, windowStart,
+					Math.min(WINDOW, size - windowStart));
+			final int limit = buf.limit();
+			for (int i = 0; i < limit; i++) {
+				final int c = buf.get(i);
+				if (state == LT) {
+					// a deprecated string <"...">, otherwise the character after '<' is read like any other
+					if (c == '"') {
+						state = OLD_STRING;
+						continue;
+					}
+					state = OUT;
+				}
+
+				switch (state) {
+				case OUT:
+					if (c == '"') {
+						state = STRING;
+					} else if (c == '<') {
+						state = LT;
+					} else if (c == '{') {
+						depth++;
+					} else if (c == '}') {
+						depth--;
+						final long pos = windowStart + i;
+						if (depth == 0) {
+							layout.chunks.add(new long[] {chunkStart, pos});
+							layout.end = pos;
+							i = limit;
+						} else if (depth == 1 && pos + 1 - chunkStart >= chunkSize) {
+							layout.chunks.add(new long[] {chunkStart, pos + 1});
+							chunkStart = pos + 1;
+						}
+					}
+					break;
+				case STRING:
+					if (c == '"') {
+						state = OUT;
+					}
+					break;
+				case OLD_STRING:
+					if (c == '"') {
+						state = OLD_STRING_QUOTE;
+					}
+					break;
+				case OLD_STRING_QUOTE:
+					state = (c == '>' ? OUT : (c == '"' ? OLD_STRING_QUOTE : OLD_STRING));
+					break;
+				}
+			}
+		}
+
+		if (depth > 0) {
+			throw new IOException("Unexpected end of file " + file + ": missing '}'");
+		}
+
+		return layout;
+	}
+
+	/* *************************** */
+	/* pass 2: parse the node blocks */
+	/* *************************** */
+
+	/**
+	 * The result of a task: the node stubs of a chunk and the offset of the first thread, if the chunk
+	 * contains the start of the thread information.
+	 */
+	private static final class Chunk {
+		private final List<NodeStub> nodes = new ArrayList<NodeStub>();
+		private long threadStart = -1;
+	}
+
+	private List<Chunk> parseChunks(final FileChannel channel, Layout layout) throws IOException {
+		final List<Chunk> result = new ArrayList<Chunk>(layout.chunks.size());
+
+		if (executor == null) {
+			for (long[] region : layout.chunks) {
+				checkCanceled();
+				result.add(parseChunk(channel, region[0], region[1]));
+				if (monitor != null) {
+					monitor.worked(1);
+				}
+			}
+
+			return result;
+		}
+
+		final List<Future<Chunk>> futures = new ArrayList<Future<Chunk>>(layout.chunks.size());
+		try {
+			for (final long[] region : layout.chunks) {
+				futures.add(executor.submit(new Callable<Chunk>() {
+					public Chunk call() throws IOException {
+						return parseChunk(channel, region[0], region[1]);
+					}
+				}));
+			}
+
+			for (Future<Chunk> f : futures) {
+				result.add(waitFor(f));
+				checkCanceled();
+				if (monitor != null) {
+					monitor.worked(1);
+				}
+			}
+		} finally {
+			for (Future<Chunk> f : futures) {
+				f.cancel(true);
+			}
+		}
+
+		return result;
+	}
+
+	private Chunk waitFor(Future<Chunk> future) throws IOException {
+		try {
+			while (true) {
+				try {
+					return future.get(POLL_MILLIS, TimeUnit.MILLISECONDS);
+				} catch (TimeoutException e) {
+					checkCanceled();
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CancellationException("Interrupted while parsing.");
+		} catch (ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+
+			throw new IllegalStateException(cause);
+		}
+	}
+
+	private Chunk parseChunk(FileChannel channel, long start, long end) throws IOException {
+		final Lexer lx = new Lexer(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start), start);
+		final Chunk chunk = new Chunk();
+
+		while (lx.skipWhitespace()) {
+			if (chunk.nodes.size() % CANCEL_CHECK_INTERVAL == CANCEL_CHECK_INTERVAL - 1
+					&& Thread.currentThread().isInterrupted()) {
+				throw new CancellationException("Parsing " + file + " canceled.");
+			}
+
+			final long offset = lx.offset();
+			final Object word = lx.word();
+			if (word == Keywords.THREAD) {
+				chunk.threadStart = offset;
+				break;
+			} else if (!(word instanceof SDGNode.Kind)) {
+				throw lx.error("node kind expected");
+			}
+
+			chunk.nodes.add(parseNode(lx, (SDGNode.Kind) word));
+		}
+
+		return chunk;
+	}
+
+	private static NodeStub parseNode(Lexer lx, SDGNode.Kind kind) throws IOException {
+		final NodeStub n = new NodeStub(kind, lx.mayNegNumber());
+		lx.expect('{');
+
+		// attributes
+		while (lx.peek() != '}') {
+			final int start = lx.pos;
+			final Object attr = lx.word();
+			if (!(attr instanceof Character)) {
+				// edges follow
+				lx.pos = start;
+				break;
+			}
+
+			switch (((Character) attr).charValue()) {
+			case 'S':
+				n.source = lx.string();
+				lx.expect(':');
+				n.sr = lx.number();
+				lx.expect(',');
+				n.sc = lx.number();
+				lx.expect('-');
+				n.er = lx.number();
+				lx.expect(',');
+				n.ec = lx.number();
+				n.hasSource = true;
+				break;
+			case 'B':
+				n.bcName = lx.string();
+				lx.expect(':');
+				n.bcIndex = lx.mayNegNumber();
+				n.hasBytecode = true;
+				break;
+			case 'U':
+				// deprecated unit id
+				lx.number();
+				break;
+			case 'P':
+				n.proc = lx.number();
+				break;
+			case 'O':
+				final Object op = lx.word();
+				if (!(op instanceof SDGNode.Operation)) {
+					throw lx.error("operation expected");
+				}
+				n.op = (SDGNode.Operation) op;
+				break;
+			case 'V':
+				n.val = lx.string();
+				break;
+			case 'T':
+				n.type = lx.string();
+				break;
+			case 'Z':
+				n.threadNums = lx.numberSet(true);
+				break;
+			case 'N':
+				n.nonTerm = true;
+				break;
+			case 'C':
+				n.classLoader = lx.string();
+				break;
+			case 'A':
+				n.allocSites = lx.numberSet(false);
+				break;
+			case 'D':
+				n.aliasDataSrc = lx.numberSet(false);
+				break;
+			default:
+				throw lx.error("unknown node attribute " + attr);
+			}
+			lx.expect(';');
+		}
+
+		// edges
+		while (lx.peek() != '}') {
+			final Object kind2 = lx.word();
+			if (!(kind2 instanceof SDGEdge.Kind)) {
+				throw lx.error("edge kind expected");
+			}
+			final int to = lx.number();
+			String label = null;
+			if (lx.peek() == ':') {
+				lx.expect(':');
+				label = lx.string();
+			}
+			n.addEdge((SDGEdge.Kind) kind2, to, label);
+			lx.expect(';');
+		}
+		lx.expect('}');
+
+		return n;
+	}
+
+	/* ******************************** */
+	/* pass 3: create nodes and edges */
+	/* ******************************** */
+
+	private SDG link(FileChannel channel, Layout layout, List<Chunk> chunks) throws IOException {
+		final SDG sdg = (layout.name == null ? new SDG() : new SDG(layout.name));
+		if (layout.joanaCompiler) {
+			sdg.setJoanaCompiler(true);
+		}
+
+		// positions are inherited from the preceding node, see SDG_.g
+		String source = "undefined";
+		int sr = 0, sc = 0, er = 0, ec = 0;
+		String bcName = "<undefined>";
+		int bcIndex = -1;
+
+		long threadStart = -1;
+		for (Chunk c : chunks) {
+			for (NodeStub n : c.nodes) {
+				if (n.hasSource) {
+					source = n.source; sr = n.sr; sc = n.sc; er = n.er; ec = n.ec;
+				}
+				if (n.hasBytecode) {
+					bcName = n.bcName; bcIndex = n.bcIndex;
+				}
+
+				final int kindId = SDGBinaryFormat.findKindId(n.op, n.kind);
+				final SDGNode node = nodeFactory.createNode(n.op, kindId, n.id, n.val, n.proc, n.type, source,
+						sr, sc, er, ec, bcName, bcIndex);
+
+				if (n.threadNums != null) {
+					node.setThreadNumbers(n.threadNums.toArray());
+				}
+				if (n.nonTerm) {
+					node.setMayBeNonTerminating(true);
+				}
+				if (n.classLoader != null) {
+					node.setClassLoader(n.classLoader);
+				}
+				if (n.allocSites != null) {
+					node.setAllocationSites(n.allocSites.toArray());
+				}
+				if (n.aliasDataSrc != null) {
+					node.setAliasDataSources(n.aliasDataSrc);
+				}
+
+				sdg.addVertex(node);
+			}
+
+			if (threadStart < 0 && c.threadStart >= 0) {
+				threadStart = c.threadStart;
+			}
+		}
+
+		for (Chunk c : chunks) {
+			for (NodeStub n : c.nodes) {
+				final SDGNode from = sdg.getNode(n.id);
+				for (int i = 0; i < n.numEdges; i++) {
+					final SDGNode to = sdg.getNode(n.edgeTargets[i]);
+					final String label = (n.edgeLabels == null ? null : n.edgeLabels[i]);
+					sdg.addEdge(label != null
+							? new SDGEdge(from, to, n.edgeKinds[i], label)
+							: new SDGEdge(from, to, n.edgeKinds[i]));
+				}
+			}
+			// the stubs are not needed anymore
+			c.nodes.clear();
+		}
+
+		if (threadStart >= 0) {
+			final Lexer lx = new Lexer(channel.map(FileChannel.MapMode.READ_ONLY, threadStart,
+					layout.end - threadStart), threadStart);
+			final LinkedList<ThreadInstance> tis = new LinkedList<ThreadInstance>();
+			while (lx.skipWhitespace()) {
+				tis.add(parseThread(lx, sdg));
+			}
+			sdg.setThreadsInfo(new ThreadsInformation(tis));
+		}
+
+		return sdg;
+	}
+
+	private static ThreadInstance parseThread(Lexer lx, SDG sdg) throws IOException {
+		lx.expectWord(Keywords.THREAD);
+		final int id = lx.number();
+		lx.expect('{');
+		lx.expectWord(Keywords.ENTRY);
+		final int en = lx.number();
+		lx.expect(';');
+		lx.expectWord(Keywords.EXIT);
+		final int ex = lx.number();
+		lx.expect(';');
+		lx.expectWord(Keywords.FORK);
+		final int fo = lx.number();
+		lx.expect(';');
+		lx.expectWord(Keywords.JOIN);
+		final int jo = lx.number();
+		lx.expect(';');
+		lx.expectWord(Keywords.CONTEXT);
+		final LinkedList<SDGNode> con = new LinkedList<SDGNode>();
+		if (lx.peek() == '[') {
+			lx.expect('[');
+			con.add(sdg.getNode(lx.mayNegNumber()));
+			while (lx.peek() == ',') {
+				lx.expect(',');
+				con.add(sdg.getNode(lx.mayNegNumber()));
+			}
+			lx.expect(']');
+		} else {
+			lx.expectWord(Keywords.NULL);
+		}
+		lx.expect(';');
+		lx.expectWord(Keywords.DYNAMIC);
+		final Object dyn = lx.word();
+		if (dyn != Keywords.TRUE && dyn != Keywords.FALSE) {
+			throw lx.error("true or false expected");
+		}
+		lx.expect(';');
+		lx.expect('}');
+
+		return new ThreadInstance(id, sdg.getNode(en), (ex != 0 ? sdg.getNode(ex) : null),
+				(fo != 0 ? sdg.getNode(fo) : null), (jo != 0 ? sdg.getNode(jo) : null), con, dyn == Keywords.TRUE);
+	}
+
+	/**
+	 * The attributes and outgoing edges of a node, as read from the file.
+	 */
+	private static final class NodeStub {
+		private final SDGNode.Kind kind;
+		private final int id;
+		private SDGNode.Operation op;
+		private int proc;
+		private String val;
+		private String type;
+		private boolean hasSource;
+		private String source;
+		private int sr, sc, er, ec;
+		private boolean hasBytecode;
+		private String bcName;
+		private int bcIndex;
+		private TIntHashSet threadNums;
+		private boolean nonTerm;
+		private String classLoader;
+		private TIntHashSet allocSites;
+		private TIntHashSet aliasDataSrc;
+
+		private int numEdges = 0;
+		private SDGEdge.Kind[] edgeKinds = new SDGEdge.Kind[4];
+		private int[] edgeTargets = new int[4];
+		private String[] edgeLabels = null;
+
+		private NodeStub(SDGNode.Kind kind, int id) {
+			this.kind = kind;
+			this.id = id;
+		}
+
+		private void addEdge(SDGEdge.Kind kind, int to, String label) {
+			if (numEdges == edgeKinds.length) {
+				edgeKinds = Arrays.copyOf(edgeKinds, 2 * numEdges);
+				edgeTargets = Arrays.copyOf(edgeTargets, 2 * numEdges);
+				if (edgeLabels != null) {
+					edgeLabels = Arrays.copyOf(edgeLabels, 2 * numEdges);
+				}
+			}
+			if (label != null && edgeLabels == null) {
+				edgeLabels = new String[edgeKinds.length];
+			}
+
+			edgeKinds[numEdges] = kind;
+			edgeTargets[numEdges] = to;
+			if (label != null) {
+				edgeLabels[numEdges] = label;
+			}
+			numEdges++;
+		}
+	}
+
+	/* ********* */
+	/* the lexer */
+	/* ********* */
+
+	/**
+	 * Reads the tokens of the .pdg format from a region of the file. Keywords are looked up without
+	 * creating strings.
+	 */
+	private final class Lexer {
+		private final ByteBuffer buf;
+		private final long base;
+		private final int limit;
+		private int pos = 0;
+		private byte[] bytes = new byte[64];
+
+		private Lexer(ByteBuffer buf, long base) {
+			this.buf = buf;
+			this.base = base;
+			this.limit = buf.limit();
+		}
+
+		private long offset() {
+			return base + pos;
+		}
+
+		private IOException error(String msg) {
+			return new IOException("Error in " + file + " at offset " + offset() + ": " + msg);
+		}
+
+		/**
+		 * Skips whitespace.
+		 * @return true iff there is a next character.
+		 */
+		private boolean skipWhitespace() {
+			while (pos < limit) {
+				final int c = buf.get(pos);
+				if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+					return true;
+				}
+				pos++;
+			}
+
+			return false;
+		}
+
+		/**
+		 * Returns the next non-whitespace character without consuming it, -1 at the end of the region.
+		 */
+		private int peek() {
+			return skipWhitespace() ? buf.get(pos) : -1;
+		}
+
+		private void expect(char c) throws IOException {
+			if (peek() != c) {
+				throw error("'" + c + "' expected");
+			}
+			pos++;
+		}
+
+		/**
+		 * Reads a keyword and returns its value: a node kind, an operation, an edge kind, a Character for
+		 * node attributes or one of the keyword constants.
+		 */
+		private Object word() throws IOException {
+			if (!skipWhitespace()) {
+				throw error("unexpected end of input");
+			}
+
+			final int start = pos;
+			while (pos < limit) {
+				final int c = buf.get(pos);
+				if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c == '_' && pos > start)
+						|| (c == '-' && pos > start)) {
+					pos++;
+				} else {
+					break;
+				}
+			}
+
+			final Object value = Keywords.get(buf, start, pos - start);
+			if (value == null) {
+				pos = start;
+				throw error("unknown keyword");
+			}
+
+			return value;
+		}
+
+		private Object peekWord() throws IOException {
+			final int start = pos;
+			try {
+				return word();
+			} catch (IOException e) {
+				return null;
+			} finally {
+				pos = start;
+			}
+		}
+
+		private void expectWord(Object keyword) throws IOException {
+			if (word() != keyword) {
+				throw error("'" + keyword + "' expected");
+			}
+		}
+
+		private int number() throws IOException {
+			skipWhitespace();
+			final int start = pos;
+			long value = 0;
+			while (pos < limit) {
+				final int c = buf.get(pos);
+				if (c < '0' || c > '9') {
+					break;
+				}
+				value = 10 * value + (c - '0');
+				if (value > Integer.MAX_VALUE) {
+					throw error("number too large");
+				}
+				pos++;
+			}
+
+			if (pos == start) {
+				throw error("number expected");
+			}
+
+			return (int) value;
+		}
+
+		private int mayNegNumber() throws IOException {
+			if (peek() == '-') {
+				pos++;
+				return -number();
+			}
+
+			return number();
+		}
+
+		private TIntHashSet numberSet(boolean mayNeg) throws IOException {
+			final TIntHashSet nums = new TIntHashSet();
+			nums.add(mayNeg ? mayNegNumber() : number());
+			while (peek() == ',') {
+				pos++;
+				nums.add(mayNeg ? mayNegNumber() : number());
+			}
+
+			return nums;
+		}
+
+		/**
+		 * Reads "..." or the deprecated form &lt;"..."&gt;. As in the ANTLR lexer, the content of a deprecated
+		 * string includes the quotes.
+		 */
+		private String string() throws IOException {
+			final int c = peek();
+			final int start;
+			final int end;
+			if (c == '"') {
+				start = ++pos;
+				while (pos < limit && buf.get(pos) != '"') {
+					pos++;
+				}
+				if (pos == limit) {
+					throw error("unterminated string");
+				}
+				end = pos;
+				pos++;
+			} else if (c == '<' && pos + 1 < limit && buf.get(pos + 1) == '"') {
+				start = pos + 1;
+				pos += 2;
+				while (pos + 1 < limit && !(buf.get(pos) == '"' && buf.get(pos + 1) == '>')) {
+					pos++;
+				}
+				if (pos + 1 >= limit) {
+					throw error("unterminated string");
+				}
+				end = pos + 1;
+				pos += 2;
+			} else {
+				throw error("string expected");
+			}
+
+			final int len = end - start;
+			if (bytes.length < len) {
+				bytes = new byte[Math.max(len, 2 * bytes.length)];
+			}
+			for (int i = 0; i < len; i++) {
+				bytes[i] = buf.get(start + i);
+			}
+
+			return new String(bytes, 0, len, CHARSET);
+		}
+	}
+
+	/**
+	 * The keywords of the .pdg format, see SDG_.g.
+	 */
+	private static final class Keywords {
+		private static final Object SDG = "SDG", VERSION = "v", JCOMP = "JComp", THREAD = "Thread",
+				ENTRY = "Entry", EXIT = "Exit", FORK = "Fork", JOIN = "Join", CONTEXT = "Context", NULL = "null",
+				DYNAMIC = "Dynamic", TRUE = "true", FALSE = "false";
+
+		private static final int SIZE = 256;
+		private static final byte[][] KEYS = new byte[SIZE][];
+		private static final Object[] VALUES = new Object[SIZE];
+
+		static {
+			for (Object k : new Object[] {SDG, VERSION, JCOMP, THREAD, ENTRY, EXIT, FORK, JOIN, CONTEXT, NULL,
+					DYNAMIC, TRUE, FALSE}) {
+				put((String) k, k);
+			}
+
+			put("NORM", SDGNode.Kind.NORMAL);
+			put("PRED", SDGNode.Kind.PREDICATE);
+			put("EXPR", SDGNode.Kind.EXPRESSION);
+			put("ENTR", SDGNode.Kind.ENTRY);
+			put("CALL", SDGNode.Kind.CALL);
+			put("ACTI", SDGNode.Kind.ACTUAL_IN);
+			put("ACTO", SDGNode.Kind.ACTUAL_OUT);
+			put("FRMI", SDGNode.Kind.FORMAL_IN);
+			put("FRMO", SDGNode.Kind.FORMAL_OUT);
+			put("EXIT", SDGNode.Kind.EXIT);
+			put("SYNC", SDGNode.Kind.SYNCHRONIZATION);
+			put("FOLD", SDGNode.Kind.FOLDED);
+
+			for (char c : "SBUPOVTZNCAD".toCharArray()) {
+				put(String.valueOf(c), Character.valueOf(c));
+			}
+
+			for (SDGNode.Operation op : SDGNode.Operation.values()) {
+				if (op != SDGNode.Operation.SUMMARY) {
+					put(op.toString(), op);
+				}
+			}
+
+			for (SDGEdge.Kind k : SDGEdge.Kind.values()) {
+				switch (k) {
+				case NTSCD: case DATA_LOOP: case JOIN_OUT: case CONFLICT_DATA: case CONFLICT_ORDER:
+					// not part of the format
+					break;
+				default:
+					put(k.toString(), k);
+				}
+			}
+			// deprecated
+			put("SP", SDGEdge.Kind.SUMMARY);
+		}
+
+		private static int hash(byte[] b, int len) {
+			int h = len;
+			for (int i = 0; i < len; i++) {
+				h = 31 * h + b[i];
+			}
+			return h & (SIZE - 1);
+		}
+
+		private static void put(String key, Object value) {
+			final byte[] b = key.getBytes(Charset.forName("US-ASCII"));
+			int i = hash(b, b.length);
+			while (KEYS[i] != null) {
+				if (Arrays.equals(KEYS[i], b)) {
+					throw new IllegalStateException("duplicate keyword " + key);
+				}
+				i = (i + 1) & (SIZE - 1);
+			}
+			KEYS[i] = b;
+			VALUES[i] = value;
+		}
+
+		/**
+		 * Returns the value of the keyword at the given position of the buffer, or null.
+		 */
+		private static Object get(ByteBuffer buf, int start, int len) {
+			if (len == 0 || len > 16) {
+				return null;
+			}
+
+			int h = len;
+			for (int i = 0; i < len; i++) {
+				h = 31 * h + buf.get(start + i);
+			}
+
+			for (int i = h & (SIZE - 1); KEYS[i] != null; i = (i + 1) & (SIZE - 1)) {
+				final byte[] key = KEYS[i];
+				if (key.length == len) {
+					boolean equal = true;
+					for (int j = 0; j < len && equal; j++) {
+						equal = key[j] == buf.get(start + j);
+					}
+					if (equal) {
+						return VALUES[i];
+					}
+				}
+			}
+
+			return null;
+		}
+	}
+}
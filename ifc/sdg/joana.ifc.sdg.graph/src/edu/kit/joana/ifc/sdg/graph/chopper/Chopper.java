@@ -7,12 +7,14 @@
  */
 package edu.kit.joana.ifc.sdg.graph.chopper;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.TreeSet;
 
 import edu.kit.joana.ifc.sdg.graph.SDG;
@@ -29,6 +31,7 @@ import edu.kit.joana.ifc.sdg.graph.SDGNodeTuple;
  * - provides convenience methods <code>chop(SDGNode source, SDGNode sink)</chop> and
  *   <code>chop(ChoppingCriterion criterion)</code>, which fall back to the abstract method
  *   <code>chop(Collection<SDGNode> sourceSet, Collection<SDGNode> sinkSet)</code>,
+ * - provides <code>chopAll(List<ChoppingCriterion> criteria)</code> for computing many chops at once,
  * - offers routines for
  *   -- sorting chops
  *   -- testing if chopping criteria are same-level
@@ -93,6 +96,22 @@ public abstract class Chopper {
 		return chop(criterion.getSourceSet(), criterion.getTargetSet());
 	}
 
+	/**
+	 * Computes the chops of all given criteria.
+	 * Calls <code>chop(ChoppingCriterion criterion)</code> for each criterion, choppers that can share
+	 * intermediate results between the criteria override this method.
+	 *
+	 * @param criteria   The chopping criteria.
+	 * @return           The chops, in the order of the criteria.
+	 */
+	public List<Collection<SDGNode>> chopAll(List<ChoppingCriterion> criteria) {
+		List<Collection<SDGNode>> result = new ArrayList<Collection<SDGNode>>(criteria.size());
+		for (ChoppingCriterion c : criteria) {
+			result.add(chop(c));
+		}
+		return result;
+	}
+
 
 	/* *************************************************** */
 	/* routines for collecting the summary edges in a chop */
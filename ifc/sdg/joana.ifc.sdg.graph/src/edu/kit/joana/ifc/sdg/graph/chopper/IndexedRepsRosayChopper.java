@@ -0,0 +1,492 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.ifc.sdg.graph.chopper;
+
+import gnu.trove.map.hash.TIntObjectHashMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import gnu.trove.set.hash.TLongHashSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import edu.kit.joana.ifc.sdg.graph.CompactSDG;
+import edu.kit.joana.ifc.sdg.graph.SDG;
+import edu.kit.joana.ifc.sdg.graph.SDGEdge;
+import edu.kit.joana.ifc.sdg.graph.SDGNode;
+import edu.kit.joana.ifc.sdg.graph.SDGNodeTuple;
+
+
+/**
+ * IndexedRepsRosayChopper computes the same context-sensitive unbound chops as {@link RepsRosayChopper},
+ * but on a {@link CompactSDG} of the graph that is built once in {@link #setGraph(SDG)}.
+ * The edges of a node are stored there in contiguous ranges per kind, so the traversals look up the
+ * parameter, call and summary edges of a node directly and skip the other edge kinds with a lookup table.
+ * Slices are computed on node indices with bitsets.
+ *
+ * {@link #chopAll(List)} computes the chops of many criteria. The forward slice of a source set and the
+ * backward slice of a sink set are computed only once per batch, as well as the intraprocedural slices of the
+ * formal parameters and the formal-in/formal-out pairs of the summary edges, which are shared by all chops that
+ * pass the same call sites.
+ *
+ * The graph must not be changed while the chopper is used, call setGraph after modifications.
+ * Apart from setGraph, instances may be used by several threads at once.
+ *
+ * @see RepsRosayChopper
+ */
+public class IndexedRepsRosayChopper extends Chopper {
+
+	private static final SDGEdge.Kind[] KINDS = SDGEdge.Kind.values();
+
+	/* edge kinds traversed by the slicers, by ordinal:
+	 * SAME_OR_ASCEND omits descending edges, SAME_OR_DESCEND omits ascending edges,
+	 * INTRA only contains intraprocedural edges */
+	private static final boolean[] SAME_OR_ASCEND = new boolean[KINDS.length];
+	private static final boolean[] SAME_OR_DESCEND = new boolean[KINDS.length];
+	private static final boolean[] INTRA = new boolean[KINDS.length];
+
+	static {
+		for (SDGEdge.Kind k : KINDS) {
+			final boolean base = k.isSDGEdge()
+					&& k != SDGEdge.Kind.INTERFERENCE
+					&& k != SDGEdge.Kind.INTERFERENCE_WRITE
+					&& k != SDGEdge.Kind.FORK
+					&& k != SDGEdge.Kind.FORK_IN;
+			SAME_OR_ASCEND[k.ordinal()] = base && k != SDGEdge.Kind.PARAMETER_IN && k != SDGEdge.Kind.CALL;
+			SAME_OR_DESCEND[k.ordinal()] = base && k != SDGEdge.Kind.PARAMETER_OUT;
+			INTRA[k.ordinal()] = k.isSDGEdge() && k.isIntraproceduralEdge();
+		}
+	}
+
+	/** The edge index of the graph, null if the graph is null. */
+	private CompactSDG index;
+
+	/**
+	 * Instantiates an IndexedRepsRosayChopper with a SDG.
+	 *
+	 * @param g   A SDG. Can be null. Must not be a cSDG.
+	 */
+	public IndexedRepsRosayChopper(SDG g) {
+		super(g);
+	}
+
+	/**
+	 * Builds the edge index of the new graph.
+	 * Triggered by {@link Chopper#setGraph(SDG)}.
+	 */
+	protected void onSetGraph() {
+		index = (sdg == null ? null : new CompactSDG(sdg));
+	}
+
+	/**
+	 * Computes a context-sensitive unbound chop from <code>sourceSet</code> to <code>sinkSet</code>.
+	 *
+	 * @param sourceSet  The source criterion set. Should not contain null, nodes must be part of the graph.
+	 * @param sinkSet    The target criterion set. Should not contain null, nodes must be part of the graph.
+	 * @return           The chop (a HashSet).
+	 */
+	public Collection<SDGNode> chop(Collection<SDGNode> sourceSet, Collection<SDGNode> sinkSet) {
+		final Batch batch = new Batch();
+		return batch.chop(indices(sourceSet), indices(sinkSet));
+	}
+
+	/**
+	 * Computes the chops of all given criteria. Slices and summary edge information shared between the criteria
+	 * are computed only once.
+	 *
+	 * @param criteria  The chopping criteria.
+	 * @return          The chops (HashSets), in the order of the criteria.
+	 */
+	@Override
+	public List<Collection<SDGNode>> chopAll(List<ChoppingCriterion> criteria) {
+		final Batch batch = new Batch();
+		final List<Collection<SDGNode>> result = new ArrayList<Collection<SDGNode>>(criteria.size());
+		for (ChoppingCriterion c : criteria) {
+			result.add(batch.chop(indices(c.getSourceSet()), indices(c.getTargetSet())));
+		}
+
+		return result;
+	}
+
+	private NodeSet indices(Collection<SDGNode> nodes) {
+		final int[] result = new int[nodes.size()];
+		int i = 0;
+		for (SDGNode n : nodes) {
+			final int idx = index.indexOf(n);
+			if (idx < 0) {
+				throw new IllegalArgumentException("node is not part of the graph: " + n);
+			}
+			result[i] = idx;
+			i++;
+		}
+
+		return new NodeSet(result);
+	}
+
+	/* ******************* */
+	/* index based slicing */
+	/* ******************* */
+
+	/**
+	 * Collects all nodes that reach (backward) or are reached by (forward) the given nodes on edges
+	 * of the given kinds, without leaving the given subgraph.
+	 *
+	 * @param start     The criterion, nodes outside of <code>within</code> are ignored.
+	 * @param forward   Traverse the outgoing edges if true, the incoming edges otherwise.
+	 * @param follow    The traversed kinds of edges, by ordinal.
+	 * @param within    The subgraph, null for the whole graph.
+	 */
+	private BitSet reach(BitSet start, boolean forward, boolean[] follow, BitSet within) {
+		final BitSet reached = new BitSet(index.size());
+		int[] worklist = new int[64];
+		int size = 0;
+
+		for (int i = start.nextSetBit(0); i >= 0; i = start.nextSetBit(i + 1)) {
+			if (within == null || within.get(i)) {
+				reached.set(i);
+				if (size == worklist.length) {
+					worklist = Arrays.copyOf(worklist, 2 * size);
+				}
+				worklist[size++] = i;
+			}
+		}
+
+		while (size > 0) {
+			final int next = worklist[--size];
+			final int end = (forward ? index.outEnd(next) : index.inEnd(next));
+
+			for (int pos = (forward ? index.outStart(next) : index.inStart(next)); pos < end; pos++) {
+				final SDGEdge.Kind kind = (forward ? index.outKind(pos) : index.inKind(pos));
+				if (!follow[kind.ordinal()]) {
+					continue;
+				}
+
+				final int v = (forward ? index.outTarget(pos) : index.inSource(pos));
+				if (!reached.get(v) && (within == null || within.get(v))) {
+					reached.set(v);
+					if (size == worklist.length) {
+						worklist = Arrays.copyOf(worklist, 2 * size);
+					}
+					worklist[size++] = v;
+				}
+			}
+		}
+
+		return reached;
+	}
+
+	/**
+	 * Returns the sorted indices of all nodes reached from the given node on intraprocedural edges.
+	 */
+	private int[] intraproceduralSlice(int node, boolean forward) {
+		final BitSet start = new BitSet(node + 1);
+		start.set(node);
+		final BitSet slice = reach(start, forward, INTRA, null);
+		final int[] result = new int[slice.cardinality()];
+		int i = 0;
+		for (int n = slice.nextSetBit(0); n >= 0; n = slice.nextSetBit(n + 1)) {
+			result[i++] = n;
+		}
+
+		return result;
+	}
+
+	/**
+	 * The nodes of a chopping criterion, sorted by index. Used as key for the slices of a batch.
+	 */
+	private static final class NodeSet {
+		private final int[] nodes;
+		private final int hash;
+
+		private NodeSet(int[] nodes) {
+			Arrays.sort(nodes);
+			this.nodes = nodes;
+			this.hash = Arrays.hashCode(nodes);
+		}
+
+		private BitSet toBitSet() {
+			final BitSet result = new BitSet();
+			for (int n : nodes) {
+				result.set(n);
+			}
+			return result;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof NodeSet && Arrays.equals(nodes, ((NodeSet) o).nodes);
+		}
+	}
+
+	/**
+	 * The state shared by the chops of one call of chop or chopAll.
+	 */
+	private final class Batch {
+		/* source set -> forward slice without descending edges,
+		 * sink set -> backward slice without ascending edges */
+		private final Map<NodeSet, BitSet> forwardSlices = new HashMap<NodeSet, BitSet>();
+		private final Map<NodeSet, BitSet> backwardSlices = new HashMap<NodeSet, BitSet>();
+
+		/* formal-in or entry -> intraprocedural forward slice, formal-out -> intraprocedural backward slice */
+		private final TIntObjectHashMap<int[]> fCandidates = new TIntObjectHashMap<int[]>();
+		private final TIntObjectHashMap<int[]> bCandidates = new TIntObjectHashMap<int[]>();
+		/* formal-out -> actual-out nodes in its intraprocedural backward slice */
+		private final TIntObjectHashMap<BitSet> bActOut = new TIntObjectHashMap<BitSet>();
+
+		/* actual-out -> actual-in and call nodes connected via summary edges */
+		private final TIntObjectHashMap<int[]> actIns = new TIntObjectHashMap<int[]>();
+		/* (actual-in or call, actual-out) -> formal-in and formal-out pairs, two ints per pair */
+		private final TLongObjectHashMap<int[]> formalPairs = new TLongObjectHashMap<int[]>();
+
+		private Collection<SDGNode> chop(NodeSet sourceSet, NodeSet sinkSet) {
+			// truncated chop, see TruncatedNonSameLevelChopper
+			BitSet forwardSlice = forwardSlices.get(sourceSet);
+			if (forwardSlice == null) {
+				forwardSlice = reach(sourceSet.toBitSet(), true, SAME_OR_ASCEND, null);
+				forwardSlices.put(sourceSet, forwardSlice);
+			}
+
+			BitSet backwardSlice = backwardSlices.get(sinkSet);
+			if (backwardSlice == null) {
+				backwardSlice = reach(sinkSet.toBitSet(), false, SAME_OR_DESCEND, null);
+				backwardSlices.put(sinkSet, backwardSlice);
+			}
+
+			// the angular point of the chop
+			final BitSet w = (BitSet) forwardSlice.clone();
+			w.and(backwardSlice);
+
+			final BitSet chop = reach(w, false, SAME_OR_ASCEND, forwardSlice);
+			chop.or(reach(sinkSet.toBitSet(), false, SAME_OR_DESCEND, reach(w, true, SAME_OR_DESCEND, null)));
+
+			// add the same-level chops of the summary edges, see RepsRosayChopper
+			sameLevelChops(chop);
+
+			final HashSet<SDGNode> result = new HashSet<SDGNode>();
+			for (int n = chop.nextSetBit(0); n >= 0; n = chop.nextSetBit(n + 1)) {
+				result.add(index.nodeAt(n));
+			}
+
+			return result;
+		}
+
+		private void sameLevelChops(BitSet chop) {
+			final TLongHashSet visitedTuples = new TLongHashSet();
+			final TIntObjectHashMap<BitSet> done = new TIntObjectHashMap<BitSet>();
+			int[] worklist = new int[64];
+			int size = 0;
+
+			// the summary edges in the truncated chop
+			for (int ao = chop.nextSetBit(0); ao >= 0; ao = chop.nextSetBit(ao + 1)) {
+				if (index.nodeAt(ao).getKind() != SDGNode.Kind.ACTUAL_OUT) {
+					continue;
+				}
+
+				for (int x : actIns(ao)) {
+					if (chop.get(x)) {
+						for (int fifo : formalPairs(x, ao)) {
+							if (size == worklist.length) {
+								worklist = Arrays.copyOf(worklist, 2 * size);
+							}
+							worklist[size++] = fifo;
+						}
+					}
+				}
+			}
+
+			// gradually add the chops for each summary edge
+			for (int i = 0; i < size; i += 2) {
+				final int fi = worklist[i];
+				final int fo = worklist[i + 1];
+				if (!visitedTuples.add(((long) fi << 32) | fo)) {
+					continue;
+				}
+
+				final int[] b = bCandidates(fo);
+				final int[] f = fCandidates(fi);
+				final BitSet actOuts = bActOut.get(fo);
+				BitSet removed = done.get(fo);
+				if (removed == null) {
+					removed = new BitSet(b.length);
+					done.put(fo, removed);
+				}
+
+				for (int k = 0; k < b.length; k++) {
+					final int x = b[k];
+					if (removed.get(k) || Arrays.binarySearch(f, x) < 0) {
+						continue;
+					}
+
+					chop.set(x);
+					removed.set(k);
+
+					final SDGNode.Kind kind = index.nodeAt(x).getKind();
+					if (kind == SDGNode.Kind.ACTUAL_IN) {
+						final int end = index.outEndOfKind(x, SDGEdge.Kind.SUMMARY);
+						for (int pos = index.outStartOfKind(x, SDGEdge.Kind.SUMMARY); pos < end; pos++) {
+							final int ao = index.outTarget(pos);
+							if (actOuts.get(ao)) {
+								for (int fifo : formalPairs(x, ao)) {
+									if (size == worklist.length) {
+										worklist = Arrays.copyOf(worklist, 2 * size);
+									}
+									worklist[size++] = fifo;
+								}
+							}
+						}
+
+					} else if (kind == SDGNode.Kind.CALL) {
+						// treat auxiliary summary edges between call and actual-out nodes
+						for (int ao : actualOuts(x)) {
+							if (actOuts.get(ao)) {
+								for (int fifo : formalPairs(x, ao)) {
+									if (size == worklist.length) {
+										worklist = Arrays.copyOf(worklist, 2 * size);
+									}
+									worklist[size++] = fifo;
+								}
+							}
+						}
+					}
+				}
+			}
+		}
+
+		private int[] fCandidates(int fi) {
+			int[] slice = fCandidates.get(fi);
+			if (slice == null) {
+				slice = intraproceduralSlice(fi, true);
+				fCandidates.put(fi, slice);
+			}
+
+			return slice;
+		}
+
+		private int[] bCandidates(int fo) {
+			int[] slice = bCandidates.get(fo);
+			if (slice == null) {
+				slice = intraproceduralSlice(fo, false);
+				bCandidates.put(fo, slice);
+
+				final BitSet actOuts = new BitSet();
+				for (int n : slice) {
+					if (index.nodeAt(n).getKind() == SDGNode.Kind.ACTUAL_OUT) {
+						actOuts.set(n);
+					}
+				}
+				bActOut.put(fo, actOuts);
+			}
+
+			return slice;
+		}
+
+		/**
+		 * Collects all actual-in and call nodes connected with the given actual-out node in the
+		 * actual-parameters graph.
+		 */
+		private int[] actIns(int actOut) {
+			int[] result = actIns.get(actOut);
+			if (result != null) {
+				return result;
+			}
+
+			final List<Integer> found = new ArrayList<Integer>();
+			final BitSet visited = new BitSet();
+			final List<Integer> worklist = new ArrayList<Integer>();
+			visited.set(actOut);
+			worklist.add(actOut);
+
+			while (!worklist.isEmpty()) {
+				final int next = worklist.remove(worklist.size() - 1);
+				for (SDGEdge.Kind kind : new SDGEdge.Kind[] {SDGEdge.Kind.CONTROL_DEP_EXPR, SDGEdge.Kind.SUMMARY}) {
+					final int end = index.inEndOfKind(next, kind);
+					for (int pos = index.inStartOfKind(next, kind); pos < end; pos++) {
+						final int n = index.inSource(pos);
+						if (!visited.get(n)) {
+							visited.set(n);
+							worklist.add(n);
+
+							final SDGNode.Kind k = index.nodeAt(n).getKind();
+							if (k == SDGNode.Kind.CALL || k == SDGNode.Kind.ACTUAL_IN) {
+								found.add(n);
+							}
+						}
+					}
+				}
+			}
+
+			result = new int[found.size()];
+			for (int i = 0; i < result.length; i++) {
+				result[i] = found.get(i);
+			}
+			actIns.put(actOut, result);
+
+			return result;
+		}
+
+		/**
+		 * Collects the actual-out nodes of the given call node.
+		 */
+		private List<Integer> actualOuts(int call) {
+			final List<Integer> result = new ArrayList<Integer>();
+			final BitSet visited = new BitSet();
+			final List<Integer> worklist = new ArrayList<Integer>();
+			visited.set(call);
+			worklist.add(call);
+
+			while (!worklist.isEmpty()) {
+				final int next = worklist.remove(worklist.size() - 1);
+				final int end = index.outEndOfKind(next, SDGEdge.Kind.CONTROL_DEP_EXPR);
+				for (int pos = index.outStartOfKind(next, SDGEdge.Kind.CONTROL_DEP_EXPR); pos < end; pos++) {
+					final int n = index.outTarget(pos);
+					if (!visited.get(n)) {
+						visited.set(n);
+						worklist.add(n);
+						if (index.nodeAt(n).getKind() == SDGNode.Kind.ACTUAL_OUT) {
+							result.add(n);
+						}
+					}
+				}
+			}
+
+			return result;
+		}
+
+		/**
+		 * Returns the formal-in (or entry) and formal-out pairs of the summary edge between the given nodes,
+		 * as a flat array of node indices.
+		 */
+		private int[] formalPairs(int actIn, int actOut) {
+			final long key = (long) actIn * index.size() + actOut;
+			int[] result = formalPairs.get(key);
+			if (result == null) {
+				final Collection<SDGNodeTuple> pairs =
+						sdg.getAllFormalPairs(index.nodeAt(actIn), index.nodeAt(actOut));
+				result = new int[2 * pairs.size()];
+				int i = 0;
+				for (SDGNodeTuple t : pairs) {
+					result[i++] = index.indexOf(t.getFirstNode());
+					result[i++] = index.indexOf(t.getSecondNode());
+				}
+				formalPairs.put(key, result);
+			}
+
+			return result;
+		}
+	}
+}
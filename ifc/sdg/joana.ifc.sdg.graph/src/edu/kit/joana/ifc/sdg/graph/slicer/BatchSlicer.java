@@ -0,0 +1,28 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.ifc.sdg.graph.slicer;
+
+import java.util.Collection;
+import java.util.Map;
+
+import edu.kit.joana.ifc.sdg.graph.SDGNode;
+
+/**
+ * A slicer that computes the slices of many criteria at once, sharing the traversal of the graph between them.
+ */
+public interface BatchSlicer extends Slicer {
+
+	/**
+	 * Computes a separate slice for every criterion. The slice of a criterion is the same as the one returned by
+	 * <code>slice(criterion)</code>.
+	 *
+	 * @param criteria The slicing criteria, duplicates are ignored.
+	 * @return Maps every criterion to its slice, in the iteration order of the criteria.
+	 */
+	public Map<SDGNode, Collection<SDGNode>> sliceEach(Collection<SDGNode> criteria);
+}
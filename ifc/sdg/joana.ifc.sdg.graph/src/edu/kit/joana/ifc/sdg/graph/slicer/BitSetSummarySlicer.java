@@ -0,0 +1,504 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.ifc.sdg.graph.slicer;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TIntIntHashMap;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import edu.kit.joana.ifc.sdg.graph.SDG;
+import edu.kit.joana.ifc.sdg.graph.SDGEdge;
+import edu.kit.joana.ifc.sdg.graph.SDGNode;
+
+
+/**
+ * A variant of the standard 2-phase slicer {@link SummarySlicer} that computes the same slices on dense node
+ * indices. The edges of the graph are copied into int arrays once, in the order the graph returns them, so the
+ * traversal visits the nodes in the same order as the SummarySlicer. The phase 1 and phase 2 marks are kept in
+ * two bitsets and the worklists are int arrays. All of them are reused for the next slice, so a slice only
+ * allocates the array of its result.
+ *
+ * The slice is returned as a collection view of the result array. The lookup structure for contains is only
+ * built if contains is called.
+ *
+ * {@link #sliceEach(Collection)} slices 64 criteria in one traversal, with one bit per criterion in a long word
+ * per node.
+ *
+ * The graph must not be changed while the slicer is used, call setGraph after modifications.
+ * Instances are not thread-safe.
+ *
+ * @see SummarySlicer
+ */
+public abstract class BitSetSummarySlicer implements BatchSlicer {
+
+	/** edges of the kind are not traversed */
+	protected static final byte SKIP = 0;
+	/** the reached node is added to the current worklist */
+	protected static final byte FOLLOW = 1;
+	/** the reached node is added to the worklist of phase 2 */
+	protected static final byte OTHER = 2;
+	/** like OTHER if the edge connects different procedures, like FOLLOW otherwise */
+	protected static final byte OTHER_IF_INTERPROC = 3;
+
+	private static final SDGEdge.Kind[] KINDS = SDGEdge.Kind.values();
+	private static final int NO_NODE = -1;
+	private static final int BATCH_SIZE = 64;
+
+	protected Set<SDGEdge.Kind> omittedEdges = SDGEdge.Kind.threadEdges();
+	protected SDG g;
+
+	/* index -> node and node id -> index */
+	private SDGNode[] nodes;
+	private TIntIntHashMap id2index;
+	private int[] proc;
+	/* the edges to traverse in compressed row storage: reached node and kind ordinal */
+	private int[] edgeStart;
+	private int[] edgeNode;
+	private byte[] edgeKind;
+
+	/* reused between the slices */
+	private long[] phase1Marks;
+	private long[] phase2Marks;
+	private int[] worklist;
+	private int[] nextWorklist;
+	/* sliceEach uses the worklist as a ring buffer, nodes in the buffer are marked in phase1Marks */
+	private int queueHead = 0;
+	private int queueSize = 0;
+	private final byte[] phase1Actions = new byte[KINDS.length];
+	private final byte[] phase2Actions = new byte[KINDS.length];
+
+	public BitSetSummarySlicer(SDG graph, Set<SDGEdge.Kind> omit) {
+		this.omittedEdges = omit;
+		setGraph(graph);
+	}
+
+	public BitSetSummarySlicer(SDG graph) {
+		setGraph(graph);
+	}
+
+	public void addToOmit(SDGEdge.Kind kind) {
+		this.omittedEdges.add(kind);
+	}
+
+	public void setOmittedEdges(Set<SDGEdge.Kind> omit) {
+		this.omittedEdges = omit;
+	}
+
+	public void setGraph(SDG graph) {
+		this.g = graph;
+		buildIndex();
+	}
+
+	/**
+	 * @return true iff the incoming edges are traversed, false iff the outgoing edges are traversed.
+	 */
+	protected abstract boolean isBackward();
+
+	/**
+	 * The action for edges of the given kind in phase 1. Edges that are no SDG edges or omitted are never
+	 * traversed.
+	 */
+	protected abstract byte phase1Action(SDGEdge.Kind kind);
+
+	/**
+	 * The action for edges of the given kind in phase 2. Edges that are no SDG edges or omitted are never
+	 * traversed.
+	 */
+	protected abstract byte phase2Action(SDGEdge.Kind kind);
+
+	private void buildIndex() {
+		final int size = g.vertexSet().size();
+		nodes = new SDGNode[size];
+		id2index = new TIntIntHashMap(size, 0.5f, Integer.MIN_VALUE, NO_NODE);
+		proc = new int[size];
+		int index = 0;
+		for (SDGNode n : g.vertexSet()) {
+			nodes[index] = n;
+			id2index.put(n.getId(), index);
+			proc[index] = n.getProc();
+			index++;
+		}
+
+		final boolean backward = isBackward();
+		final TIntArrayList reached = new TIntArrayList(size * 4);
+		final TIntArrayList kinds = new TIntArrayList(size * 4);
+		edgeStart = new int[size + 1];
+		for (int n = 0; n < size; n++) {
+			edgeStart[n] = reached.size();
+			final Collection<SDGEdge> edges = (backward ? g.incomingEdgesOf(nodes[n]) : g.outgoingEdgesOf(nodes[n]));
+			for (SDGEdge e : edges) {
+				reached.add(id2index.get((backward ? e.getSource() : e.getTarget()).getId()));
+				kinds.add(e.getKind().ordinal());
+			}
+		}
+		edgeStart[size] = reached.size();
+
+		edgeNode = reached.toArray();
+		edgeKind = new byte[kinds.size()];
+		for (int i = 0; i < edgeKind.length; i++) {
+			edgeKind[i] = (byte) kinds.getQuick(i);
+		}
+
+		phase1Marks = new long[(size >> 6) + 1];
+		phase2Marks = new long[(size >> 6) + 1];
+		worklist = new int[size];
+		nextWorklist = new int[size];
+	}
+
+	private void computeActions() {
+		for (SDGEdge.Kind kind : KINDS) {
+			final boolean skip = !kind.isSDGEdge() || omittedEdges.contains(kind);
+			phase1Actions[kind.ordinal()] = (skip ? SKIP : phase1Action(kind));
+			phase2Actions[kind.ordinal()] = (skip ? SKIP : phase2Action(kind));
+		}
+	}
+
+	public Collection<SDGNode> slice(SDGNode criterion) {
+		return slice(Collections.singleton(criterion));
+	}
+
+	public Collection<SDGNode> slice(Collection<SDGNode> criteria) {
+		computeActions();
+
+		int head = 0;
+		int tail = 0;
+		int nextTail = 0;
+
+		for (SDGNode c : criteria) {
+			final int n = indexOf(c);
+			if (n == NO_NODE) {
+				throw new IllegalArgumentException("Node " + c + " is not part of the graph.");
+			}
+
+			if (!isMarked(phase1Marks, n)) {
+				mark(phase1Marks, n);
+				worklist[tail++] = n;
+			}
+		}
+
+		// phase 1: nodes that are saved for phase 2 go to the next worklist
+		while (head < tail) {
+			final int w = worklist[head++];
+
+			for (int i = edgeStart[w]; i < edgeStart[w + 1]; i++) {
+				final byte action = phase1Actions[edgeKind[i]];
+				if (action == SKIP) {
+					continue;
+				}
+
+				final int v = edgeNode[i];
+				if (isMarked(phase1Marks, v)) {
+					continue;
+				}
+
+				// nodes marked in phase 2 are not known yet, so it is safe to append v
+				if (action == OTHER || (action == OTHER_IF_INTERPROC && proc[w] != proc[v])) {
+					nextWorklist[nextTail++] = v;
+				} else {
+					worklist[tail++] = v;
+				}
+				mark(phase1Marks, v);
+			}
+		}
+
+		// phase 2: all reached nodes go to the same worklist
+		int nextHead = 0;
+		while (nextHead < nextTail) {
+			final int w = nextWorklist[nextHead++];
+
+			for (int i = edgeStart[w]; i < edgeStart[w + 1]; i++) {
+				if (phase2Actions[edgeKind[i]] == SKIP) {
+					continue;
+				}
+
+				final int v = edgeNode[i];
+				if (isMarked(phase1Marks, v) || isMarked(phase2Marks, v)) {
+					continue;
+				}
+
+				nextWorklist[nextTail++] = v;
+				mark(phase2Marks, v);
+			}
+		}
+
+		final int[] result = new int[tail + nextTail];
+		System.arraycopy(worklist, 0, result, 0, tail);
+		System.arraycopy(nextWorklist, 0, result, tail, nextTail);
+
+		for (final int n : result) {
+			phase1Marks[n >> 6] = 0;
+			phase2Marks[n >> 6] = 0;
+		}
+
+		return new SliceView(nodes, id2index, result);
+	}
+
+	/**
+	 * Computes the slices of up to 64 criteria in one traversal. Every node has a word for the criteria whose
+	 * phase 1 reaches it by a followed edge, a word for the criteria that save it for phase 2 and a word for the
+	 * criteria whose phase 2 reaches it. A node is put on the worklist whenever one of its words gains a bit and
+	 * only propagates the new bits.
+	 *
+	 * The slice of a single criterion depends on the order of the traversal if a node is reached in phase 1 both
+	 * by an edge that is followed and by an edge that saves it for phase 2. This is rare, the slices of the
+	 * affected criteria are computed with {@link #slice(SDGNode)}, so the results are the same in every case.
+	 */
+	public Map<SDGNode, Collection<SDGNode>> sliceEach(Collection<SDGNode> criteria) {
+		final Map<SDGNode, Collection<SDGNode>> result = new LinkedHashMap<SDGNode, Collection<SDGNode>>();
+		final TIntArrayList indices = new TIntArrayList(criteria.size());
+		for (SDGNode c : criteria) {
+			final int n = indexOf(c);
+			if (n == NO_NODE) {
+				throw new IllegalArgumentException("Node " + c + " is not part of the graph.");
+			}
+
+			if (!result.containsKey(c)) {
+				result.put(c, null);
+				indices.add(n);
+			}
+		}
+
+		final int size = nodes.length;
+		final long[] reached1 = new long[size];
+		final long[] saved = new long[size];
+		final long[] reached2 = new long[size];
+		final long[] delta = new long[size];
+		final TIntArrayList[] members = new TIntArrayList[BATCH_SIZE];
+		computeActions();
+
+		for (int start = 0; start < indices.size(); start += BATCH_SIZE) {
+			final int batch = Math.min(BATCH_SIZE, indices.size() - start);
+			Arrays.fill(reached1, 0);
+			Arrays.fill(saved, 0);
+			Arrays.fill(reached2, 0);
+
+			// phase 1
+			for (int i = 0; i < batch; i++) {
+				final int n = indices.getQuick(start + i);
+				reached1[n] |= (1L << i);
+				delta[n] |= (1L << i);
+				enqueue(n);
+			}
+
+			propagate(true, reached1, saved, null, delta);
+
+			long inexact = 0;
+			for (int v = 0; v < size; v++) {
+				inexact |= (reached1[v] & saved[v]);
+			}
+
+			// phase 2 starts at the saved nodes
+			for (int v = 0; v < size; v++) {
+				final long bits = saved[v] & ~reached1[v];
+				if (bits != 0) {
+					delta[v] = bits;
+					enqueue(v);
+				}
+			}
+
+			propagate(false, reached2, reached1, saved, delta);
+
+			for (int i = 0; i < batch; i++) {
+				members[i] = new TIntArrayList();
+			}
+
+			for (int v = 0; v < size; v++) {
+				long bits = (reached1[v] | saved[v] | reached2[v]) & ~inexact;
+				while (bits != 0) {
+					members[Long.numberOfTrailingZeros(bits)].add(v);
+					bits &= bits - 1;
+				}
+			}
+
+			for (int i = 0; i < batch; i++) {
+				final SDGNode c = nodes[indices.getQuick(start + i)];
+				if ((inexact & (1L << i)) != 0) {
+					result.put(c, slice(c));
+				} else {
+					result.put(c, new SliceView(nodes, id2index, members[i].toArray()));
+				}
+				members[i] = null;
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Propagates the bits in delta along the edges until no word changes anymore. Bits are added to the reached
+	 * word of a target node if they are not contained in its reached or excluded words. In phase 1 bits that
+	 * reach a node on an edge that saves it for phase 2 are added to its excluded word instead.
+	 */
+	private void propagate(boolean phase1, long[] reached, long[] excluded, long[] excluded2, long[] delta) {
+		final int size = nodes.length;
+		final byte[] actions = (phase1 ? phase1Actions : phase2Actions);
+
+		while (queueSize > 0) {
+			final int w = worklist[queueHead];
+			queueHead = (queueHead + 1 == size ? 0 : queueHead + 1);
+			queueSize--;
+			phase1Marks[w >> 6] &= ~(1L << w);
+
+			final long bits = delta[w];
+			delta[w] = 0;
+
+			for (int i = edgeStart[w]; i < edgeStart[w + 1]; i++) {
+				final byte action = actions[edgeKind[i]];
+				if (action == SKIP) {
+					continue;
+				}
+
+				final int v = edgeNode[i];
+				if (phase1 && (action == OTHER || (action == OTHER_IF_INTERPROC && proc[w] != proc[v]))) {
+					excluded[v] |= bits;
+					continue;
+				}
+
+				long newBits = bits & ~reached[v];
+				if (!phase1) {
+					newBits &= ~(excluded[v] | excluded2[v]);
+				}
+
+				if (newBits != 0) {
+					reached[v] |= newBits;
+					delta[v] |= newBits;
+					enqueue(v);
+				}
+			}
+		}
+	}
+
+	private void enqueue(int n) {
+		if (!isMarked(phase1Marks, n)) {
+			mark(phase1Marks, n);
+			final int pos = queueHead + queueSize;
+			worklist[pos < nodes.length ? pos : pos - nodes.length] = n;
+			queueSize++;
+		}
+	}
+
+	private int indexOf(SDGNode node) {
+		final int n = id2index.get(node.getId());
+
+		return (n != NO_NODE && nodes[n].equals(node) ? n : NO_NODE);
+	}
+
+	private static boolean isMarked(long[] marks, int n) {
+		return (marks[n >> 6] & (1L << n)) != 0;
+	}
+
+	private static void mark(long[] marks, int n) {
+		marks[n >> 6] |= (1L << n);
+	}
+
+	/**
+	 * A collection view of the nodes of a slice. Removed nodes are marked in the node array. The bitset for
+	 * contains is built on demand.
+	 */
+	private static final class SliceView extends AbstractCollection<SDGNode> {
+
+		private final SDGNode[] nodes;
+		private final TIntIntHashMap id2index;
+		private final int[] members;
+		private int size;
+		private BitSet contained = null;
+
+		private SliceView(SDGNode[] nodes, TIntIntHashMap id2index, int[] members) {
+			this.nodes = nodes;
+			this.id2index = id2index;
+			this.members = members;
+			this.size = members.length;
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			if (!(o instanceof SDGNode)) {
+				return false;
+			}
+
+			final int n = id2index.get(((SDGNode) o).getId());
+			if (n == NO_NODE || !nodes[n].equals(o)) {
+				return false;
+			}
+
+			if (contained == null) {
+				contained = new BitSet(nodes.length);
+				for (final int m : members) {
+					if (m != NO_NODE) {
+						contained.set(m);
+					}
+				}
+			}
+
+			return contained.get(n);
+		}
+
+		@Override
+		public Iterator<SDGNode> iterator() {
+			return new Iterator<SDGNode>() {
+
+				private int next = skipRemoved(0);
+				private int last = NO_NODE;
+
+				private int skipRemoved(int pos) {
+					while (pos < members.length && members[pos] == NO_NODE) {
+						pos++;
+					}
+
+					return pos;
+				}
+
+				@Override
+				public boolean hasNext() {
+					return next < members.length;
+				}
+
+				@Override
+				public SDGNode next() {
+					if (next >= members.length) {
+						throw new NoSuchElementException();
+					}
+
+					last = next;
+					next = skipRemoved(next + 1);
+
+					return nodes[members[last]];
+				}
+
+				@Override
+				public void remove() {
+					if (last == NO_NODE || members[last] == NO_NODE) {
+						throw new IllegalStateException();
+					}
+
+					if (contained != null) {
+						contained.clear(members[last]);
+					}
+
+					members[last] = NO_NODE;
+					size--;
+				}
+			};
+		}
+	}
+}
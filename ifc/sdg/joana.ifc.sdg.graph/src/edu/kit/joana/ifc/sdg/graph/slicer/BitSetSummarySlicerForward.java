@@ -0,0 +1,53 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.ifc.sdg.graph.slicer;
+
+import java.util.Set;
+
+import edu.kit.joana.ifc.sdg.graph.SDG;
+import edu.kit.joana.ifc.sdg.graph.SDGEdge;
+
+
+/**
+ * Computes the same slices as {@link SummarySlicerForward}.
+ *
+ * @see BitSetSummarySlicer
+ */
+public class BitSetSummarySlicerForward extends BitSetSummarySlicer {
+
+    public BitSetSummarySlicerForward(SDG graph, Set<SDGEdge.Kind> omit) {
+        super(graph, omit);
+    }
+
+    public BitSetSummarySlicerForward(SDG graph) {
+        super(graph);
+    }
+
+    protected boolean isBackward() {
+        return false;
+    }
+
+    protected byte phase1Action(SDGEdge.Kind kind) {
+        return (kind == SDGEdge.Kind.PARAMETER_IN || kind == SDGEdge.Kind.CALL ? OTHER : FOLLOW);
+    }
+
+    protected byte phase2Action(SDGEdge.Kind kind) {
+        switch (kind) {
+        case INTERFERENCE:
+            return OTHER;
+        case DATA_DEP:
+        case DATA_HEAP:
+        case DATA_ALIAS:
+            return OTHER_IF_INTERPROC;
+        case PARAMETER_OUT:
+            return SKIP;
+        default:
+            return FOLLOW;
+        }
+    }
+}
@@ -7,8 +7,10 @@
  */
 package edu.kit.joana.ifc.sdg.graph.slicer;
 
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.Set;
@@ -34,6 +36,7 @@ public abstract class ContextSlicer implements Slicer {
     protected SDG sdg;
     protected boolean staticCM;
     protected ContextManager conMan;
+    protected ProcedureSliceCache procedureCache = null;
 
     public ContextSlicer(SDG graph, boolean staticContexts) {
         staticCM = staticContexts;
@@ -71,6 +74,28 @@ public abstract class ContextSlicer implements Slicer {
         } else {
         	conMan = new DynamicContextManager(sdg);
         }
+
+        procedureCache = null;
+    }
+
+    /** Lets slice(Collection) take the intra-procedural parts of the slices from the given cache.
+     * The cache has to be built for the graph of this slicer, for the same direction and the same omitted edges.
+     * It can be shared with other slicers.
+     *
+     * @param cache  The cache, or null to traverse all edges.
+     */
+    public void setProcedureSliceCache(ProcedureSliceCache cache) {
+    	if (cache != null && (cache.getGraph() != sdg
+    			|| cache.isBackward() != isDescendingEdge(SDGEdge.Kind.PARAMETER_OUT)
+    			|| !cache.getOmittedEdges().equals(omittedEdges))) {
+    		throw new IllegalArgumentException("The cache does not match the graph, direction or omitted edges.");
+    	}
+
+    	procedureCache = cache;
+    }
+
+    public ProcedureSliceCache getProcedureSliceCache() {
+    	return procedureCache;
     }
 
     public Collection<SDGNode> slice(SDGNode criterion) {
@@ -84,6 +109,10 @@ public abstract class ContextSlicer implements Slicer {
      * @return The slice, as a collection of SDGNodes.
      */
     public Collection<SDGNode> slice(Collection<SDGNode> criterion){
+    	if (procedureCache != null) {
+    		return sliceWithProcedureCache(criterion);
+    	}
+
     	HashSet<SDGNode> slice = new HashSet<SDGNode>();
     	HashSet<Context> visited = new HashSet<Context>();
         LinkedList<Context> worklist_1 = new LinkedList<Context>();
@@ -200,6 +229,164 @@ public abstract class ContextSlicer implements Slicer {
     }
 
 
+    /** Computes the same slice as slice(Collection), but takes the nodes that are reachable
+     * on intra-procedural edges from the procedure slice cache. Only the other edges of these nodes
+     * are traversed. The visited nodes are marked in a bitset per procedure instance, so contexts are only
+     * created for nodes with inter-procedural edges.
+     *
+     * @param criterion  The slicing criterion
+     * @return The slice, as a collection of SDGNodes.
+     */
+    private Collection<SDGNode> sliceWithProcedureCache(Collection<SDGNode> criterion){
+    	HashSet<SDGNode> slice = new HashSet<SDGNode>();
+    	HashMap<Context, BitSet> visited = new HashMap<Context, BitSet>();
+        LinkedList<Context> worklist_1 = new LinkedList<Context>();
+        LinkedList<Context> worklist_2 = new LinkedList<Context>();
+
+        // init worklist
+        for (SDGNode c : criterion) {
+        	for (Context con : conMan.getAllContextsOf(c)) {
+        		if (mark(con, visited)) {
+        			worklist_1.add(con);
+        		}
+        	}
+        }
+
+        // slice
+        while(!worklist_1.isEmpty()) {
+            sliceProcedure(worklist_1.poll(), true, slice, visited, worklist_1, worklist_2);
+        }
+
+        // slice
+        while(!worklist_2.isEmpty()) {
+            sliceProcedure(worklist_2.poll(), false, slice, visited, worklist_2, worklist_2);
+        }
+
+        // return the slice
+        return slice;
+    }
+
+    /** Adds all nodes that are reachable from 'start' on intra-procedural edges to the slice and
+     * traverses their other edges.
+     *
+     * @param start  A context taken from the worklist.
+     * @param phase1  True in the first phase, which ascends to calling procedures.
+     * @param worklist  The worklist of the current phase.
+     * @param worklist_2  The worklist of the second phase.
+     */
+    private void sliceProcedure(Context start, boolean phase1, HashSet<SDGNode> slice,
+    		HashMap<Context, BitSet> visited, LinkedList<Context> worklist, LinkedList<Context> worklist_2) {
+    	ProcedureSliceCache.Reachable reachable = procedureCache.reachable(start.getNode());
+    	BitSet marks = marksOf(start, visited);
+    	int startIndex = procedureCache.indexOf(start.getNode());
+
+    	for (int i = reachable.nextIndex(0); i >= 0; i = reachable.nextIndex(i + 1)) {
+    		if (i != startIndex) {
+    			if (marks.get(i)) {
+    				// already visited together with its intra-procedural part
+    				continue;
+    			}
+
+    			marks.set(i);
+    		}
+
+    		// next element, put it in the slice
+    		slice.add(reachable.getNode(i));
+
+    		if (!reachable.hasOtherEdges(i)) {
+    			continue;
+    		}
+
+    		Context next = (i == startIndex ? start : conMan.level(reachable.getNode(i), start));
+
+    		// handle all incoming edges of 'next'
+    		for(SDGEdge e : getEdges(next.getNode())) {
+    			if (!e.getKind().isSDGEdge() || omittedEdges.contains(e.getKind())
+    					|| procedureCache.isIntraproceduralEdge(e)) {
+    				continue;
+    			}
+
+    			SDGNode n = getAdjacentNode(e);
+
+    			// distinguish between different kinds of edges
+    			if (phase1 && (e.getKind() == SDGEdge.Kind.CALL || e.getKind() == SDGEdge.Kind.PARAMETER_IN)
+    					&& n.getKind() == SDGNode.Kind.FORMAL_OUT) {
+
+    				// The class initialiser method is a special case, see slice(Collection).
+    				Collection<Context> newContexts = conMan.getContextsOf(n, 0);
+
+    				// update the worklist
+    				for (Context con : newContexts) {
+    					if (mark(con, visited)) {
+    						worklist.add(con);
+    					}
+    				}
+
+    			} else if (isAscendingEdge(e.getKind())) {
+    				// go to the calling procedure
+    				if (phase1 && n.isInThread(next.getThread()) && next.isInCallingProcedure(n)) {
+    					SDGNodeTuple callSite = sdg.getCallEntryFor(e);
+    					Context[] newContexts = conMan.ascend(n, callSite, next);
+
+    					for (Context con : newContexts) {
+    						if (con != null && mark(con, visited)) {
+    							worklist.add(con);
+    						}
+    					}
+    				}
+
+    			} else if (isDescendingEdge(e.getKind())) {
+    				// go to the called procedure
+    				SDGNodeTuple callSite = sdg.getCallEntryFor(e);
+    				Context con = conMan.descend(n, callSite, next);
+
+    				if (mark(con, visited)) {
+    					worklist_2.add(con);
+    				}
+
+    			} else {
+    				// intra-procedural traversal to another procedure
+    				Context con = conMan.level(n, next);
+
+    				if (mark(con, visited)) {
+    					worklist.add(con);
+    				}
+    			}
+    		}
+    	}
+    }
+
+    /** Marks a context as visited.
+     *
+     * @return true if the context has not been visited before.
+     */
+    private boolean mark(Context con, HashMap<Context, BitSet> visited) {
+    	BitSet marks = marksOf(con, visited);
+    	int index = procedureCache.indexOf(con.getNode());
+
+    	if (marks.get(index)) {
+    		return false;
+    	}
+
+    	marks.set(index);
+    	return true;
+    }
+
+    /** Returns the marks of the procedure instance of the given context, i.e. of all nodes
+     * of the procedure in the same calling context.
+     */
+    private BitSet marksOf(Context con, HashMap<Context, BitSet> visited) {
+    	Context instance = conMan.level(procedureCache.getFirstNode(con.getNode().getProc()), con);
+    	BitSet marks = visited.get(instance);
+
+    	if (marks == null) {
+    		marks = new BitSet();
+    		visited.put(instance, marks);
+    	}
+
+    	return marks;
+    }
+
     public Collection<Context> contextSliceNodes(Collection<SDGNode> criterion) {
     	HashSet<Context> s = new HashSet<Context>();
     	for (SDGNode n : criterion) {
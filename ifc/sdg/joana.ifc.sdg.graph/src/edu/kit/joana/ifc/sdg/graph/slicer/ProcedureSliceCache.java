@@ -0,0 +1,390 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.ifc.sdg.graph.slicer;
+
+import gnu.trove.map.hash.TIntIntHashMap;
+import gnu.trove.map.hash.TIntObjectHashMap;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import edu.kit.joana.ifc.sdg.graph.SDG;
+import edu.kit.joana.ifc.sdg.graph.SDGEdge;
+import edu.kit.joana.ifc.sdg.graph.SDGNode;
+
+/**
+ * A bounded memo table for the intraprocedural part of context-sensitive slices. For a set of nodes of one
+ * procedure it stores all nodes of the procedure that are reachable from them on intraprocedural edges, as a bitset
+ * over the nodes of the procedure. The result does not depend on the calling context, so a context-sensitive slicer
+ * can reuse it every time it enters the procedure at the same nodes, in every context and for every criterion.
+ *
+ * Intraprocedural edges are all SDG edges that are not omitted, that are no call, parameter-in or parameter-out
+ * edges and that connect two nodes of the same procedure. Summary edges are intraprocedural.
+ *
+ * The least recently used entries are evicted if the cache exceeds its capacity. An instance may be shared between
+ * slicers that traverse the graph in the same direction and omit the same edges, also from different threads.
+ * The graph must not be changed while the cache is used.
+ */
+public final class ProcedureSliceCache {
+
+	public static final int DEFAULT_CAPACITY = 4096;
+
+	private static final int NO_NODE = -1;
+
+	private final SDG sdg;
+	private final boolean backward;
+	private final Set<SDGEdge.Kind> omittedEdges;
+	private final int capacity;
+
+	/* nodes of each procedure sorted by id, node id -> index in its procedure and the nodes of each procedure
+	 * with edges that are not intraprocedural */
+	private final TIntObjectHashMap<SDGNode[]> proc2nodes = new TIntObjectHashMap<SDGNode[]>();
+	private final TIntIntHashMap id2index = new TIntIntHashMap(16, 0.5f, Integer.MIN_VALUE, NO_NODE);
+	private final TIntObjectHashMap<BitSet> proc2other = new TIntObjectHashMap<BitSet>();
+
+	private final Map<Key, Reachable> cache;
+	private long hits = 0;
+	private long misses = 0;
+
+	/**
+	 * @param sdg the graph.
+	 * @param backward true iff incoming edges are traversed, false iff outgoing edges are traversed.
+	 * @param omittedEdges edges of these kinds are not traversed.
+	 * @param capacity maximal number of entries.
+	 */
+	public ProcedureSliceCache(SDG sdg, boolean backward, Set<SDGEdge.Kind> omittedEdges, final int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("capacity has to be positive: " + capacity);
+		}
+
+		this.sdg = sdg;
+		this.backward = backward;
+		this.omittedEdges = new HashSet<SDGEdge.Kind>(omittedEdges);
+		this.capacity = capacity;
+		this.cache = new LinkedHashMap<Key, Reachable>(16, 0.75f, true) {
+			private static final long serialVersionUID = 4245263408539125574L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, Reachable> eldest) {
+				return size() > capacity;
+			}
+		};
+
+		buildIndex();
+	}
+
+	public ProcedureSliceCache(SDG sdg, boolean backward, Set<SDGEdge.Kind> omittedEdges) {
+		this(sdg, backward, omittedEdges, DEFAULT_CAPACITY);
+	}
+
+	private void buildIndex() {
+		final Comparator<SDGNode> byId = SDGNode.getIDComparator();
+		final TIntObjectHashMap<HashSet<SDGNode>> byProc = sdg.sortNodesByProcedure();
+		for (final int proc : byProc.keys()) {
+			final SDGNode[] nodes = byProc.get(proc).toArray(new SDGNode[0]);
+			Arrays.sort(nodes, byId);
+			final BitSet other = new BitSet(nodes.length);
+			for (int i = 0; i < nodes.length; i++) {
+				id2index.put(nodes[i].getId(), i);
+				for (final SDGEdge e : edgesOf(nodes[i])) {
+					if (e.getKind().isSDGEdge() && !omittedEdges.contains(e.getKind()) && !isIntraproceduralEdge(e)) {
+						other.set(i);
+						break;
+					}
+				}
+			}
+			proc2nodes.put(proc, nodes);
+			proc2other.put(proc, other);
+		}
+	}
+
+	private Collection<SDGEdge> edgesOf(SDGNode n) {
+		return (backward ? sdg.incomingEdgesOf(n) : sdg.outgoingEdgesOf(n));
+	}
+
+	public SDG getGraph() {
+		return sdg;
+	}
+
+	public boolean isBackward() {
+		return backward;
+	}
+
+	public Set<SDGEdge.Kind> getOmittedEdges() {
+		return Collections.unmodifiableSet(omittedEdges);
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Returns the index of the node in the array of all nodes of its procedure, sorted by id.
+	 */
+	public int indexOf(SDGNode node) {
+		final int index = id2index.get(node.getId());
+		if (index == NO_NODE) {
+			throw new IllegalArgumentException("node is not part of the graph: " + node);
+		}
+
+		return index;
+	}
+
+	/**
+	 * Returns the node with the smallest id of the procedure. Together with a calling context it identifies an
+	 * instance of the procedure.
+	 */
+	public SDGNode getFirstNode(int proc) {
+		return proc2nodes.get(proc)[0];
+	}
+
+	/**
+	 * Checks if the edge is intraprocedural, i.e. if its adjacent node is part of the cached reachable nodes.
+	 */
+	public boolean isIntraproceduralEdge(SDGEdge e) {
+		final SDGEdge.Kind kind = e.getKind();
+		return kind.isSDGEdge() && !omittedEdges.contains(kind) && kind != SDGEdge.Kind.CALL
+				&& kind != SDGEdge.Kind.PARAMETER_IN && kind != SDGEdge.Kind.PARAMETER_OUT
+				&& e.getSource().getProc() == e.getTarget().getProc();
+	}
+
+	/**
+	 * Returns all nodes that are reachable from the given node on intraprocedural edges, including the node.
+	 */
+	public Reachable reachable(SDGNode entry) {
+		return reachable(Collections.singleton(entry));
+	}
+
+	/**
+	 * Returns all nodes that are reachable from the given nodes on intraprocedural edges, including the nodes.
+	 * The returned collection must not be modified.
+	 * @param entries nodes of the same procedure.
+	 */
+	public synchronized Reachable reachable(Collection<SDGNode> entries) {
+		final Key key = key(entries);
+		Reachable result = cache.get(key);
+
+		if (result == null) {
+			misses++;
+			result = compute(key);
+			cache.put(key, result);
+		} else {
+			hits++;
+		}
+
+		return result;
+	}
+
+	private Key key(Collection<SDGNode> entries) {
+		if (entries.isEmpty()) {
+			throw new IllegalArgumentException("no entry nodes");
+		}
+
+		final int proc = entries.iterator().next().getProc();
+		final int[] indices = new int[entries.size()];
+		int i = 0;
+		for (final SDGNode n : entries) {
+			if (n.getProc() != proc) {
+				throw new IllegalArgumentException("entry nodes of different procedures: " + proc + " and "
+						+ n.getProc());
+			}
+
+			indices[i] = indexOf(n);
+			i++;
+		}
+		Arrays.sort(indices);
+
+		return new Key(proc, indices);
+	}
+
+	private Reachable compute(Key key) {
+		final SDGNode[] nodes = proc2nodes.get(key.proc);
+		final BitSet reached = new BitSet(nodes.length);
+		final int[] worklist = new int[nodes.length];
+		int size = 0;
+		for (final int index : key.entries) {
+			if (!reached.get(index)) {
+				reached.set(index);
+				worklist[size] = index;
+				size++;
+			}
+		}
+
+		while (size > 0) {
+			size--;
+			final SDGNode next = nodes[worklist[size]];
+			for (final SDGEdge e : edgesOf(next)) {
+				if (!isIntraproceduralEdge(e)) {
+					continue;
+				}
+
+				final int index = id2index.get((backward ? e.getSource() : e.getTarget()).getId());
+				if (!reached.get(index)) {
+					reached.set(index);
+					worklist[size] = index;
+					size++;
+				}
+			}
+		}
+
+		return new Reachable(nodes, reached, proc2other.get(key.proc));
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	public synchronized int size() {
+		return cache.size();
+	}
+
+	/**
+	 * Removes all entries and resets the hit and miss counters.
+	 */
+	public synchronized void clear() {
+		cache.clear();
+		hits = 0;
+		misses = 0;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "ProcedureSliceCache: " + cache.size() + "/" + capacity + " entries, " + hits + " hits, " + misses
+				+ " misses";
+	}
+
+	/**
+	 * A procedure and a sorted set of node indices in the procedure.
+	 */
+	private static final class Key {
+
+		private final int proc;
+		private final int[] entries;
+		private final int hash;
+
+		private Key(int proc, int[] entries) {
+			this.proc = proc;
+			this.entries = entries;
+			this.hash = 31 * proc + Arrays.hashCode(entries);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			} else if (!(obj instanceof Key)) {
+				return false;
+			}
+
+			final Key other = (Key) obj;
+			return proc == other.proc && Arrays.equals(entries, other.entries);
+		}
+	}
+
+	/**
+	 * The reached nodes of a procedure as an immutable collection view of a bitset. The nodes can also be
+	 * iterated by their index in the procedure, see {@link ProcedureSliceCache#indexOf(SDGNode)}.
+	 */
+	public static final class Reachable extends AbstractCollection<SDGNode> {
+
+		private final SDGNode[] nodes;
+		private final BitSet reached;
+		private final BitSet other;
+		private final int size;
+
+		private Reachable(SDGNode[] nodes, BitSet reached, BitSet other) {
+			this.nodes = nodes;
+			this.reached = reached;
+			this.other = other;
+			this.size = reached.cardinality();
+		}
+
+		/**
+		 * Returns the smallest index of a reached node that is greater or equal to the given index, or -1.
+		 */
+		public int nextIndex(int from) {
+			return reached.nextSetBit(from);
+		}
+
+		public SDGNode getNode(int index) {
+			return nodes[index];
+		}
+
+		/**
+		 * Checks if the node with the given index has edges that are not intraprocedural and have to be
+		 * traversed by the slicer.
+		 */
+		public boolean hasOtherEdges(int index) {
+			return other.get(index);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			if (!(o instanceof SDGNode)) {
+				return false;
+			}
+
+			final int index = Arrays.binarySearch(nodes, (SDGNode) o, SDGNode.getIDComparator());
+			return index >= 0 && reached.get(index) && nodes[index].equals(o);
+		}
+
+		@Override
+		public Iterator<SDGNode> iterator() {
+			return new Iterator<SDGNode>() {
+
+				private int next = reached.nextSetBit(0);
+
+				@Override
+				public boolean hasNext() {
+					return next >= 0;
+				}
+
+				@Override
+				public SDGNode next() {
+					if (next < 0) {
+						throw new NoSuchElementException();
+					}
+
+					final SDGNode n = nodes[next];
+					next = reached.nextSetBit(next + 1);
+
+					return n;
+				}
+
+				@Override
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+	}
+}
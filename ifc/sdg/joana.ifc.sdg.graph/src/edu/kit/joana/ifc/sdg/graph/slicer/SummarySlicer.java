@@ -8,12 +8,14 @@
 package edu.kit.joana.ifc.sdg.graph.slicer;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -195,6 +197,8 @@ public abstract class SummarySlicer implements Slicer {
     protected abstract EdgePredicate phase2Predicate();
 
 
+    private static final int SLICE_ALL_BATCH_SIZE = 64;
+
     public static void summarySliceAll(SDG sdg) {
     	sliceAll(sdg, new SummarySlicerBackward(sdg));
     }
@@ -226,15 +230,27 @@ public abstract class SummarySlicer implements Slicer {
 
 //      Slicer slicer = new SummarySlicerBackward(sdg);
 
+      // batch slicers compute the slices of a block of criteria at once
+      final List<SDGNode> criteria = new ArrayList<SDGNode>();
       for (SDGNode n : sdg.vertexSet()) {
-//        if (n.getKind() == SDGNode.Kind.FORMAL_IN) {
         if (isCriterion(n)) {
-          ++criterion_count;
-          Collection<SDGNode> criterion = Collections.singleton(n);
+          criteria.add(n);
+        }
+      }
+
+      Map<SDGNode, Collection<SDGNode>> batch = null;
+      for (int k = 0; k < criteria.size(); k++) {
+        SDGNode n = criteria.get(k);
+        if (slicer instanceof BatchSlicer && k % SLICE_ALL_BATCH_SIZE == 0) {
+          batch = ((BatchSlicer) slicer).sliceEach(
+              criteria.subList(k, Math.min(k + SLICE_ALL_BATCH_SIZE, criteria.size())));
+        }
+        ++criterion_count;
+        Collection<SDGNode> criterion = Collections.singleton(n);
 //          criterion.push_back(n);
-          System.out.print("slice " + criterion_count + " @" + n + ": ");
+        System.out.print("slice " + criterion_count + " @" + n + ": ");
 //          slice_timer.start();
-          Collection<SDGNode> result = slicer.slice(criterion/*, true*/);
+        Collection<SDGNode> result = (batch != null ? batch.get(n) : slicer.slice(criterion/*, true*/));
 //          Collection result1 = new SDGSlicer(sdg, criterion).slice();
 //          assert result1.size() == result.size() && result.containsAll(result1) :
 //          	"help size " + result.size() + " size1 " + result1.size() + " result\n" +
@@ -243,17 +259,16 @@ public abstract class SummarySlicer implements Slicer {
 //          if (slice_timer.elapsed() > max_slice_time)
 //          	max_slice_time = slice_timer.elapsed();
 //          cout.precision(2);
-          for (Iterator<SDGNode> i = result.iterator(); i.hasNext();) {
+        for (Iterator<SDGNode> i = result.iterator(); i.hasNext();) {
 						SDGNode node = i.next();
 						if (node.isParameter())
 							i.remove();
 					}
-          System.out.println(" size " + result.size() + " - " + ((100 * result.size() / sdg_size))
-          		+ "%");
-          if (result.size() > max_size)
-          	max_size = result.size();
-          sum_size = sum_size.add(BigInteger.valueOf(result.size()));
-        }
+        System.out.println(" size " + result.size() + " - " + ((100 * result.size() / sdg_size))
+        		+ "%");
+        if (result.size() > max_size)
+        	max_size = result.size();
+        sum_size = sum_size.add(BigInteger.valueOf(result.size()));
       }
 //      timer.stop();
       if (criterion_count > 0) {
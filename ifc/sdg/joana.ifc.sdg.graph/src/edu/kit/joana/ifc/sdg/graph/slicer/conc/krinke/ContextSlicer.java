@@ -18,6 +18,7 @@ import edu.kit.joana.ifc.sdg.graph.SDG;
 import edu.kit.joana.ifc.sdg.graph.SDGEdge;
 import edu.kit.joana.ifc.sdg.graph.SDGNode;
 import edu.kit.joana.ifc.sdg.graph.SDGNodeTuple;
+import edu.kit.joana.ifc.sdg.graph.slicer.ProcedureSliceCache;
 import edu.kit.joana.ifc.sdg.graph.slicer.graph.Context;
 import edu.kit.joana.ifc.sdg.graph.slicer.graph.ContextManager;
 
@@ -33,6 +34,7 @@ public class ContextSlicer {
     private SDG sdg;
     private ContextManager man;
     private Set<SDGEdge.Kind> threadEdges = SDGEdge.Kind.threadEdges();
+    private ProcedureSliceCache procedureCache = null;
 
     /** Containing marks for visited vertices. */
     protected HashMap<SDGNode, HashSet<WorklistElement>> map;
@@ -49,6 +51,22 @@ public class ContextSlicer {
         map = new HashMap<SDGNode, HashSet<WorklistElement>>();
     }
 
+    /**
+     * Lets slice take the intra-procedural parts of the slices from the given cache.
+     * The cache has to be a backward cache for the same graph that omits the thread edges.
+     * It can be shared with other slicers.
+     *
+     * @param cache The cache, or null to traverse all edges.
+     */
+    public void setProcedureSliceCache(ProcedureSliceCache cache) {
+    	if (cache != null && (cache.getGraph() != sdg || !cache.isBackward()
+    			|| !cache.getOmittedEdges().equals(threadEdges))) {
+    		throw new IllegalArgumentException("The cache does not match the graph, direction or omitted edges.");
+    	}
+
+    	procedureCache = cache;
+    }
+
     /**
      * Returns the map of visited worklist elements.
      */
@@ -66,6 +84,10 @@ public class ContextSlicer {
      *          that have an incoming interference edge.
      */
     public Collection<WorklistElement> slice(WorklistElement criterium, Set<SDGNode> slice) {
+    	if (procedureCache != null) {
+    		return sliceWithProcedureCache(criterium, slice);
+    	}
+
         HashSet<WorklistElement> has_interference = new HashSet<WorklistElement>();
         map.clear();
 
@@ -171,6 +193,147 @@ public class ContextSlicer {
         return has_interference;
     }
 
+    /**
+     * Computes the same slice as slice(WorklistElement, Set), but takes the vertices that are reachable
+     * on intra-procedural edges from the procedure slice cache. Only the other edges of these vertices
+     * are traversed.
+     */
+    private Collection<WorklistElement> sliceWithProcedureCache(WorklistElement criterium, Set<SDGNode> slice) {
+        HashSet<WorklistElement> has_interference = new HashSet<WorklistElement>();
+        map.clear();
+
+        // init worklists
+        LinkedList<WorklistElement> worklist_1 = new LinkedList<WorklistElement>();
+        LinkedList<WorklistElement> worklist_2 = new LinkedList<WorklistElement>();
+        worklist_1.add(criterium);
+        addMark(criterium.getNode(), criterium);
+
+        while(!worklist_1.isEmpty()) {
+        	WorklistElement start = worklist_1.poll();
+
+        	for (SDGNode reached : procedureCache.reachable(start.getNode())) {
+        		WorklistElement next = start;
+
+        		if (reached != start.getNode()) {
+        			next = newElement(reached, start);
+
+        			if (isProperlyMarked(reached, next)) {
+        				// already visited together with its intra-procedural part
+        				continue;
+        			}
+
+        			addMark(reached, next);
+        		}
+
+        		// next element, put it in the slice
+        		slice.add(next.getNode());
+
+        		// handle all incoming edges of 'next'
+        		for(SDGEdge e : sdg.incomingEdgesOf(next.getNode())) {
+        			if (!e.getKind().isSDGEdge()) {
+        				continue;
+        			}
+
+        			SDGNode n = e.getSource();
+
+        			// distinguish between different kinds of edges
+        			if ((e.getKind() == SDGEdge.Kind.CALL || e.getKind() == SDGEdge.Kind.PARAMETER_IN)
+        					&& n.getKind() == SDGNode.Kind.FORMAL_OUT) {
+
+        				// The class initialiser method is a special case, see slice(WorklistElement, Set).
+        				Collection<Context> newContexts = man.getAllContextsOf(n);
+
+        				// update the worklist
+        				for (Context con : newContexts) {
+        					addToWorklist(worklist_1, n, con, next.getStates(), next.getThread());
+        				}
+
+        			} else if (e.getKind() == SDGEdge.Kind.CALL || e.getKind() == SDGEdge.Kind.PARAMETER_IN) {
+        				// go to the calling procedure
+        				if (n.isInThread(next.getThread()) && next.getContext().isInCallingProcedure(n)) {
+        					SDGNodeTuple callSite = sdg.getCallEntryFor(e);
+        					Context[] newContexts = man.ascend(n, callSite, next.getContext());
+
+        					for (Context con : newContexts) {
+        						if (con != null) {
+        							addToWorklist(worklist_1, n, con, next.getStates(), next.getThread());
+        						}
+        					}
+        				}
+
+        			} else if (e.getKind() == SDGEdge.Kind.PARAMETER_OUT) {
+        				// go to the called procedure
+        				SDGNodeTuple callSite = sdg.getCallEntryFor(e);
+        				Context con = man.descend(n, callSite, next.getContext());
+        				addToWorklist(worklist_2, n, con, next.getStates(), next.getThread());
+
+        			} else if (threadEdges.contains(e.getKind())) {
+        				has_interference.add(next);
+
+        			} else if (!procedureCache.isIntraproceduralEdge(e)) {
+        				// intra-procedural traversal to another procedure
+        				Context con = man.level(n, next.getContext());
+        				addToWorklist(worklist_1, n, con, next.getStates(), next.getThread());
+        			}
+        		}
+        	}
+        }
+
+        // slice
+        while(!worklist_2.isEmpty()) {
+        	WorklistElement start = worklist_2.poll();
+
+        	for (SDGNode reached : procedureCache.reachable(start.getNode())) {
+        		WorklistElement next = start;
+
+        		if (reached != start.getNode()) {
+        			next = newElement(reached, start);
+
+        			if (isProperlyMarked(reached, next)) {
+        				// already visited together with its intra-procedural part
+        				continue;
+        			}
+
+        			addMark(reached, next);
+        		}
+
+        		// next element, put it in the slice
+        		slice.add(next.getNode());
+
+        		// handle all incoming edges of 'next'
+        		for(SDGEdge e : sdg.incomingEdgesOf(next.getNode())){
+        			if (!e.getKind().isSDGEdge()) {
+        				continue;
+        			}
+
+        			SDGNode n = e.getSource();
+
+        			// distinguish between different kinds of edges
+        			if (e.getKind() == SDGEdge.Kind.CALL || e.getKind() == SDGEdge.Kind.PARAMETER_IN) {
+        				// skip
+
+        			} else if (e.getKind() == SDGEdge.Kind.PARAMETER_OUT) {
+        				// go to the called procedure
+        				SDGNodeTuple callSite = sdg.getCallEntryFor(e);
+        				Context con = man.descend(n, callSite, next.getContext());
+        				addToWorklist(worklist_2, n, con, next.getStates(), next.getThread());
+
+        			} else if (threadEdges.contains(e.getKind())) {
+        				has_interference.add(next);
+
+        			} else if (!procedureCache.isIntraproceduralEdge(e)) {
+        				// intra-procedural traversal to another procedure
+        				Context con = man.level(n, next.getContext());
+        				addToWorklist(worklist_2, n, con, next.getStates(), next.getThread());
+        			}
+        		}
+        	}
+        }
+
+        // return all found vertices with outgoing interference edges
+        return has_interference;
+    }
+
     /**
      * Slices a threaded interprocedural graph using explicitly context sensitive slicing.
      * Interference edges and summary edges are not traversed.
@@ -292,6 +455,16 @@ public class ContextSlicer {
         return has_interference;
     }
 
+    /**
+     * Creates the worklist element for a vertex that is reached from 'from' on intra-procedural edges.
+     */
+    private WorklistElement newElement(SDGNode reached, WorklistElement from) {
+        Context newCon = man.level(reached, from.getContext());
+        States newStates = from.getStates().clone();
+        newStates.set(from.getThread(), newCon);
+        return new WorklistElement(newCon, newStates);
+    }
+
     protected void addToWorklist(LinkedList<WorklistElement> worklist, SDGNode newNode,
     		Context newCon, States oldStates, int oldThread) {
         // update the states
@@ -16,6 +16,7 @@ import java.util.List;
 import edu.kit.joana.ifc.sdg.graph.SDG;
 import edu.kit.joana.ifc.sdg.graph.SDGEdge;
 import edu.kit.joana.ifc.sdg.graph.SDGNode;
+import edu.kit.joana.ifc.sdg.graph.slicer.ProcedureSliceCache;
 import edu.kit.joana.ifc.sdg.graph.slicer.graph.CFG;
 import edu.kit.joana.ifc.sdg.graph.slicer.graph.Context;
 import edu.kit.joana.ifc.sdg.graph.slicer.graph.ContextManager;
@@ -91,6 +92,15 @@ public class Krinke implements edu.kit.joana.ifc.sdg.graph.slicer.Slicer {
         this.reachable = new ReachabilityChecker(foldedIcfg);
     }
 
+    /** Lets the intrathreadual slicer take the intra-procedural parts of its slices from the given cache.
+     * The cache has to be a backward cache for the graph of this slicer that omits the thread edges.
+     *
+     * @param cache The cache, or null to traverse all edges.
+     */
+    public void setProcedureSliceCache(ProcedureSliceCache cache) {
+    	slicer.setProcedureSliceCache(cache);
+    }
+
     public Collection<SDGNode> slice(SDGNode criterion) {
     	return slice(Collections.singleton(criterion));
     }
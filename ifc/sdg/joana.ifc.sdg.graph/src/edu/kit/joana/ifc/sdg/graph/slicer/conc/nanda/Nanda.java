@@ -13,6 +13,7 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import edu.kit.joana.ifc.sdg.graph.SDG;
 import edu.kit.joana.ifc.sdg.graph.SDGEdge;
@@ -51,7 +52,8 @@ public class Nanda implements Slicer {
 		CLASS_INITIALIZER;
 	}
 
-	public static long elems = 0L;
+	/** Counts the worklist elements of all instances, which may slice concurrently. */
+	public static final AtomicLong elems = new AtomicLong();
 	protected static boolean TIME_TRAVELS = true;
 
     // === fields ===
@@ -98,6 +100,13 @@ public class Nanda implements Slicer {
     }
 
     public Nanda(Nanda n, NandaMode mode) {
+        this(n, mode, new TrivialEdgeListener());
+    }
+
+    /** Creates a new instance that shares the context graphs and the MHP analysis of another instance.
+     * Instances created this way may slice concurrently, as long as the graph is not modified.
+     */
+    public Nanda(Nanda n, NandaMode mode, EdgeListener edgeListener) {
         this.mode = mode;
         this.graph = n.graph;
         this.mhp = n.mhp;
@@ -107,7 +116,7 @@ public class Nanda implements Slicer {
         Collection<TopologicalNumber> tmp = Collections.emptySet();
         emptyIterator = tmp.iterator();
         this.mayExist = n.mayExist;
-        this.edgeListener = new TrivialEdgeListener();
+        this.edgeListener = edgeListener;
     }
     
    
@@ -171,7 +180,7 @@ public class Nanda implements Slicer {
         Collection<SDGNode> interferingNodes = summarySlicer.slice(crit, slice);
 
         if (interferingNodes.isEmpty()) {
-        	elems++;
+        	elems.incrementAndGet();
             return slice;
 
         } else {
@@ -188,6 +197,8 @@ public class Nanda implements Slicer {
      */
     protected Collection<SDGNode> nandaSlice(Collection<SDGNode> crit) {
     	HashSet<SDGNode> slice = new HashSet<SDGNode>();
+    	// counted locally and published once, so concurrent instances do not contend for the shared counter
+    	long inserted = 0L;
         restrictive_1 = new VisitedMap();
         restrictive_2 = new VisitedMap();
 
@@ -232,7 +243,7 @@ public class Nanda implements Slicer {
 
                 				long tmp = worklist_0.size();
                     			insertSingle(false, adjacent, reachedThread, nr, next.getStates(), worklist_0, slice);
-                    			elems += (worklist_0.size() - tmp);
+                    			inserted += (worklist_0.size() - tmp);
                 			}
 
                 		}
@@ -249,7 +260,7 @@ public class Nanda implements Slicer {
                 			// add to worklist 0
 	                        long tmp = worklist_0.size();
             				insert(false, adjacent, reachedThread, validTNRs, next.getStates(), worklist_0, slice);
-            				elems += (worklist_0.size() - tmp);
+            				inserted += (worklist_0.size() - tmp);
                 		}
                 		break;
 
@@ -313,7 +324,7 @@ public class Nanda implements Slicer {
 
                 				long tmp = worklist_0.size();
                     			insertSingle(false, adjacent, reachedThread, nr, next.getStates(), worklist_0, slice);
-                    			elems += (worklist_0.size() - tmp);
+                    			inserted += (worklist_0.size() - tmp);
                 			}
 
                 		}
@@ -329,7 +340,7 @@ public class Nanda implements Slicer {
 
             				long tmp = worklist_0.size();
         					insert(false, adjacent, reachedThread, validTNRs, next.getStates(), worklist_0, slice);
-        					elems += (worklist_0.size() - tmp);
+        					inserted += (worklist_0.size() - tmp);
             			}
             			break;
 
@@ -356,6 +367,7 @@ public class Nanda implements Slicer {
             }
         }
 
+        elems.addAndGet(inserted);
         return slice;
     }
 
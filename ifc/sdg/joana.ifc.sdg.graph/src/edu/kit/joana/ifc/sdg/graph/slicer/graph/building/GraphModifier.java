@@ -14,8 +14,13 @@ import edu.kit.joana.ifc.sdg.graph.SDGNode;
 import edu.kit.joana.ifc.sdg.graph.SDGNodeTuple;
 import edu.kit.joana.ifc.sdg.graph.SDGEdge.Kind;
 import edu.kit.joana.ifc.sdg.graph.slicer.graph.CFG;
+import gnu.trove.iterator.TObjectLongIterator;
+import gnu.trove.map.hash.TIntLongHashMap;
+import gnu.trove.map.hash.TIntObjectHashMap;
+import gnu.trove.map.hash.TObjectLongHashMap;
 import gnu.trove.set.hash.TIntHashSet;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -853,6 +858,201 @@ public class GraphModifier {
         return deact;
     }
 
+    /** Computes {@link #blockSummaryEdges(SDG, Collection)} for several barriers at once.
+     * The barriers are processed in groups of 64: every procedure, summary edge and
+     * pair of reaching nodes carries a bit mask of the barriers for which it is marked,
+     * so each group needs a single traversal of the graph.
+     *
+     * @param sdg       The SDG.
+     * @param barriers  The barriers.
+     * @return  The summary edges to block, in the order of the barriers.
+     */
+    public static List<Collection<SDGEdge>> blockSummaryEdges(SDG sdg, List<? extends Collection<SDGNode>> barriers) {
+        List<Collection<SDGEdge>> result = new ArrayList<Collection<SDGEdge>>(barriers.size());
+
+        for (int first = 0; first < barriers.size(); first += 64) {
+            List<? extends Collection<SDGNode>> group = barriers.subList(first, Math.min(first + 64, barriers.size()));
+            TObjectLongHashMap<SDGEdge> deact = new MultiBarrierSummaryBlocker(sdg, group).run();
+
+            for (int i = 0; i < group.size(); i++) {
+                HashSet<SDGEdge> blocked = new HashSet<SDGEdge>();
+                long bit = 1L << i;
+
+                for (TObjectLongIterator<SDGEdge> it = deact.iterator(); it.hasNext(); ) {
+                    it.advance();
+                    if ((it.value() & bit) != 0) {
+                        blocked.add(it.key());
+                    }
+                }
+
+                result.add(blocked);
+            }
+        }
+
+        return result;
+    }
+
+    /** The traversal of blockSummaryEdges for up to 64 barriers, bit i stands for barrier i. */
+    private static class MultiBarrierSummaryBlocker {
+        private final SDG sdg;
+        private final List<? extends Collection<SDGNode>> barriers;
+        private final TIntLongHashMap barrierMask = new TIntLongHashMap();  // node id -> barriers containing it
+        private final TIntLongHashMap procMask = new TIntLongHashMap();     // proc -> barriers blocking its callers
+        private final TObjectLongHashMap<SDGEdge> deact = new TObjectLongHashMap<SDGEdge>();
+        // (first node id -> (formal-out id -> barriers)), like markedEdges of blockSummaryEdges
+        private final TIntObjectHashMap<TIntLongHashMap> marked = new TIntObjectHashMap<TIntLongHashMap>();
+        private final LinkedList<Marked> worklist = new LinkedList<Marked>();
+
+        private MultiBarrierSummaryBlocker(SDG sdg, List<? extends Collection<SDGNode>> barriers) {
+            this.sdg = sdg;
+            this.barriers = barriers;
+        }
+
+        private TObjectLongHashMap<SDGEdge> run() {
+            // block _all_ reachable summary edgies
+            LinkedList<SDGNode> procs = new LinkedList<SDGNode>();
+            LinkedList<Long> procBits = new LinkedList<Long>();
+
+            for (int i = 0; i < barriers.size(); i++) {
+                for (SDGNode n : barriers.get(i)) {
+                    barrierMask.put(n.getId(), barrierMask.get(n.getId()) | (1L << i));
+                }
+            }
+
+            for (int i = 0; i < barriers.size(); i++) {
+                for (SDGNode n : barriers.get(i)) {
+                    taint(n, 1L << i, procs, procBits);
+                }
+            }
+
+            while (!procs.isEmpty()) {
+                SDGNode next = procs.poll();
+                long bits = procBits.poll();
+                SDGNode entry = sdg.getEntry(next);
+
+                for (SDGNode fo : sdg.getFormalOutsOfProcedure(entry)) {
+                    mark(fo, fo, bits & ~barrierMask.get(fo.getId()));
+                }
+
+                for (SDGEdge call : sdg.incomingEdgesOf(entry)) {
+                    for (SDGEdge su : sdg.getSummaryEdges(call.getSource())) {
+                        long newBits = bits & ~deact.get(su);
+
+                        if (newBits != 0) {
+                            deact.put(su, deact.get(su) | newBits);
+                            taint(su.getSource(), newBits, procs, procBits);
+                        }
+                    }
+                }
+            }
+
+            // unblock some summary edges
+            while (!worklist.isEmpty()) {
+                Marked next = worklist.poll();
+
+                if (next.node.getKind() == SDGNode.Kind.FORMAL_IN) {
+                    for (SDGEdge pi : sdg.getIncomingEdgesOfKind(next.node, SDGEdge.Kind.PARAMETER_IN)) {
+                        for (SDGEdge po : sdg.getOutgoingEdgesOfKind(next.formalOut, SDGEdge.Kind.PARAMETER_OUT)) {
+                            unblock(pi.getSource(), po.getTarget(), next.bits);
+                        }
+                    }
+
+                } else {
+                    for (SDGEdge edge : sdg.incomingEdgesOf(next.node)) {
+                        if (edge.getKind() == SDGEdge.Kind.SUMMARY) {
+                            mark(edge.getSource(), next.formalOut,
+                                    next.bits & ~barrierMask.get(edge.getSource().getId()) & ~deact.get(edge));
+
+                        } else if (isIntraDependence(edge.getKind())) {
+                            mark(edge.getSource(), next.formalOut, next.bits & ~barrierMask.get(edge.getSource().getId()));
+                        }
+                    }
+                }
+            }
+
+            return deact;
+        }
+
+        private void taint(SDGNode node, long bits, LinkedList<SDGNode> procs, LinkedList<Long> procBits) {
+            long newBits = bits & ~procMask.get(node.getProc());
+
+            if (newBits != 0) {
+                procMask.put(node.getProc(), procMask.get(node.getProc()) | newBits);
+                procs.add(node);
+                procBits.add(newBits);
+            }
+        }
+
+        private void unblock(SDGNode actIn, SDGNode actOut, long bits) {
+            for (SDGEdge su : sdg.getOutgoingEdgesOfKind(actIn, SDGEdge.Kind.SUMMARY)) {
+                if (su.getTarget() != actOut) {
+                    continue;
+                }
+
+                final long unblocked = bits & deact.get(su);
+
+                if (unblocked != 0) {
+                    deact.put(su, deact.get(su) & ~unblocked);
+                    bits &= ~unblocked;
+
+                    TIntLongHashMap reached = marked.get(actOut.getId());
+                    if (reached != null) {
+                        // copy, mark may add to the marks of actOut if the call is recursive
+                        for (int fo : reached.keys()) {
+                            mark(actIn, sdg.getNode(fo), reached.get(fo) & unblocked);
+                        }
+                    }
+                }
+            }
+        }
+
+        private void mark(SDGNode node, SDGNode formalOut, long bits) {
+            if (bits == 0) {
+                return;
+            }
+
+            TIntLongHashMap reached = marked.get(node.getId());
+            if (reached == null) {
+                reached = new TIntLongHashMap();
+                marked.put(node.getId(), reached);
+            }
+
+            long old = reached.get(formalOut.getId());
+            long newBits = bits & ~old;
+
+            if (newBits != 0) {
+                reached.put(formalOut.getId(), old | newBits);
+                worklist.add(new Marked(node, formalOut, newBits));
+            }
+        }
+
+        private static boolean isIntraDependence(SDGEdge.Kind kind) {
+            return kind == SDGEdge.Kind.DATA_DEP
+                    || kind == SDGEdge.Kind.DATA_HEAP
+                    || kind == SDGEdge.Kind.DATA_ALIAS
+                    || kind == SDGEdge.Kind.DATA_DEP_EXPR_REFERENCE
+                    || kind == SDGEdge.Kind.DATA_DEP_EXPR_VALUE
+                    || kind == SDGEdge.Kind.DATA_LOOP
+                    || kind == SDGEdge.Kind.CONTROL_DEP_CALL
+                    || kind == SDGEdge.Kind.CONTROL_DEP_COND
+                    || kind == SDGEdge.Kind.CONTROL_DEP_EXPR
+                    || kind == SDGEdge.Kind.CONTROL_DEP_UNCOND;
+        }
+    }
+
+    /** A node that reaches a formal-out node for the barriers in bits. */
+    private static class Marked {
+        private final SDGNode node;
+        private final SDGNode formalOut;
+        private final long bits;
+
+        private Marked(SDGNode node, SDGNode formalOut, long bits) {
+            this.node = node;
+            this.formalOut = formalOut;
+            this.bits = bits;
+        }
+    }
+
     /**
      * Gets a set of nodes and computes a barrier for this set.
      * This barrier can be used for bounded slices that shall only visit the
@@ -0,0 +1,399 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.ifc.sdg.graph.slicer.graph.threads;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import edu.kit.joana.ifc.sdg.graph.SDG;
+import edu.kit.joana.ifc.sdg.graph.SDGEdge;
+import edu.kit.joana.ifc.sdg.graph.SDGNode;
+import edu.kit.joana.ifc.sdg.graph.slicer.graph.VirtualNode;
+import edu.kit.joana.ifc.sdg.graph.slicer.graph.threads.ThreadsInformation.ThreadInstance;
+import edu.kit.joana.util.Digests;
+import edu.kit.joana.util.Log;
+import edu.kit.joana.util.Logger;
+
+/**
+ * Stores the result of a {@link PreciseMHPAnalysis} in a file, usually next to the .pdg file of the SDG, and loads
+ * it instead of running the analysis again.
+ *
+ * The result only depends on the nodes, the control flow, call, fork and join edges and the thread information of
+ * the SDG. A SHA-1 hash over these parts identifies the SDG the result has been computed for. Other edges, like the
+ * interference edges that are pruned after the MHP analysis, do not change the hash. Node ids are stored as they are,
+ * so the result is only valid for a graph with exactly the same ids. All numbers are stored big-endian:
+ * <pre>
+ * header    : int MAGIC, int VERSION, UTF content hash
+ * regions   : int #regions, { int id, int thread, byte dynamic, int start, int #nodes, node ids }*  (ascending ids)
+ * matrix    : int dimension, { byte allocated, [longs of the block] }*  (see SymmetricBitMatrix)
+ * may exist : int #threads, { int thread, int #regions, region ids }*
+ * trailer   : int MAGIC
+ * </pre>
+ */
+public final class PersistentMHPAnalysis {
+
+	/** 'JMHP' */
+	public static final int MAGIC = 0x4A4D4850;
+	/** The current version of the format. Files with other versions are computed again. */
+	public static final int VERSION = 1;
+	/** Suffix appended to the name of the SDG file by {@link #fileFor(String)}. */
+	public static final String FILE_SUFFIX = ".mhp";
+
+	private static final String TMP_FILE_SUFFIX = ".tmp";
+	private static final int NO_NODE = Integer.MIN_VALUE;
+
+	private static final Logger log = Log.getLogger(Log.L_MHP_INFO);
+
+	private PersistentMHPAnalysis() {}
+
+	/**
+	 * Returns the file that keeps the MHP result of the SDG stored in the given file.
+	 */
+	public static String fileFor(String sdgFile) {
+		return sdgFile + FILE_SUFFIX;
+	}
+
+	/**
+	 * Loads the MHP result of the SDG from the given file. If the file does not exist, cannot be read or belongs to a
+	 * different SDG, the result is computed with {@link PreciseMHPAnalysis#analyze(SDG)} and written to the file.
+	 * A file that cannot be written is not an error of the analysis, so this is only logged.
+	 *
+	 * @param sdg  A pre-processed cSDG.
+	 * @param file  The file of the stored result.
+	 */
+	public static PreciseMHPAnalysis loadOrAnalyze(SDG sdg, String file) {
+		final String hash = contentHash(sdg);
+
+		if (new File(file).isFile()) {
+			try {
+				final PreciseMHPAnalysis mhp = read(sdg, hash, file);
+				if (mhp != null) {
+					log.outln("loaded MHP analysis from " + file);
+					return mhp;
+				}
+				log.outln("MHP analysis in " + file + " belongs to a different SDG");
+			} catch (IOException e) {
+				log.outln("could not load MHP analysis from " + file + ": " + e.getMessage());
+			}
+		}
+
+		final PreciseMHPAnalysis mhp = PreciseMHPAnalysis.analyze(sdg);
+
+		try {
+			write(mhp, hash, file);
+		} catch (IOException e) {
+			log.outln("could not store MHP analysis in " + file + ": " + e.getMessage());
+		}
+
+		return mhp;
+	}
+
+	/**
+	 * Reads the MHP result of the SDG from the given file.
+	 *
+	 * @return The MHP result or null, if the file has been written for a different SDG.
+	 * @throws IOException if the file cannot be read or is not a valid MHP file.
+	 */
+	public static PreciseMHPAnalysis read(SDG sdg, String file) throws IOException {
+		return read(sdg, contentHash(sdg), file);
+	}
+
+	/**
+	 * Writes the MHP result of the SDG to the given file. The result is written to a temporary file first and renamed
+	 * afterwards, so concurrent readers never see partially written results.
+	 */
+	public static void write(PreciseMHPAnalysis mhp, SDG sdg, String file) throws IOException {
+		write(mhp, contentHash(sdg), file);
+	}
+
+	private static PreciseMHPAnalysis read(SDG sdg, String hash, String file) throws IOException {
+		final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+
+		try {
+			if (in.readInt() != MAGIC) {
+				throw new IOException("Not a MHP file: " + file);
+			}
+
+			if (in.readInt() != VERSION || !hash.equals(in.readUTF())) {
+				return null;
+			}
+
+			// thread regions
+			final int numRegions = in.readInt();
+			final List<ThreadRegion> regions = new ArrayList<ThreadRegion>(numRegions);
+
+			for (int i = 0; i < numRegions; i++) {
+				final int id = in.readInt();
+				final int thread = in.readInt();
+				final boolean dynamic = in.readBoolean();
+				final int start = in.readInt();
+				if (id != i) {
+					throw new IOException("Invalid order of thread regions in " + file);
+				}
+
+				final ThreadRegion r = new ThreadRegion(id, (start == NO_NODE ? null : node(sdg, start)), thread, dynamic);
+				final int numNodes = in.readInt();
+				final Collection<SDGNode> nodes = new HashSet<SDGNode>(numNodes * 4 / 3 + 1);
+
+				for (int j = 0; j < numNodes; j++) {
+					nodes.add(node(sdg, in.readInt()));
+				}
+
+				r.setNodes(nodes);
+				regions.add(r);
+			}
+
+			// parallelism of the regions
+			final SymmetricBitMatrix map = SymmetricBitMatrix.read(in);
+			if (map.getDimension() != numRegions) {
+				throw new IOException("Dimension of MHP matrix does not match the thread regions in " + file);
+			}
+
+			// may-exist map, stored as the regions whose nodes may exist in parallel to a thread
+			final int numThreads = in.readInt();
+			final HashMap<Integer, Collection<VirtualNode>> mayExist = new HashMap<Integer, Collection<VirtualNode>>();
+
+			for (int i = 0; i < numThreads; i++) {
+				final int thread = in.readInt();
+				final int numParallel = in.readInt();
+				final Collection<VirtualNode> c = new HashSet<VirtualNode>();
+
+				for (int j = 0; j < numParallel; j++) {
+					final int id = in.readInt();
+					if (id < 0 || id >= numRegions) {
+						throw new IOException("Invalid thread region " + id + " in " + file);
+					}
+
+					final ThreadRegion s = regions.get(id);
+					for (SDGNode n : s.getNodes()) {
+						c.add(new VirtualNode(n, s.getThread()));
+					}
+				}
+
+				mayExist.put(thread, c);
+			}
+
+			if (in.readInt() != MAGIC) {
+				throw new IOException("Missing trailer of MHP file " + file);
+			}
+
+			return new PreciseMHPAnalysis(sdg.getThreadsInfo(), map, new ThreadRegions(regions, sdg), mayExist);
+		} catch (EOFException e) {
+			throw new IOException("Unexpected end of MHP file " + file);
+		} finally {
+			in.close();
+		}
+	}
+
+	private static SDGNode node(SDG sdg, int id) throws IOException {
+		final SDGNode n = sdg.getNode(id);
+		if (n == null) {
+			throw new IOException("Node " + id + " is not part of the SDG");
+		}
+
+		return n;
+	}
+
+	private static void write(PreciseMHPAnalysis mhp, String hash, String file) throws IOException {
+		final File target = new File(file);
+		final File tmp = new File(target.getPath() + "." + Thread.currentThread().getId() + TMP_FILE_SUFFIX);
+		final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 1 << 16));
+
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeUTF(hash);
+
+			// thread regions, the id of a region is its position in the list
+			final Collection<ThreadRegion> regions = mhp.getThreadRegions();
+			out.writeInt(regions.size());
+
+			for (ThreadRegion r : regions) {
+				out.writeInt(r.getID());
+				out.writeInt(r.getThread());
+				out.writeBoolean(r.isDynamic());
+				out.writeInt(r.getStart() == null ? NO_NODE : r.getStart().getId());
+				out.writeInt(r.getNodes().size());
+
+				for (SDGNode n : r.getNodes()) {
+					out.writeInt(n.getId());
+				}
+			}
+
+			// parallelism of the regions
+			mhp.getMatrix().write(out);
+
+			// may-exist map, the node sets consist of whole regions: the regions parallel to any region of the thread
+			final Map<Integer, Collection<VirtualNode>> mayExist = mhp.getMayExistMap();
+			out.writeInt(mayExist.size());
+
+			for (Map.Entry<Integer, Collection<VirtualNode>> e : mayExist.entrySet()) {
+				final List<ThreadRegion> parallel = new ArrayList<ThreadRegion>();
+				int numNodes = 0;
+
+				for (ThreadRegion s : regions) {
+					if (!s.getNodes().isEmpty()
+							&& e.getValue().contains(new VirtualNode(s.getNodes().iterator().next(), s.getThread()))) {
+						parallel.add(s);
+						numNodes += s.getNodes().size();
+					}
+				}
+
+				if (numNodes != e.getValue().size()) {
+					throw new IOException("May-exist map of thread " + e.getKey() + " does not consist of thread regions");
+				}
+
+				out.writeInt(e.getKey());
+				out.writeInt(parallel.size());
+				for (ThreadRegion s : parallel) {
+					out.writeInt(s.getID());
+				}
+			}
+
+			out.writeInt(MAGIC);
+		} catch (IOException e) {
+			out.close();
+			tmp.delete();
+			throw e;
+		}
+
+		out.close();
+
+		if (!tmp.renameTo(target)) {
+			// on some platforms rename does not replace existing files
+			target.delete();
+			if (!tmp.renameTo(target)) {
+				tmp.delete();
+				throw new IOException("Could not move " + tmp.getAbsolutePath() + " to " + target.getAbsolutePath());
+			}
+		}
+	}
+
+	/**
+	 * Computes a SHA-1 hash over the parts of the SDG the MHP analysis depends on: the ids, kinds and thread numbers
+	 * of all nodes, the control flow, call, return, fork and join edges and the thread information.
+	 *
+	 * @return The hash as hexadecimal string.
+	 */
+	public static String contentHash(SDG sdg) {
+		final MessageDigest md = Digests.newSHA1();
+
+		final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new DigestOutputStream(
+				new OutputStream() {
+					public void write(int b) {}
+					public void write(byte[] b, int off, int len) {}
+				}, md), 1 << 16));
+
+		try {
+			out.writeInt(VERSION);
+
+			final int[] ids = sdg.getNodeIds();
+			Arrays.sort(ids);
+			out.writeInt(ids.length);
+
+			final List<SDGEdge> flow = new ArrayList<SDGEdge>();
+			for (int id : ids) {
+				final SDGNode n = sdg.getNode(id);
+				out.writeInt(id);
+				out.writeInt(n.getKind().ordinal());
+				writeList(out, n.getThreadNumbers());
+
+				flow.clear();
+				for (SDGEdge e : sdg.outgoingEdgesOf(n)) {
+					if (e.getKind().isControlFlowEdge()) {
+						flow.add(e);
+					}
+				}
+
+				// the order of the edges in the graph is not fixed
+				Collections.sort(flow, EDGE_ORDER);
+				out.writeInt(flow.size());
+				for (SDGEdge e : flow) {
+					out.writeInt(e.getKind().ordinal());
+					out.writeInt(e.getTarget().getId());
+				}
+			}
+
+			final ThreadsInformation info = sdg.getThreadsInfo();
+			if (info == null) {
+				out.writeInt(-1);
+			} else {
+				out.writeInt(info.getNumberOfThreads());
+				for (ThreadInstance ti : info) {
+					out.writeInt(ti.getId());
+					out.writeInt(nodeId(ti.getEntry()));
+					out.writeInt(nodeId(ti.getExit()));
+					out.writeInt(nodeId(ti.getFork()));
+					out.writeInt(nodeId(ti.getJoin()));
+					out.writeBoolean(ti.isDynamic());
+
+					final List<SDGNode> ctx = ti.getThreadContext();
+					out.writeInt(ctx == null ? -1 : ctx.size());
+					if (ctx != null) {
+						for (SDGNode n : ctx) {
+							out.writeInt(nodeId(n));
+						}
+					}
+				}
+			}
+
+			out.close();
+		} catch (IOException e) {
+			// the stream does not write anything
+			throw new IllegalStateException(e);
+		}
+
+		return Digests.toHex(md.digest());
+	}
+
+	private static final Comparator<SDGEdge> EDGE_ORDER = new Comparator<SDGEdge>() {
+		public int compare(SDGEdge e1, SDGEdge e2) {
+			if (e1.getKind() != e2.getKind()) {
+				return e1.getKind().ordinal() - e2.getKind().ordinal();
+			}
+
+			final int t1 = e1.getTarget().getId();
+			final int t2 = e2.getTarget().getId();
+			return (t1 < t2 ? -1 : (t1 == t2 ? 0 : 1));
+		}
+	};
+
+	private static int nodeId(SDGNode n) {
+		return n == null ? NO_NODE : n.getId();
+	}
+
+	private static void writeList(DataOutputStream out, int[] list) throws IOException {
+		if (list == null) {
+			out.writeInt(-1);
+		} else {
+			out.writeInt(list.length);
+			for (int i : list) {
+				out.writeInt(i);
+			}
+		}
+	}
+}
@@ -7,12 +7,17 @@
  */
 package edu.kit.joana.ifc.sdg.graph.slicer.graph.threads;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import edu.kit.joana.ifc.sdg.graph.SDG;
 import edu.kit.joana.ifc.sdg.graph.SDGEdge;
@@ -36,20 +41,34 @@ public class PreciseMHPAnalysis implements MHPAnalysis {
 	private static final Logger debug = Log.getLogger(Log.L_MHP_DEBUG);
 	
     private ThreadsInformation info;
-    private BitMatrix map;
+    private SymmetricBitMatrix map;
     private ThreadRegions regions;
     private HashMap<Integer, Collection<VirtualNode>> mayExist;
 
-    private PreciseMHPAnalysis(ThreadsInformation info, BitMatrix map, ThreadRegions regions) {
+    private PreciseMHPAnalysis(ThreadsInformation info, SymmetricBitMatrix map, ThreadRegions regions) {
         this.info = info;
         this.map = map;
         this.regions = regions;
     }
 
+    PreciseMHPAnalysis(ThreadsInformation info, SymmetricBitMatrix map, ThreadRegions regions,
+    		HashMap<Integer, Collection<VirtualNode>> mayExist) {
+        this(info, map, regions);
+        this.mayExist = mayExist;
+    }
+
     private void setMayExistMap(HashMap<Integer, Collection<VirtualNode>> mayExist) {
     	this.mayExist = mayExist;
     }
 
+    SymmetricBitMatrix getMatrix() {
+    	return map;
+    }
+
+    HashMap<Integer, Collection<VirtualNode>> getMayExistMap() {
+    	return mayExist;
+    }
+
     public ThreadRegions getTR() {
     	return regions;
     }
@@ -156,11 +175,47 @@ public class PreciseMHPAnalysis implements MHPAnalysis {
     public static PreciseMHPAnalysis analyze(SDG sdg) {
         ThreadsInformation info = sdg.getThreadsInfo();
         CFG icfg = ICFGBuilder.extractICFG(sdg);
-        PreciseMHPAnalysis tr = analyze(icfg, info);
+        PreciseMHPAnalysis tr;
+        try {
+            tr = analyze(icfg, info, null);
+        } catch (InterruptedException e) {
+            // cannot happen without an executor
+            throw new IllegalStateException(e);
+        }
 
         return tr;
     }
 
+    /** Needs a pre-processed cSDG.
+     * The parallelism induced by the different forks is computed concurrently on the given executor.
+     * The executor is not shut down.
+     *
+     * @param sdg
+     * @param executor computes the parallelism of the forks, null for a sequential computation.
+     * @return
+     * @throws InterruptedException if the calling thread is interrupted while waiting for the executor.
+     */
+    public static PreciseMHPAnalysis analyze(SDG sdg, ExecutorService executor) throws InterruptedException {
+        ThreadsInformation info = sdg.getThreadsInfo();
+        CFG icfg = ICFGBuilder.extractICFG(sdg);
+        PreciseMHPAnalysis tr = analyze(icfg, info, executor);
+
+        return tr;
+    }
+
+    /** Needs a pre-processed cSDG.
+     * The result is loaded from the given file if it has been computed for a SDG with the same control flow and
+     * thread structure. Otherwise it is computed and stored in the file, failures to write the file are only logged.
+     *
+     * @param sdg
+     * @param file the file of the stored result, e.g. {@link PersistentMHPAnalysis#fileFor(String)} of the .pdg file.
+     * @return
+     * @see PersistentMHPAnalysis
+     */
+    public static PreciseMHPAnalysis analyze(SDG sdg, String file) {
+        return PersistentMHPAnalysis.loadOrAnalyze(sdg, file);
+    }
+
     private static void addReturnEdges(CFG icfg) {
 		List<SDGEdge> retEdges = new LinkedList<SDGEdge>();
 		for (SDGNode node : icfg.vertexSet()) {
@@ -217,7 +272,8 @@ public class PreciseMHPAnalysis implements MHPAnalysis {
      * @return
      */
 
-	private static PreciseMHPAnalysis analyze(CFG icfg, ThreadsInformation info) {
+	private static PreciseMHPAnalysis analyze(CFG icfg, ThreadsInformation info, ExecutorService executor)
+			throws InterruptedException {
 		final Logger log = Log.getLogger(Log.L_MHP_INFO);
         log.outln("Compute Thread Regions ...");
     	List<SDGEdge> syntheticEdges = removeSyntheticEdges(icfg);
@@ -225,7 +281,7 @@ public class PreciseMHPAnalysis implements MHPAnalysis {
 //        if (DEBUG) System.out.println(tr);
         MHPComputation mhp = new MHPComputation(icfg, info, tr);
     	icfg.addAllEdges(syntheticEdges);
-    	PreciseMHPAnalysis result = mhp.getMHPMap();
+    	PreciseMHPAnalysis result = mhp.getMHPMap(executor);
 
     	log.outln("Compute MayExist Map ...");
         HashMap<Integer, Collection<VirtualNode>> mayExist = computeMayExist(result);
@@ -283,7 +339,7 @@ public class PreciseMHPAnalysis implements MHPAnalysis {
     /* MHP Computation */
 
     private static class MHPComputation {
-        private BitMatrix map;
+        private SymmetricBitMatrix map;
         private CFG icfg;
         private ThreadsInformation info;
         private ThreadRegions tr;
@@ -299,7 +355,7 @@ public class PreciseMHPAnalysis implements MHPAnalysis {
             slicer = new CFGForward(icfg);
         }
 
-        private PreciseMHPAnalysis getMHPMap() {
+        private PreciseMHPAnalysis getMHPMap(ExecutorService executor) throws InterruptedException {
         	debug.outln("collect forks");//("Forks:\n"+forks);
         	forks = collectForks();
         	debug.outln("collect indirect forks");//("Indirect Forks:\n"+indirectForks);
@@ -307,7 +363,7 @@ public class PreciseMHPAnalysis implements MHPAnalysis {
         	debug.outln("compute join dominance");//("Indirect Forks:\n"+indirectForks);
         	joinDominance = computeJoinDominance();
         	debug.outln("compute parallelism");//("Indirect Forks:\n"+indirectForks);
-        	map = computeParallelism();
+        	map = computeParallelism(executor);
 
             return new PreciseMHPAnalysis(info, map, tr);
         }
@@ -346,44 +402,50 @@ public class PreciseMHPAnalysis implements MHPAnalysis {
         	return result;
         }
 
-        private BitMatrix computeParallelism() {
-        	BitMatrix result = new BitMatrix(tr.size());
+        private SymmetricBitMatrix computeParallelism(ExecutorService executor) throws InterruptedException {
+        	SymmetricBitMatrix result = new SymmetricBitMatrix(tr.size());
 
     		// process parallelism induced by forks
         	debug.outln("parallelism through forks");
-        	for (DynamicContext fork : forks) {
-        		debug.out(".");
-        		if (fork == null) continue;
-
-        		LinkedList<SDGNode> succ = new LinkedList<SDGNode>();
-
-        		for (SDGEdge e : icfg.getOutgoingEdgesOfKind(fork.getNode(), SDGEdge.Kind.CONTROL_FLOW)) {
-        			succ.add(e.getTarget());
+        	List<Future<List<ThreadRegion>>> inSlices = new ArrayList<Future<List<ThreadRegion>>>(forks.size());
+        	try {
+        		// the slices of the forks are independent, the slicer and the graph are only read
+        		if (executor != null) {
+        			for (final DynamicContext fork : forks) {
+        				if (fork == null) continue;
+
+        				inSlices.add(executor.submit(new Callable<List<ThreadRegion>>() {
+        					public List<ThreadRegion> call() {
+        						return regionsInSlice(fork);
+        					}
+        				}));
+        			}
         		}
 
-        		Collection<SDGNode> slice = slicer.slice(succ);
-        		LinkedList<ThreadRegion> inSlice = new LinkedList<ThreadRegion>();
+        		int f = 0;
+        		for (DynamicContext fork : forks) {
+        			debug.out(".");
+        			if (fork == null) continue;
 
-        		for (int x = 0; x < tr.size(); x++) {
-        			ThreadRegion q = tr.getThreadRegion(x);
-        			if (fork.getNode() == q.getStart() || slice.contains(q.getStart())) {
-        				inSlice.add(q);
-        			}
-        		}
+        			List<ThreadRegion> inSlice = (executor != null ? waitFor(inSlices.get(f++)) : regionsInSlice(fork));
 
-        		// determine parallelism induced by fork
-        		LinkedList<Integer> spawnedThreads = indirectForks.get(fork);
+        			// determine parallelism induced by fork
+        			Set<Integer> spawnedThreads = new HashSet<Integer>(indirectForks.get(fork));
 
-        		for (int i = 0; i < tr.size(); i++) {
-            		ThreadRegion p = tr.getThreadRegion(i);
+        			for (ThreadRegion p : tr) {
+        				if (!spawnedThreads.contains(p.getThread())) continue;
 
-            		if (!spawnedThreads.contains(p.getThread())) continue;
+        				for (ThreadRegion q : inSlice) {
+        					result.set(p.getID(), q.getID());
+        				}
+        			}
+        		}
 
-            		for (ThreadRegion q : inSlice) {
-            			result.set(p.getID(), q.getID());
-            			result.set(q.getID(), p.getID());
-            		}
-            	}
+        	} finally {
+        		// cancel the remaining slices if one of them failed
+        		for (Future<List<ThreadRegion>> inSlice : inSlices) {
+        			inSlice.cancel(true);
+        		}
         	}
         	// process parallelism induced by thread spawning inside loops
         	debug.outln("\nparallelism through loops");
@@ -394,7 +456,6 @@ public class PreciseMHPAnalysis implements MHPAnalysis {
         			for (ThreadRegion p : regs) {
         				for (ThreadRegion q : regs) {
         					result.set(p.getID(), q.getID());
-        					result.set(q.getID(), p.getID());
         				}
         			}
         		}
@@ -416,7 +477,6 @@ public class PreciseMHPAnalysis implements MHPAnalysis {
         				for (ThreadRegion q : regs) {
         					ctr++;
         					result.clear(r.getID(), q.getID());
-        					result.clear(q.getID(), r.getID());
         				}
         			}
         		}
@@ -427,6 +487,44 @@ public class PreciseMHPAnalysis implements MHPAnalysis {
         	return result;
         }
 
+        /**
+         * Returns the thread regions whose start node is reached by the control flow after the given fork,
+         * ordered by id.
+         */
+        private List<ThreadRegion> regionsInSlice(DynamicContext fork) {
+        	LinkedList<SDGNode> succ = new LinkedList<SDGNode>();
+
+        	for (SDGEdge e : icfg.getOutgoingEdgesOfKind(fork.getNode(), SDGEdge.Kind.CONTROL_FLOW)) {
+        		succ.add(e.getTarget());
+        	}
+
+        	Collection<SDGNode> slice = slicer.slice(succ);
+        	List<ThreadRegion> inSlice = new ArrayList<ThreadRegion>();
+
+        	for (ThreadRegion q : tr) {
+        		if (fork.getNode() == q.getStart() || slice.contains(q.getStart())) {
+        			inSlice.add(q);
+        		}
+        	}
+
+        	return inSlice;
+        }
+
+        private static List<ThreadRegion> waitFor(Future<List<ThreadRegion>> f) throws InterruptedException {
+        	try {
+        		return f.get();
+        	} catch (ExecutionException exc) {
+        		Throwable cause = exc.getCause();
+        		if (cause instanceof RuntimeException) {
+        			throw (RuntimeException) cause;
+        		} else if (cause instanceof Error) {
+        			throw (Error) cause;
+        		}
+
+        		throw new IllegalStateException(cause);
+        	}
+        }
+
         /* TODO: this is a proof-of-concept implementation.
          * Refine it some day with an interprocedural dominator tree.
          *
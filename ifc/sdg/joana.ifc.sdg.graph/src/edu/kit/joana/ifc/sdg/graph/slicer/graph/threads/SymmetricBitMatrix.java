@@ -0,0 +1,187 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.ifc.sdg.graph.slicer.graph.threads;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A symmetric square matrix of bits, i.e. get(i, j) == get(j, i) for all i and j. Only the lower triangle
+ * including the diagonal is stored, row by row: bit (i, j) with j &lt;= i has the offset i * (i + 1) / 2 + j.
+ * Offsets are computed with long arithmetic, so the dimension is only bounded by the available memory.
+ *
+ * The bits are kept in blocks of long words that are allocated when the first bit in them is set. Parts of the
+ * matrix without any set bit, e.g. the rows of regions that are sequential to all regions with a smaller id,
+ * need no memory.
+ *
+ * This class is not thread-safe.
+ */
+public final class SymmetricBitMatrix {
+
+	private static final int BLOCK_BITS = 16; // 2^16 words = 512 KB per block
+	private static final int BLOCK_MASK = (1 << BLOCK_BITS) - 1;
+
+	private final int dimension;
+	private final long[][] blocks;
+
+	public SymmetricBitMatrix(int dimension) {
+		if (dimension < 1) {
+			throw new IllegalArgumentException("dimension must be at least 1");
+		}
+
+		this.dimension = dimension;
+		final long numBits = (long) dimension * (dimension + 1) / 2;
+		final long numWords = (numBits + 63) >>> 6;
+		this.blocks = new long[(int) ((numWords + BLOCK_MASK) >>> BLOCK_BITS)][];
+	}
+
+	public int getDimension() {
+		return dimension;
+	}
+
+	private long offset(int i, int j) {
+		if (i < 0 || j < 0 || i >= dimension || j >= dimension) {
+			throw new IndexOutOfBoundsException("(" + i + ", " + j + ") is not in a matrix of dimension " + dimension);
+		}
+
+		return (i >= j ? (long) i * (i + 1) / 2 + j : (long) j * (j + 1) / 2 + i);
+	}
+
+	/**
+	 * @param i row offset
+	 * @param j column offset
+	 * @return value of the bits (i, j) and (j, i)
+	 */
+	public boolean get(int i, int j) {
+		final long offset = offset(i, j);
+		final long word = offset >>> 6;
+		final long[] block = blocks[(int) (word >>> BLOCK_BITS)];
+		return block != null && (block[(int) word & BLOCK_MASK] & (1L << offset)) != 0;
+	}
+
+	/**
+	 * Sets the bits (i, j) and (j, i) to true.
+	 *
+	 * @param i row offset
+	 * @param j column offset
+	 */
+	public void set(int i, int j) {
+		final long offset = offset(i, j);
+		final long word = offset >>> 6;
+		final int b = (int) (word >>> BLOCK_BITS);
+		long[] block = blocks[b];
+		if (block == null) {
+			block = new long[b < blocks.length - 1 ? BLOCK_MASK + 1 : lastBlockSize()];
+			blocks[b] = block;
+		}
+
+		block[(int) word & BLOCK_MASK] |= 1L << offset;
+	}
+
+	/**
+	 * Sets the bits (i, j) and (j, i) to false.
+	 *
+	 * @param i row offset
+	 * @param j column offset
+	 */
+	public void clear(int i, int j) {
+		final long offset = offset(i, j);
+		final long word = offset >>> 6;
+		final long[] block = blocks[(int) (word >>> BLOCK_BITS)];
+		if (block != null) {
+			block[(int) word & BLOCK_MASK] &= ~(1L << offset);
+		}
+	}
+
+	private int lastBlockSize() {
+		final long numWords = ((long) dimension * (dimension + 1) / 2 + 63) >>> 6;
+		return (int) (numWords - ((long) (blocks.length - 1) << BLOCK_BITS));
+	}
+
+	/**
+	 * Returns the number of pairs (i, j) with i &lt;= j whose bit is set.
+	 */
+	public long cardinality() {
+		long result = 0;
+		for (long[] block : blocks) {
+			if (block != null) {
+				for (long word : block) {
+					result += Long.bitCount(word);
+				}
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns the number of bytes allocated for the bits.
+	 */
+	public long allocatedBytes() {
+		long result = 0;
+		for (long[] block : blocks) {
+			if (block != null) {
+				result += 8L * block.length;
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Writes the dimension and the allocated blocks of the matrix, blocks without a set bit are skipped.
+	 *
+	 * @see #read(DataInput)
+	 */
+	void write(DataOutput out) throws IOException {
+		out.writeInt(dimension);
+		for (long[] block : blocks) {
+			out.writeBoolean(block != null);
+			if (block != null) {
+				for (long word : block) {
+					out.writeLong(word);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads a matrix written by {@link #write(DataOutput)}.
+	 */
+	static SymmetricBitMatrix read(DataInput in) throws IOException {
+		final int dimension = in.readInt();
+		if (dimension < 1) {
+			throw new IOException("Invalid dimension of bit matrix: " + dimension);
+		}
+
+		final SymmetricBitMatrix result = new SymmetricBitMatrix(dimension);
+		for (int b = 0; b < result.blocks.length; b++) {
+			if (in.readBoolean()) {
+				final long[] block = new long[b < result.blocks.length - 1 ? BLOCK_MASK + 1 : result.lastBlockSize()];
+				for (int w = 0; w < block.length; w++) {
+					block[w] = in.readLong();
+				}
+				result.blocks[b] = block;
+			}
+		}
+
+		return result;
+	}
+
+	public String toString() {
+		StringBuilder result = new StringBuilder();
+		for (int i = 0; i < dimension; i++) {
+			for (int j = 0; j < dimension; j++) {
+				result.append(get(i, j) ? '1' : '0');
+			}
+			result.append('\n');
+		}
+		return result.toString();
+	}
+}
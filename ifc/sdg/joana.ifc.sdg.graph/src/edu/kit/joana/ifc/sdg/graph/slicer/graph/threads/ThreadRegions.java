@@ -32,9 +32,12 @@ import gnu.trove.map.hash.TIntObjectHashMap;
  */
 public class ThreadRegions implements Iterable<ThreadRegion> {
 
-	/** the control flow graph used to determine the thread regions */
+	/** the control flow graph used to determine the thread regions, extracted from sdg on demand if null */
 	private CFG icfg;
 
+	/** the graph of thread regions that have been read by {@link PersistentMHPAnalysis}, null otherwise */
+	private SDG sdg;
+
 	/** the thread regions of the control flow graph */
 	private List<ThreadRegion> regions;
 
@@ -49,6 +52,39 @@ public class ThreadRegions implements Iterable<ThreadRegion> {
 		verify();
 	}
 
+	/**
+	 * Creates the thread regions of the given SDG from regions which already contain their nodes, as read by
+	 * {@link PersistentMHPAnalysis}. The control flow graph is only extracted if {@link #reaches(SDGNode, SDGNode)}
+	 * needs it.
+	 */
+	ThreadRegions(List<ThreadRegion> regions, SDG sdg) {
+		this.regions = regions;
+		this.sdg = sdg;
+		this.map = new TIntObjectHashMap<TIntObjectHashMap<ThreadRegion>>();
+
+		for (ThreadRegion tr : regions) {
+			TIntObjectHashMap<ThreadRegion> mappy = map.get(tr.getThread());
+			if (mappy == null) {
+				mappy = new TIntObjectHashMap<ThreadRegion>();
+				map.put(tr.getThread(), mappy);
+			}
+
+			for (SDGNode n : tr.getNodes()) {
+				mappy.put(n.getId(), tr);
+			}
+		}
+
+		verify();
+	}
+
+	private synchronized CFG getICFG() {
+		if (icfg == null) {
+			icfg = ICFGBuilder.extractICFG(sdg);
+		}
+
+		return icfg;
+	}
+
 	private void verify() {
 		for (ThreadRegion tr : regions) {
 			tr.verify();
@@ -148,6 +184,7 @@ public class ThreadRegions implements Iterable<ThreadRegion> {
 		 LinkedList<SDGNode> w1 = new LinkedList<SDGNode>();
 		 LinkedList<SDGNode> w2 = new LinkedList<SDGNode>();
 		 HashSet<SDGNode> marked = new HashSet<SDGNode>();
+		 CFG icfg = getICFG();
 
 		 w1.add(source);
 		 marked.add(source);
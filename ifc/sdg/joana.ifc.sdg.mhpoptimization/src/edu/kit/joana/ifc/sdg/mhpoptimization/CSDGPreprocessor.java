@@ -8,7 +8,6 @@
 package edu.kit.joana.ifc.sdg.mhpoptimization;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -22,6 +21,7 @@ import edu.kit.joana.ifc.sdg.graph.SDGSerializer;
 import edu.kit.joana.ifc.sdg.graph.slicer.graph.CFG;
 import edu.kit.joana.ifc.sdg.graph.slicer.graph.building.ICFGBuilder;
 import edu.kit.joana.ifc.sdg.graph.slicer.graph.threads.MHPAnalysis;
+import edu.kit.joana.ifc.sdg.graph.slicer.graph.threads.PersistentMHPAnalysis;
 import edu.kit.joana.ifc.sdg.graph.slicer.graph.threads.PreciseMHPAnalysis;
 import edu.kit.joana.ifc.sdg.graph.slicer.graph.threads.SimpleMHPAnalysis;
 import edu.kit.joana.ifc.sdg.graph.slicer.graph.threads.ThreadsInformation;
@@ -116,6 +116,14 @@ public class CSDGPreprocessor {
 	}
 
 	private MHPAnalysis runMHP(MHPPrecision prec) {
+		return runMHP(prec, null);
+	}
+
+	/**
+	 * @param mhpFile the file of a stored precise MHP analysis, see {@link PersistentMHPAnalysis}. null to always
+	 * run the analysis.
+	 */
+	private MHPAnalysis runMHP(MHPPrecision prec, String mhpFile) {
 		MHPAnalysis mhp = null;
 		try {
 			preprocessSDG();
@@ -123,7 +131,9 @@ public class CSDGPreprocessor {
 			// 8. remove redundant interference edgies
 			info.out("start MHP analysis...");
 			if (IS_DEBUG) debug.out("  running MHP analysis (" + prec + ")...");
-			if (prec == MHPPrecision.PRECISE) {
+			if (prec == MHPPrecision.PRECISE && mhpFile != null) {
+				mhp = PreciseMHPAnalysis.analyze(g, mhpFile);
+			} else if (prec == MHPPrecision.PRECISE) {
 				mhp = PreciseMHPAnalysis.analyze(g);
 			} else {
 				mhp = SimpleMHPAnalysis.analyze(g);
@@ -320,6 +330,18 @@ public class CSDGPreprocessor {
 		return mhp;
 	}
 
+	/**
+	 * Like {@link #runMHP(SDG, MHPPrecision)}, but a precise MHP analysis is loaded from the given file if it has
+	 * been computed for the same control flow and threads before, and stored in it otherwise.
+	 *
+	 * @param mhpFile e.g. {@link PersistentMHPAnalysis#fileFor(String)} of the .pdg file of g
+	 */
+	public static MHPAnalysis runMHP(SDG g, MHPPrecision prec, String mhpFile) {
+		CSDGPreprocessor p = new CSDGPreprocessor(g);
+		MHPAnalysis mhp = p.runMHP(prec, mhpFile);
+		return mhp;
+	}
+
 	public static SDG createCSDG(SDG g) {
 		CSDGPreprocessor p = new CSDGPreprocessor(g);
 		SDG csdg = p.createCSDG();
@@ -344,13 +366,7 @@ public class CSDGPreprocessor {
 	public static void createAndSaveCSDG(String file) throws IOException {
 		SDG csdg = createCSDG(file);
 
-		String content = SDGSerializer.toPDGFormat(csdg);
-		File f = new File(file);
-		FileWriter w = new FileWriter(f);
-
-		w.write(content);
-		w.flush();
-		w.close();
+		SDGSerializer.toPDGFormat(csdg, file, false);
 	}
 
 	public static void createAndSaveCSDG(SDG sdg, String file) throws IOException {
@@ -360,36 +376,18 @@ public class CSDGPreprocessor {
 
 			csdg = p.createCSDG();
 
-		String content = SDGSerializer.toPDGFormat(csdg);
-		File f = new File(file);
-		FileWriter w = new FileWriter(f);
-
-		w.write(content);
-		w.flush();
-		w.close();
+		SDGSerializer.toPDGFormat(csdg, file, false);
 	}
 
 	private static void saveCSDG(SDG g, String path) throws IOException {
 		String name = g.getName();
-		String content = SDGSerializer.toPDGFormat(g);
-		File f = new File(path + File.separator + name + ".pdg");
-		FileWriter w = new FileWriter(f);
-
-		w.write(content);
-		w.flush();
-		w.close();
+		SDGSerializer.toPDGFormat(g, path + File.separator + name + ".pdg", false);
 	}
 
 	public static void juergenTest(String alt, String neu) throws Exception {
 		SDG g = createCSDG(alt);
 
-		String content = SDGSerializer.toPDGFormat(g);
-		File f = new File(neu);
-		FileWriter w = new FileWriter(f);
-
-		w.write(content);
-		w.flush();
-		w.close();
+		SDGSerializer.toPDGFormat(g, neu, false);
 	}
 
 	//    public static void main(String[] args) throws IOException {
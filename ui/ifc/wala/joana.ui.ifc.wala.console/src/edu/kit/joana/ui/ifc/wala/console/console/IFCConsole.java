@@ -1052,6 +1052,8 @@ public class IFCConsole {
 	private void setSDGProgram(SDGProgram newSDGProgram) {
 		if (ifcAnalysis == null) {
 			ifcAnalysis = new IFCAnalysis(newSDGProgram, this.secLattice);
+			// annotations are changed interactively, so only re-check what they affect
+			ifcAnalysis.setIncremental(true);
 		} else {
 			ifcAnalysis.setProgram(newSDGProgram);
 			ifcAnalysis.setLattice(this.secLattice);
@@ -0,0 +1,57 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.util;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * SHA-1 hashes as hexadecimal strings, as they are used to identify cached analysis results.
+ */
+public final class Digests {
+
+	private Digests() {}
+
+	/**
+	 * Creates a new SHA-1 digest. Every Java platform has to support SHA-1, so a missing algorithm is an
+	 * IllegalStateException.
+	 */
+	public static MessageDigest newSHA1() {
+		try {
+			return MessageDigest.getInstance("SHA-1");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Returns the SHA-1 hash of the UTF-8 encoding of the string as hexadecimal string.
+	 */
+	public static String sha1(String str) {
+		try {
+			return toHex(newSHA1().digest(str.getBytes("UTF-8")));
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Returns the bytes as hexadecimal string with two lower case digits per byte.
+	 */
+	public static String toHex(byte[] bytes) {
+		final StringBuilder sb = new StringBuilder(bytes.length * 2);
+		for (final byte b : bytes) {
+			sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+			sb.append(Character.forDigit(b & 0xF, 16));
+		}
+
+		return sb.toString();
+	}
+
+}
@@ -12,11 +12,11 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintStream;
-import java.io.PrintWriter;
 import java.net.URL;
 import java.net.URLConnection;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 import java.util.jar.JarFile;
 import java.util.jar.JarInputStream;
 
@@ -217,8 +217,7 @@ public final class Main {
 			final String fileName = cfg.outputDir + WriteGraphToDot.sanitizeFileName(sdg.getName()) + ".pdg";
 			final File file = new File(fileName);
 			out.print("(" + file.getAbsolutePath() + ") ");
-			PrintWriter pw = new PrintWriter(file);
-			SDGSerializer.toPDGFormat(sdg, pw);
+			SDGSerializer.toPDGFormat(sdg, fileName, false);
 			out.println("done.");
 		}
 	}
@@ -368,6 +367,12 @@ public final class Main {
 		scfg.fieldPropagation = cfg.fieldPropagation;
 		scfg.debugManyGraphsDotOutput = cfg.debugManyGraphsDotOutput;
 		scfg.computeInterference = computeInterference;
+		scfg.intraprocThreads = cfg.intraprocThreads;
+		scfg.summaryThreads = cfg.summaryThreads;
+		scfg.summaryCacheDir = cfg.summaryCacheDir;
+		scfg.interferenceThreads = cfg.interferenceThreads;
+		scfg.previousSDG = cfg.previousSDG;
+		scfg.changedClasses = cfg.changedClasses;
 
 		return Pair.make(startTime, scfg);
 	}
@@ -442,6 +447,12 @@ public final class Main {
 		public boolean accessPath;
 		public boolean debugManyGraphsDotOutput = false;
 		public FieldPropagation fieldPropagation;
+		public int intraprocThreads = 1;
+		public int summaryThreads = 1;
+		public String summaryCacheDir = null;
+		public int interferenceThreads = 1;
+		public SDG previousSDG = null;
+		public Set<String> changedClasses = null;
 
 		public Config(String name) {
 			this(name, "<no entry defined>", FieldPropagation.OBJ_GRAPH);
@@ -8,6 +8,7 @@
 package edu.kit.joana.wala.core;
 
 import java.io.PrintStream;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -67,6 +68,7 @@ import edu.kit.joana.wala.flowless.pointsto.Pts2AliasGraph;
 import edu.kit.joana.wala.flowless.pointsto.PtsParameter;
 import edu.kit.joana.wala.util.PrettyWalaNames;
 import edu.kit.joana.wala.util.WriteGraphToDot;
+import gnu.trove.list.array.TIntArrayList;
 import gnu.trove.map.TIntObjectMap;
 import gnu.trove.map.hash.TIntObjectHashMap;
 
@@ -84,6 +86,21 @@ public final class PDG extends DependenceGraph implements INodeWithNumber {
 		return pdg;
 	}
 
+	/**
+	 * Builds the pdg from an already computed IR. Used when the pdgs are built in parallel: The node ids assigned
+	 * here are temporary and the check for external calls is skipped, as it relies on the final node ids. Both
+	 * have to be completed by calling renumberNodes() and checkForExternalCalls() afterwards.
+	 */
+	static PDG buildWithTemporaryIds(SDGBuilder builder, String name, CGNode node, IR ir, int id,
+			PrintStream out, IProgressMonitor progress)
+	throws UnsoundGraphException, CancelException {
+		PDG pdg = new PDG(builder, name, node, id, true);
+
+		pdg.run(ir, null, out, progress);
+
+		return pdg;
+	}
+
 	public static PDG buildDummy(SDGBuilder builder, String name, CGNode node, int id,
 			ExternalCallCheck ext, PrintStream out, IProgressMonitor progress)
 	throws UnsoundGraphException, CancelException {
@@ -146,8 +163,16 @@ public final class PDG extends DependenceGraph implements INodeWithNumber {
 	private final boolean ignoreStaticFields;
 	private final boolean keepPhiNodes;
 	private final boolean noBasePointerDependency;
+	/** all node ids drawn while the pdg is built with temporary ids, including those of removed nodes.
+	 *  null if the ids are final. */
+	private TIntArrayList temporaryIds;
 
 	private PDG(SDGBuilder builder, String name, CGNode node, int pdgId) {
+		this(builder, name, node, pdgId, false);
+	}
+
+	private PDG(SDGBuilder builder, String name, CGNode node, int pdgId, boolean temporaryIds) {
+		this.temporaryIds = (temporaryIds ? new TIntArrayList() : null);
 		this.id = pdgId;
 		this.nodeID = pdgId;
 		this.cgNode = node;
@@ -192,7 +217,9 @@ public final class PDG extends DependenceGraph implements INodeWithNumber {
 			addDataFlowSSA(ir);
 			removeNopAndPhiNodes();
 			addRootParameterStructure();
-			checkForExternalCalls(ext, out);
+			if (ext != null) {
+				checkForExternalCalls(ext, out);
+			}
 		}
 	}
 
@@ -220,7 +247,7 @@ public final class PDG extends DependenceGraph implements INodeWithNumber {
 		}
 	}
 
-	private void checkForExternalCalls(final ExternalCallCheck ext, final PrintStream out) {
+	void checkForExternalCalls(final ExternalCallCheck ext, final PrintStream out) {
 		for (final PDGNode call : calls) {
 			final SSAInvokeInstruction invk = (SSAInvokeInstruction) node2instr.get(call);
 
@@ -668,7 +695,7 @@ public final class PDG extends DependenceGraph implements INodeWithNumber {
 	private void addControlFlow(final IProgressMonitor progress, final IR ir)
 			throws UnsoundGraphException, CancelException {
 		final ControlFlowGraph<SSAInstruction, IExplodedBasicBlock> ecfg =
-				builder.createExceptionAnalyzedCFG(cgNode, progress);
+				builder.createExceptionAnalyzedCFG(cgNode, ir, progress);
 		
 		final Logger log = Log.getLogger(Log.L_WALA_CFG_DUMP);
 		if (log.isEnabled()) {
@@ -1321,8 +1348,30 @@ public final class PDG extends DependenceGraph implements INodeWithNumber {
 		return nop;
 	}
 
+	/**
+	 * Replaces the temporary ids of the nodes of this pdg with final ids from the builder. The builder hands out
+	 * as many ids as were drawn while building the pdg, including the ids of nop and phi nodes that have been
+	 * removed in the meantime. Each node gets the id at the position of its temporary id, so the resulting
+	 * numbering is the same as if the pdg had been built sequentially at this point.
+	 */
+	void renumberNodes() {
+		final int[] drawn = temporaryIds.toArray();
+		final int firstId = builder.reserveNodeIds(drawn.length);
+
+		for (final PDGNode n : vertexSet()) {
+			final int pos = Arrays.binarySearch(drawn, n.getId());
+			assert pos >= 0 : "node " + n + " has no temporary id of this pdg";
+			n.renumber(firstId + pos);
+		}
+
+		temporaryIds = null;
+	}
+
 	public PDGNode createNode(final String label, final PDGNode.Kind kind, final TypeReference type) {
 		final int nodeId = builder.getNextNodeId();
+		if (temporaryIds != null) {
+			temporaryIds.add(nodeId);
+		}
 		PDGNode node = new PDGNode(nodeId, id, label, kind, type);
 		addVertex(node);
 
@@ -141,8 +141,12 @@ public final class PDGNode implements INodeWithNumber {
         }
 	}
 
-    /* The ID of the node. Should be unique in the graph. Negative IDs are permitted.*/
-    private final Integer id;
+    /* The ID of the node. Should be unique in the graph. Negative IDs are permitted.
+     * Only changed by renumber(int) after PDGs have been built in parallel. */
+    private Integer id;
+
+    /* Fixed at creation time, so renumbering does not corrupt hash based collections. */
+    private final int hash;
 
 	/* The ID of the procedure to which the node belongs.*/
     private final int proc;
@@ -264,6 +268,7 @@ public final class PDGNode implements INodeWithNumber {
 
 	public PDGNode(int id, int pdgId, String label, Kind kind, TypeReference type) {
     	this.id = id;
+    	this.hash = System.identityHashCode(this.id);
     	this.nodeID = id;
     	this.proc = pdgId;
     	this.label = label;
@@ -305,7 +310,16 @@ public final class PDGNode implements INodeWithNumber {
     }
 
     public int hashCode() {
-    	return System.identityHashCode(id);
+    	return hash;
+    }
+
+    /**
+     * Assigns a new id to this node. The hash code of the node stays the same.
+     * @see PDG#renumberNodes()
+     */
+    void renumber(final int newId) {
+    	this.id = newId;
+    	this.nodeID = newId;
     }
 
     /**
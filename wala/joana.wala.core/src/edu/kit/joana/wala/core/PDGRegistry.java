@@ -0,0 +1,133 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.wala.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.ibm.wala.ipa.callgraph.CGNode;
+
+import gnu.trove.map.TIntObjectMap;
+import gnu.trove.map.hash.TIntObjectHashMap;
+
+/**
+ * Keeps track of all pdgs of a SDGBuilder. The pdgs can be looked up in constant time by their call graph node,
+ * their id and their entry node. The callers of each pdg are computed in a single pass over all pdgs on demand
+ * and kept until a new pdg is added or the calls change.
+ */
+final class PDGRegistry {
+
+	private final List<PDG> pdgs = new ArrayList<PDG>();
+	private final Map<CGNode, PDG> cgNode2pdg = new HashMap<CGNode, PDG>();
+	private final TIntObjectMap<PDG> id2pdg = new TIntObjectHashMap<PDG>();
+	private final Map<PDGNode, PDG> entry2pdg = new HashMap<PDGNode, PDG>();
+	private Map<PDG, Set<PDG>> callee2callers = null;
+
+	public void add(final PDG pdg) {
+		pdgs.add(pdg);
+		if (!cgNode2pdg.containsKey(pdg.cgNode)) {
+			// keep the first pdg of a method, as the linear search did before
+			cgNode2pdg.put(pdg.cgNode, pdg);
+		}
+		id2pdg.put(pdg.getId(), pdg);
+		entry2pdg.put(pdg.entry, pdg);
+		callee2callers = null;
+	}
+
+	public List<PDG> getAll() {
+		return Collections.unmodifiableList(pdgs);
+	}
+
+	public int size() {
+		return pdgs.size();
+	}
+
+	public PDG getForMethod(final CGNode n) {
+		return cgNode2pdg.get(n);
+	}
+
+	public PDG getForId(final int id) {
+		return id2pdg.get(id);
+	}
+
+	public PDG getForEntry(final PDGNode entry) {
+		return entry2pdg.get(entry);
+	}
+
+	/**
+	 * Has to be called when call edges have been added to or removed from the pdgs.
+	 */
+	public void callsChanged() {
+		callee2callers = null;
+	}
+
+	/**
+	 * Returns all pdgs that contain a call to the given pdg. A pdg is a caller of another pdg iff it contains its
+	 * entry node. Recursive calls are detected by the call edges to the own entry node.
+	 */
+	public Set<PDG> getCallers(final PDG callee) {
+		if (callee2callers == null) {
+			callee2callers = computeCallers();
+		}
+
+		final Set<PDG> callers = callee2callers.get(callee);
+
+		return (callers == null ? Collections.<PDG>emptySet() : Collections.unmodifiableSet(callers));
+	}
+
+	private Map<PDG, Set<PDG>> computeCallers() {
+		final Map<PDG, Set<PDG>> result = new HashMap<PDG, Set<PDG>>();
+
+		for (final PDG pdg : pdgs) {
+			for (final PDGNode n : pdg.vertexSet()) {
+				if (n.getKind() != PDGNode.Kind.ENTRY || n == pdg.entry) {
+					continue;
+				}
+
+				final PDG callee = entry2pdg.get(n);
+				if (callee != null) {
+					addCaller(result, callee, pdg);
+				}
+			}
+
+			if (callsItself(pdg)) {
+				addCaller(result, pdg, pdg);
+			}
+		}
+
+		return result;
+	}
+
+	private static boolean callsItself(final PDG pdg) {
+		for (final PDGNode call : pdg.getCalls()) {
+			for (final PDGEdge e : pdg.outgoingEdgesOf(call)) {
+				if ((e.kind == PDGEdge.Kind.CALL_STATIC || e.kind == PDGEdge.Kind.CALL_VIRTUAL)
+						&& e.to == pdg.entry) {
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+
+	private static void addCaller(final Map<PDG, Set<PDG>> map, final PDG callee, final PDG caller) {
+		Set<PDG> callers = map.get(callee);
+		if (callers == null) {
+			callers = new HashSet<PDG>();
+			map.put(callee, callers);
+		}
+
+		callers.add(caller);
+	}
+}
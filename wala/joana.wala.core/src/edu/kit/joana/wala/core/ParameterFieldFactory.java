@@ -22,6 +22,7 @@ import com.ibm.wala.util.strings.Atom;
 /**
  * Factory for object fields. As Wala treat array fields different from normal
  * object fields, we use this class to combine them.
+ * The factory is thread-safe, as it is shared by PDGs that are built in parallel.
  *
  * @author Juergen Graf <graf@kit.edu>
  *
@@ -43,7 +44,7 @@ public final class ParameterFieldFactory {
 	 * @param field IField
 	 * @return ParamterField
 	 */
-	public ParameterField getObjectField(IField field) {
+	public synchronized ParameterField getObjectField(IField field) {
 		if (field == null) {
 			throw new IllegalArgumentException("Field should not be null.");
 		}
@@ -65,7 +66,7 @@ public final class ParameterFieldFactory {
 	 * @param elemType type of the referenced objects in the array
 	 * @return ParameterField
 	 */
-	public ParameterField getArrayField(TypeReference elemType) {
+	public synchronized ParameterField getArrayField(TypeReference elemType) {
 		if (elemType == null) {
 			throw new IllegalArgumentException("Element type should not be null.");
 		}
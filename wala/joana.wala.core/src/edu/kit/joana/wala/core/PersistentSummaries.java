@@ -0,0 +1,473 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.wala.core;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.ibm.wala.classLoader.IBytecodeMethod;
+import com.ibm.wala.classLoader.IMethod;
+import com.ibm.wala.shrikeBT.ExceptionHandler;
+import com.ibm.wala.shrikeBT.IInstruction;
+import com.ibm.wala.shrikeCT.InvalidClassFileException;
+
+import edu.kit.joana.ifc.sdg.graph.SDG;
+import edu.kit.joana.ifc.sdg.graph.SDGEdge;
+import edu.kit.joana.ifc.sdg.graph.SDGNode;
+import edu.kit.joana.util.Digests;
+import edu.kit.joana.wala.summary.EntryPointCache.StoreEntryPointException;
+import edu.kit.joana.wala.summary.SummaryCache;
+import edu.kit.joana.wala.summary.SummaryComputation;
+import edu.kit.joana.wala.summary.WorkPackage;
+import edu.kit.joana.wala.summary.WorkPackage.EntryPoint;
+import gnu.trove.iterator.TIntIterator;
+import gnu.trove.list.TIntList;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.TIntIntMap;
+import gnu.trove.map.TIntObjectMap;
+import gnu.trove.map.hash.TIntIntHashMap;
+import gnu.trove.map.hash.TIntObjectHashMap;
+import gnu.trove.set.TIntSet;
+import gnu.trove.set.hash.TIntHashSet;
+
+/**
+ * Looks up the summary information of the procedures of a SDG in a persistent {@link SummaryCache} and stores
+ * the summaries of all procedures that had to be computed afterwards.
+ *
+ * A procedure is found by its signature and a hash over the bytecode, the parameter nodes and the dependence edges
+ * of the procedure and of all procedures it may call transitively. Procedures that may call each other are hashed
+ * together. The parameter nodes and the edges are part of the key, as they depend on the points-to analysis and the
+ * call graph of the whole program: a procedure whose bytecode did not change gets a new key if a change elsewhere
+ * changes its aliasing or its callees. Node ids change from run to run, so nodes are identified by their position in
+ * the id order of their procedure, and the formal-in and formal-out nodes are stored this way. Procedures that are
+ * not backed by bytecode, like the synthetic methods of the call graph, and all procedures that call them are never
+ * cached.
+ */
+final class PersistentSummaries {
+
+	/* change when the graph construction changes in a way that invalidates the cached summaries */
+	private static final int VERSION = 2;
+
+	private final SummaryCache cache;
+	private final PrintStream out;
+	/* procedures that are computed and stored afterwards with their cache keys */
+	private final Map<EntryPoint, String> toStore = new HashMap<EntryPoint, String>();
+	private final Map<EntryPoint, Formals> formals = new HashMap<EntryPoint, Formals>();
+	/* procedures that have been found in the cache */
+	private final List<EntryPoint> known = new LinkedList<EntryPoint>();
+
+	private PersistentSummaries(SummaryCache cache, PrintStream out) {
+		this.cache = cache;
+		this.out = out;
+	}
+
+	/**
+	 * The formal-in and formal-out nodes of a procedure sorted by id.
+	 */
+	private static final class Formals {
+		private int entryId = -1;
+		private final TIntList ins = new TIntArrayList();
+		private final TIntList outs = new TIntArrayList();
+		private final List<SDGNode> nodes = new ArrayList<SDGNode>();
+		/* all nodes of the procedure sorted by id */
+		private final List<SDGNode> all = new ArrayList<SDGNode>();
+		private final TIntHashSet callees = new TIntHashSet();
+	}
+
+	/**
+	 * Looks up the summaries of all procedures of the sdg in the cache configured in cfg.
+	 * @param skipEntries entry node ids of procedures whose summaries are known from elsewhere. They are neither
+	 * looked up nor stored.
+	 */
+	public static PersistentSummaries lookup(SDGBuilder.Config cfg, SDGBuilder builder, SDG sdg,
+			TIntSet skipEntries) {
+		final SummaryCache cache = SummaryCache.create(cfg.summaryCacheDir, cfg.summaryCacheMaxSize,
+				cfg.summaryCacheMaxAge);
+		final PersistentSummaries sums = new PersistentSummaries(cache, cfg.out);
+
+		final TIntObjectMap<Formals> proc2formals = collectFormals(sdg);
+		final TIntObjectMap<String> proc2key = computeKeys(configKey(cfg), sdg, builder.getAllPDGs(),
+				proc2formals);
+
+		for (final PDG pdg : builder.getAllPDGs()) {
+			final String key = proc2key.get(pdg.getId());
+			final Formals f = proc2formals.get(pdg.getId());
+			if (key == null || f == null || f.entryId < 0 || skipEntries.contains(f.entryId)) {
+				continue;
+			}
+
+			final EntryPoint cached = cache.get(key);
+			final EntryPoint ep = new EntryPoint(f.entryId, new TIntHashSet(f.ins), new TIntHashSet(f.outs));
+			if (cached != null && fromStableIds(cached, f, ep)) {
+				sums.known.add(ep);
+			} else {
+				sums.toStore.put(ep, key);
+				sums.formals.put(ep, f);
+			}
+		}
+
+		return sums;
+	}
+
+	/**
+	 * The entry points of all procedures whose summaries have to be computed and are stored afterwards.
+	 */
+	public Set<EntryPoint> getEntryPointsToCompute() {
+		return Collections.unmodifiableSet(toStore.keySet());
+	}
+
+	/**
+	 * Registers the summaries that have been found in the cache, so they are not computed again.
+	 */
+	public void addKnownSummaries(WorkPackage pack) {
+		for (final EntryPoint ep : known) {
+			pack.addKnownSummaries(ep);
+		}
+	}
+
+	/**
+	 * Stores the computed summaries and evicts old entries. A cache that cannot be written is not an error of the
+	 * graph construction, so failures are only reported.
+	 */
+	public void store() {
+		for (final Map.Entry<EntryPoint, String> e : toStore.entrySet()) {
+			final EntryPoint ep = e.getKey();
+			try {
+				cache.put(e.getValue(), toStableIds(ep, formals.get(ep)));
+			} catch (StoreEntryPointException exc) {
+				out.println("could not store summary in cache: " + exc.getMessage());
+				break;
+			}
+		}
+
+		cache.evict();
+	}
+
+	public int getHits() {
+		return cache.getHits();
+	}
+
+	public int getMisses() {
+		return cache.getMisses();
+	}
+
+	private static EntryPoint toStableIds(EntryPoint ep, Formals f) {
+		final TIntIntMap out2pos = new TIntIntHashMap();
+		for (int i = 0; i < f.outs.size(); i++) {
+			out2pos.put(f.outs.get(i), i);
+		}
+
+		final EntryPoint stable = new EntryPoint(0, positions(f.ins.size()), positions(f.outs.size()));
+		for (int i = 0; i < f.ins.size(); i++) {
+			final TIntList outs = ep.getInfluencedFormOuts(f.ins.get(i));
+			if (outs != null) {
+				for (int j = 0; j < outs.size(); j++) {
+					stable.addSummaryDep(i, out2pos.get(outs.get(j)));
+				}
+			}
+		}
+
+		return stable;
+	}
+
+	/**
+	 * Adds the dependencies of a cached entry point to the given entry point.
+	 * @return false iff the cached entry does not match the formal nodes of the procedure.
+	 */
+	private static boolean fromStableIds(EntryPoint cached, Formals f, EntryPoint ep) {
+		final TIntHashSet ins = new TIntHashSet();
+		for (final TIntIterator it = cached.iterateFormalIns(); it.hasNext();) {
+			ins.add(it.next());
+		}
+		final TIntHashSet outs = new TIntHashSet();
+		for (final TIntIterator it = cached.iterateFormalOuts(); it.hasNext();) {
+			outs.add(it.next());
+		}
+
+		if (!ins.equals(positions(f.ins.size())) || !outs.equals(positions(f.outs.size()))) {
+			return false;
+		}
+
+		for (int i = 0; i < f.ins.size(); i++) {
+			final TIntList influenced = cached.getInfluencedFormOuts(i);
+			if (influenced != null) {
+				for (int j = 0; j < influenced.size(); j++) {
+					ep.addSummaryDep(f.ins.get(i), f.outs.get(influenced.get(j)));
+				}
+			}
+		}
+
+		return true;
+	}
+
+	private static TIntHashSet positions(int size) {
+		final TIntHashSet set = new TIntHashSet(size);
+		for (int i = 0; i < size; i++) {
+			set.add(i);
+		}
+
+		return set;
+	}
+
+	private static TIntObjectMap<Formals> collectFormals(SDG sdg) {
+		final TIntObjectMap<Formals> proc2formals = new TIntObjectHashMap<Formals>();
+
+		for (final SDGNode n : sdg.vertexSet()) {
+			Formals f = proc2formals.get(n.getProc());
+			if (f == null) {
+				f = new Formals();
+				proc2formals.put(n.getProc(), f);
+			}
+
+			switch (n.getKind()) {
+			case ENTRY:
+				f.entryId = n.getId();
+				break;
+			case FORMAL_IN:
+			case FORMAL_OUT:
+			case EXIT:
+				f.nodes.add(n);
+				break;
+			case CALL:
+				for (final SDGEdge e : sdg.outgoingEdgesOf(n)) {
+					if (e.getKind() == SDGEdge.Kind.CALL) {
+						f.callees.add(e.getTarget().getProc());
+					}
+				}
+				break;
+			default:
+				break;
+			}
+
+			f.all.add(n);
+		}
+
+		for (final Formals f : proc2formals.valueCollection()) {
+			Collections.sort(f.nodes, SDGNode.getIDComparator());
+			Collections.sort(f.all, SDGNode.getIDComparator());
+			for (final SDGNode n : f.nodes) {
+				if (n.getKind() == SDGNode.Kind.FORMAL_IN) {
+					f.ins.add(n.getId());
+				} else {
+					f.outs.add(n.getId());
+				}
+			}
+		}
+
+		return proc2formals;
+	}
+
+	private static String configKey(SDGBuilder.Config cfg) {
+		return "v" + VERSION + " " + cfg.exceptions + " " + cfg.pts + " " + cfg.fieldPropagation + " "
+				+ cfg.accessPath + " " + cfg.localKillingDefs + " " + cfg.keepPhiNodes + " "
+				+ cfg.noBasePointerDependency + " " + cfg.staticInitializers + " " + cfg.computeInterference;
+	}
+
+	/**
+	 * Computes the cache keys of all procedures. Procedures without a key are not cached.
+	 */
+	private static TIntObjectMap<String> computeKeys(String configKey, SDG sdg, List<PDG> pdgs,
+			TIntObjectMap<Formals> proc2formals) {
+		final int size = pdgs.size();
+		final TIntIntMap proc2index = new TIntIntHashMap(size, 0.5f, -1, -1);
+		for (int i = 0; i < size; i++) {
+			proc2index.put(pdgs.get(i).getId(), i);
+		}
+
+		final TIntObjectMap<String> proc2sig = new TIntObjectHashMap<String>();
+		for (final PDG pdg : pdgs) {
+			proc2sig.put(pdg.getId(), pdg.getMethod().getSignature());
+		}
+
+		final TIntIntMap id2pos = new TIntIntHashMap();
+		for (final Formals f : proc2formals.valueCollection()) {
+			for (int i = 0; i < f.all.size(); i++) {
+				id2pos.put(f.all.get(i).getId(), i);
+			}
+		}
+
+		final String[] localHash = new String[size];
+		final TIntArrayList[] callees = new TIntArrayList[size];
+		for (int i = 0; i < size; i++) {
+			final PDG pdg = pdgs.get(i);
+			final Formals f = proc2formals.get(pdg.getId());
+			localHash[i] = (f == null ? null : localHash(configKey, pdg.getMethod(), f, sdg, id2pos, proc2sig));
+
+			callees[i] = new TIntArrayList();
+			if (f != null) {
+				for (final int callee : f.callees.toArray()) {
+					final int index = proc2index.get(callee);
+					if (index >= 0) {
+						callees[i].add(index);
+					}
+				}
+			}
+		}
+
+		final int[] component = new int[size];
+		final int numComponents = SummaryComputation.tarjan(callees, component);
+
+		final List<List<Integer>> members = new ArrayList<List<Integer>>(numComponents);
+		for (int c = 0; c < numComponents; c++) {
+			members.add(new LinkedList<Integer>());
+		}
+		for (int i = 0; i < size; i++) {
+			members.get(component[i]).add(i);
+		}
+
+		// components are numbered bottom-up, so the hashes of all callees are known
+		final String[] componentHash = new String[numComponents];
+		for (int c = 0; c < numComponents; c++) {
+			final List<String> parts = new ArrayList<String>();
+			boolean cacheable = true;
+			for (final int i : members.get(c)) {
+				if (localHash[i] == null) {
+					cacheable = false;
+					break;
+				}
+
+				parts.add(localHash[i]);
+				for (int j = 0; j < callees[i].size(); j++) {
+					final int callee = component[callees[i].getQuick(j)];
+					if (callee != c) {
+						if (componentHash[callee] == null) {
+							cacheable = false;
+							break;
+						}
+
+						parts.add(componentHash[callee]);
+					}
+				}
+			}
+
+			if (cacheable) {
+				Collections.sort(parts);
+				componentHash[c] = Digests.sha1(parts.toString());
+			}
+		}
+
+		final TIntObjectMap<String> proc2key = new TIntObjectHashMap<String>();
+		for (int i = 0; i < size; i++) {
+			final String compHash = componentHash[component[i]];
+			if (compHash != null) {
+				final PDG pdg = pdgs.get(i);
+				proc2key.put(pdg.getId(), pdg.getMethod().getSignature() + "|" + Digests.sha1(compHash + localHash[i]));
+			}
+		}
+
+		return proc2key;
+	}
+
+	private static String localHash(String configKey, IMethod method, Formals f, SDG sdg, TIntIntMap id2pos,
+			TIntObjectMap<String> proc2sig) {
+		if (!(method instanceof IBytecodeMethod)) {
+			return null;
+		}
+
+		final IBytecodeMethod bcMethod = (IBytecodeMethod) method;
+		final StringBuilder sb = new StringBuilder(configKey);
+		sb.append('\n');
+		sb.append(method.getSignature());
+		sb.append('\n');
+
+		try {
+			final IInstruction[] instructions = bcMethod.getInstructions();
+			if (instructions == null) {
+				return null;
+			}
+
+			for (final IInstruction instr : instructions) {
+				sb.append(instr);
+				sb.append('\n');
+			}
+
+			final ExceptionHandler[][] handlers = bcMethod.getHandlers();
+			if (handlers != null) {
+				for (int i = 0; i < handlers.length; i++) {
+					for (final ExceptionHandler h : handlers[i]) {
+						sb.append(i + ":" + h.getHandler() + ":" + h.getCatchClass() + "\n");
+					}
+				}
+			}
+		} catch (InvalidClassFileException e) {
+			return null;
+		}
+
+		for (final SDGNode n : f.nodes) {
+			sb.append(n.getKind() + " " + n.getLabel() + " " + n.getBytecodeName() + " " + n.getType() + "\n");
+		}
+
+		if (!appendDependencies(sb, f, sdg, id2pos, proc2sig)) {
+			return null;
+		}
+
+		return Digests.sha1(sb.toString());
+	}
+
+	/**
+	 * Appends the nodes and edges of the procedure the summary computation depends on. Nodes are given by their
+	 * position in the id order of their procedure, nodes of other procedures also by the signature of the procedure.
+	 * These are all edges within the procedure, the call and parameter-in edges to callees and the parameter-out
+	 * edges from callees. Other edges between procedures, like interference edges, are not followed by the summary
+	 * computation. The edges depend on the points-to analysis and the call graph of the whole program, so a change
+	 * in another part of the program that changes them also changes the key.
+	 * @return false iff an edge leads to a procedure without signature.
+	 */
+	private static boolean appendDependencies(StringBuilder sb, Formals f, SDG sdg, TIntIntMap id2pos,
+			TIntObjectMap<String> proc2sig) {
+		final List<String> edges = new ArrayList<String>();
+		for (final SDGNode n : f.all) {
+			edges.clear();
+			for (final SDGEdge e : sdg.outgoingEdgesOf(n)) {
+				final SDGEdge.Kind kind = e.getKind();
+				if (kind == SDGEdge.Kind.SUMMARY || kind == SDGEdge.Kind.SUMMARY_DATA
+						|| kind == SDGEdge.Kind.SUMMARY_NO_ALIAS) {
+					continue;
+				}
+
+				final SDGNode tgt = e.getTarget();
+				if (tgt.getProc() == n.getProc()) {
+					edges.add(kind + " " + id2pos.get(tgt.getId()));
+				} else if (kind == SDGEdge.Kind.CALL || kind == SDGEdge.Kind.PARAMETER_IN) {
+					final String sig = proc2sig.get(tgt.getProc());
+					if (sig == null) {
+						return false;
+					}
+
+					edges.add(kind + " " + sig + " " + id2pos.get(tgt.getId()));
+				}
+			}
+
+			for (final SDGEdge e : sdg.incomingEdgesOf(n)) {
+				final SDGNode src = e.getSource();
+				if (e.getKind() == SDGEdge.Kind.PARAMETER_OUT && src.getProc() != n.getProc()) {
+					final String sig = proc2sig.get(src.getProc());
+					if (sig == null) {
+						return false;
+					}
+
+					edges.add("<" + e.getKind() + " " + sig + " " + id2pos.get(src.getId()));
+				}
+			}
+
+			// the order of the edges in the graph is not fixed
+			Collections.sort(edges);
+			sb.append(n.getKind() + " " + edges + "\n");
+		}
+
+		return true;
+	}
+
+
+}
@@ -0,0 +1,318 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.wala.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+import edu.kit.joana.ifc.sdg.graph.SDG;
+import edu.kit.joana.ifc.sdg.graph.SDGEdge;
+import edu.kit.joana.ifc.sdg.graph.SDGNode;
+import edu.kit.joana.wala.summary.SummaryComputation;
+import edu.kit.joana.wala.summary.WorkPackage;
+import edu.kit.joana.wala.summary.WorkPackage.EntryPoint;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.TIntIntMap;
+import gnu.trove.map.TIntObjectMap;
+import gnu.trove.map.hash.TIntIntHashMap;
+import gnu.trove.map.hash.TIntObjectHashMap;
+import gnu.trove.set.TIntSet;
+import gnu.trove.set.TLongSet;
+import gnu.trove.set.hash.TIntHashSet;
+import gnu.trove.set.hash.TLongHashSet;
+
+/**
+ * Takes the summary information of unchanged procedures from the SDG of a previous build of the same program, see
+ * {@link SDGBuilder.Config#previousSDG}. Has to run after the node ids have been taken from the previous SDG.
+ *
+ * A procedure is unchanged if all of its nodes kept their ids and kinds and if it has the same intraprocedural
+ * edges and calls the same procedures as before. The summary edges of a procedure only depend on the procedure
+ * and on the procedures it may call transitively, so its summary is reused if all these procedures are unchanged.
+ * Procedures that may call each other are treated as one. The formal-in to formal-out dependencies of a procedure
+ * are read from the summary edges of a call site in the previous SDG that calls no other procedure. Unchanged
+ * procedures without such a call site are computed again, but do not keep their callers from being reused.
+ */
+final class PreviousSummaries {
+
+	private final List<EntryPoint> known = new LinkedList<EntryPoint>();
+	private final TIntSet knownEntries = new TIntHashSet();
+
+	private PreviousSummaries() {
+	}
+
+	/**
+	 * Finds the procedures of the sdg whose summaries can be taken from the previous sdg.
+	 */
+	public static PreviousSummaries lookup(SDG previous, SDG sdg) {
+		final PreviousSummaries sums = new PreviousSummaries();
+		if (!hasSummaryEdges(previous)) {
+			// the previous sdg has been built without summary edges
+			return sums;
+		}
+
+		final TIntObjectMap<SDGNode> proc2entry = new TIntObjectHashMap<SDGNode>();
+		for (final SDGNode n : sdg.vertexSet()) {
+			if (n.getKind() == SDGNode.Kind.ENTRY) {
+				proc2entry.put(n.getProc(), n);
+			}
+		}
+
+		final TIntObjectMap<List<SDGNode>> proc2nodes = nodesByProc(sdg);
+		final TIntObjectMap<List<SDGNode>> prevProc2nodes = nodesByProc(previous);
+
+		final int size = proc2entry.size();
+		final SDGNode[] entries = new SDGNode[size];
+		final TIntIntMap proc2index = new TIntIntHashMap(size, 0.5f, -1, -1);
+		int index = 0;
+		for (final SDGNode entry : proc2entry.valueCollection()) {
+			entries[index] = entry;
+			proc2index.put(entry.getProc(), index);
+			index++;
+		}
+
+		final boolean[] unchanged = new boolean[size];
+		final TIntArrayList[] callees = new TIntArrayList[size];
+		for (int i = 0; i < size; i++) {
+			final List<SDGNode> nodes = proc2nodes.get(entries[i].getProc());
+			final SDGNode prevEntry = previous.getNode(entries[i].getId());
+			unchanged[i] = prevEntry != null && prevEntry.getKind() == SDGNode.Kind.ENTRY
+					&& isUnchanged(nodes, sdg, prevProc2nodes.get(prevEntry.getProc()), previous);
+
+			callees[i] = new TIntArrayList();
+			for (final SDGNode n : nodes) {
+				if (n.getKind() != SDGNode.Kind.CALL) {
+					continue;
+				}
+
+				for (final SDGEdge e : sdg.outgoingEdgesOf(n)) {
+					if (e.getKind() == SDGEdge.Kind.CALL) {
+						final int callee = proc2index.get(e.getTarget().getProc());
+						if (callee >= 0) {
+							callees[i].add(callee);
+						}
+					}
+				}
+			}
+		}
+
+		final int[] component = new int[size];
+		final int numComponents = SummaryComputation.tarjan(callees, component);
+		final List<List<Integer>> members = new ArrayList<List<Integer>>(numComponents);
+		for (int c = 0; c < numComponents; c++) {
+			members.add(new LinkedList<Integer>());
+		}
+		for (int i = 0; i < size; i++) {
+			members.get(component[i]).add(i);
+		}
+
+		// components are numbered bottom-up, so it is known for all callees if they can be reused
+		final boolean[] reusable = new boolean[numComponents];
+		for (int c = 0; c < numComponents; c++) {
+			reusable[c] = true;
+			for (final int i : members.get(c)) {
+				if (!unchanged[i]) {
+					reusable[c] = false;
+					break;
+				}
+
+				for (int j = 0; j < callees[i].size(); j++) {
+					final int callee = component[callees[i].getQuick(j)];
+					if (callee != c && !reusable[callee]) {
+						reusable[c] = false;
+						break;
+					}
+				}
+			}
+		}
+
+		for (int i = 0; i < size; i++) {
+			if (reusable[component[i]]) {
+				final SDGNode prevEntry = previous.getNode(entries[i].getId());
+				final EntryPoint ep = readSummary(previous, prevEntry, prevProc2nodes.get(prevEntry.getProc()));
+				if (ep != null) {
+					sums.known.add(ep);
+					sums.knownEntries.add(ep.getEntryId());
+				}
+			}
+		}
+
+		return sums;
+	}
+
+	/**
+	 * The ids of the entry nodes of all procedures whose summaries are taken from the previous sdg.
+	 */
+	public TIntSet getKnownEntries() {
+		return knownEntries;
+	}
+
+	/**
+	 * Registers the summaries that have been taken from the previous sdg, so they are not computed again.
+	 */
+	public void addKnownSummaries(WorkPackage pack) {
+		for (final EntryPoint ep : known) {
+			pack.addKnownSummaries(ep);
+		}
+	}
+
+	private static boolean hasSummaryEdges(SDG sdg) {
+		for (final SDGEdge e : sdg.edgeSet()) {
+			if (e.getKind() == SDGEdge.Kind.SUMMARY) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private static TIntObjectMap<List<SDGNode>> nodesByProc(SDG sdg) {
+		final TIntObjectMap<List<SDGNode>> proc2nodes = new TIntObjectHashMap<List<SDGNode>>();
+		for (final SDGNode n : sdg.vertexSet()) {
+			List<SDGNode> nodes = proc2nodes.get(n.getProc());
+			if (nodes == null) {
+				nodes = new ArrayList<SDGNode>();
+				proc2nodes.put(n.getProc(), nodes);
+			}
+
+			nodes.add(n);
+		}
+
+		return proc2nodes;
+	}
+
+	private static boolean isUnchanged(List<SDGNode> nodes, SDG sdg, List<SDGNode> prevNodes, SDG previous) {
+		if (prevNodes == null || nodes.size() != prevNodes.size()) {
+			return false;
+		}
+
+		final int prevProc = prevNodes.get(0).getProc();
+		for (final SDGNode n : nodes) {
+			final SDGNode old = previous.getNode(n.getId());
+			if (old == null || old.getProc() != prevProc || old.getKind() != n.getKind()) {
+				return false;
+			}
+
+			if (!outgoingEdges(n, sdg).equals(outgoingEdges(old, previous))) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * The outgoing edges of a node that may influence the summaries of its procedure: all edges to nodes of the
+	 * same procedure and the call edges. Summary edges are ignored, as they are not computed yet.
+	 */
+	private static TLongSet outgoingEdges(SDGNode n, SDG sdg) {
+		final TLongSet edges = new TLongHashSet();
+		for (final SDGEdge e : sdg.outgoingEdgesOf(n)) {
+			final SDGEdge.Kind kind = e.getKind();
+			if (kind == SDGEdge.Kind.SUMMARY || kind == SDGEdge.Kind.SUMMARY_DATA
+					|| kind == SDGEdge.Kind.SUMMARY_NO_ALIAS) {
+				continue;
+			}
+
+			if (kind == SDGEdge.Kind.CALL || e.getTarget().getProc() == n.getProc()) {
+				edges.add(((long) kind.ordinal() << 32) | (e.getTarget().getId() & 0xFFFFFFFFL));
+			}
+		}
+
+		return edges;
+	}
+
+	/**
+	 * Reads the formal-in to formal-out dependencies of a procedure from the summary edges of a call site that
+	 * only calls this procedure and has an actual node for each formal node.
+	 * @return null iff there is no such call site.
+	 */
+	private static EntryPoint readSummary(SDG previous, SDGNode entry, List<SDGNode> nodes) {
+		final TIntSet formIns = new TIntHashSet();
+		final TIntSet formOuts = new TIntHashSet();
+		for (final SDGNode n : nodes) {
+			switch (n.getKind()) {
+			case FORMAL_IN:
+				formIns.add(n.getId());
+				break;
+			case FORMAL_OUT:
+			case EXIT:
+				formOuts.add(n.getId());
+				break;
+			default:
+				break;
+			}
+		}
+
+		for (final SDGNode call : previous.getCallers(entry)) {
+			if (previous.getEntries(call).size() != 1) {
+				continue;
+			}
+
+			final TIntIntMap act2formal = new TIntIntHashMap();
+			final Collection<SDGNode> actuals = actualsOf(previous, call);
+			for (final SDGNode act : actuals) {
+				final Set<SDGEdge> params = (act.getKind() == SDGNode.Kind.ACTUAL_IN
+						? previous.outgoingEdgesOf(act) : previous.incomingEdgesOf(act));
+				for (final SDGEdge e : params) {
+					final SDGEdge.Kind kind = e.getKind();
+					if (kind == SDGEdge.Kind.PARAMETER_IN || kind == SDGEdge.Kind.PARAMETER_OUT) {
+						final SDGNode formal = (kind == SDGEdge.Kind.PARAMETER_IN ? e.getTarget() : e.getSource());
+						act2formal.put(act.getId(), formal.getId());
+					}
+				}
+			}
+
+			final TIntSet covered = new TIntHashSet(act2formal.valueCollection());
+			if (act2formal.size() != formIns.size() + formOuts.size() || !covered.containsAll(formIns)
+					|| !covered.containsAll(formOuts)) {
+				continue;
+			}
+
+			final EntryPoint ep = new EntryPoint(entry.getId(), formIns, formOuts);
+			for (final SDGNode act : actuals) {
+				if (act.getKind() != SDGNode.Kind.ACTUAL_IN || !act2formal.containsKey(act.getId())) {
+					continue;
+				}
+
+				for (final SDGEdge e : previous.outgoingEdgesOf(act)) {
+					if (e.getKind() == SDGEdge.Kind.SUMMARY && act2formal.containsKey(e.getTarget().getId())) {
+						ep.addSummaryDep(act2formal.get(act.getId()), act2formal.get(e.getTarget().getId()));
+					}
+				}
+			}
+
+			return ep;
+		}
+
+		return null;
+	}
+
+	private static Collection<SDGNode> actualsOf(SDG sdg, SDGNode call) {
+		final List<SDGNode> actuals = new ArrayList<SDGNode>();
+		final LinkedList<SDGNode> wl = new LinkedList<SDGNode>();
+		wl.add(call);
+
+		while (!wl.isEmpty()) {
+			final SDGNode next = wl.poll();
+			for (final SDGEdge e : sdg.outgoingEdgesOf(next)) {
+				final SDGNode.Kind kind = e.getTarget().getKind();
+				if (e.getKind() == SDGEdge.Kind.CONTROL_DEP_EXPR
+						&& (kind == SDGNode.Kind.ACTUAL_IN || kind == SDGNode.Kind.ACTUAL_OUT)) {
+					actuals.add(e.getTarget());
+					wl.add(e.getTarget());
+				}
+			}
+		}
+
+		return actuals;
+	}
+
+}
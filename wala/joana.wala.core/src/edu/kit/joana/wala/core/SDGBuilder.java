@@ -9,13 +9,17 @@ package edu.kit.joana.wala.core;
 
 import java.io.FileNotFoundException;
 import java.io.PrintStream;
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.jgrapht.DirectedGraph;
 
@@ -39,6 +43,7 @@ import com.ibm.wala.ipa.callgraph.pruned.CallGraphPruning;
 import com.ibm.wala.ipa.callgraph.pruned.PrunedCallGraph;
 import com.ibm.wala.ipa.cfg.ExceptionPrunedCFG;
 import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.ssa.IR;
 import com.ibm.wala.ssa.SSAInstruction;
 import com.ibm.wala.ssa.SSAInvokeInstruction;
 import com.ibm.wala.ssa.analysis.ExplodedControlFlowGraph;
@@ -84,6 +89,7 @@ import edu.kit.joana.wala.summary.WorkPackage;
 import edu.kit.joana.wala.summary.WorkPackage.EntryPoint;
 import edu.kit.joana.wala.util.EdgeFilter;
 import edu.kit.joana.wala.util.WriteGraphToDot;
+import gnu.trove.iterator.TIntIterator;
 import gnu.trove.map.TIntIntMap;
 import gnu.trove.map.hash.TIntIntHashMap;
 import gnu.trove.set.TIntSet;
@@ -100,6 +106,8 @@ public class SDGBuilder implements CallGraphFilter {
 	// start at 2+1 == 3 because other ids are reserved.
 	public static final int PDG_START_ID = 3;
 	public static final int NO_PDG_ID = -1;
+	/** number of pdgs per thread that are submitted to the pool at once, when the pdgs are built in parallel. */
+	private static final int PDGS_IN_FLIGHT_PER_THREAD = 4;
 	public static boolean DATA_FLOW_FOR_GET_FROM_FIELD_NODE = false;
 	// private static Context DEFAULT_CONTEXT = Everywhere.EVERYWHERE;
 	// private static SSAOptions DEFAULT_SSA_OPTIONS = new SSAOptions();
@@ -159,6 +167,7 @@ public class SDGBuilder implements CallGraphFilter {
 	public static SDG build(final Config cfg, IProgressMonitor progress) throws UnsoundGraphException, CancelException {
 		SDG sdg = null;
 		WorkPackage pack = null;
+		PersistentSummaries cached = null;
 
 		/* additional scope so SDGBuilder object can be garbage collected */{
 			SDGBuilder builder = new SDGBuilder(cfg);
@@ -166,15 +175,21 @@ public class SDGBuilder implements CallGraphFilter {
 			sdg = convertToJoana(cfg.out, builder, progress);
 
 			if (cfg.computeSummary) {
-				pack = createSummaryWorkPackage(cfg.out, builder, sdg, progress);
+				final PreviousSummaries previous = lookupPreviousSummaries(cfg, sdg);
+				cached = lookupCachedSummaries(cfg, builder, sdg, previous);
+				pack = createSummaryWorkPackage(cfg.out, builder, sdg, previous, cached, progress);
 			}
 		}
 
 		if (cfg.computeSummary) {
 			if (cfg.accessPath) {
-				computeDataAndAliasSummaryEdges(cfg.out, pack, sdg, progress);
+				computeDataAndAliasSummaryEdges(cfg.out, pack, sdg, cfg.summaryThreads, progress);
 			} else {
-				computeSummaryEdges(cfg.out, pack, sdg, progress);
+				computeSummaryEdges(cfg.out, pack, sdg, cfg.summaryThreads, progress);
+			}
+
+			if (cached != null) {
+				cached.store();
 			}
 		}
 
@@ -190,15 +205,22 @@ public class SDGBuilder implements CallGraphFilter {
 		builder.run(progress);
 		sdg = convertToJoana(cfg.out, builder, progress);
 
+		PersistentSummaries cached = null;
 		if (cfg.computeSummary) {
-			pack = createSummaryWorkPackage(cfg.out, builder, sdg, progress);
+			final PreviousSummaries previous = lookupPreviousSummaries(cfg, sdg);
+			cached = lookupCachedSummaries(cfg, builder, sdg, previous);
+			pack = createSummaryWorkPackage(cfg.out, builder, sdg, previous, cached, progress);
 		}
 
 		if (cfg.computeSummary) {
 			if (cfg.accessPath) {
-				computeDataAndAliasSummaryEdges(cfg.out, pack, sdg, progress);
+				computeDataAndAliasSummaryEdges(cfg.out, pack, sdg, cfg.summaryThreads, progress);
 			} else {
-				computeSummaryEdges(cfg.out, pack, sdg, progress);
+				computeSummaryEdges(cfg.out, pack, sdg, cfg.summaryThreads, progress);
+			}
+
+			if (cached != null) {
+				cached.store();
 			}
 		}
 
@@ -219,10 +241,37 @@ public class SDGBuilder implements CallGraphFilter {
 		return sdg;
 	}
 
+	/**
+	 * Returns the summaries that can be taken from the previous sdg, or null if there is none. Like the cache, the
+	 * previous sdg is not used for access path computation, as it computes two different kinds of summary edges.
+	 */
+	private static PreviousSummaries lookupPreviousSummaries(Config cfg, SDG sdg) {
+		if (cfg.previousSDG == null || cfg.accessPath) {
+			return null;
+		}
+
+		return PreviousSummaries.lookup(cfg.previousSDG, sdg);
+	}
+
+	/**
+	 * Returns the summaries found in the persistent cache, or null if no cache is configured. The cache is not used
+	 * for access path computation, as it computes two different kinds of summary edges. Procedures whose summaries
+	 * are taken from the previous sdg are not looked up.
+	 */
+	private static PersistentSummaries lookupCachedSummaries(Config cfg, SDGBuilder builder, SDG sdg,
+			PreviousSummaries previous) {
+		if (cfg.summaryCacheDir == null || cfg.accessPath) {
+			return null;
+		}
+
+		return PersistentSummaries.lookup(cfg, builder, sdg,
+				(previous == null ? new TIntHashSet() : previous.getKnownEntries()));
+	}
+
 	private static WorkPackage createSummaryWorkPackage(PrintStream out, SDGBuilder builder, SDG sdg,
-			IProgressMonitor progress) {
+			PreviousSummaries previous, PersistentSummaries cached, IProgressMonitor progress) {
 		out.print("summary");
-		Set<EntryPoint> entries = new TreeSet<EntryPoint>();
+		Set<EntryPoint> entries = new HashSet<EntryPoint>();
 		PDG pdg = builder.getMainPDG();
 		TIntSet formIns = new TIntHashSet();
 		for (PDGNode p : pdg.params) {
@@ -233,30 +282,39 @@ public class SDGBuilder implements CallGraphFilter {
 		formOuts.add(pdg.exit.getId());
 		EntryPoint ep = new EntryPoint(pdg.entry.getId(), formIns, formOuts);
 		entries.add(ep);
+		if (cached != null) {
+			entries.addAll(cached.getEntryPointsToCompute());
+		}
 		WorkPackage pack = WorkPackage.create(sdg, entries, sdg.getName());
+		if (previous != null) {
+			previous.addKnownSummaries(pack);
+		}
+		if (cached != null) {
+			cached.addKnownSummaries(pack);
+		}
 		out.print(".");
 
 		return pack;
 	}
 
-	private static void computeSummaryEdges(PrintStream out, WorkPackage pack, SDG sdg, IProgressMonitor progress)
-			throws CancelException {
-		SummaryComputation.compute(pack, progress);
+	private static void computeSummaryEdges(PrintStream out, WorkPackage pack, SDG sdg, int threads,
+			IProgressMonitor progress) throws CancelException {
+		SummaryComputation.compute(pack, threads, progress);
 		out.print(".");
 	}
 
-	private static void computeDataAndAliasSummaryEdges(PrintStream out, WorkPackage pack, SDG sdg,
+	private static void computeDataAndAliasSummaryEdges(PrintStream out, WorkPackage pack, SDG sdg, int threads,
 			IProgressMonitor progress) throws CancelException {
-		SummaryComputation.computeNoAliasDataDep(pack, progress);
+		SummaryComputation.computeNoAliasDataDep(pack, threads, progress);
 		out.print(".");
-		SummaryComputation.computeFullAliasDataDep(pack, progress);
+		SummaryComputation.computeFullAliasDataDep(pack, threads, progress);
 		out.print(".");
 	}
 
 	private final ParameterFieldFactory params = new ParameterFieldFactory();
 	private int currentNodeId = 1;
 	private int pdgId = getMainId();
-	private final List<PDG> pdgs = new LinkedList<PDG>();
+	private final PDGRegistry pdgs = new PDGRegistry();
 	/**
 	 * currently unused - could later be used to append static initializer calls
 	 * to it
@@ -333,41 +391,28 @@ public class SDGBuilder implements CallGraphFilter {
 		cfg.out.print("\tintraproc: ");
 		progress.subTask("computing intraprocedural flow...");
 		final int fivePercent = cg.vertexSet().size() / 20;
-		int currentNum = 1;
 
-		for (CallGraph.Node node : cg.vertexSet()) {
-			if (node.node.getMethod() == cfg.entry) {
-				continue;
-			}
+		if (cfg.intraprocThreads > 1) {
+			buildPDGsInParallel(fivePercent, progress);
+		} else {
+			int currentNum = 1;
 
-			final CGNode cgm = node.node;
-			final PDG pdg = createAndAddPDG(cgm, progress);
+			for (CallGraph.Node node : cg.vertexSet()) {
+				if (node.node.getMethod() == cfg.entry) {
+					continue;
+				}
 
-			currentNum++;
-			if (fivePercent > 0) {
-				if (currentNum % fivePercent == 0) {
-					int percent = currentNum / fivePercent;
-					String str = ".";
-					if (percent == 5) {
-						str = "25%";
-					} else if (percent == 10) {
-						str = "50%";
-					} else if (percent == 15) {
-						str = "75%";
-					} else if (percent == 20) {
-						str = "100%";
-					}
+				final CGNode cgm = node.node;
+				final PDG pdg = createAndAddPDG(cgm, progress);
 
-					cfg.out.print(str);
-				}
-			} else {
-				cfg.out.print(".");
-			}
+				currentNum++;
+				printIntraprocProgress(currentNum, fivePercent);
 
-			MonitorUtil.throwExceptionIfCanceled(progress);
+				MonitorUtil.throwExceptionIfCanceled(progress);
 
-			if (cfg.debugManyGraphsDotOutput) {
-				debugOutput(pdg);
+				if (cfg.debugManyGraphsDotOutput) {
+					debugOutput(pdg);
+				}
 			}
 		}
 		progress.worked(1);
@@ -381,7 +426,7 @@ public class SDGBuilder implements CallGraphFilter {
 		progress.subTask("computing interprocedural flow...");
 		cfg.out.print("calls");
 		// connect call sites
-		for (PDG pdg : pdgs) {
+		for (PDG pdg : pdgs.getAll()) {
 			if (isImmutableStub(pdg.getMethod().getDeclaringClass().getReference())) {
 				continue;
 			}
@@ -391,6 +436,7 @@ public class SDGBuilder implements CallGraphFilter {
 				pdg.connectCall(call, tgts);
 			}
 		}
+		pdgs.callsChanged();
 		cfg.out.print(".");
 		progress.worked(1);
 		if (cfg.staticInitializers != StaticInitializationTreatment.NONE) {
@@ -462,21 +508,44 @@ public class SDGBuilder implements CallGraphFilter {
 			cfg.out.print(".");
 		}
 
+		if (cfg.previousSDG != null) {
+			cfg.out.print("stableids");
+			progress.subTask("reusing node ids of the previous sdg...");
+			StableNodeIds.apply(this, cfg.previousSDG, cfg.changedClasses);
+			cfg.out.print(".");
+
+			if (cfg.ext != null) {
+				// deferred until the node ids are final, as the external call check records the ids of call nodes.
+				for (final PDG pdg : getAllPDGs()) {
+					pdg.checkForExternalCalls(cfg.ext, cfg.out);
+				}
+			}
+		}
+
 		progress.worked(1);
 	}
 
 	public ControlFlowGraph<SSAInstruction, IExplodedBasicBlock> createExceptionAnalyzedCFG(final CGNode n,
 			final IProgressMonitor progress) throws UnsoundGraphException, CancelException {
+		return createExceptionAnalyzedCFG(n, n.getIR(), progress);
+	}
+
+	/**
+	 * Creates the exception analyzed control flow graph of a method from its already computed IR.
+	 * The IR of the call graph node is not requested again, so this may be called concurrently.
+	 */
+	public ControlFlowGraph<SSAInstruction, IExplodedBasicBlock> createExceptionAnalyzedCFG(final CGNode n,
+			final IR ir, final IProgressMonitor progress) throws UnsoundGraphException, CancelException {
 		ControlFlowGraph<SSAInstruction, IExplodedBasicBlock> ecfg = null;
 
 		switch (cfg.exceptions) {
 		case ALL_NO_ANALYSIS: {
-			ecfg = ExplodedControlFlowGraph.make(n.getIR());
+			ecfg = ExplodedControlFlowGraph.make(ir);
 		}
 			break;
 		case INTRAPROC: {
 			final ExceptionPruningAnalysis<SSAInstruction, IExplodedBasicBlock> npa = NullPointerAnalysis
-					.createIntraproceduralExplodedCFGAnalysis(n.getIR());
+					.createIntraproceduralExplodedCFGAnalysis(ir);
 
 			npa.compute(progress);
 
@@ -492,14 +561,14 @@ public class SDGBuilder implements CallGraphFilter {
 			ExceptionPruningAnalysis<SSAInstruction, IExplodedBasicBlock> npa = interprocExceptionResult.getResult(n);
 
 			if (npa == null) {
-				npa = NullPointerAnalysis.createIntraproceduralExplodedCFGAnalysis(n.getIR());
+				npa = NullPointerAnalysis.createIntraproceduralExplodedCFGAnalysis(ir);
 			}
 
 			npa.compute(progress);
 			// removed++;
 			// ExceptionPruningAnalysis<SSAInstruction, IExplodedBasicBlock>
 			// npa2 =
-			// NullPointerAnalysis.createIntraproceduralExplodedCFGAnalysis(n.getIR());
+			// NullPointerAnalysis.createIntraproceduralExplodedCFGAnalysis(ir);
 			// int removed2 = npa2.compute(progress);
 			// removed2++;
 
@@ -507,7 +576,7 @@ public class SDGBuilder implements CallGraphFilter {
 		}
 			break;
 		case IGNORE_ALL: {
-			ecfg = ExceptionPrunedCFG.make(ExplodedControlFlowGraph.make(n.getIR()));
+			ecfg = ExceptionPrunedCFG.make(ExplodedControlFlowGraph.make(ir));
 		}
 			break;
 		}
@@ -582,7 +651,7 @@ public class SDGBuilder implements CallGraphFilter {
 			EscapeAnalysis escapeAnalysis = new MethodEscapeAnalysis(new TrivialMethodEscape(
 					getNonPrunedWalaCallGraph(), getPointerAnalysis().getHeapGraph()));
 			Set<InterferenceEdge> interferences = InterferenceComputation.computeInterference(this, tiProvider, true,
-					false, escapeAnalysis, progress);
+					false, escapeAnalysis, cfg.interferenceThreads, progress);
 			assert interferences != null;
 			for (InterferenceEdge iEdge : interferences) {
 				iEdge.addToPDG();
@@ -592,6 +661,8 @@ public class SDGBuilder implements CallGraphFilter {
 
 	private void introduceForkEdges(ThreadInformationProvider tiProvider) {
 		new Call2ForkConverter(this, tiProvider).run();
+		// the converter removes call nodes and rewrites call edges of the pdgs
+		pdgs.callsChanged();
 	}
 
 	public static final int DO_NOT_PRUNE = -1;
@@ -738,7 +809,7 @@ public class SDGBuilder implements CallGraphFilter {
 
 	private void addDummyDataFlowToUnresolvedCalls() {
 		// connect call sites
-		for (PDG pdg : pdgs) {
+		for (PDG pdg : pdgs.getAll()) {
 			if (isImmutableStub(pdg.getMethod().getDeclaringClass().getReference())) {
 				// direct data deps from all formal-in to formal-outs
 				List<PDGNode> inParam = new LinkedList<PDGNode>();
@@ -821,7 +892,7 @@ public class SDGBuilder implements CallGraphFilter {
 		for (PDGEdge out : pdgCaller.outgoingEdgesOf(call)) {
 			if (out.kind == PDGEdge.Kind.CALL_STATIC || out.kind == PDGEdge.Kind.CALL_VIRTUAL) {
 				PDGNode entry = out.to;
-				PDG target = getPDGforId(entry.getPdgId());
+				PDG target = getPDGforEntry(entry);
 				tgts.add(target);
 			}
 		}
@@ -829,56 +900,79 @@ public class SDGBuilder implements CallGraphFilter {
 		return tgts;
 	}
 
+	/**
+	 * Returns all pdgs that contain a call to the given pdg. The reverse call relation is computed once for all pdgs
+	 * and reused until pdgs are added, the call sites are connected or calls are converted to forks.
+	 */
 	public Set<PDG> getPossibleCallers(final PDG callee) {
-		final Set<PDG> callers = new HashSet<PDG>();
+		return new HashSet<PDG>(pdgs.getCallers(callee));
+	}
+
+	public PDG getPDGforMethod(CGNode n) {
+		return pdgs.getForMethod(n);
+	}
+
+	public PDG getPDGforEntry(PDGNode entry) {
+		return pdgs.getForEntry(entry);
+	}
 
+	public synchronized int getNextNodeId() {
+		final int id = currentNodeId;
+		currentNodeId++;
+		return id;
+	}
+
+	/**
+	 * Reserves a block of consecutive node ids.
+	 * @param count number of ids to reserve.
+	 * @return the first id of the block.
+	 */
+	synchronized int reserveNodeIds(final int count) {
+		final int id = currentNodeId;
+		currentNodeId += count;
+		return id;
+	}
+
+	/**
+	 * Assigns new ids to the nodes of all pdgs. The ids of other nodes that are stored at a node or in this builder
+	 * are changed accordingly. Nodes whose id is not part of the mapping keep their id.
+	 * @param id2newId maps the current id of a node to its new id.
+	 * @param nextNodeId the id that is assigned to the next node created.
+	 */
+	void renumberNodes(final TIntIntMap id2newId, final int nextNodeId) {
 		for (final PDG pdg : getAllPDGs()) {
-			if (pdg != callee) {
-				if (pdg.containsVertex(callee.entry)) {
-					callers.add(pdg);
+			for (final PDGNode node : pdg.vertexSet()) {
+				if (node.getPdgId() != pdg.getId()) {
+					continue;
 				}
-			} else {
-				boolean found = false;
-				for (final PDGNode call : pdg.getCalls()) {
-					if (found) {
-						break;
-					}
-
-					for (final PDGEdge e : pdg.outgoingEdgesOf(call)) {
-						if (found) {
-							break;
-						}
 
-						if ((e.kind == PDGEdge.Kind.CALL_STATIC || e.kind == PDGEdge.Kind.CALL_VIRTUAL)
-								&& e.to == pdg.entry) {
-							found = true;
-						}
-					}
+				if (node.getAliasDataSources() != null) {
+					node.setAliasDataSources(renumber(node.getAliasDataSources(), id2newId));
 				}
 
-				if (found) {
-					callers.add(callee);
+				if (id2newId.containsKey(node.getId())) {
+					node.renumber(id2newId.get(node.getId()));
 				}
 			}
 		}
 
-		return callers;
-	}
-
-	public PDG getPDGforMethod(CGNode n) {
-		for (PDG pdg : pdgs) {
-			if (n.equals(pdg.cgNode)) {
-				return pdg;
+		if (call2alloc != null) {
+			for (final Map.Entry<PDGNode, TIntSet> e : call2alloc.entrySet()) {
+				e.setValue(renumber(e.getValue(), id2newId));
 			}
 		}
 
-		return null;
+		currentNodeId = nextNodeId;
 	}
 
-	public int getNextNodeId() {
-		final int id = currentNodeId;
-		currentNodeId++;
-		return id;
+	private static TIntSet renumber(final TIntSet ids, final TIntIntMap id2newId) {
+		final TIntSet result = new TIntHashSet();
+		for (final TIntIterator it = ids.iterator(); it.hasNext();) {
+			final int id = it.next();
+			result.add(id2newId.containsKey(id) ? id2newId.get(id) : id);
+		}
+
+		return result;
 	}
 
 	public IClassHierarchy getClassHierarchy() {
@@ -894,17 +988,11 @@ public class SDGBuilder implements CallGraphFilter {
 	}
 
 	public List<PDG> getAllPDGs() {
-		return Collections.unmodifiableList(pdgs);
+		return pdgs.getAll();
 	}
 
 	public PDG getPDGforId(int id) {
-		for (PDG pdg : pdgs) {
-			if (pdg.getId() == id) {
-				return pdg;
-			}
-		}
-
-		return null;
+		return pdgs.getForId(id);
 	}
 
 	/**
@@ -961,11 +1049,11 @@ public class SDGBuilder implements CallGraphFilter {
 
 	public Graph<PDG> createCallGraph() {
 		Graph<PDG> cgPDG = new SparseNumberedGraph<PDG>();
-		for (PDG pdg : pdgs) {
+		for (PDG pdg : pdgs.getAll()) {
 			cgPDG.addNode(pdg);
 		}
 
-		for (PDG pdg : pdgs) {
+		for (PDG pdg : pdgs.getAll()) {
 			for (PDGNode call : pdg.getCalls()) {
 				Set<PDG> tgts = getPossibleTargets(call);
 				for (PDG target : tgts) {
@@ -1099,6 +1187,126 @@ public class SDGBuilder implements CallGraphFilter {
 		}
 	}
 
+	private void printIntraprocProgress(final int currentNum, final int fivePercent) {
+		if (fivePercent > 0) {
+			if (currentNum % fivePercent == 0) {
+				int percent = currentNum / fivePercent;
+				String str = ".";
+				if (percent == 5) {
+					str = "25%";
+				} else if (percent == 10) {
+					str = "50%";
+				} else if (percent == 15) {
+					str = "75%";
+				} else if (percent == 20) {
+					str = "100%";
+				}
+
+				cfg.out.print(str);
+			}
+		} else {
+			cfg.out.print(".");
+		}
+	}
+
+	/**
+	 * Builds the pdgs of all call graph nodes except the entry method on cfg.intraprocThreads threads.
+	 * The pdg ids are assigned in call graph order when the pdgs are submitted. At most
+	 * PDGS_IN_FLIGHT_PER_THREAD pdgs per thread are pending at a time. The node ids that are
+	 * drawn during the parallel computation are temporary: Once all pdgs are built, each pdg reserves as many
+	 * ids as it has drawn, in call graph order, and renumbers its nodes within this block. This results in
+	 * exactly the same numbering as the sequential computation, including the gaps left by removed nodes.
+	 */
+	private void buildPDGsInParallel(final int fivePercent, final IProgressMonitor progress)
+			throws UnsoundGraphException, CancelException {
+		final int firstNodeId = currentNodeId;
+		final int maxInFlight = cfg.intraprocThreads * PDGS_IN_FLIGHT_PER_THREAD;
+		final LinkedList<Future<PDG>> inFlight = new LinkedList<Future<PDG>>();
+		final ExecutorService executor = Executors.newFixedThreadPool(cfg.intraprocThreads);
+		final List<PDG> built = new ArrayList<PDG>();
+
+		try {
+			int currentNum = 1;
+
+			for (final CallGraph.Node node : cg.vertexSet()) {
+				if (node.node.getMethod() == cfg.entry) {
+					continue;
+				}
+
+				if (inFlight.size() >= maxInFlight) {
+					// wait for the oldest pdg, so only a bounded number of irs is kept alive at a time.
+					built.add(waitForPDG(inFlight.removeFirst()));
+
+					currentNum++;
+					printIntraprocProgress(currentNum, fivePercent);
+				}
+
+				final CGNode cgm = node.node;
+				final int id = pdgId;
+				pdgId++;
+				// the ir cache of wala is not thread-safe, so we compute the ir up front.
+				final IR ir = cgm.getIR();
+
+				inFlight.add(executor.submit(new Callable<PDG>() {
+					@Override
+					public PDG call() throws UnsoundGraphException, CancelException {
+						return PDG.buildWithTemporaryIds(SDGBuilder.this, Util.methodName(cgm.getMethod()), cgm, ir,
+								id, cfg.out, progress);
+					}
+				}));
+
+				MonitorUtil.throwExceptionIfCanceled(progress);
+			}
+
+			while (!inFlight.isEmpty()) {
+				built.add(waitForPDG(inFlight.removeFirst()));
+
+				currentNum++;
+				printIntraprocProgress(currentNum, fivePercent);
+
+				MonitorUtil.throwExceptionIfCanceled(progress);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		currentNodeId = firstNodeId;
+		for (final PDG pdg : built) {
+			pdg.renumberNodes();
+			final ExternalCallCheck ext = getIntraprocExternalCallCheck();
+			if (ext != null) {
+				pdg.checkForExternalCalls(ext, cfg.out);
+			}
+			pdgs.add(pdg);
+
+			if (cfg.debugManyGraphsDotOutput) {
+				debugOutput(pdg);
+			}
+		}
+	}
+
+	private static PDG waitForPDG(final Future<PDG> result) throws UnsoundGraphException, CancelException {
+		try {
+			return result.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CancelException(e);
+		} catch (ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof UnsoundGraphException) {
+				throw (UnsoundGraphException) cause;
+			} else if (cause instanceof CancelException) {
+				throw (CancelException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+
+			throw new IllegalStateException(cause);
+		}
+	}
+
 	/**
 	 * Configuration of the SDG computation.
 	 *
@@ -1160,6 +1368,42 @@ public class SDGBuilder implements CallGraphFilter {
 		public boolean debugStaticInitializers = false;
 		public boolean computeInterference = true;
 		public boolean computeSummary = true;
+		/*
+		 * Number of threads used to compute the summary edges. With more than one thread the call graph components
+		 * are processed in parallel, bottom-up. The resulting summary edges do not depend on this setting.
+		 */
+		public int summaryThreads = 1;
+		/*
+		 * Directory of a persistent cache for the summary information of methods, which is reused across runs.
+		 * Methods are looked up by a hash of their bytecode and the bytecode of all methods they may call, so only
+		 * summaries of changed methods and their callers are computed again. null disables the cache.
+		 */
+		public String summaryCacheDir = null;
+		/* maximal size of the summary cache in bytes */
+		public long summaryCacheMaxSize = 256L * 1024 * 1024;
+		/* entries of the summary cache that have not been used for this many milliseconds are removed */
+		public long summaryCacheMaxAge = 30L * 24 * 60 * 60 * 1000;
+		/*
+		 * Number of threads used to build the intraprocedural dependence graphs. A value of 1 or less builds them
+		 * sequentially. The resulting node numbering does not depend on this setting.
+		 */
+		public int intraprocThreads = 1;
+		/*
+		 * Number of threads used to compute the interference edges. The heap accesses of different fields are
+		 * compared in parallel. The resulting edges do not depend on this setting.
+		 */
+		public int interferenceThreads = 1;
+		/*
+		 * The SDG of a previous build of the same program. If set, the nodes of all procedures that are not declared
+		 * in one of the changedClasses keep the ids they had in the previous SDG, as far as they can be matched.
+		 * The intraprocedural graphs are always built from scratch, as they depend on the points-to analysis of the
+		 * whole program. The summary information of a procedure is taken from the previous SDG if neither the
+		 * procedure nor any procedure it may call transitively changed, so summary edges are only computed for the
+		 * changed procedures and their callers.
+		 */
+		public SDG previousSDG = null;
+		/* fully qualified names of the classes that changed since the previousSDG was built. null if unknown. */
+		public Set<String> changedClasses = null;
 	}
 
 	public String getMainMethodName() {
@@ -1173,17 +1417,26 @@ public class SDGBuilder implements CallGraphFilter {
 
 	public PDG createAndAddPDG(final CGNode cgm, final IProgressMonitor progress) throws UnsoundGraphException,
 			CancelException {
-		final PDG pdg = PDG.build(this, Util.methodName(cgm.getMethod()), cgm, pdgId, cfg.ext, cfg.out, progress);
+		final PDG pdg = PDG.build(this, Util.methodName(cgm.getMethod()), cgm, pdgId, getIntraprocExternalCallCheck(),
+				cfg.out, progress);
 		pdgId++;
 		pdgs.add(pdg);
 
 		return pdg;
 	}
 
+	/**
+	 * Returns the check for external calls that is done while a pdg is built. If the node ids are taken from a
+	 * previous sdg the check is done at the end of the build instead, because the ids of the call nodes change.
+	 */
+	private ExternalCallCheck getIntraprocExternalCallCheck() {
+		return (cfg.previousSDG == null ? cfg.ext : null);
+	}
+
 	public long countNodes() {
 		long count = 0;
 
-		for (final PDG pdg : pdgs) {
+		for (final PDG pdg : pdgs.getAll()) {
 			count += pdg.vertexSet().size();
 		}
 
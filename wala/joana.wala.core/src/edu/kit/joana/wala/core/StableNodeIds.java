@@ -0,0 +1,210 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.wala.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import edu.kit.joana.ifc.sdg.graph.SDG;
+import edu.kit.joana.ifc.sdg.graph.SDGNode;
+import gnu.trove.map.TIntIntMap;
+import gnu.trove.map.TIntObjectMap;
+import gnu.trove.map.hash.TIntIntHashMap;
+import gnu.trove.map.hash.TIntObjectHashMap;
+
+/**
+ * Renumbers the nodes of a freshly built SDG, so that the nodes of procedures that did not change since a previous
+ * build keep the ids they had in the previous SDG. This lets clients keep node ids, e.g. of annotated sources and
+ * sinks, when a program is analyzed again after some classes changed.
+ *
+ * A procedure is found in the previous SDG by the signature of its method. Procedures of changed classes are not
+ * matched. A method that is represented by several procedures, one for each analysis context, is only matched if
+ * the number of its procedures did not change. The procedures are then paired in id order. Within a matched
+ * procedure a node gets the id of the old node with the same label, bytecode name, bytecode index and type. Nodes
+ * with the same attributes are matched in id order. All nodes that could not be matched get fresh ids above the
+ * largest id of the previous SDG.
+ */
+final class StableNodeIds {
+
+	private static final Comparator<PDGNode> BY_ID = new Comparator<PDGNode>() {
+		@Override
+		public int compare(final PDGNode o1, final PDGNode o2) {
+			final int id1 = o1.getId();
+			final int id2 = o2.getId();
+			return (id1 < id2 ? -1 : (id1 == id2 ? 0 : 1));
+		}
+	};
+
+	private final Set<String> changedClasses;
+	/* nodes of the procedures of the previous sdg by signature, ordered by procedure id */
+	private final Map<String, List<List<SDGNode>>> previousProcs = new HashMap<String, List<List<SDGNode>>>();
+	private final TIntIntMap id2newId = new TIntIntHashMap();
+	private final List<PDGNode> unmatched = new ArrayList<PDGNode>();
+	private int nextNodeId = 1;
+
+	private StableNodeIds(final Set<String> changedClasses) {
+		this.changedClasses = changedClasses;
+	}
+
+	/**
+	 * Renumbers the nodes of all pdgs of the builder.
+	 * @param builder The builder of the new SDG.
+	 * @param previous The SDG of a previous build of the same program.
+	 * @param changedClasses Fully qualified names of the classes that changed since the previous build, like
+	 * "java.lang.Object". The procedures of these classes get fresh node ids. null if unknown.
+	 */
+	static void apply(final SDGBuilder builder, final SDG previous, final Set<String> changedClasses) {
+		final StableNodeIds ids = new StableNodeIds(changedClasses);
+		ids.collectPreviousProcedures(previous);
+		ids.match(builder.getAllPDGs());
+		builder.renumberNodes(ids.id2newId, ids.nextNodeId);
+	}
+
+	private void collectPreviousProcedures(final SDG previous) {
+		final TIntObjectMap<List<SDGNode>> proc2nodes = new TIntObjectHashMap<List<SDGNode>>();
+		final TIntObjectMap<String> proc2signature = new TIntObjectHashMap<String>();
+		for (final SDGNode n : previous.vertexSet()) {
+			nextNodeId = Math.max(nextNodeId, n.getId() + 1);
+
+			List<SDGNode> nodes = proc2nodes.get(n.getProc());
+			if (nodes == null) {
+				nodes = new ArrayList<SDGNode>();
+				proc2nodes.put(n.getProc(), nodes);
+			}
+			nodes.add(n);
+
+			if (n.getKind() == SDGNode.Kind.ENTRY && n.getBytecodeName() != null) {
+				proc2signature.put(n.getProc(), n.getBytecodeName());
+			}
+		}
+
+		final int[] procs = proc2signature.keys();
+		Arrays.sort(procs);
+		for (final int proc : procs) {
+			final String signature = proc2signature.get(proc);
+			if (isChanged(signature)) {
+				continue;
+			}
+
+			final List<SDGNode> nodes = proc2nodes.get(proc);
+			Collections.sort(nodes, SDGNode.getIDComparator());
+
+			List<List<SDGNode>> sameSignature = previousProcs.get(signature);
+			if (sameSignature == null) {
+				sameSignature = new ArrayList<List<SDGNode>>(1);
+				previousProcs.put(signature, sameSignature);
+			}
+			sameSignature.add(nodes);
+		}
+	}
+
+	private void match(final List<PDG> pdgs) {
+		final Map<String, List<PDG>> currentProcs = new HashMap<String, List<PDG>>();
+		final List<PDG> sorted = new ArrayList<PDG>(pdgs);
+		Collections.sort(sorted, new Comparator<PDG>() {
+			@Override
+			public int compare(final PDG o1, final PDG o2) {
+				final int id1 = o1.getId();
+				final int id2 = o2.getId();
+				return (id1 < id2 ? -1 : (id1 == id2 ? 0 : 1));
+			}
+		});
+
+		for (final PDG pdg : sorted) {
+			final String signature = pdg.getMethod().getSignature();
+			List<PDG> sameSignature = currentProcs.get(signature);
+			if (sameSignature == null) {
+				sameSignature = new ArrayList<PDG>(1);
+				currentProcs.put(signature, sameSignature);
+			}
+			sameSignature.add(pdg);
+		}
+
+		for (final PDG pdg : sorted) {
+			final List<PDG> sameSignature = currentProcs.get(pdg.getMethod().getSignature());
+			final List<List<SDGNode>> previous = previousProcs.get(pdg.getMethod().getSignature());
+			final List<PDGNode> nodes = ownNodesSorted(pdg);
+
+			if (previous != null && previous.size() == sameSignature.size()) {
+				match(nodes, previous.get(sameSignature.indexOf(pdg)));
+			} else {
+				unmatched.addAll(nodes);
+			}
+		}
+
+		Collections.sort(unmatched, BY_ID);
+		for (final PDGNode n : unmatched) {
+			id2newId.put(n.getId(), nextNodeId);
+			nextNodeId++;
+		}
+	}
+
+	private void match(final List<PDGNode> nodes, final List<SDGNode> previous) {
+		final Map<String, LinkedList<Integer>> key2ids = new HashMap<String, LinkedList<Integer>>();
+		for (final SDGNode n : previous) {
+			final String key = key(n.getLabel(), n.getBytecodeName(), n.getBytecodeIndex(), n.getType());
+			LinkedList<Integer> ids = key2ids.get(key);
+			if (ids == null) {
+				ids = new LinkedList<Integer>();
+				key2ids.put(key, ids);
+			}
+			ids.add(n.getId());
+		}
+
+		for (final PDGNode n : nodes) {
+			final String key = key(n.getLabel(), n.getBytecodeName(), n.getBytecodeIndex(), n.getType());
+			final LinkedList<Integer> ids = key2ids.get(key);
+			if (ids != null && !ids.isEmpty()) {
+				id2newId.put(n.getId(), ids.removeFirst());
+			} else {
+				unmatched.add(n);
+			}
+		}
+	}
+
+	private static List<PDGNode> ownNodesSorted(final PDG pdg) {
+		final List<PDGNode> nodes = new ArrayList<PDGNode>();
+		for (final PDGNode n : pdg.vertexSet()) {
+			if (n.getPdgId() == pdg.getId()) {
+				nodes.add(n);
+			}
+		}
+		Collections.sort(nodes, BY_ID);
+
+		return nodes;
+	}
+
+	private static String key(final String label, final String bcName, final int bcIndex, final String type) {
+		return label + "|" + bcName + "|" + bcIndex + "|" + type;
+	}
+
+	/**
+	 * Checks if the method with the given signature, like "java.lang.Object.equals(Ljava/lang/Object;)Z", is
+	 * declared in one of the changed classes.
+	 */
+	private boolean isChanged(final String signature) {
+		if (changedClasses == null) {
+			return false;
+		}
+
+		final int paren = signature.indexOf('(');
+		final int dot = signature.lastIndexOf('.', (paren >= 0 ? paren : signature.length()));
+		if (dot < 0) {
+			return true;
+		}
+
+		return changedClasses.contains(signature.substring(0, dot));
+	}
+}
@@ -7,12 +7,21 @@
  */
 package edu.kit.joana.wala.core.interference;
 
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import com.ibm.wala.classLoader.IClass;
 import com.ibm.wala.classLoader.IField;
@@ -33,6 +42,7 @@ import com.ibm.wala.ssa.SSAMonitorInstruction;
 import com.ibm.wala.ssa.SSAPutInstruction;
 import com.ibm.wala.types.TypeReference;
 import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.MonitorUtil;
 import com.ibm.wala.util.MonitorUtil.IProgressMonitor;
 import com.ibm.wala.util.WalaException;
 import com.ibm.wala.util.collections.HashMapFactory;
@@ -80,6 +90,7 @@ public class InterferenceComputation {
 	private final PointsToWrapper pts;
 	private final boolean optimizeThisAccess;
 	private final boolean ignoreClInits;
+	private final int numThreads;
 	private static final boolean DO_ARRAYS = true;
 	private static final boolean DO_SYNC = false;
 	private static final boolean DO_SYNC_METHODS = DO_SYNC;
@@ -112,11 +123,23 @@ public class InterferenceComputation {
 	public static Set<InterferenceEdge> computeInterference(final SDGBuilder builder,
 			final ThreadInformationProvider tiProvider,	final boolean optimizeThisAccess, final boolean ignoreClinits,
 			final EscapeAnalysis escape, final IProgressMonitor progress) throws CancelException {
+		return computeInterference(builder, tiProvider, optimizeThisAccess, ignoreClinits, escape, 1, progress);
+	}
+
+	/**
+	 * Computes interference dependence for multi-threaded programs. The heap accesses of different fields are
+	 * compared on numThreads threads. The resulting edges do not depend on the number of threads.
+	 * @throws CancelException
+	 */
+	public static Set<InterferenceEdge> computeInterference(final SDGBuilder builder,
+			final ThreadInformationProvider tiProvider,	final boolean optimizeThisAccess, final boolean ignoreClinits,
+			final EscapeAnalysis escape, final int numThreads, final IProgressMonitor progress)
+			throws CancelException {
 		progress.subTask("Thread interference computation started..."); //$NON-NLS-1$
 		if (IS_DEBUG) debug.outln("Computing thread interference");
 
-		final InterferenceComputation ifcomp =
-				new InterferenceComputation(builder, tiProvider, optimizeThisAccess, ignoreClinits, escape);
+		final InterferenceComputation ifcomp = new InterferenceComputation(builder, tiProvider, optimizeThisAccess,
+				ignoreClinits, escape, numThreads);
 		final Set<InterferenceEdge> ret = ifcomp.compute(progress);
 
 		progress.done();
@@ -126,7 +149,8 @@ public class InterferenceComputation {
 	}
 
 	private InterferenceComputation(final SDGBuilder builder, final ThreadInformationProvider tiProvider,
-			final boolean optimizeThisAccess, final boolean ignoreClinits, final EscapeAnalysis escape) {
+			final boolean optimizeThisAccess, final boolean ignoreClinits, final EscapeAnalysis escape,
+			final int numThreads) {
 		this.builder = builder;
 		this.tiProvider = tiProvider;
 		this.threadIds = new TIntObjectHashMap<IntSet>();
@@ -134,6 +158,7 @@ public class InterferenceComputation {
 		this.optimizeThisAccess = optimizeThisAccess;
 		this.ignoreClInits = ignoreClinits;
 		this.escape = escape;
+		this.numThreads = numThreads;
 		this.pff = new ParameterFieldFactory();
 		this.pts = new PointsToWrapper(builder.getPointerAnalysis());
 	}
@@ -155,59 +180,174 @@ public class InterferenceComputation {
 	/**
 	 * Look for each heap accessing node which other heap accessing node may
 	 * happen in parallel and may be referring to the same location.
+	 * Two accesses may only refer to the same location if they access the same field. So the accesses are
+	 * collected once, grouped by their field and by the set of threads their pdg may run in. Only accesses of
+	 * the same field in groups that may run in parallel are compared. The fields are independent of each other
+	 * and are processed on numThreads threads.
 	 * @throws CancelException
 	 * @throws WalaException
 	 */
 	private final Set<InterferenceEdge> computeInterference(final IProgressMonitor progress) throws CancelException {
 		if (IS_DEBUG) debug.outln("Computing read-write/write-write interference for threads");
+
+		final List<IntSet> threadSets = new ArrayList<IntSet>();
+		final Collection<FieldAccesses> fields = collectHeapAccesses(threadSets, progress);
+
+		final boolean[][] parallel = new boolean[threadSets.size()][threadSets.size()];
+		for (int i = 0; i < threadSets.size(); i++) {
+			for (int j = 0; j < threadSets.size(); j++) {
+				parallel[i][j] = mayRunInParallelThreads(threadSets.get(i), threadSets.get(j));
+			}
+		}
+
+		if (numThreads > 1 && fields.size() > 1) {
+			return computeInterferenceInParallel(fields, parallel, progress);
+		}
+
 		final Set<InterferenceEdge> ret = new HashSet<InterferenceEdge>();
-		
+
+		for (final FieldAccesses field : fields) {
+			ret.addAll(computeInterference(field, parallel));
+
+			MonitorUtil.throwExceptionIfCanceled(progress);
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Collects the heap accesses of all pdgs that run in at least one thread. Pdgs that run in the same set of
+	 * threads share the same index in threadSets.
+	 */
+	private final Collection<FieldAccesses> collectHeapAccesses(final List<IntSet> threadSets,
+			final IProgressMonitor progress) throws CancelException {
+		// accesses only alias if their fields are the same object
+		final Map<ParameterField, FieldAccesses> field2accesses = new IdentityHashMap<ParameterField, FieldAccesses>();
+		final Map<BitSet, Integer> threadSet2index = new HashMap<BitSet, Integer>();
+
 		for (final PDG pdg : getPDGs()) {
 			if (pdg == null) {
 				continue;
 			}
 
-			final Set<HeapWrite> writes = getHeapWrites(pdg);
+			final IntSet tids = getThreadIds(pdg);
+			if (tids.isEmpty()) {
+				// a pdg that runs in no thread does not run in parallel to anything
+				continue;
+			}
+
+			final BitSet key = new BitSet();
+			for (final IntIterator it = tids.intIterator(); it.hasNext();) {
+				key.set(it.next());
+			}
+
+			Integer group = threadSet2index.get(key);
+			if (group == null) {
+				group = threadSets.size();
+				threadSet2index.put(key, group);
+				threadSets.add(tids);
+			}
+
+			for (final HeapWrite write : getHeapWrites(pdg)) {
+				getFieldAccesses(field2accesses, write).getGroup(group).writes.add(write);
+			}
+
+			for (final HeapRead read : getHeapReads(pdg)) {
+				getFieldAccesses(field2accesses, read).getGroup(group).reads.add(read);
+			}
+
+			MonitorUtil.throwExceptionIfCanceled(progress);
+
+			progress.worked(1);
+		}
+
+		return field2accesses.values();
+	}
+
+	private static FieldAccesses getFieldAccesses(final Map<ParameterField, FieldAccesses> field2accesses,
+			final HeapAccess acc) {
+		FieldAccesses accesses = field2accesses.get(acc.getField());
+
+		if (accesses == null) {
+			accesses = new FieldAccesses();
+			field2accesses.put(acc.getField(), accesses);
+		}
+
+		return accesses;
+	}
+
+	/**
+	 * Computes the interference between the accesses of a single field. Each write is compared to the reads and
+	 * writes of all groups that may run in parallel to its own group.
+	 */
+	private final Set<InterferenceEdge> computeInterference(final FieldAccesses field, final boolean[][] parallel) {
+		final Set<InterferenceEdge> ret = new HashSet<InterferenceEdge>();
+		final int[] groups = field.groups.keys();
+
+		for (final int group : groups) {
+			final List<HeapWrite> writes = field.groups.get(group).writes;
 
 			if (writes.isEmpty()) {
-				// a pdg without heap access does not interfere with anything
-				// the interferences that may happen because of read statements
-				// only appear when there is a aliasing write statement in another
-				// pdg. We skip them here because they will be added later on
-				// while handling the pdg with the interfering write.
+				// reads only interfere with writes, which are handled in the group of the write.
 				continue;
 			}
 
-			for (final PDG pdgCur : getPDGs()) {
-				if (pdgCur == null) {
-					continue;
+			for (final int groupCur : groups) {
+				if (parallel[group][groupCur]) {
+					final Accesses cur = field.groups.get(groupCur);
+					ret.addAll(computeInterference(writes, cur.reads, cur.writes));
 				}
+			}
+		}
+
+		return ret;
+	}
 
-				if (mayRunInParallelThreads(pdg, pdgCur)) {
-					final Set<HeapRead> readsCur = getHeapReads(pdgCur);
-					final Set<HeapWrite> writesCur = getHeapWrites(pdgCur);
+	private Set<InterferenceEdge> computeInterferenceInParallel(final Collection<FieldAccesses> fields,
+			final boolean[][] parallel, final IProgressMonitor progress) throws CancelException {
+		final List<Future<Set<InterferenceEdge>>> results = new ArrayList<Future<Set<InterferenceEdge>>>();
+		final ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+		final Set<InterferenceEdge> ret = new HashSet<InterferenceEdge>();
 
-					if (readsCur.isEmpty() && writesCur.isEmpty()) {
-						// a pdg without heap access does not interfere with anything
-						continue;
+		try {
+			for (final FieldAccesses field : fields) {
+				results.add(executor.submit(new Callable<Set<InterferenceEdge>>() {
+					@Override
+					public Set<InterferenceEdge> call() {
+						return computeInterference(field, parallel);
 					}
+				}));
+			}
 
-					ret.addAll(computeInterference(writes, readsCur, writesCur));
-				}
+			for (final Future<Set<InterferenceEdge>> result : results) {
+				ret.addAll(waitForEdges(result));
 
-				if (progress.isCanceled()) {
-					throw CancelException.make("Computing interference canceled.");
-				}
+				MonitorUtil.throwExceptionIfCanceled(progress);
 			}
+		} finally {
+			executor.shutdownNow();
+		}
 
-			if (progress.isCanceled()) {
-				throw CancelException.make("Computing interference canceled.");
+		return ret;
+	}
+
+	private static Set<InterferenceEdge> waitForEdges(final Future<Set<InterferenceEdge>> result)
+			throws CancelException {
+		try {
+			return result.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CancelException(e);
+		} catch (ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
 			}
 
-			progress.worked(1);
+			throw new IllegalStateException(cause);
 		}
-
-		return ret;
 	}
 
 	private Collection<PDG> getPDGs() {
@@ -218,8 +358,8 @@ public class InterferenceComputation {
 		return builder.getNonPrunedWalaCallGraph();
 	}
 
-	private final Set<InterferenceEdge> computeInterference(final Set<HeapWrite> writes1, final Set<HeapRead> reads2,
-			final Set<HeapWrite> writes2) {
+	private final Set<InterferenceEdge> computeInterference(final Collection<HeapWrite> writes1,
+			final Collection<HeapRead> reads2, final Collection<HeapWrite> writes2) {
 
 		final Set<InterferenceEdge> ret = new HashSet<InterferenceEdge>();
 		for (final HeapWrite write : writes1) {
@@ -287,9 +427,7 @@ public class InterferenceComputation {
 		}
 	}
 
-	private final boolean mayRunInParallelThreads(final PDG pdg1, final PDG pdg2) {
-		final IntSet tids1 = getThreadIds(pdg1);
-		final IntSet tids2 = getThreadIds(pdg2);
+	private static boolean mayRunInParallelThreads(final IntSet tids1, final IntSet tids2) {
 		// when thread ids are empty the pdg runs in no thread -> so it definitely
 		// does not run in parallel
 		// it also definitely does not run in parallel when both pdgs may only be
@@ -592,6 +730,10 @@ public class InterferenceComputation {
 			return expr;
 		}
 
+		public ParameterField getField() {
+			return field;
+		}
+
 		public boolean isAliasing(final HeapAccess acc) {
 			final boolean emtpyBases = (base == null && acc.base == null) ||
 			(base != null && acc.base != null && base.isEmpty() && acc.base.isEmpty());
@@ -618,6 +760,29 @@ public class InterferenceComputation {
 		}
 	}
 
+	/**
+	 * The accesses of a single field, grouped by the index of the set of threads their pdgs may run in.
+	 */
+	private static final class FieldAccesses {
+		private final TIntObjectHashMap<Accesses> groups = new TIntObjectHashMap<Accesses>();
+
+		private Accesses getGroup(final int group) {
+			Accesses acc = groups.get(group);
+
+			if (acc == null) {
+				acc = new Accesses();
+				groups.put(group, acc);
+			}
+
+			return acc;
+		}
+	}
+
+	private static final class Accesses {
+		private final List<HeapWrite> writes = new ArrayList<HeapWrite>();
+		private final List<HeapRead> reads = new ArrayList<HeapRead>();
+	}
+
 	/**
 	 * Annotate each pdg with the id of thread it may run in. For each entry
 	 * to thread.start() two ids are created to model the possibility that
@@ -120,6 +120,15 @@ public class EntryPointCache {
 	}
 
 	public static EntryPointCache create(String directory) {
+		createDirectory(directory);
+
+		return new EntryPointCache(directory);
+	}
+
+	/**
+	 * Creates the cache directory if it does not exist yet.
+	 */
+	static File createDirectory(String directory) {
 		File dir = new File(directory);
 
 		if (dir.exists() && dir.isFile()) {
@@ -137,7 +146,7 @@ public class EntryPointCache {
 			throw new IllegalArgumentException("Could not create a dir with name: " + directory);
 		}
 
-		return new EntryPointCache(directory);
+		return dir;
 	}
 
 	public void put(EntryPoint ep) throws StoreEntryPointException {
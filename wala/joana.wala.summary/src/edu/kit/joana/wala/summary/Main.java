@@ -20,10 +20,8 @@ import edu.kit.joana.wala.summary.WorkPackage.EntryPoint;
 import gnu.trove.iterator.TIntIterator;
 import gnu.trove.list.TIntList;
 
-import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.HashSet;
@@ -305,14 +303,11 @@ public class Main {
 	private static void writePackToFile(WorkPackage pack) {
 		final String filename = MAIN_DIR + pack.getName() + SUBGRAPH_PDG_FILE_SUFFIX;
 		debug("\twriting pdg to file " + filename);
-		FileOutputStream fOs = null;
 		try {
-			fOs = new FileOutputStream(filename);
-		} catch (FileNotFoundException e) {
+			SDGSerializer.toPDGFormat((SDG) pack.getGraph(), filename, false);
+		} catch (IOException e) {
 			e.printStackTrace();
 		}
-		final BufferedOutputStream bOs = new BufferedOutputStream(fOs);
-		SDGSerializer.toPDGFormat((SDG) pack.getGraph(), bOs);
 	}
 
 	private static void runWholeGraphSummary(SDG sdg) throws CancelException {
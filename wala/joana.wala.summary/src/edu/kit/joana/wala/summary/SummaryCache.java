@@ -0,0 +1,228 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.wala.summary;
+
+import edu.kit.joana.util.Digests;
+import edu.kit.joana.wala.summary.EntryPointCache.StoreEntryPointException;
+import edu.kit.joana.wala.summary.WorkPackage.EntryPoint;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+
+/**
+ * A content addressed cache for the summary information of single procedures that is kept in a directory across
+ * multiple runs. In contrast to the {@link EntryPointCache}, which stores the entry points of a single graph by
+ * their node id, entries are looked up by a string key that the caller derives from the content of the procedure,
+ * e.g. its signature and a hash of its bytecode and the bytecode of all methods it may call. Changed methods get
+ * new keys, so stale entries are never returned, they are just not used anymore and removed by {@link #evict()}.
+ *
+ * The entry points are stored in the format of {@link EntryPoint#writeOut(PrintWriter, EntryPoint)}. The caller is
+ * responsible to translate the node ids to ids that are stable between runs, e.g. the position of the parameter.
+ *
+ * Eviction removes all entries that have not been used for longer than the maximal age, then the least recently
+ * used entries until the cache does not exceed its maximal size.
+ */
+public class SummaryCache {
+
+	private static final String SUMMARY_FILE_SUFFIX = ".sum";
+	private static final String TMP_FILE_SUFFIX = ".tmp";
+
+	private final File directory;
+	private final long maxSize;
+	private final long maxAge;
+	private int hits = 0;
+	private int misses = 0;
+
+	private SummaryCache(File directory, long maxSize, long maxAge) {
+		this.directory = directory;
+		this.maxSize = maxSize;
+		this.maxAge = maxAge;
+	}
+
+	/**
+	 * @param directory The directory the cache is stored in. It is created if it does not exist.
+	 * @param maxSize Maximal size of all cache files in bytes.
+	 * @param maxAge Entries that have not been used for this many milliseconds are removed.
+	 */
+	public static SummaryCache create(String directory, long maxSize, long maxAge) {
+		if (maxSize < 0 || maxAge < 0) {
+			throw new IllegalArgumentException("Size and age limits must not be negative.");
+		}
+
+		final File dir = EntryPointCache.createDirectory(directory);
+
+		return new SummaryCache(dir, maxSize, maxAge);
+	}
+
+	/**
+	 * Returns the entry point stored for the given key, or null if there is none. Unreadable entries are removed
+	 * and treated as missing.
+	 */
+	public EntryPoint get(String key) {
+		final File file = getFileOfKey(key);
+		if (!file.isFile()) {
+			misses++;
+			return null;
+		}
+
+		EntryPoint ep = null;
+		InputStream in = null;
+		try {
+			in = new BufferedInputStream(new FileInputStream(file));
+			ep = EntryPoint.readIn(in);
+		} catch (FileNotFoundException e) {
+			// removed by a concurrent eviction
+		} catch (ParseException e) {
+			// a broken or truncated entry
+		} catch (NoSuchElementException e) {
+			// truncated entry
+		} finally {
+			close(in);
+		}
+
+		if (ep == null) {
+			file.delete();
+			misses++;
+			return null;
+		}
+
+		// the modification time is used to find the least recently used entries
+		file.setLastModified(System.currentTimeMillis());
+		hits++;
+
+		return ep;
+	}
+
+	/**
+	 * Stores an entry point for the given key. The entry is written to a temporary file first and renamed
+	 * afterwards, so concurrent readers never see partially written entries.
+	 */
+	public void put(String key, EntryPoint ep) throws StoreEntryPointException {
+		if (ep == null) {
+			throw new IllegalArgumentException("Parameter is null.");
+		}
+
+		final File file = getFileOfKey(key);
+		final File tmp = new File(directory, file.getName() + "." + Thread.currentThread().getId() + TMP_FILE_SUFFIX);
+
+		try {
+			final PrintWriter pw = new PrintWriter(tmp);
+			EntryPoint.writeOut(pw, ep);
+			pw.close();
+		} catch (FileNotFoundException exc) {
+			throw new StoreEntryPointException(exc.getMessage(), exc);
+		}
+
+		if (!tmp.renameTo(file)) {
+			// on some platforms rename does not replace existing files
+			file.delete();
+			if (!tmp.renameTo(file)) {
+				tmp.delete();
+				throw new StoreEntryPointException("Could not move " + tmp.getAbsolutePath() + " to "
+						+ file.getAbsolutePath());
+			}
+		}
+	}
+
+	/**
+	 * Removes entries that are older than the maximal age and the least recently used entries until the cache fits
+	 * its maximal size.
+	 *
+	 * @return the number of removed entries.
+	 */
+	public int evict() {
+		final File[] files = directory.listFiles();
+		if (files == null) {
+			return 0;
+		}
+
+		final long now = System.currentTimeMillis();
+		final long[] lastUsed = new long[files.length];
+		final Integer[] order = new Integer[files.length];
+		for (int i = 0; i < files.length; i++) {
+			lastUsed[i] = files[i].lastModified();
+			order[i] = i;
+		}
+
+		// oldest first
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer o1, Integer o2) {
+				return (lastUsed[o1] < lastUsed[o2] ? -1 : (lastUsed[o1] == lastUsed[o2] ? 0 : 1));
+			}
+		});
+
+		long size = 0;
+		for (final File f : files) {
+			if (isCacheFile(f)) {
+				size += f.length();
+			}
+		}
+
+		int removed = 0;
+		for (final int i : order) {
+			final File f = files[i];
+			if (!isCacheFile(f)) {
+				continue;
+			}
+
+			if (now - lastUsed[i] > maxAge || size > maxSize) {
+				final long length = f.length();
+				if (f.delete()) {
+					size -= length;
+					removed++;
+				}
+			} else {
+				// all remaining entries are younger and fit into the cache
+				break;
+			}
+		}
+
+		return removed;
+	}
+
+	public int getHits() {
+		return hits;
+	}
+
+	public int getMisses() {
+		return misses;
+	}
+
+	private static boolean isCacheFile(File f) {
+		final String name = f.getName();
+
+		return f.isFile() && (name.endsWith(SUMMARY_FILE_SUFFIX) || name.endsWith(TMP_FILE_SUFFIX));
+	}
+
+	/**
+	 * Keys may contain characters that are not allowed in file names, so files are named by the SHA-1 of the key.
+	 */
+	private File getFileOfKey(String key) {
+		return new File(directory, Digests.sha1(key) + SUMMARY_FILE_SUFFIX);
+	}
+
+
+	private static void close(InputStream in) {
+		if (in != null) {
+			try {
+				in.close();
+			} catch (IOException e) {}
+		}
+	}
+
+}
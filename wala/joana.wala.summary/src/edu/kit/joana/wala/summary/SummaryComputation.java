@@ -10,15 +10,26 @@ package edu.kit.joana.wala.summary;
 import edu.kit.joana.ifc.sdg.graph.BitVector;
 import edu.kit.joana.ifc.sdg.graph.SDGEdge;
 import edu.kit.joana.ifc.sdg.graph.SDGNode;
+import edu.kit.joana.wala.summary.WorkPackage.EntryPoint;
+import gnu.trove.iterator.TIntIterator;
+import gnu.trove.list.TIntList;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.list.array.TLongArrayList;
 import gnu.trove.map.TIntObjectMap;
+import gnu.trove.map.hash.TIntIntHashMap;
 import gnu.trove.set.TIntSet;
+import gnu.trove.set.hash.TIntHashSet;
 
-import java.util.Collection;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 
 import org.jgrapht.DirectedGraph;
@@ -28,14 +39,22 @@ import com.ibm.wala.util.MonitorUtil;
 import com.ibm.wala.util.MonitorUtil.IProgressMonitor;
 
 /**
+ * Computes summary edges with the worklist algorithm of Reps et al. The nodes of the graph are mapped to dense
+ * int indices up front. Path edges are packed into long keys of the form (source index &lt;&lt; 32 | target index)
+ * and stored in an open addressing hash set with linear probing, the worklist is an array backed queue of such keys. The relevant
+ * predecessors of each node, the parameter edges and the call site of each actual parameter node are precomputed
+ * once, as they do not change during the computation. Only the summary edges that are found during the
+ * computation are tracked separately, they are added to the graph at the end.
+ *
  * @author Juergen Graf <graf@kit.edu>
  *
  */
 public class SummaryComputation {
 
-	private final HashSet<Edge> pathEdge;
-    private final HashMap<SDGNode, Set<Edge>> aoPaths;
-    private final LinkedList<Edge> worklist;
+	private static final int NO_NODE = -1;
+	private static final int NOT_COMPUTED = -2;
+	private static final int ALL_COMPONENTS = -1;
+
     private final DirectedGraph<SDGNode, SDGEdge> graph;
     private final TIntSet relevantFormalIns;
     private final TIntSet relevantProcs;
@@ -43,28 +62,74 @@ public class SummaryComputation {
     private final TIntObjectMap<List<SDGNode>> out2in;
     private final boolean rememberReached;
     private final SDGEdge.Kind sumEdgeKind;
-    private final Set<SDGEdge.Kind> relevantEdges;
+    private final boolean[] relevantEdges;
     private final String annotate;
+    /* procedures with known summary information, see WorkPackage.addKnownSummaries */
+    private final List<EntryPoint> known;
+
+    /* index -> node and node id -> index */
+    private SDGNode[] nodes;
+    private TIntIntHashMap id2index;
+    /* nodes that are part of the relevant procedures. null iff all procedures are relevant. */
+    private boolean[] inRelevantProc;
+    /* nodes that are part of procedures with known summaries. null iff there are none. */
+    private boolean[] inKnownProc;
+    /* predecessors a path edge is propagated to, compressed row storage indexed by node index */
+    private int[] predStart;
+    private int[] preds;
+    /* sources of incoming parameter-in edges */
+    private int[] paramInStart;
+    private int[] paramIn;
+    /* targets of outgoing parameter-out edges */
+    private int[] paramOutStart;
+    private int[] paramOut;
+    /* source of the first incoming control-dep-expr edge and the call site of actual parameter nodes */
+    private int[] cdeParent;
+    private int[] callSite;
+
+    /* call graph component of each node, only used for the parallel computation */
+    private int[] nodeComponent;
+
+    /* targets of all path edges that start at an actual-out node */
+    private TIntArrayList[] aoPaths;
+    /* sources of the summary edges that have been found during the computation */
+    private TIntArrayList[] addedSummaryPreds;
+    /* summary edges that have been found during the computation. Access is guarded by addedSummaries. */
+    private final LongHashSet addedSummaries = new LongHashSet(1 << 12);
+    private final TLongArrayList addedSummaryEdges = new TLongArrayList();
+    /* formal-in -> formal-out summary edges. Each path edge is processed once, so there are no duplicates. */
+    private final TLongArrayList formInOutSummary = new TLongArrayList();
 
 	private SummaryComputation(DirectedGraph<SDGNode, SDGEdge> graph, TIntSet relevantFormalIns,
 			TIntSet relevantProcs, TIntSet fullyConnected, TIntObjectMap<List<SDGNode>> out2in,
 			boolean rememberReached, SDGEdge.Kind sumEdgeKind, Set<SDGEdge.Kind> relevantEdges,
-			String annotate) {
+			String annotate, List<EntryPoint> known) {
     	this.graph = graph;
     	this.relevantFormalIns = relevantFormalIns;
     	this.relevantProcs = relevantProcs;
     	this.fullyConnected = fullyConnected;
-        this.pathEdge = new HashSet<Edge>();
-        this.aoPaths = new HashMap<SDGNode, Set<Edge>>();
-        this.worklist = new LinkedList<Edge>();
         this.out2in = out2in;
         this.rememberReached = rememberReached;
         this.sumEdgeKind = sumEdgeKind;
-        this.relevantEdges = relevantEdges;
-        this.annotate = annotate;
+        this.relevantEdges = new boolean[SDGEdge.Kind.values().length];
+        for (SDGEdge.Kind kind : relevantEdges) {
+        	this.relevantEdges[kind.ordinal()] = true;
+        }
+        this.annotate = (annotate != null && !annotate.isEmpty() ? annotate : null);
+        this.known = known;
 	}
 
 	public static int compute(WorkPackage pack, IProgressMonitor progress) throws CancelException {
+		return compute(pack, 1, progress);
+	}
+
+	/**
+	 * Computes the summary edges with the given number of threads. If more than one thread is used, the procedures
+	 * are grouped into the strongly connected components of the call graph. The components are processed bottom-up
+	 * and components that do not depend on each other are processed in parallel. The result is the same as for the
+	 * sequential computation.
+	 */
+	public static int compute(WorkPackage pack, int threads, IProgressMonitor progress) throws CancelException {
 		// default summary computation follows control and date dependencies
 		Set<SDGEdge.Kind> relevantEdges = new HashSet<SDGEdge.Kind>();
 		relevantEdges.add(SDGEdge.Kind.DATA_DEP);
@@ -83,7 +148,7 @@ public class SummaryComputation {
 		relevantEdges.add(SDGEdge.Kind.SUMMARY_NO_ALIAS);
 		relevantEdges.add(SDGEdge.Kind.SYNCHRONIZATION);
 
-		return compute(pack, SDGEdge.Kind.SUMMARY, relevantEdges, progress);
+		return compute(pack, SDGEdge.Kind.SUMMARY, relevantEdges, null, threads, progress);
 	}
 
 	public static int computeAdjustedAliasDep(WorkPackage pack, IProgressMonitor progress) throws CancelException {
@@ -132,7 +197,17 @@ public class SummaryComputation {
 		return compute(pack, progress);
 	}
 
+	public static int computeFullAliasDataDep(WorkPackage pack, int threads, IProgressMonitor progress)
+			throws CancelException {
+		return compute(pack, threads, progress);
+	}
+
 	public static int computeNoAliasDataDep(WorkPackage pack, IProgressMonitor progress) throws CancelException {
+		return computeNoAliasDataDep(pack, 1, progress);
+	}
+
+	public static int computeNoAliasDataDep(WorkPackage pack, int threads, IProgressMonitor progress)
+			throws CancelException {
 		Set<SDGEdge.Kind> relevantEdges = new HashSet<SDGEdge.Kind>();
 		relevantEdges.add(SDGEdge.Kind.DATA_DEP);
 		relevantEdges.add(SDGEdge.Kind.DATA_HEAP);
@@ -150,7 +225,7 @@ public class SummaryComputation {
 		relevantEdges.add(SDGEdge.Kind.SUMMARY_NO_ALIAS);
 		relevantEdges.add(SDGEdge.Kind.SYNCHRONIZATION);
 
-		return compute(pack, SDGEdge.Kind.SUMMARY_NO_ALIAS, relevantEdges, progress);
+		return compute(pack, SDGEdge.Kind.SUMMARY_NO_ALIAS, relevantEdges, null, threads, progress);
 	}
 
 	public static int computeHeapDataDep(WorkPackage pack, IProgressMonitor progress) throws CancelException {
@@ -182,327 +257,866 @@ public class SummaryComputation {
 
 	private static int compute(WorkPackage pack, SDGEdge.Kind sumEdgeKind, Set<SDGEdge.Kind> relevantEdges,
 			String annotate, IProgressMonitor progress) throws CancelException {
+		return compute(pack, sumEdgeKind, relevantEdges, annotate, 1, progress);
+	}
+
+	private static int compute(WorkPackage pack, SDGEdge.Kind sumEdgeKind, Set<SDGEdge.Kind> relevantEdges,
+			String annotate, int threads, IProgressMonitor progress) throws CancelException {
 		SummaryComputation comp = new SummaryComputation(pack.getGraph(), pack.getAllFormalInIds(),
 				pack.getRelevantProcIds(), pack.getFullyConnected(), pack.getOut2In(),
-				pack.getRememberReached(), sumEdgeKind, relevantEdges, annotate);
-		Collection<SDGEdge> summary = comp.computeSummaryEdges(progress);
+				pack.getRememberReached(), sumEdgeKind, relevantEdges, annotate, pack.getKnownSummaries());
+		if (threads > 1) {
+			comp.computeSummaryEdgesInParallel(threads, progress);
+		} else {
+			comp.computeSummaryEdges(progress);
+		}
 
-		for (SDGEdge edge : summary) {
-			pack.addSummaryDep(edge.getSource().getId(), edge.getTarget().getId());
+		for (int i = 0; i < comp.formInOutSummary.size(); i++) {
+			final long edge = comp.formInOutSummary.getQuick(i);
+			pack.addSummaryDep(comp.nodes[source(edge)].getId(), comp.nodes[target(edge)].getId());
 		}
 
 		// set work package to immutable and sort summary edges
 		pack.workIsDone();
 
-		return summary.size();
+		return comp.formInOutSummary.size();
 	}
 
+	private static long edge(int source, int target) {
+		return ((long) source << 32) | (target & 0xFFFFFFFFL);
+	}
 
-    private Collection<SDGEdge> computeSummaryEdges(IProgressMonitor progress) throws CancelException {
-    	HashSet<SDGEdge> actInOutSummaryEdge = new HashSet<SDGEdge>();
-    	HashSet<SDGEdge> formInOutSummaryEdge = new HashSet<SDGEdge>();
+	private static int source(long edge) {
+		return (int) (edge >>> 32);
+	}
 
-        for (SDGNode n : (Set<SDGNode>) graph.vertexSet()) {
-            if (n.getKind() == SDGNode.Kind.FORMAL_OUT || n.getKind() == SDGNode.Kind.EXIT) {
-            	if (relevantProcs != null && !relevantProcs.contains(n.getProc())) {
-            		continue;
-            	}
+	private static int target(long edge) {
+		return (int) edge;
+	}
 
-            	if (fullyConnected != null && fullyConnected.contains(n.getId())) {
-            		continue;
-            	}
+	private boolean isSeed(int n) {
+		final SDGNode.Kind k = nodes[n].getKind();
+		if (k != SDGNode.Kind.FORMAL_OUT && k != SDGNode.Kind.EXIT) {
+			return false;
+		}
 
-                pathEdge.add(new Edge(n,n));
-                worklist.add(new Edge(n,n));
-            }
-        }
+		if (relevantProcs != null && !inRelevantProc[n]) {
+			return false;
+		}
+
+		if (inKnownProc != null && inKnownProc[n]) {
+			return false;
+		}
+
+		return fullyConnected == null || !fullyConnected.contains(nodes[n].getId());
+	}
+
+    private void computeSummaryEdges(IProgressMonitor progress) throws CancelException {
+    	buildIndex();
 
-        while (!worklist.isEmpty()) {
-        	MonitorUtil.throwExceptionIfCanceled(progress);
-
-            Edge next = worklist.poll();
-            SDGNode.Kind k = next.source.getKind();
-
-            switch(k) {
-                case ACTUAL_OUT:
-                	if (fullyConnected != null && fullyConnected.contains(next.source.getId())) {
-                		propagateAllActIns(next.source, next.target);
-                	} else {
-	                    for (SDGEdge e : graph.incomingEdgesOf(next.source)) {
-	                    	final SDGEdge.Kind kind = e.getKind();
-	                        if (kind == sumEdgeKind
-	                        		|| ((kind == SDGEdge.Kind.DATA_DEP || kind == SDGEdge.Kind.DATA_HEAP
-	                        				|| kind == SDGEdge.Kind.DATA_ALIAS) && relevantEdges.contains(kind))
-	                                || (kind == SDGEdge.Kind.CONTROL_DEP_EXPR
-	                                        && e.getSource().getKind() == SDGNode.Kind.CALL)) {
-	                    		propagate(new Edge(e.getSource(), next.target));
-	                        }
-	                    }
-                	}
-                    break;
-
-                case FORMAL_IN:
-                	// next.source is relevant formal in then:
-                	if (relevantFormalIns.contains(next.source.getId())) {
-	                	SDGEdge fInOut;
-	                	if (annotate != null && !annotate.isEmpty()) {
-	                		fInOut = new SDGEdge(next.source, next.target, sumEdgeKind, annotate);
-	                	} else {
-	                		fInOut = new SDGEdge(next.source, next.target, sumEdgeKind);
-	                	}
-
-	                	formInOutSummaryEdge.add(fInOut);
-                	}
-
-                    Collection<Edge> aiaoPairs = aiaoPairs(next);
-                    for (Edge e : aiaoPairs) {
-                        if (e.source == null || e.target == null) continue;
-
-                        if (graph.containsEdge(e.source, e.target)) continue; // already connected
-
-                        SDGEdge sum;
-                        if (annotate != null && !annotate.isEmpty()) {
-                        	sum = new SDGEdge(e.source, e.target, sumEdgeKind, annotate);
-                        } else {
-                        	sum = new SDGEdge(e.source, e.target, sumEdgeKind);
-                        }
-
-                        if (graph.addEdge(e.source, e.target, sum)) {
-                            actInOutSummaryEdge.add(sum);
-
-                            Set<Edge> s = aoPaths.get(e.target);
-                            if (s != null) {
-                                for (Edge f : s) {
-                                    propagate(new Edge(sum.getSource(), f.target));
-                                }
-                            }
-                        }
-                    }
-                    for (SDGEdge e : graph.incomingEdgesOf(next.source)) {
-                    	final SDGEdge.Kind kind = e.getKind();
-                    	if ((kind == SDGEdge.Kind.DATA_DEP || kind == SDGEdge.Kind.DATA_HEAP
-                    			|| kind == SDGEdge.Kind.DATA_ALIAS) && relevantEdges.contains(kind)) {
-                        	propagate(new Edge(e.getSource(), next.target));
-                        }
-                    }
-                    break;
-
-                case ACTUAL_IN:
-                	if (rememberReached) {
-                		BitVector bv = next.source.bv;
-                		int id = next.target.tmp;
-
-                		if (bv.contains(id)) {
-                			continue;
-                		}
-
-                		bv.set(id);
-                	}
-
-                	for (SDGEdge e : graph.incomingEdgesOf(next.source)) {
-                        if (e.getKind() == SDGEdge.Kind.CONTROL_DEP_EXPR) {
-                            if (e.getSource().getKind() == SDGNode.Kind.CALL) {
-                                propagate(new Edge(e.getSource(), next.target));
-                            }
-
-                        } else if (relevantEdges.contains(e.getKind())) {
-                            propagate(new Edge(e.getSource(), next.target));
-                        }
-                    }
-
-                    break;
-
-                case FORMAL_OUT:
-                case EXIT:
-                	if (fullyConnected != null && fullyConnected.contains(next.source.getId())) {
-                		propagateAllActIns(next.source, next.target);
-                	} else {
-                    for (SDGEdge e : graph.incomingEdgesOf(next.source)) {
-                        if (e.getKind() == SDGEdge.Kind.CONTROL_DEP_EXPR) {
-                            if (e.getSource().getKind() == SDGNode.Kind.ENTRY) {
-                                propagate(new Edge(e.getSource(), next.target));
-                            }
-
-                        } else if (relevantEdges.contains(e.getKind())) {
-                            propagate(new Edge(e.getSource(), next.target));
-                        }
-                    }
-                	}
-//                    for (SDGEdge e : graph.incomingEdgesOf(next.source)) {
-//                        if (e.getKind() == SDGEdge.Kind.CONTROL_DEP_EXPR) {
-//                            if (e.getSource().getKind() == SDGNode.Kind.ENTRY) {
-//                                propagate(new Edge(e.getSource(), next.target));
-//                            }
-//
-//                        } else if (e.getKind().isIntraSDGEdge()) {
-//                            propagate(new Edge(e.getSource(), next.target));
-//                        }
-//                    }
-                    break;
-
-                default:
-                    for (SDGEdge e : graph.incomingEdgesOf(next.source)) {
-                        if (relevantEdges.contains(e.getKind())) {
-                            propagate(new Edge(e.getSource(), next.target));
-                        }
-                    }
-                    break;
-            }
+    	applyKnownSummaries();
+
+    	final Worker worker = new Worker(ALL_COMPONENTS, 1 << 12);
+        for (int n = 0; n < nodes.length; n++) {
+        	if (isSeed(n)) {
+        		worker.seed(n);
+        	}
         }
 
-        return formInOutSummaryEdge;
+        worker.run(progress);
+
+        formInOutSummary.addAll(worker.formInOutSummary);
+        addSummaryEdgesToGraph();
     }
 
-    private void propagateAllActIns(SDGNode outNode, SDGNode target) {
-    	for (SDGNode inNode : out2in.get(outNode.getId())) {
-    		propagate(new Edge(inNode, target));
+    /**
+     * Splits the procedures into strongly connected components of the call graph and runs a worker per component.
+     * A component is scheduled as soon as all components it calls are done, so all summary edges at its call sites
+     * are known when it starts. Path edges never leave the procedure they start in, so the workers only share the
+     * summary edges they publish at the call sites of their callers.
+     */
+    private void computeSummaryEdgesInParallel(int threads, IProgressMonitor progress) throws CancelException {
+    	buildIndex();
+
+    	applyKnownSummaries();
+
+    	final int numComponents = computeComponents();
+
+    	// callee and caller components, seeds of each component
+    	final TIntHashSet[] callees = new TIntHashSet[numComponents];
+    	final TIntArrayList[] callers = new TIntArrayList[numComponents];
+    	final TIntArrayList[] seeds = new TIntArrayList[numComponents];
+    	for (int c = 0; c < numComponents; c++) {
+    		callees[c] = new TIntHashSet();
+    		callers[c] = new TIntArrayList();
+    		seeds[c] = new TIntArrayList();
+    	}
+
+    	for (int n = 0; n < nodes.length; n++) {
+    		final int comp = nodeComponent[n];
+    		for (int i = paramInStart[n]; i < paramInStart[n + 1]; i++) {
+    			final int callerComp = nodeComponent[paramIn[i]];
+    			if (callerComp != comp && callees[callerComp].add(comp)) {
+    				callers[comp].add(callerComp);
+    			}
+    		}
+
+    		for (int i = paramOutStart[n]; i < paramOutStart[n + 1]; i++) {
+    			final int callerComp = nodeComponent[paramOut[i]];
+    			if (callerComp != comp && callees[callerComp].add(comp)) {
+    				callers[comp].add(callerComp);
+    			}
+    		}
+
+    		if (isSeed(n)) {
+    			seeds[comp].add(n);
+    		}
     	}
+
+    	final int[] pending = new int[numComponents];
+    	for (int c = 0; c < numComponents; c++) {
+    		pending[c] = callees[c].size();
+    	}
+
+    	final Worker[] done = new Worker[numComponents];
+    	final ExecutorService executor = Executors.newFixedThreadPool(threads);
+    	final CompletionService<Worker> completion = new ExecutorCompletionService<Worker>(executor);
+
+    	try {
+    		int running = 0;
+    		for (int c = 0; c < numComponents; c++) {
+    			if (pending[c] == 0) {
+    				completion.submit(createTask(c, seeds[c], progress));
+    				running++;
+    			}
+    		}
+
+    		while (running > 0) {
+    			final Worker finished = waitForNext(completion);
+    			running--;
+    			done[finished.component] = finished;
+
+    			final TIntArrayList toNotify = callers[finished.component];
+    			for (int i = 0; i < toNotify.size(); i++) {
+    				final int caller = toNotify.getQuick(i);
+    				pending[caller]--;
+    				if (pending[caller] == 0) {
+    					completion.submit(createTask(caller, seeds[caller], progress));
+    					running++;
+    				}
+    			}
+    		}
+    	} finally {
+    		executor.shutdownNow();
+    	}
+
+    	for (int c = 0; c < numComponents; c++) {
+    		if (done[c] == null) {
+    			throw new IllegalStateException("Summary computation for component " + c + " has not been run.");
+    		}
+
+    		formInOutSummary.addAll(done[c].formInOutSummary);
+    	}
+
+    	// the order of publication depends on the scheduling, so we sort the summary edges to get a reproducible
+    	// order of the edges in the graph.
+    	addedSummaryEdges.sort();
+    	addSummaryEdgesToGraph();
     }
 
-    private void propagate(Edge e) {
-        if (relevantProcs != null && !(relevantProcs.contains(e.source.getProc())
-        		&& relevantProcs.contains(e.target.getProc()))) {
-            return;
-        }
+    /**
+     * Adds the summary edges at the call sites of all procedures with known summaries. This happens before any
+     * path edges are computed, so the summary edges are picked up like the ones of already processed callees.
+     */
+    private void applyKnownSummaries() {
+    	if (inKnownProc == null) {
+    		return;
+    	}
 
-//    	if (fullyConnected != null && fullyConnected.contains(e.target.getId())) {
-//    		return;
-//    	}
-//
-        if (pathEdge.add(e)) {
-            worklist.add(e);
-        }
-        if (e.source.getKind() == SDGNode.Kind.ACTUAL_OUT) {
-            Set<Edge> s = aoPaths.get(e.source);
-            if (s == null) {
-                s = new HashSet<Edge>();
-                aoPaths.put(e.source, s);
-            }
-            s.add(e);
-        }
+    	final Worker worker = new Worker(ALL_COMPONENTS, 16);
+    	for (final EntryPoint ep : known) {
+    		for (final TIntIterator it = ep.iterateFormalIns(); it.hasNext();) {
+    			final int fInId = it.next();
+    			final int fIn = id2index.get(fInId);
+    			final TIntList outs = ep.getInfluencedFormOuts(fInId);
+    			if (fIn == NO_NODE || outs == null) {
+    				continue;
+    			}
+
+    			for (final TIntIterator itOut = outs.iterator(); itOut.hasNext();) {
+    				final int fOut = id2index.get(itOut.next());
+    				if (fOut != NO_NODE) {
+    					worker.addKnownSummary(fIn, fOut);
+    				}
+    			}
+    		}
+    	}
+
+    	formInOutSummary.addAll(worker.formInOutSummary);
     }
 
-//    if (relevantProcs != null) {
-//    	if (!(relevantProcs.contains(e.source.getProc())
-//    		&& relevantProcs.contains(e.target.getProc()))) {
-//    		continue;
-//    	} else if (graph.containsEdge(e.source, e.target)) {
-//    		continue;
-//    	}
-//    }
+    private Callable<Worker> createTask(final int component, final TIntArrayList seeds,
+    		final IProgressMonitor progress) {
+    	return new Callable<Worker>() {
+    		@Override
+    		public Worker call() throws CancelException {
+    			final Worker worker = new Worker(component, 16);
+    			for (int i = 0; i < seeds.size(); i++) {
+    				worker.seed(seeds.getQuick(i));
+    			}
+
+    			worker.run(progress);
+
+    			return worker;
+    		}
+    	};
+    }
+
+    private static Worker waitForNext(CompletionService<Worker> completion) throws CancelException {
+    	try {
+    		return completion.take().get();
+    	} catch (InterruptedException e) {
+    		Thread.currentThread().interrupt();
+    		throw new CancelException(e);
+    	} catch (ExecutionException e) {
+    		final Throwable cause = e.getCause();
+    		if (cause instanceof CancelException) {
+    			throw (CancelException) cause;
+    		} else if (cause instanceof RuntimeException) {
+    			throw (RuntimeException) cause;
+    		} else if (cause instanceof Error) {
+    			throw (Error) cause;
+    		}
+
+    		throw new IllegalStateException(cause);
+    	}
+    }
 
+    /**
+     * Computes the strongly connected components of the call graph between the procedures with Tarjan's
+     * algorithm. A procedure depends on another one if it contains actual parameters that are connected to its
+     * formal parameters. Procedures that are connected by any other edge that is followed during the computation are
+     * put into the same component, so path edges stay inside their component.
+     *
+     * @return the number of components. The components are numbered bottom-up: A component never calls a
+     * component with a higher number.
+     */
+    private int computeComponents() {
+    	final TIntIntHashMap proc2index = new TIntIntHashMap(64, 0.5f, Integer.MIN_VALUE, NO_NODE);
+    	final int[] nodeProc = new int[nodes.length];
+    	for (int n = 0; n < nodes.length; n++) {
+    		final int proc = nodes[n].getProc();
+    		int index = proc2index.get(proc);
+    		if (index == NO_NODE) {
+    			index = proc2index.size();
+    			proc2index.put(proc, index);
+    		}
+
+    		nodeProc[n] = index;
+    	}
 
+    	final int numProcs = proc2index.size();
+    	final TIntArrayList[] succ = new TIntArrayList[numProcs];
+    	for (int p = 0; p < numProcs; p++) {
+    		succ[p] = new TIntArrayList();
+    	}
 
-    private Collection<Edge> aiaoPairs(Edge e) {
-        HashMap<SDGNode, Edge> result = new HashMap<SDGNode, Edge>();
+    	for (int n = 0; n < nodes.length; n++) {
+    		final int proc = nodeProc[n];
+    		for (int i = paramInStart[n]; i < paramInStart[n + 1]; i++) {
+    			succ[nodeProc[paramIn[i]]].add(proc);
+    		}
+
+    		for (int i = paramOutStart[n]; i < paramOutStart[n + 1]; i++) {
+    			succ[nodeProc[paramOut[i]]].add(proc);
+    		}
+
+    		for (int i = predStart[n]; i < predStart[n + 1]; i++) {
+    			final int other = nodeProc[preds[i]];
+    			if (other != proc) {
+    				succ[proc].add(other);
+    				succ[other].add(proc);
+    			}
+    		}
+    	}
 
-        for (SDGEdge pi : graph.incomingEdgesOf(e.source)) {
-            if (pi.getKind() == SDGEdge.Kind.PARAMETER_IN) {
-                SDGNode ai = pi.getSource();
+    	final int[] procComponent = new int[numProcs];
+    	final int numComponents = tarjan(succ, procComponent);
 
-//                if (relevantProcs != null && !relevantProcs.contains(ai.getProc())) {
-//            		continue;
-//                }
+    	nodeComponent = new int[nodes.length];
+    	for (int n = 0; n < nodes.length; n++) {
+    		nodeComponent[n] = procComponent[nodeProc[n]];
+    	}
 
+    	return numComponents;
+    }
 
-                SDGNode call = getCallSiteFor(ai);
+    /**
+     * Iterative version of Tarjan's algorithm. Components are numbered in the order they are completed, which is
+     * a reverse topological order: a node never has a successor in a component with a higher number.
+     *
+     * @param succ the successors of each node.
+     * @param component receives the component number of each node.
+     * @return the number of components.
+     */
+    public static int tarjan(TIntArrayList[] succ, int[] component) {
+    	final int size = succ.length;
+    	final int[] index = new int[size];
+    	final int[] lowlink = new int[size];
+    	final boolean[] onStack = new boolean[size];
+    	Arrays.fill(index, -1);
+    	final int[] stack = new int[size];
+    	int stackSize = 0;
+    	final int[] callStack = new int[size];
+    	final int[] nextSucc = new int[size];
+    	int nextIndex = 0;
+    	int numComponents = 0;
+
+    	for (int root = 0; root < size; root++) {
+    		if (index[root] != -1) {
+    			continue;
+    		}
+
+    		int depth = 0;
+    		callStack[depth] = root;
+    		index[root] = lowlink[root] = nextIndex++;
+    		nextSucc[root] = 0;
+    		stack[stackSize++] = root;
+    		onStack[root] = true;
+
+    		while (depth >= 0) {
+    			final int v = callStack[depth];
+    			if (nextSucc[v] < succ[v].size()) {
+    				final int w = succ[v].getQuick(nextSucc[v]++);
+    				if (index[w] == -1) {
+    					index[w] = lowlink[w] = nextIndex++;
+    					nextSucc[w] = 0;
+    					stack[stackSize++] = w;
+    					onStack[w] = true;
+    					callStack[++depth] = w;
+    				} else if (onStack[w] && index[w] < lowlink[v]) {
+    					lowlink[v] = index[w];
+    				}
+    			} else {
+    				if (lowlink[v] == index[v]) {
+    					int w;
+    					do {
+    						w = stack[--stackSize];
+    						onStack[w] = false;
+    						component[w] = numComponents;
+    					} while (w != v);
+    					numComponents++;
+    				}
+
+    				depth--;
+    				if (depth >= 0) {
+    					final int parent = callStack[depth];
+    					if (lowlink[v] < lowlink[parent]) {
+    						lowlink[parent] = lowlink[v];
+    					}
+    				}
+    			}
+    		}
+    	}
 
-                if(call != null) {
-                    result.put(call, new Edge(ai, null));
-                }
-            }
-        }
+    	return numComponents;
+    }
 
-        for (SDGEdge po : graph.outgoingEdgesOf(e.target)) {
-            if (po.getKind() == SDGEdge.Kind.PARAMETER_OUT) {
-                SDGNode ao = po.getTarget();
+    /**
+     * Registers a new summary edge from an actual-in to an actual-out node. The edge is added to the graph after the
+     * computation is done.
+     * @return true iff the nodes have not been connected before.
+     */
+    private boolean publishSummary(int actIn, int actOut) {
+    	synchronized (addedSummaries) {
+    		if (graph.containsEdge(nodes[actIn], nodes[actOut])) {
+    			return false; // already connected
+    		}
+
+    		final long e = edge(actIn, actOut);
+    		if (!addedSummaries.add(e)) {
+    			return false;
+    		}
+
+    		addedSummaryEdges.add(e);
+    		TIntArrayList added = addedSummaryPreds[actOut];
+    		if (added == null) {
+    			added = new TIntArrayList(4);
+    			addedSummaryPreds[actOut] = added;
+    		}
+    		added.add(actIn);
+
+    		return true;
+    	}
+    }
 
-//                if (relevantProcs != null && !relevantProcs.contains(ao.getProc())) {
-//            		continue;
-//                }
+    private void addSummaryEdgesToGraph() {
+    	for (int i = 0; i < addedSummaryEdges.size(); i++) {
+    		final long e = addedSummaryEdges.getQuick(i);
+    		final SDGNode actIn = nodes[source(e)];
+    		final SDGNode actOut = nodes[target(e)];
+    		final SDGEdge sum = (annotate != null
+    				? new SDGEdge(actIn, actOut, sumEdgeKind, annotate)
+    				: new SDGEdge(actIn, actOut, sumEdgeKind));
+    		graph.addEdge(actIn, actOut, sum);
+    	}
+    }
 
-                SDGNode call = getCallSiteFor(ao);
+    /**
+     * Runs the worklist algorithm for the procedures of a single component, or for all procedures.
+     */
+    private final class Worker {
+
+    	private final int component;
+    	private final LongHashSet pathEdge;
+    	private final LongQueue worklist;
+    	/* formal-in -> formal-out summary edges. Each path edge is processed once, so there are no duplicates. */
+    	private final TLongArrayList formInOutSummary = new TLongArrayList();
+    	private final TIntIntHashMap call2ai = new TIntIntHashMap(8, 0.5f, NO_NODE, NO_NODE);
+    	private final TIntIntHashMap call2ao = new TIntIntHashMap(8, 0.5f, NO_NODE, NO_NODE);
+
+    	private Worker(int component, int capacity) {
+    		this.component = component;
+    		this.pathEdge = new LongHashSet(capacity);
+    		this.worklist = new LongQueue(capacity);
+    	}
 
-                Edge newE = result.get(call);
-                if (newE != null) {
-                    newE.target = ao;
-                    result.put(call, newE);
-                }
-            }
-        }
+    	private boolean isInComponent(int node) {
+    		return component == ALL_COMPONENTS || nodeComponent[node] == component;
+    	}
 
-        return result.values();
+    	private void seed(int node) {
+    		final long self = edge(node, node);
+    		pathEdge.add(self);
+    		worklist.add(self);
+    	}
+
+    	private void run(IProgressMonitor progress) throws CancelException {
+    		while (!worklist.isEmpty()) {
+    			MonitorUtil.throwExceptionIfCanceled(progress);
+
+    			final long next = worklist.poll();
+    			final int source = source(next);
+    			final int target = target(next);
+    			final SDGNode.Kind k = nodes[source].getKind();
+
+    			switch(k) {
+    			case ACTUAL_OUT:
+    				// for fully connected nodes the predecessors are the actual-ins of the call
+    				propagateToPredecessors(source, target);
+    				final TIntArrayList added = addedSummaryPreds[source];
+    				if (added != null && !(fullyConnected != null && fullyConnected.contains(nodes[source].getId()))) {
+    					for (int i = 0; i < added.size(); i++) {
+    						propagate(added.getQuick(i), target);
+    					}
+    				}
+    				break;
+
+    			case FORMAL_IN:
+    				// next.source is relevant formal in then:
+    				if (relevantFormalIns.contains(nodes[source].getId())) {
+    					formInOutSummary.add(next);
+    				}
+
+    				addActInOutSummaries(source, target);
+    				propagateToPredecessors(source, target);
+    				break;
+
+    			case ACTUAL_IN:
+    				if (rememberReached) {
+    					BitVector bv = nodes[source].bv;
+    					int id = nodes[target].tmp;
+
+    					if (bv.contains(id)) {
+    						continue;
+    					}
+
+    					bv.set(id);
+    				}
+
+    				propagateToPredecessors(source, target);
+    				break;
+
+    			default:
+    				propagateToPredecessors(source, target);
+    				break;
+    			}
+    		}
+    	}
+
+    	private void addKnownSummary(int formIn, int formOut) {
+    		if (relevantFormalIns.contains(nodes[formIn].getId())) {
+    			formInOutSummary.add(edge(formIn, formOut));
+    		}
+
+    		addActInOutSummaries(formIn, formOut);
+    	}
+
+    	/**
+    	 * Adds a summary edge for each pair of actual-in and actual-out node that belong to the same call site and
+    	 * are connected to the formal-in and formal-out of the path edge.
+    	 */
+    	private void addActInOutSummaries(int formIn, int formOut) {
+    		call2ai.clear();
+    		call2ao.clear();
+
+    		for (int i = paramInStart[formIn]; i < paramInStart[formIn + 1]; i++) {
+    			final int ai = paramIn[i];
+    			final int call = callSite[ai];
+    			if (call != NO_NODE) {
+    				call2ai.put(call, ai);
+    			}
+    		}
+
+    		if (call2ai.isEmpty()) {
+    			return;
+    		}
+
+    		for (int i = paramOutStart[formOut]; i < paramOutStart[formOut + 1]; i++) {
+    			final int ao = paramOut[i];
+    			final int call = callSite[ao];
+    			if (call != NO_NODE && call2ai.containsKey(call)) {
+    				call2ao.put(call, ao);
+    			}
+    		}
+
+    		for (final int call : call2ao.keys()) {
+    			final int ai = call2ai.get(call);
+    			final int ao = call2ao.get(call);
+
+    			// call sites of other components are processed later on and pick up the new edge from there
+    			if (publishSummary(ai, ao) && isInComponent(ao)) {
+    				final TIntArrayList paths = aoPaths[ao];
+    				if (paths != null) {
+    					for (int j = 0; j < paths.size(); j++) {
+    						propagate(ai, paths.getQuick(j));
+    					}
+    				}
+    			}
+    		}
+    	}
+
+    	private void propagateToPredecessors(int source, int target) {
+    		for (int i = predStart[source]; i < predStart[source + 1]; i++) {
+    			propagate(preds[i], target);
+    		}
+    	}
+
+    	private void propagate(int source, int target) {
+    		if (relevantProcs != null && !(inRelevantProc[source] && inRelevantProc[target])) {
+    			return;
+    		}
+
+    		if (inKnownProc != null && (inKnownProc[source] || inKnownProc[target])) {
+    			return;
+    		}
+
+    		final long e = edge(source, target);
+    		if (pathEdge.add(e)) {
+    			worklist.add(e);
+
+    			if (nodes[source].getKind() == SDGNode.Kind.ACTUAL_OUT) {
+    				TIntArrayList paths = aoPaths[source];
+    				if (paths == null) {
+    					paths = new TIntArrayList(4);
+    					aoPaths[source] = paths;
+    				}
+    				paths.add(target);
+    			}
+    		}
+    	}
     }
 
+    /**
+     * Maps the nodes to dense indices and precomputes all edges that are followed during the computation.
+     * Summary edges that are added later on are kept in addedSummaryPreds.
+     */
+    private void buildIndex() {
+    	final Set<SDGNode> vertices = graph.vertexSet();
+    	final int size = vertices.size();
+    	nodes = new SDGNode[size];
+    	id2index = new TIntIntHashMap(size, 0.5f, Integer.MIN_VALUE, NO_NODE);
+    	int index = 0;
+    	for (SDGNode n : vertices) {
+    		nodes[index] = n;
+    		id2index.put(n.getId(), index);
+    		index++;
+    	}
 
-    public SDGNode getCallSiteFor(SDGNode node){
-        if (node.getKind() == SDGNode.Kind.ACTUAL_IN) {
-            SDGNode n = node;
-
-            while (true){
-                Set<SDGEdge> edges = graph.incomingEdgesOf(n);
-
-                // follow control-dependence-expression edges from the source
-                // node of 'edge' to the call node
-                for(SDGEdge e : edges){
-                    if(e.getKind() == SDGEdge.Kind.CONTROL_DEP_EXPR){
-                        if(e.getSource().getKind() == SDGNode.Kind.CALL){
-                            return e.getSource();
-                        }
-                        n = e.getSource();
-                        break;
-                    }
-                }
-            }
-
-        } else if (node.getKind() == SDGNode.Kind.ACTUAL_OUT){
-            SDGNode n = node;
-
-            while(true){
-                Set<SDGEdge> edges = graph.incomingEdgesOf(n);
-                // follow control-dependence-expression
-                // edges from 'node' to the call node
-                for(SDGEdge e : edges){
-                    if(e.getKind() == SDGEdge.Kind.CONTROL_DEP_EXPR){
-                        if(e.getSource().getKind() == SDGNode.Kind.CALL){
-                            return e.getSource();
-                        }
-                        n = e.getSource();
-                        break;
-                    }
-                }
-            }
+    	if (relevantProcs != null) {
+    		inRelevantProc = new boolean[size];
+    		for (int n = 0; n < size; n++) {
+    			inRelevantProc[n] = relevantProcs.contains(nodes[n].getProc());
+    		}
+    	}
 
-        }
-        return null;
+    	if (!known.isEmpty()) {
+    		final TIntSet knownProcs = new TIntHashSet();
+    		for (final EntryPoint ep : known) {
+    			final int entry = id2index.get(ep.getEntryId());
+    			if (entry != NO_NODE) {
+    				knownProcs.add(nodes[entry].getProc());
+    			}
+    		}
+
+    		inKnownProc = new boolean[size];
+    		for (int n = 0; n < size; n++) {
+    			inKnownProc[n] = knownProcs.contains(nodes[n].getProc());
+    		}
+    	}
+
+    	final TIntArrayList predList = new TIntArrayList(size * 2);
+    	final TIntArrayList paramInList = new TIntArrayList();
+    	final TIntArrayList paramOutList = new TIntArrayList();
+    	predStart = new int[size + 1];
+    	paramInStart = new int[size + 1];
+    	paramOutStart = new int[size + 1];
+    	cdeParent = new int[size];
+    	callSite = new int[size];
+
+    	for (int n = 0; n < size; n++) {
+    		final SDGNode node = nodes[n];
+    		predStart[n] = predList.size();
+    		paramInStart[n] = paramInList.size();
+    		paramOutStart[n] = paramOutList.size();
+    		cdeParent[n] = NO_NODE;
+    		callSite[n] = NOT_COMPUTED;
+
+    		final boolean isFullyConnected = fullyConnected != null && fullyConnected.contains(node.getId())
+    				&& (node.getKind() == SDGNode.Kind.ACTUAL_OUT || node.getKind() == SDGNode.Kind.FORMAL_OUT
+    				|| node.getKind() == SDGNode.Kind.EXIT);
+    		if (isFullyConnected) {
+    			for (SDGNode inNode : out2in.get(node.getId())) {
+    				predList.add(id2index.get(inNode.getId()));
+    			}
+    		}
+
+    		for (SDGEdge e : graph.incomingEdgesOf(node)) {
+    			final SDGEdge.Kind kind = e.getKind();
+    			final int src = id2index.get(e.getSource().getId());
+
+    			if (kind == SDGEdge.Kind.PARAMETER_IN) {
+    				paramInList.add(src);
+    			} else if (kind == SDGEdge.Kind.CONTROL_DEP_EXPR && cdeParent[n] == NO_NODE) {
+    				cdeParent[n] = src;
+    			}
+
+    			if (!isFullyConnected && isPropagatedTo(node.getKind(), kind, e.getSource().getKind())) {
+    				predList.add(src);
+    			}
+    		}
+
+    		for (SDGEdge e : graph.outgoingEdgesOf(node)) {
+    			if (e.getKind() == SDGEdge.Kind.PARAMETER_OUT) {
+    				paramOutList.add(id2index.get(e.getTarget().getId()));
+    			}
+    		}
+    	}
+
+    	predStart[size] = predList.size();
+    	paramInStart[size] = paramInList.size();
+    	paramOutStart[size] = paramOutList.size();
+    	preds = predList.toArray();
+    	paramIn = paramInList.toArray();
+    	paramOut = paramOutList.toArray();
+    	aoPaths = new TIntArrayList[size];
+    	addedSummaryPreds = new TIntArrayList[size];
+
+    	// computed up front, so the workers of the parallel computation only read the call sites
+    	for (int n = 0; n < size; n++) {
+    		callSiteOf(n);
+    	}
     }
 
+    /**
+     * Decides if a path edge starting at a node of kind <tt>target</tt> is propagated along an incoming edge of
+     * kind <tt>kind</tt> from a node of kind <tt>source</tt>.
+     */
+    private boolean isPropagatedTo(SDGNode.Kind target, SDGEdge.Kind kind, SDGNode.Kind source) {
+    	switch (target) {
+    	case ACTUAL_OUT:
+    		return kind == sumEdgeKind
+    				|| ((kind == SDGEdge.Kind.DATA_DEP || kind == SDGEdge.Kind.DATA_HEAP
+    						|| kind == SDGEdge.Kind.DATA_ALIAS) && relevantEdges[kind.ordinal()])
+    				|| (kind == SDGEdge.Kind.CONTROL_DEP_EXPR && source == SDGNode.Kind.CALL);
+    	case FORMAL_IN:
+    		return (kind == SDGEdge.Kind.DATA_DEP || kind == SDGEdge.Kind.DATA_HEAP
+    				|| kind == SDGEdge.Kind.DATA_ALIAS) && relevantEdges[kind.ordinal()];
+    	case ACTUAL_IN:
+    		if (kind == SDGEdge.Kind.CONTROL_DEP_EXPR) {
+    			return source == SDGNode.Kind.CALL;
+    		}
+    		return relevantEdges[kind.ordinal()];
+    	case FORMAL_OUT:
+    	case EXIT:
+    		if (kind == SDGEdge.Kind.CONTROL_DEP_EXPR) {
+    			return source == SDGNode.Kind.ENTRY;
+    		}
+    		return relevantEdges[kind.ordinal()];
+    	default:
+    		return relevantEdges[kind.ordinal()];
+    	}
+    }
 
-    private static class Edge {
-        private SDGNode source;
-        private SDGNode target;
+    /**
+     * Returns the index of the call node an actual parameter node belongs to. The call node is found by following
+     * control-dep-expr edges backwards. The result is cached for all nodes on the way.
+     */
+    private int callSiteOf(int node) {
+    	if (callSite[node] != NOT_COMPUTED) {
+    		return callSite[node];
+    	}
 
-        private Edge(SDGNode s, SDGNode t) {
-            source = s;
-            target = t;
-        }
+    	final SDGNode.Kind k = nodes[node].getKind();
+    	int result = NO_NODE;
+    	if (k == SDGNode.Kind.ACTUAL_IN || k == SDGNode.Kind.ACTUAL_OUT) {
+    		int n = cdeParent[node];
+    		// guard against control-dep-expr cycles without a call node
+    		int steps = nodes.length;
+    		while (n != NO_NODE && steps-- > 0) {
+    			if (nodes[n].getKind() == SDGNode.Kind.CALL) {
+    				result = n;
+    				break;
+    			}
+
+    			n = cdeParent[n];
+    		}
+    	}
 
-        public boolean equals(Object o) {
-            if (o instanceof Edge) {
-                Edge e = (Edge) o;
-                return (e.source == source && e.target == target);
-            } else {
-                return false;
-            }
-        }
+    	callSite[node] = result;
 
-        public int hashCode() {
-            return source.getId() | target.getId() << 16;
-        }
+    	return result;
+    }
 
-        public String toString() {
-            return source.getId()+" -> "+target.getId();
-        }
+    /**
+     * Returns the call node the given actual-in or actual-out node belongs to, or null for all other nodes.
+     */
+    public SDGNode getCallSiteFor(SDGNode node) {
+    	if (nodes == null) {
+    		buildIndex();
+    	}
+
+    	if (!id2index.containsKey(node.getId())) {
+    		return null;
+    	}
+
+    	final int call = callSiteOf(id2index.get(node.getId()));
+
+    	return (call == NO_NODE ? null : nodes[call]);
+    }
+
+    /**
+     * An open addressing hash set of packed path edges with linear probing. The keys are scrambled before they are
+     * mapped to a slot, as source and target index alone are badly distributed.
+     */
+    private static final class LongHashSet {
+
+    	private static final long FREE = -1L;
+
+    	private long[] table;
+    	private int size = 0;
+
+    	/**
+    	 * @param capacity initial number of slots, has to be a power of two.
+    	 */
+    	private LongHashSet(int capacity) {
+    		this.table = newTable(capacity);
+    	}
+
+    	private static long[] newTable(int capacity) {
+    		final long[] t = new long[capacity];
+    		Arrays.fill(t, FREE);
+    		return t;
+    	}
+
+    	private static int slot(long key, int mask) {
+    		long h = key * 0x9E3779B97F4A7C15L;
+    		h ^= (h >>> 29);
+    		return (int) (h ^ (h >>> 32)) & mask;
+    	}
+
+    	/**
+    	 * Adds a key, which must not be negative.
+    	 * @return true iff the key was not already contained in the set.
+    	 */
+    	private boolean add(long key) {
+    		final int mask = table.length - 1;
+    		int i = slot(key, mask);
+    		while (table[i] != FREE) {
+    			if (table[i] == key) {
+    				return false;
+    			}
+
+    			i = (i + 1) & mask;
+    		}
+
+    		table[i] = key;
+    		size++;
+
+    		if (size * 2 > table.length) {
+    			grow();
+    		}
+
+    		return true;
+    	}
+
+    	private void grow() {
+    		final long[] old = table;
+    		table = newTable(old.length * 2);
+    		final int mask = table.length - 1;
+    		for (long key : old) {
+    			if (key != FREE) {
+    				int i = slot(key, mask);
+    				while (table[i] != FREE) {
+    					i = (i + 1) & mask;
+    				}
+    				table[i] = key;
+    			}
+    		}
+    	}
+    }
+
+    /**
+     * A fifo queue of path edges backed by a growing ring buffer.
+     */
+    private static final class LongQueue {
+
+    	private long[] elems;
+    	private int head = 0;
+    	private int size = 0;
+
+    	/**
+    	 * @param capacity initial capacity, has to be a power of two.
+    	 */
+    	private LongQueue(int capacity) {
+    		this.elems = new long[capacity];
+    	}
+
+    	private void add(long value) {
+    		if (size == elems.length) {
+    			final long[] grown = new long[elems.length * 2];
+    			final int firstPart = elems.length - head;
+    			System.arraycopy(elems, head, grown, 0, firstPart);
+    			System.arraycopy(elems, 0, grown, firstPart, head);
+    			elems = grown;
+    			head = 0;
+    		}
+
+    		elems[(head + size) & (elems.length - 1)] = value;
+    		size++;
+    	}
+
+    	private long poll() {
+    		final long value = elems[head];
+    		head = (head + 1) & (elems.length - 1);
+    		size--;
+
+    		return value;
+    	}
+
+    	private boolean isEmpty() {
+    		return size == 0;
+    	}
     }
 
 }
@@ -23,7 +23,9 @@ import gnu.trove.set.hash.TIntHashSet;
 import java.io.InputStream;
 import java.io.PrintWriter;
 import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Scanner;
 import java.util.Set;
@@ -59,7 +61,7 @@ public class WorkPackage {
 				+ (maxConnections > 0 ? " " + ((100 * summaryEdges) / maxConnections) + "%]" : " --%]" );
 		}
 
-		private void addSummaryDep(int formIn, int formOut) {
+		public void addSummaryDep(int formIn, int formOut) {
 			if (formalIns.contains(formIn) && formalOuts.contains(formOut)) {
 				TIntList outs = formIn2out.get(formIn);
 				if (outs == null) {
@@ -237,6 +239,10 @@ public class WorkPackage {
 			return formalIns.iterator();
 		}
 
+		public TIntIterator iterateFormalOuts() {
+			return formalOuts.iterator();
+		}
+
 		public int getEntryId() {
 			return entryId;
 		}
@@ -260,6 +266,10 @@ public class WorkPackage {
 	private final TIntObjectMap<List<SDGNode>> out2in;
 	private boolean immutable = false;
 	private final boolean rememberReached;
+	/* formal-in id -> entry points that contain the formal-in, built on demand */
+	private TIntObjectMap<List<EntryPoint>> formIn2entries = null;
+	/* entry points of procedures whose summary edges are already known and need not be computed */
+	private final List<EntryPoint> known = new ArrayList<EntryPoint>();
 
 	private WorkPackage(DirectedGraph<SDGNode, SDGEdge> subgraph, Set<EntryPoint> entries, String name,
 			TIntSet relevantProcs, TIntSet fullyConnected, TIntObjectMap<List<SDGNode>> out2in,
@@ -308,11 +318,46 @@ public class WorkPackage {
 			throw new IllegalStateException("WorkPackage has entered immutable state.");
 		}
 
-		for (EntryPoint ep : entries) {
-			ep.addSummaryDep(formIn, formOut);
+		if (formIn2entries == null) {
+			formIn2entries = new TIntObjectHashMap<List<EntryPoint>>();
+			for (EntryPoint ep : entries) {
+				for (TIntIterator it = ep.iterateFormalIns(); it.hasNext();) {
+					final int fIn = it.next();
+					List<EntryPoint> eps = formIn2entries.get(fIn);
+					if (eps == null) {
+						eps = new LinkedList<EntryPoint>();
+						formIn2entries.put(fIn, eps);
+					}
+					eps.add(ep);
+				}
+			}
+		}
+
+		final List<EntryPoint> eps = formIn2entries.get(formIn);
+		if (eps != null) {
+			for (EntryPoint ep : eps) {
+				ep.addSummaryDep(formIn, formOut);
+			}
 		}
 	}
 
+	/**
+	 * Adds the summary information of a procedure that does not have to be computed again, e.g. because it has been
+	 * loaded from a cache. The summary computation does not look at the nodes of the procedure, but adds the summary
+	 * edges at its call sites that follow from the formal-in to formal-out dependencies of the entry point.
+	 */
+	public void addKnownSummaries(EntryPoint ep) {
+		if (immutable) {
+			throw new IllegalStateException("WorkPackage has entered immutable state.");
+		}
+
+		known.add(ep);
+	}
+
+	public List<EntryPoint> getKnownSummaries() {
+		return Collections.unmodifiableList(known);
+	}
+
 	public TIntSet getRelevantProcIds() {
 		return relevantProcs;
 	}
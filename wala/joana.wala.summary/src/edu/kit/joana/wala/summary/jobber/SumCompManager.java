@@ -7,10 +7,8 @@
  */
 package edu.kit.joana.wala.summary.jobber;
 
-import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.net.UnknownHostException;
 import java.util.Collection;
@@ -215,9 +213,7 @@ public class SumCompManager extends ManagerClient {
 			}
 		}
 
-		final FileOutputStream fOs = new FileOutputStream(sdgFile);
-		final BufferedOutputStream bOs = new BufferedOutputStream(fOs);
-		SDGSerializer.toPDGFormat(sdg, bOs);
+		SDGSerializer.toPDGFormat(sdg, sdgFile, false);
 	}
 
 	private static int adjustCallsite(SDG sdg, SDGNode callNode, SDGNode callee, EntryPoint ep, SDG toAdjust) {
@@ -453,10 +449,7 @@ public class SumCompManager extends ManagerClient {
 	}
 
 	private static void writeToFile(String filename, SDG subgraph) throws IOException {
-		final FileOutputStream fOs = new FileOutputStream(filename);
-		final BufferedOutputStream bOs = new BufferedOutputStream(fOs);
-		SDGSerializer.toPDGFormat(subgraph, bOs);
-		bOs.close();
+		SDGSerializer.toPDGFormat(subgraph, filename, false);
 	}
 
 	private static SDG createSubgraph(SDG sdg, FoldedCallGraph fcg, SDGNode node) {
@@ -7,10 +7,8 @@
  */
 package edu.kit.joana.wala.summary.jobber;
 
-import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.net.UnknownHostException;
 import java.util.Collection;
@@ -212,9 +210,7 @@ public class SumCompManagerWithSeperatePackager extends ManagerClient {
 			}
 		}
 
-		final FileOutputStream fOs = new FileOutputStream(sdgFile);
-		final BufferedOutputStream bOs = new BufferedOutputStream(fOs);
-		SDGSerializer.toPDGFormat(sdg, bOs);
+		SDGSerializer.toPDGFormat(sdg, sdgFile, false);
 	}
 
 	private static int adjustCallsite(SDG sdg, SDGNode callNode, SDGNode callee, EntryPoint ep, SDG toAdjust) {
@@ -20,8 +20,6 @@ import gnu.trove.iterator.TIntIterator;
 import gnu.trove.set.TIntSet;
 import gnu.trove.set.hash.TIntHashSet;
 
-import java.io.BufferedOutputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.HashSet;
@@ -247,10 +245,7 @@ public class WorkPackageBuilder extends Thread {
 	}
 
 	private static void writeToFile(String filename, SDG subgraph) throws IOException {
-		final FileOutputStream fOs = new FileOutputStream(filename);
-		final BufferedOutputStream bOs = new BufferedOutputStream(fOs);
-		SDGSerializer.toPDGFormat(subgraph, bOs);
-		bOs.close();
+		SDGSerializer.toPDGFormat(subgraph, filename, false);
 	}
 
 	private static String makeFilename(SDG subgraph) {
@@ -0,0 +1,69 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.wala.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import edu.kit.joana.ifc.sdg.graph.SDG;
+import edu.kit.joana.ifc.sdg.graph.SDGNode;
+import edu.kit.joana.ifc.sdg.graph.slicer.BatchSlicer;
+import edu.kit.joana.ifc.sdg.graph.slicer.BitSetSummarySlicerBackward;
+import edu.kit.joana.ifc.sdg.graph.slicer.BitSetSummarySlicerForward;
+import edu.kit.joana.ifc.sdg.graph.slicer.Slicer;
+import edu.kit.joana.ifc.sdg.graph.slicer.SummarySlicerBackward;
+import edu.kit.joana.ifc.sdg.graph.slicer.SummarySlicerForward;
+
+/**
+ * Slices the regression sdgs with sliceEach and criterion by criterion with SummarySlicer. Every slice of the batch
+ * has to be the same as the single slice. There are more criteria than fit into one traversal, so the criteria are
+ * split into several blocks.
+ */
+public class BatchSlicerTest {
+
+	private static final int CRITERIA = 150;
+
+	private static void compareBatch(final SDG sdg, final Slicer expected, final BatchSlicer actual) {
+		final List<SDGNode> criteria = new ArrayList<SDGNode>(
+				RegressionSDGs.sample(RegressionSDGs.sortedNodes(sdg), CRITERIA));
+		// duplicates are ignored
+		criteria.add(criteria.get(0));
+
+		final Map<SDGNode, Collection<SDGNode>> slices = actual.sliceEach(criteria);
+		assertEquals(new ArrayList<SDGNode>(new LinkedHashSet<SDGNode>(criteria)),
+				new ArrayList<SDGNode>(slices.keySet()));
+
+		for (final SDGNode c : slices.keySet()) {
+			assertEquals("Error on criterion " + c.getId() + " of " + sdg.getName(),
+					new HashSet<SDGNode>(expected.slice(c)), new HashSet<SDGNode>(slices.get(c)));
+		}
+	}
+
+	@Test
+	public void sliceEach_Backward() {
+		for (final SDG sdg : RegressionSDGs.get()) {
+			compareBatch(sdg, new SummarySlicerBackward(sdg), new BitSetSummarySlicerBackward(sdg));
+		}
+	}
+
+	@Test
+	public void sliceEach_Forward() {
+		for (final SDG sdg : RegressionSDGs.get()) {
+			compareBatch(sdg, new SummarySlicerForward(sdg), new BitSetSummarySlicerForward(sdg));
+		}
+	}
+
+}
@@ -0,0 +1,62 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.wala.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Test;
+
+import edu.kit.joana.ifc.sdg.graph.SDG;
+import edu.kit.joana.ifc.sdg.graph.SDGNode;
+import edu.kit.joana.ifc.sdg.graph.slicer.BitSetSummarySlicerBackward;
+import edu.kit.joana.ifc.sdg.graph.slicer.BitSetSummarySlicerForward;
+import edu.kit.joana.ifc.sdg.graph.slicer.Slicer;
+import edu.kit.joana.ifc.sdg.graph.slicer.SummarySlicerBackward;
+import edu.kit.joana.ifc.sdg.graph.slicer.SummarySlicerForward;
+
+/**
+ * Slices the regression sdgs with BitSetSummarySlicer and with the SummarySlicer it replaces. Both have to compute
+ * the same slices, for single criteria as well as for a set of criteria.
+ */
+public class BitSetSummarySlicerTest {
+
+	private static final int CRITERIA = 50;
+
+	private static void compareSlicers(final SDG sdg, final Slicer expected, final Slicer actual) {
+		final List<SDGNode> criteria = RegressionSDGs.sample(RegressionSDGs.sortedNodes(sdg), CRITERIA);
+
+		for (final SDGNode c : criteria) {
+			final HashSet<SDGNode> slice = new HashSet<SDGNode>(expected.slice(c));
+			assertTrue(slice.contains(c));
+			assertEquals("Error on criterion " + c.getId() + " of " + sdg.getName(),
+					slice, new HashSet<SDGNode>(actual.slice(c)));
+		}
+
+		assertEquals("Error on all criteria of " + sdg.getName(),
+				new HashSet<SDGNode>(expected.slice(criteria)), new HashSet<SDGNode>(actual.slice(criteria)));
+	}
+
+	@Test
+	public void bitSetSlicer_Backward() {
+		for (final SDG sdg : RegressionSDGs.get()) {
+			compareSlicers(sdg, new SummarySlicerBackward(sdg), new BitSetSummarySlicerBackward(sdg));
+		}
+	}
+
+	@Test
+	public void bitSetSlicer_Forward() {
+		for (final SDG sdg : RegressionSDGs.get()) {
+			compareSlicers(sdg, new SummarySlicerForward(sdg), new BitSetSummarySlicerForward(sdg));
+		}
+	}
+
+}
@@ -0,0 +1,78 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.wala.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import edu.kit.joana.ifc.sdg.graph.SDG;
+import edu.kit.joana.ifc.sdg.graph.SDGEdge;
+import edu.kit.joana.ifc.sdg.graph.SDGNode;
+import edu.kit.joana.ifc.sdg.graph.slicer.graph.building.GraphModifier;
+
+/**
+ * Computes the blocked summary edges of many barriers of the regression sdgs at once and barrier by barrier.
+ * Both have to block the same summary edges. There are more barriers than fit into one traversal, so the barriers
+ * are split into several groups.
+ */
+public class BlockSummaryEdgesTest {
+
+	private static final int BARRIERS = 100;
+
+	private static List<Set<SDGNode>> barriers(final SDG sdg) {
+		final List<SDGNode> nodes = RegressionSDGs.sortedNodes(sdg);
+		final List<Set<SDGNode>> barriers = new ArrayList<Set<SDGNode>>(BARRIERS);
+		barriers.add(new HashSet<SDGNode>());
+		barriers.add(new HashSet<SDGNode>(RegressionSDGs.sample(nodes, nodes.size() / 4)));
+
+		// barriers of one to three nodes spread over the graph
+		final int step = Math.max(1, nodes.size() / BARRIERS);
+		for (int i = 0; barriers.size() < BARRIERS; i++) {
+			final Set<SDGNode> barrier = new HashSet<SDGNode>();
+			for (int j = 0; j <= i % 3; j++) {
+				barrier.add(nodes.get((i * step + j * nodes.size() / 3) % nodes.size()));
+			}
+
+			barriers.add(barrier);
+		}
+
+		return barriers;
+	}
+
+	@Test
+	public void blockSummaryEdges_MatchesSingleBarrier() {
+		for (final SDG sdg : RegressionSDGs.get()) {
+			final List<Set<SDGNode>> barriers = barriers(sdg);
+			final List<Collection<SDGEdge>> blocked = GraphModifier.blockSummaryEdges(sdg, barriers);
+			assertEquals(barriers.size(), blocked.size());
+
+			int blocking = 0;
+			for (int i = 0; i < barriers.size(); i++) {
+				final Collection<SDGNode> barrier = barriers.get(i);
+				final Set<SDGEdge> expected = new HashSet<SDGEdge>(GraphModifier.blockSummaryEdges(sdg, barrier));
+				assertEquals("Error on barrier " + i + " of " + sdg.getName(), expected,
+						new HashSet<SDGEdge>(blocked.get(i)));
+
+				if (!expected.isEmpty()) {
+					blocking++;
+				}
+			}
+
+			assertTrue("no barrier of " + sdg.getName() + " blocks a summary edge", blocking > 0);
+		}
+	}
+
+}
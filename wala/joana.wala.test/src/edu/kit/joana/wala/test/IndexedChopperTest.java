@@ -0,0 +1,91 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.wala.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Test;
+
+import edu.kit.joana.ifc.sdg.graph.SDG;
+import edu.kit.joana.ifc.sdg.graph.SDGNode;
+import edu.kit.joana.ifc.sdg.graph.chopper.ChoppingCriterion;
+import edu.kit.joana.ifc.sdg.graph.chopper.IndexedRepsRosayChopper;
+import edu.kit.joana.ifc.sdg.graph.chopper.RepsRosayChopper;
+import edu.kit.joana.ifc.sdg.graph.slicer.SummarySlicerForward;
+
+/**
+ * Chops the regression sdgs with IndexedRepsRosayChopper and with RepsRosayChopper. The chops of a batch and the
+ * single chops of the indexed chopper have to be the same as the chops of RepsRosayChopper. Most sinks are taken
+ * from the forward slice of their source, so that most chops are not empty.
+ */
+public class IndexedChopperTest {
+
+	private static final int SOURCES = 15;
+	private static final int SINKS_PER_SOURCE = 4;
+
+	private static List<ChoppingCriterion> criteria(final SDG sdg) {
+		final List<SDGNode> nodes = RegressionSDGs.sortedNodes(sdg);
+		final SummarySlicerForward forward = new SummarySlicerForward(sdg);
+		final List<ChoppingCriterion> criteria = new ArrayList<ChoppingCriterion>();
+		final Collection<SDGNode> allSources = new HashSet<SDGNode>();
+		final Collection<SDGNode> allSinks = new HashSet<SDGNode>();
+
+		for (final SDGNode source : RegressionSDGs.sample(nodes, SOURCES)) {
+			final List<SDGNode> reached = new ArrayList<SDGNode>(forward.slice(source));
+			Collections.sort(reached, SDGNode.getIDComparator());
+			final List<SDGNode> sinks = new ArrayList<SDGNode>(RegressionSDGs.sample(reached, SINKS_PER_SOURCE));
+			// a sink that is usually not reachable
+			sinks.add(nodes.get(0));
+
+			for (final SDGNode sink : sinks) {
+				criteria.add(new ChoppingCriterion(source, sink));
+			}
+
+			allSources.add(source);
+			allSinks.addAll(sinks);
+		}
+
+		criteria.add(new ChoppingCriterion(allSources, allSinks));
+
+		return criteria;
+	}
+
+	@Test
+	public void indexedChopper_MatchesRepsRosay() {
+		for (final SDG sdg : RegressionSDGs.get()) {
+			final List<ChoppingCriterion> criteria = criteria(sdg);
+			final RepsRosayChopper expected = new RepsRosayChopper(sdg);
+			final IndexedRepsRosayChopper actual = new IndexedRepsRosayChopper(sdg);
+
+			final List<Collection<SDGNode>> chops = actual.chopAll(criteria);
+			assertEquals(criteria.size(), chops.size());
+
+			int nonEmpty = 0;
+			for (int i = 0; i < criteria.size(); i++) {
+				final ChoppingCriterion c = criteria.get(i);
+				final HashSet<SDGNode> chop = new HashSet<SDGNode>(expected.chop(c));
+				assertEquals("Error on criterion " + i + " of " + sdg.getName(), chop, new HashSet<SDGNode>(chops.get(i)));
+				assertEquals("Error on criterion " + i + " of " + sdg.getName(), chop, new HashSet<SDGNode>(actual.chop(c)));
+
+				if (!chop.isEmpty()) {
+					nonEmpty++;
+				}
+			}
+
+			assertTrue("all chops of " + sdg.getName() + " are empty", nonEmpty > 0);
+		}
+	}
+
+}
@@ -184,6 +184,9 @@ public class MoJoTest {
 		scfg.debugStaticInitializers = false;
 		scfg.fieldPropagation = cfg.fieldPropagation;
 		scfg.debugManyGraphsDotOutput = cfg.debugManyGraphsDotOutput;
+		scfg.intraprocThreads = cfg.intraprocThreads;
+		scfg.previousSDG = cfg.previousSDG;
+		scfg.changedClasses = cfg.changedClasses;
 
 		final SDGBuilder sdg = SDGBuilder.create(scfg, cg.cg, cg.pts);
 
@@ -0,0 +1,83 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.wala.test;
+
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.graph.GraphIntegrity.UnsoundGraphException;
+
+import edu.kit.joana.ifc.sdg.graph.SDG;
+import edu.kit.joana.wala.core.Main.Config;
+
+/**
+ * Checks that building the pdgs on several threads results in the same sdg - including all node ids - as
+ * building them sequentially.
+ */
+public class ParallelPDGBuildTest {
+
+	public static final String out = "./out/";
+
+	private static final int THREADS = 4;
+
+	private static void checkParallelBuild(final String method) {
+		final String src = "../MoJo-TestCode/src";
+		final String bin = "../MoJo-TestCode/bin";
+
+		try {
+			final MoJoTest mt = MoJoTest.create(src, bin, out);
+			final Config cfgSeq = mt.createDefaultConfig();
+			cfgSeq.name = "intraproc-seq";
+			cfgSeq.intraprocThreads = 1;
+			final SDG sdgSeq = mt.analyzeMethod(method, cfgSeq);
+
+			final Config cfgPar = mt.createDefaultConfig();
+			cfgPar.name = "intraproc-par";
+			cfgPar.intraprocThreads = THREADS;
+			final SDG sdgPar = mt.analyzeMethod(method, cfgPar);
+
+			SDGBuildWriteAndReadAgain.checkEqual(sdgSeq, sdgPar);
+		} catch (ClassHierarchyException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		} catch (IOException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		} catch (IllegalArgumentException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		} catch (CancelException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		} catch (UnsoundGraphException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void parallelBuild_Test_foo1() {
+		checkParallelBuild("Test.foo1(LTest$A;LTest$A;)LTest$A2;");
+	}
+
+	@Test
+	public void parallelBuild_Test_indirectAliasTest() {
+		checkParallelBuild("Test.indirectAliasTest(LTest$A3;LTest$A3;)I");
+	}
+
+	@Test
+	public void parallelBuild_FieldPropagation_entry() {
+		checkParallelBuild("FieldPropagation.entry()V");
+	}
+
+}
@@ -0,0 +1,64 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.wala.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import com.ibm.wala.util.CancelException;
+
+import edu.kit.joana.ifc.sdg.graph.SDG;
+import edu.kit.joana.wala.core.NullProgressMonitor;
+import edu.kit.joana.wala.summary.SummaryComputation;
+import edu.kit.joana.wala.summary.WorkPackage;
+
+/**
+ * Recomputes the summary edges of the regression sdgs with one and with several threads. The parallel computation
+ * has to add the same summary edges and find the same formal-in/out summaries as the sequential one.
+ */
+public class ParallelSummaryComputationTest {
+
+	private static void compareThreads(final SDG sdg, final int threads) {
+		final SDG expected = SummaryComputationTest.withoutSummaryEdges(sdg);
+		final WorkPackage expectedPack = SummaryComputationTest.createPackage(expected);
+
+		final SDG actual = SummaryComputationTest.withoutSummaryEdges(sdg);
+		final WorkPackage actualPack = SummaryComputationTest.createPackage(actual);
+
+		try {
+			final int expectedCount = SummaryComputation.compute(expectedPack, 1, NullProgressMonitor.INSTANCE);
+			final int actualCount = SummaryComputation.compute(actualPack, threads, NullProgressMonitor.INSTANCE);
+			assertEquals(sdg.getName(), expectedCount, actualCount);
+		} catch (CancelException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+
+		assertEquals(sdg.getName(), SummaryComputationTest.summaryEdges(expected),
+				SummaryComputationTest.summaryEdges(actual));
+		assertEquals(sdg.getName(), SummaryComputationTest.formalSummaries(expectedPack),
+				SummaryComputationTest.formalSummaries(actualPack));
+	}
+
+	@Test
+	public void summary_2_Threads() {
+		for (final SDG sdg : RegressionSDGs.get()) {
+			compareThreads(sdg, 2);
+		}
+	}
+
+	@Test
+	public void summary_4_Threads() {
+		for (final SDG sdg : RegressionSDGs.get()) {
+			compareThreads(sdg, 4);
+		}
+	}
+
+}
@@ -0,0 +1,72 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.wala.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Test;
+
+import edu.kit.joana.ifc.sdg.graph.SDG;
+import edu.kit.joana.ifc.sdg.graph.SDGEdge;
+import edu.kit.joana.ifc.sdg.graph.SDGNode;
+import edu.kit.joana.ifc.sdg.graph.slicer.ContextSlicer;
+import edu.kit.joana.ifc.sdg.graph.slicer.ContextSlicerBackward;
+import edu.kit.joana.ifc.sdg.graph.slicer.ContextSlicerForward;
+import edu.kit.joana.ifc.sdg.graph.slicer.ProcedureSliceCache;
+
+/**
+ * Slices the regression sdgs with a ContextSlicer that takes the intraprocedural parts of the slices from a
+ * ProcedureSliceCache and with one that traverses all edges. Both have to compute the same slices. The cache is
+ * shared by all criteria of a graph, so later slices reuse the entries of earlier ones.
+ */
+public class ProcedureSliceCacheTest {
+
+	private static final int CRITERIA = 50;
+
+	private static void compareCached(final SDG sdg, final ContextSlicer expected, final ContextSlicer actual,
+			final boolean backward) {
+		final ProcedureSliceCache cache = new ProcedureSliceCache(sdg, backward, SDGEdge.Kind.threadEdges());
+		actual.setProcedureSliceCache(cache);
+
+		final List<SDGNode> criteria = RegressionSDGs.sample(RegressionSDGs.sortedNodes(sdg), CRITERIA);
+		for (final SDGNode c : criteria) {
+			assertEquals("Error on criterion " + c.getId() + " of " + sdg.getName(),
+					new HashSet<SDGNode>(expected.slice(c)), new HashSet<SDGNode>(actual.slice(c)));
+		}
+
+		assertEquals("Error on all criteria of " + sdg.getName(),
+				new HashSet<SDGNode>(expected.slice(criteria)), new HashSet<SDGNode>(actual.slice(criteria)));
+		assertTrue("the cache of " + sdg.getName() + " was not used", cache.getHits() > 0);
+	}
+
+	@Test
+	public void procedureCache_Backward() {
+		for (final SDG sdg : RegressionSDGs.get()) {
+			compareCached(sdg, new ContextSlicerBackward(sdg, true), new ContextSlicerBackward(sdg, true), true);
+		}
+	}
+
+	@Test
+	public void procedureCache_Forward() {
+		for (final SDG sdg : RegressionSDGs.get()) {
+			compareCached(sdg, new ContextSlicerForward(sdg, true), new ContextSlicerForward(sdg, true), false);
+		}
+	}
+
+	@Test
+	public void procedureCache_DynamicContexts() {
+		for (final SDG sdg : RegressionSDGs.get()) {
+			compareCached(sdg, new ContextSlicerBackward(sdg, false), new ContextSlicerBackward(sdg, false), true);
+		}
+	}
+
+}
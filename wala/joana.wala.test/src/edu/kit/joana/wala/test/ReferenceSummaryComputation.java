@@ -0,0 +1,305 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.wala.test;
+
+import gnu.trove.map.TIntObjectMap;
+import gnu.trove.set.TIntSet;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+import org.jgrapht.DirectedGraph;
+
+import edu.kit.joana.ifc.sdg.graph.SDGEdge;
+import edu.kit.joana.ifc.sdg.graph.SDGNode;
+import edu.kit.joana.wala.summary.WorkPackage;
+
+/**
+ * The summary edge computation as it was before SummaryComputation switched to int-indexed data structures and
+ * parallel computation: path edges in a HashSet, a linked worklist and call sites found by walking the graph.
+ * Only the default computation of SummaryComputation.compute(WorkPackage, IProgressMonitor) is kept. It serves as
+ * the reference for the regression tests of the summary computation.
+ */
+final class ReferenceSummaryComputation {
+
+	private final HashSet<Edge> pathEdge = new HashSet<Edge>();
+	private final HashMap<SDGNode, Set<Edge>> aoPaths = new HashMap<SDGNode, Set<Edge>>();
+	private final LinkedList<Edge> worklist = new LinkedList<Edge>();
+	private final DirectedGraph<SDGNode, SDGEdge> graph;
+	private final TIntSet relevantFormalIns;
+	private final TIntSet relevantProcs;
+	private final TIntSet fullyConnected;
+	private final TIntObjectMap<List<SDGNode>> out2in;
+	private final Set<SDGEdge.Kind> relevantEdges = new HashSet<SDGEdge.Kind>();
+	private static final SDGEdge.Kind sumEdgeKind = SDGEdge.Kind.SUMMARY;
+
+	private ReferenceSummaryComputation(final WorkPackage pack) {
+		this.graph = pack.getGraph();
+		this.relevantFormalIns = pack.getAllFormalInIds();
+		this.relevantProcs = pack.getRelevantProcIds();
+		this.fullyConnected = pack.getFullyConnected();
+		this.out2in = pack.getOut2In();
+
+		relevantEdges.add(SDGEdge.Kind.DATA_DEP);
+		relevantEdges.add(SDGEdge.Kind.DATA_HEAP);
+		relevantEdges.add(SDGEdge.Kind.DATA_ALIAS);
+		relevantEdges.add(SDGEdge.Kind.DATA_LOOP);
+		relevantEdges.add(SDGEdge.Kind.DATA_DEP_EXPR_VALUE);
+		relevantEdges.add(SDGEdge.Kind.DATA_DEP_EXPR_REFERENCE);
+		relevantEdges.add(SDGEdge.Kind.CONTROL_DEP_COND);
+		relevantEdges.add(SDGEdge.Kind.CONTROL_DEP_UNCOND);
+		relevantEdges.add(SDGEdge.Kind.CONTROL_DEP_EXPR);
+		relevantEdges.add(SDGEdge.Kind.CONTROL_DEP_CALL);
+		relevantEdges.add(SDGEdge.Kind.JUMP_DEP);
+		relevantEdges.add(SDGEdge.Kind.SUMMARY);
+		relevantEdges.add(SDGEdge.Kind.SUMMARY_DATA);
+		relevantEdges.add(SDGEdge.Kind.SUMMARY_NO_ALIAS);
+		relevantEdges.add(SDGEdge.Kind.SYNCHRONIZATION);
+	}
+
+	/**
+	 * Adds the summary edges to the graph of the work package and records the formal-in/out summaries at its entry
+	 * points.
+	 * @return the number of formal-in/out summaries.
+	 */
+	static int compute(final WorkPackage pack) {
+		if (pack.getRememberReached()) {
+			throw new IllegalArgumentException("remembering reached nodes is not supported by the reference.");
+		}
+
+		final ReferenceSummaryComputation comp = new ReferenceSummaryComputation(pack);
+		final Collection<SDGEdge> summary = comp.computeSummaryEdges();
+
+		for (final SDGEdge edge : summary) {
+			pack.addSummaryDep(edge.getSource().getId(), edge.getTarget().getId());
+		}
+
+		pack.workIsDone();
+
+		return summary.size();
+	}
+
+	private Collection<SDGEdge> computeSummaryEdges() {
+		final HashSet<SDGEdge> formInOutSummaryEdge = new HashSet<SDGEdge>();
+
+		for (final SDGNode n : graph.vertexSet()) {
+			if (n.getKind() == SDGNode.Kind.FORMAL_OUT || n.getKind() == SDGNode.Kind.EXIT) {
+				if (relevantProcs != null && !relevantProcs.contains(n.getProc())) {
+					continue;
+				}
+
+				if (fullyConnected != null && fullyConnected.contains(n.getId())) {
+					continue;
+				}
+
+				pathEdge.add(new Edge(n, n));
+				worklist.add(new Edge(n, n));
+			}
+		}
+
+		while (!worklist.isEmpty()) {
+			final Edge next = worklist.poll();
+
+			switch (next.source.getKind()) {
+			case ACTUAL_OUT:
+				if (fullyConnected != null && fullyConnected.contains(next.source.getId())) {
+					propagateAllActIns(next.source, next.target);
+				} else {
+					for (final SDGEdge e : graph.incomingEdgesOf(next.source)) {
+						final SDGEdge.Kind kind = e.getKind();
+						if (kind == sumEdgeKind
+								|| ((kind == SDGEdge.Kind.DATA_DEP || kind == SDGEdge.Kind.DATA_HEAP
+										|| kind == SDGEdge.Kind.DATA_ALIAS) && relevantEdges.contains(kind))
+								|| (kind == SDGEdge.Kind.CONTROL_DEP_EXPR
+										&& e.getSource().getKind() == SDGNode.Kind.CALL)) {
+							propagate(new Edge(e.getSource(), next.target));
+						}
+					}
+				}
+				break;
+
+			case FORMAL_IN:
+				if (relevantFormalIns.contains(next.source.getId())) {
+					formInOutSummaryEdge.add(new SDGEdge(next.source, next.target, sumEdgeKind));
+				}
+
+				for (final Edge e : aiaoPairs(next)) {
+					if (e.source == null || e.target == null) continue;
+
+					if (graph.containsEdge(e.source, e.target)) continue; // already connected
+
+					final SDGEdge sum = new SDGEdge(e.source, e.target, sumEdgeKind);
+
+					if (graph.addEdge(e.source, e.target, sum)) {
+						final Set<Edge> s = aoPaths.get(e.target);
+						if (s != null) {
+							for (final Edge f : s) {
+								propagate(new Edge(sum.getSource(), f.target));
+							}
+						}
+					}
+				}
+
+				for (final SDGEdge e : graph.incomingEdgesOf(next.source)) {
+					final SDGEdge.Kind kind = e.getKind();
+					if ((kind == SDGEdge.Kind.DATA_DEP || kind == SDGEdge.Kind.DATA_HEAP
+							|| kind == SDGEdge.Kind.DATA_ALIAS) && relevantEdges.contains(kind)) {
+						propagate(new Edge(e.getSource(), next.target));
+					}
+				}
+				break;
+
+			case ACTUAL_IN:
+				for (final SDGEdge e : graph.incomingEdgesOf(next.source)) {
+					if (e.getKind() == SDGEdge.Kind.CONTROL_DEP_EXPR) {
+						if (e.getSource().getKind() == SDGNode.Kind.CALL) {
+							propagate(new Edge(e.getSource(), next.target));
+						}
+					} else if (relevantEdges.contains(e.getKind())) {
+						propagate(new Edge(e.getSource(), next.target));
+					}
+				}
+				break;
+
+			case FORMAL_OUT:
+			case EXIT:
+				if (fullyConnected != null && fullyConnected.contains(next.source.getId())) {
+					propagateAllActIns(next.source, next.target);
+				} else {
+					for (final SDGEdge e : graph.incomingEdgesOf(next.source)) {
+						if (e.getKind() == SDGEdge.Kind.CONTROL_DEP_EXPR) {
+							if (e.getSource().getKind() == SDGNode.Kind.ENTRY) {
+								propagate(new Edge(e.getSource(), next.target));
+							}
+						} else if (relevantEdges.contains(e.getKind())) {
+							propagate(new Edge(e.getSource(), next.target));
+						}
+					}
+				}
+				break;
+
+			default:
+				for (final SDGEdge e : graph.incomingEdgesOf(next.source)) {
+					if (relevantEdges.contains(e.getKind())) {
+						propagate(new Edge(e.getSource(), next.target));
+					}
+				}
+				break;
+			}
+		}
+
+		return formInOutSummaryEdge;
+	}
+
+	private void propagateAllActIns(final SDGNode outNode, final SDGNode target) {
+		for (final SDGNode inNode : out2in.get(outNode.getId())) {
+			propagate(new Edge(inNode, target));
+		}
+	}
+
+	private void propagate(final Edge e) {
+		if (relevantProcs != null && !(relevantProcs.contains(e.source.getProc())
+				&& relevantProcs.contains(e.target.getProc()))) {
+			return;
+		}
+
+		if (pathEdge.add(e)) {
+			worklist.add(e);
+		}
+
+		if (e.source.getKind() == SDGNode.Kind.ACTUAL_OUT) {
+			Set<Edge> s = aoPaths.get(e.source);
+			if (s == null) {
+				s = new HashSet<Edge>();
+				aoPaths.put(e.source, s);
+			}
+			s.add(e);
+		}
+	}
+
+	private Collection<Edge> aiaoPairs(final Edge e) {
+		final HashMap<SDGNode, Edge> result = new HashMap<SDGNode, Edge>();
+
+		for (final SDGEdge pi : graph.incomingEdgesOf(e.source)) {
+			if (pi.getKind() == SDGEdge.Kind.PARAMETER_IN) {
+				final SDGNode ai = pi.getSource();
+				final SDGNode call = getCallSiteFor(ai);
+
+				if (call != null) {
+					result.put(call, new Edge(ai, null));
+				}
+			}
+		}
+
+		for (final SDGEdge po : graph.outgoingEdgesOf(e.target)) {
+			if (po.getKind() == SDGEdge.Kind.PARAMETER_OUT) {
+				final SDGNode ao = po.getTarget();
+				final SDGNode call = getCallSiteFor(ao);
+
+				final Edge newE = result.get(call);
+				if (newE != null) {
+					newE.target = ao;
+				}
+			}
+		}
+
+		return result.values();
+	}
+
+	private SDGNode getCallSiteFor(final SDGNode node) {
+		if (node.getKind() != SDGNode.Kind.ACTUAL_IN && node.getKind() != SDGNode.Kind.ACTUAL_OUT) {
+			return null;
+		}
+
+		// follow the control-dependence-expression edges up to the call node
+		SDGNode n = node;
+		while (true) {
+			for (final SDGEdge e : graph.incomingEdgesOf(n)) {
+				if (e.getKind() == SDGEdge.Kind.CONTROL_DEP_EXPR) {
+					if (e.getSource().getKind() == SDGNode.Kind.CALL) {
+						return e.getSource();
+					}
+					n = e.getSource();
+					break;
+				}
+			}
+		}
+	}
+
+	private static final class Edge {
+		private final SDGNode source;
+		private SDGNode target;
+
+		private Edge(final SDGNode s, final SDGNode t) {
+			source = s;
+			target = t;
+		}
+
+		public boolean equals(final Object o) {
+			if (o instanceof Edge) {
+				final Edge e = (Edge) o;
+				return (e.source == source && e.target == target);
+			} else {
+				return false;
+			}
+		}
+
+		public int hashCode() {
+			return source.getId() | target.getId() << 16;
+		}
+
+		public String toString() {
+			return source.getId() + " -> " + target.getId();
+		}
+	}
+
+}
@@ -0,0 +1,114 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.wala.test;
+
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.graph.GraphIntegrity.UnsoundGraphException;
+
+import edu.kit.joana.ifc.sdg.graph.SDG;
+import edu.kit.joana.ifc.sdg.graph.SDGNode;
+import edu.kit.joana.wala.core.Main.Config;
+
+/**
+ * The sdgs of some methods of the test programs. The regression tests run an optimized analysis and the
+ * implementation it replaces on each of them and compare the results. The sdgs are built once and shared by all
+ * tests, so a test that modifies a graph has to work on a copy.
+ */
+final class RegressionSDGs {
+
+	public static final String out = "./out/";
+
+	private static final String[] METHODS = {
+		"FieldPropagation.entry()V",
+		"Test.foo1(LTest$A;LTest$A;)LTest$A2;",
+		"Test.indirectAliasTest(LTest$A3;LTest$A3;)I",
+		"Library.call(LLibrary$A;LLibrary$A;LLibrary$A;I)I",
+	};
+
+	private static List<SDG> sdgs = null;
+
+	private RegressionSDGs() {}
+
+	static synchronized List<SDG> get() {
+		if (sdgs == null) {
+			final List<SDG> built = new ArrayList<SDG>(METHODS.length);
+			for (final String method : METHODS) {
+				built.add(build(method));
+			}
+
+			sdgs = Collections.unmodifiableList(built);
+		}
+
+		return sdgs;
+	}
+
+	private static SDG build(final String method) {
+		final String src = "../MoJo-TestCode/src";
+		final String bin = "../MoJo-TestCode/bin";
+
+		try {
+			final MoJoTest mt = MoJoTest.create(src, bin, out);
+			final Config cfg = mt.createDefaultConfig();
+			cfg.name = "regression";
+
+			return mt.analyzeMethod(method, cfg);
+		} catch (ClassHierarchyException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		} catch (IOException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		} catch (IllegalArgumentException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		} catch (CancelException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		} catch (UnsoundGraphException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+
+		return null;
+	}
+
+	/**
+	 * Returns the nodes of a graph ordered by id, so that the criteria of a test do not depend on hashing.
+	 */
+	static List<SDGNode> sortedNodes(final SDG sdg) {
+		final List<SDGNode> nodes = new ArrayList<SDGNode>(sdg.vertexSet());
+		Collections.sort(nodes, SDGNode.getIDComparator());
+
+		return nodes;
+	}
+
+	/**
+	 * Picks up to max nodes, evenly distributed over the given nodes.
+	 */
+	static List<SDGNode> sample(final List<SDGNode> nodes, final int max) {
+		if (nodes.size() <= max) {
+			return nodes;
+		}
+
+		final List<SDGNode> sample = new ArrayList<SDGNode>(max);
+		final double step = nodes.size() / (double) max;
+		for (int i = 0; i < max; i++) {
+			sample.add(nodes.get((int) (i * step)));
+		}
+
+		return sample;
+	}
+}
@@ -13,8 +13,19 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
-
+import java.io.InputStream;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
 
 import org.junit.Test;
 
@@ -25,6 +36,8 @@ import com.ibm.wala.util.graph.GraphIntegrity.UnsoundGraphException;
 import edu.kit.joana.ifc.sdg.graph.SDG;
 import edu.kit.joana.ifc.sdg.graph.SDGEdge;
 import edu.kit.joana.ifc.sdg.graph.SDGNode;
+import edu.kit.joana.ifc.sdg.graph.SDGSerializer;
+import edu.kit.joana.ifc.sdg.graph.SDGTextParser;
 
 /**
  * @author Juergen Graf <juergen.graf@gmail.com>
@@ -34,7 +47,7 @@ public class SDGBuildWriteAndReadAgain {
 
 	public static final String out = "./out/";
 
-	private void checkEqual(final SDG sdg1, final SDG sdg2) {
+	static void checkEqual(final SDG sdg1, final SDG sdg2) {
 		assertEquals(sdg1.vertexSet().size(), sdg2.vertexSet().size());
 		assertEquals(sdg1.edgeSet().size(), sdg2.edgeSet().size());
 
@@ -311,4 +324,322 @@ public class SDGBuildWriteAndReadAgain {
 		}
 	}
 
+	@Test
+	public void buildWriteReadBinary_Test_foo1() {
+		final String src = "../MoJo-TestCode/src";
+		final String bin = "../MoJo-TestCode/bin";
+		final String method = "Test.foo1(LTest$A;LTest$A;)LTest$A2;";
+
+		try {
+			final MoJoTest mt = MoJoTest.create(src, bin, out);
+			final SDG sdg = mt.analyzeMethod(method);
+			final String fileName = mt.getSDGFileName(sdg.getFileName()) + ".bin";
+			SDGSerializer.toBinaryFormat(sdg, fileName);
+			final SDG sdg2 = SDG.readFromBinary(fileName);
+
+			checkEqual(sdg, sdg2);
+		} catch (ClassHierarchyException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		} catch (IOException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		} catch (IllegalArgumentException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		} catch (CancelException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		} catch (UnsoundGraphException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+
+	/* much smaller than the number of nodes of Test.foo1, so the lazy attributes are evicted and read again */
+	private static final int LAZY_CACHE_SIZE = 8;
+
+	@Test
+	public void buildWriteReadBinaryLazy_Test_foo1() {
+		final String src = "../MoJo-TestCode/src";
+		final String bin = "../MoJo-TestCode/bin";
+		final String method = "Test.foo1(LTest$A;LTest$A;)LTest$A2;";
+
+		try {
+			final MoJoTest mt = MoJoTest.create(src, bin, out);
+			final SDG sdg = mt.analyzeMethod(method);
+			final String fileName = mt.getSDGFileName(sdg.getFileName()) + ".bin";
+			SDGSerializer.toBinaryFormat(sdg, fileName);
+			final SDG eager = SDG.readFromBinary(fileName);
+			final SDG lazy = SDG.readFromBinaryLazy(fileName, LAZY_CACHE_SIZE);
+			assertTrue(lazy.vertexSet().size() > LAZY_CACHE_SIZE);
+
+			checkEqual(eager, lazy);
+			// the first pass has evicted the attributes of all but the last nodes, so they are read again
+			checkEqual(eager, lazy);
+			checkEqual(lazy, sdg);
+
+			// a changed attribute stays in the node after its cache entry has been evicted
+			final SDGNode changed = lazy.getNode(eager.getRoot().getId());
+			changed.setLabel("changed");
+			for (final SDGNode n : lazy.vertexSet()) {
+				assertNotNull(n.getLabel());
+			}
+			assertEquals("changed", changed.getLabel());
+			assertEquals(eager.getRoot().getSource(), changed.getSource());
+		} catch (ClassHierarchyException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		} catch (IOException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		} catch (IllegalArgumentException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		} catch (CancelException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		} catch (UnsoundGraphException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+
+	/**
+	 * Counts the work reported by SDGTextParser and cancels it after the given number of work units.
+	 */
+	private static final class CountingMonitor implements SDGTextParser.ProgressMonitor {
+		private final int cancelAfter;
+		private int totalWork = 0;
+		private int worked = 0;
+
+		private CountingMonitor(final int cancelAfter) {
+			this.cancelAfter = cancelAfter;
+		}
+
+		public void beginTask(final String task, final int totalWork) {
+			this.totalWork = totalWork;
+		}
+
+		public void worked(final int units) {
+			worked += units;
+		}
+
+		public boolean isCanceled() {
+			return cancelAfter >= 0 && worked >= cancelAfter;
+		}
+
+		public void done() {}
+	}
+
+	/* small enough to split the .pdg file of Test.foo1 into many chunks */
+	private static final int TEXT_CHUNK_SIZE = 1024;
+
+	private static String buildTestFoo1() throws ClassHierarchyException, IOException, IllegalArgumentException,
+			CancelException, UnsoundGraphException {
+		final String src = "../MoJo-TestCode/src";
+		final String bin = "../MoJo-TestCode/bin";
+		final String method = "Test.foo1(LTest$A;LTest$A;)LTest$A2;";
+
+		final MoJoTest mt = MoJoTest.create(src, bin, out);
+		final SDG sdg = mt.analyzeMethod(method);
+
+		return mt.getSDGFileName(sdg.getFileName());
+	}
+
+	private static byte[] readBytes(final String fileName) throws IOException {
+		final File file = new File(fileName);
+		final byte[] bytes = new byte[(int) file.length()];
+		final DataInputStream in = new DataInputStream(new FileInputStream(file));
+		try {
+			in.readFully(bytes);
+		} finally {
+			in.close();
+		}
+
+		return bytes;
+	}
+
+	@Test
+	public void buildWriteReadText_Test_foo1() {
+		try {
+			final String fileName = buildTestFoo1();
+			final SDG sdg = SDG.readFrom(fileName);
+
+			final SDG sequential = SDG.readFrom(fileName, new SDGNode.SDGNodeFactory(), null, null);
+			checkEqual(sdg, sequential);
+			assertEquals(sdg.getName(), sequential.getName());
+
+			final ExecutorService executor = Executors.newFixedThreadPool(4);
+			try {
+				final CountingMonitor monitor = new CountingMonitor(-1);
+				final SDG parallel = SDGTextParser.parse(fileName, new SDGNode.SDGNodeFactory(), executor, monitor,
+						TEXT_CHUNK_SIZE);
+				checkEqual(sdg, parallel);
+				// one unit per chunk and one for linking
+				assertTrue("only " + (monitor.totalWork - 1) + " chunk(s)", monitor.totalWork > 3);
+				assertEquals(monitor.totalWork, monitor.worked);
+			} finally {
+				executor.shutdown();
+			}
+		} catch (ClassHierarchyException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		} catch (IOException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		} catch (IllegalArgumentException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		} catch (CancelException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		} catch (UnsoundGraphException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+
+	private static byte[] gunzip(final String fileName) throws IOException {
+		final InputStream in = new GZIPInputStream(new FileInputStream(fileName));
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try {
+			final byte[] buf = new byte[8192];
+			for (int len = in.read(buf); len > 0; len = in.read(buf)) {
+				bytes.write(buf, 0, len);
+			}
+		} finally {
+			in.close();
+		}
+
+		return bytes.toByteArray();
+	}
+
+	@Test
+	public void writeReadWriteText_Test_foo1() {
+		try {
+			// the reader fills in defaults for missing attributes, so the fixpoint is reached after the first write
+			final String fileName = buildTestFoo1();
+			final SDG sdg = SDG.readFrom(fileName);
+			final String first = fileName + ".1";
+			SDGSerializer.toPDGFormat(sdg, first, false);
+			final byte[] expected = readBytes(first);
+
+			final SDG sdg2 = SDG.readFrom(first);
+			checkEqual(sdg, sdg2);
+			final String second = fileName + ".2";
+			SDGSerializer.toPDGFormat(sdg2, second, false);
+			assertArrayEquals(expected, readBytes(second));
+
+			final String gzip = fileName + ".2.gz";
+			SDGSerializer.toPDGFormat(sdg2, gzip, true);
+			assertArrayEquals(expected, gunzip(gzip));
+			assertArrayEquals(expected, SDGSerializer.toPDGFormat(sdg2).getBytes());
+			checkEqual(sdg, SDG.readFrom(gzip));
+		} catch (ClassHierarchyException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		} catch (IOException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		} catch (IllegalArgumentException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		} catch (CancelException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		} catch (UnsoundGraphException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void readTextMalformed_Test_foo1() {
+		try {
+			final String fileName = buildTestFoo1();
+			final String text = new String(readBytes(fileName), "ISO-8859-1");
+			// replace the kind of the last node, which is parsed in the last chunk
+			final Matcher node = Pattern.compile("\n[A-Z]{4} \\d+ \\{").matcher(text);
+			int offset = -1;
+			while (node.find()) {
+				offset = node.start() + 1;
+			}
+			assertTrue(offset > 0);
+			final String malformed = fileName + ".malformed";
+			final FileOutputStream fOut = new FileOutputStream(malformed);
+			try {
+				fOut.write((text.substring(0, offset) + "XXXX" + text.substring(offset + 4)).getBytes("ISO-8859-1"));
+			} finally {
+				fOut.close();
+			}
+
+			final ExecutorService executor = Executors.newFixedThreadPool(4);
+			try {
+				SDGTextParser.parse(malformed, new SDGNode.SDGNodeFactory(), executor, null, TEXT_CHUNK_SIZE);
+				fail("malformed file " + malformed + " has been parsed");
+			} catch (IOException e) {
+				assertTrue(e.getMessage(), e.getMessage().contains(" at offset " + offset + ":"));
+			} finally {
+				executor.shutdown();
+			}
+		} catch (ClassHierarchyException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		} catch (IOException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		} catch (IllegalArgumentException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		} catch (CancelException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		} catch (UnsoundGraphException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void readTextCanceled_Test_foo1() {
+		try {
+			final String fileName = buildTestFoo1();
+
+			final CountingMonitor sequential = new CountingMonitor(1);
+			try {
+				SDGTextParser.parse(fileName, new SDGNode.SDGNodeFactory(), null, sequential, TEXT_CHUNK_SIZE);
+				fail("parsing has not been canceled");
+			} catch (CancellationException e) {
+				assertEquals(1, sequential.worked);
+			}
+
+			final ExecutorService executor = Executors.newFixedThreadPool(4);
+			try {
+				final CountingMonitor parallel = new CountingMonitor(1);
+				SDGTextParser.parse(fileName, new SDGNode.SDGNodeFactory(), executor, parallel, TEXT_CHUNK_SIZE);
+				fail("parsing has not been canceled");
+			} catch (CancellationException e) {
+				// expected
+			} finally {
+				executor.shutdown();
+			}
+		} catch (ClassHierarchyException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		} catch (IOException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		} catch (IllegalArgumentException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		} catch (CancelException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		} catch (UnsoundGraphException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+
 }
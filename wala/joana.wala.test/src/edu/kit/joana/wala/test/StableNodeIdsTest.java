@@ -0,0 +1,141 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.wala.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.graph.GraphIntegrity.UnsoundGraphException;
+
+import edu.kit.joana.ifc.sdg.graph.SDG;
+import edu.kit.joana.ifc.sdg.graph.SDGNode;
+import edu.kit.joana.wala.core.Main.Config;
+import edu.kit.joana.wala.core.NullProgressMonitor;
+import edu.kit.joana.wala.summary.SummaryComputation;
+
+/**
+ * Builds a program twice, the second time relative to the first sdg with one changed class. The nodes of all
+ * procedures outside the changed class have to keep their ids, the nodes of the changed class get fresh ids.
+ * The summary edges that are partly taken from the first sdg have to be the same as the ones computed from scratch.
+ */
+public class StableNodeIdsTest {
+
+	public static final String out = "./out/";
+
+	private static Map<Integer, String> procSignatures(final SDG sdg) {
+		final Map<Integer, String> proc2sig = new HashMap<Integer, String>();
+		for (final SDGNode n : sdg.vertexSet()) {
+			if (n.getKind() == SDGNode.Kind.ENTRY) {
+				proc2sig.put(n.getProc(), n.getBytecodeName());
+			}
+		}
+
+		return proc2sig;
+	}
+
+	private static boolean isDeclaredIn(final String signature, final Set<String> classes) {
+		final int paren = signature.indexOf('(');
+		final int dot = signature.lastIndexOf('.', paren);
+
+		return classes.contains(signature.substring(0, dot));
+	}
+
+	private static void checkStableIds(final String method, final String changedClass) {
+		final String src = "../MoJo-TestCode/src";
+		final String bin = "../MoJo-TestCode/bin";
+
+		try {
+			final MoJoTest mt = MoJoTest.create(src, bin, out);
+			final Config cfgPrev = mt.createDefaultConfig();
+			cfgPrev.name = "stable-ids-prev";
+			final SDG previous = mt.analyzeMethod(method, cfgPrev);
+
+			final Set<String> changed = new HashSet<String>();
+			changed.add(changedClass);
+			final Config cfgNext = mt.createDefaultConfig();
+			cfgNext.name = "stable-ids-next";
+			cfgNext.previousSDG = previous;
+			cfgNext.changedClasses = changed;
+			final SDG next = mt.analyzeMethod(method, cfgNext);
+
+			assertEquals(previous.vertexSet().size(), next.vertexSet().size());
+
+			int maxPreviousId = 0;
+			for (final SDGNode n : previous.vertexSet()) {
+				maxPreviousId = Math.max(maxPreviousId, n.getId());
+			}
+
+			final Map<Integer, String> prevSigs = procSignatures(previous);
+			final Map<Integer, String> nextSigs = procSignatures(next);
+			int kept = 0;
+			int fresh = 0;
+
+			for (final SDGNode n : next.vertexSet()) {
+				final String sig = nextSigs.get(n.getProc());
+				if (sig == null) {
+					// not part of a procedure
+					continue;
+				}
+
+				if (isDeclaredIn(sig, changed)) {
+					assertTrue("node " + n.getId() + " of changed " + sig + " reuses an old id", n.getId() > maxPreviousId);
+					fresh++;
+				} else {
+					final SDGNode old = previous.getNode(n.getId());
+					assertNotNull("node " + n.getId() + " of unchanged " + sig + " got a new id", old);
+					assertEquals("Error on node id " + n.getId(), sig, prevSigs.get(old.getProc()));
+					assertEquals("Error on node id " + n.getId(), old.kind, n.kind);
+					assertEquals("Error on node id " + n.getId(), old.getLabel(), n.getLabel());
+					assertEquals("Error on node id " + n.getId(), old.getBytecodeName(), n.getBytecodeName());
+					assertEquals("Error on node id " + n.getId(), old.getBytecodeIndex(), n.getBytecodeIndex());
+					kept++;
+				}
+			}
+
+			assertTrue("no node of " + changedClass + " in the sdg", fresh > 0);
+			assertTrue("no unchanged node in the sdg", kept > 0);
+
+			final SDG recomputed = SummaryComputationTest.withoutSummaryEdges(next);
+			SummaryComputation.compute(SummaryComputationTest.createPackage(recomputed), NullProgressMonitor.INSTANCE);
+			assertEquals(SummaryComputationTest.summaryEdges(recomputed), SummaryComputationTest.summaryEdges(next));
+		} catch (ClassHierarchyException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		} catch (IOException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		} catch (IllegalArgumentException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		} catch (CancelException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		} catch (UnsoundGraphException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void stableIds_FieldPropagation_entry() {
+		checkStableIds("FieldPropagation.entry()V", "FieldPropagation$A");
+	}
+
+}
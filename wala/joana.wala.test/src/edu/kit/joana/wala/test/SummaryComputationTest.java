@@ -0,0 +1,133 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.wala.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+import gnu.trove.iterator.TIntIterator;
+import gnu.trove.list.TIntList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+import com.ibm.wala.util.CancelException;
+
+import edu.kit.joana.ifc.sdg.graph.SDG;
+import edu.kit.joana.ifc.sdg.graph.SDGEdge;
+import edu.kit.joana.ifc.sdg.graph.SDGNode;
+import edu.kit.joana.wala.core.NullProgressMonitor;
+import edu.kit.joana.wala.summary.GraphUtil;
+import edu.kit.joana.wala.summary.SummaryComputation;
+import edu.kit.joana.wala.summary.WorkPackage;
+import edu.kit.joana.wala.summary.WorkPackage.EntryPoint;
+
+/**
+ * Recomputes the summary edges of the regression sdgs with SummaryComputation and with the implementation it
+ * replaced. Both have to add the same summary edges and find the same formal-in/out summaries.
+ */
+public class SummaryComputationTest {
+
+	/**
+	 * Returns a copy of the sdg without summary edges.
+	 */
+	static SDG withoutSummaryEdges(final SDG sdg) {
+		final SDG copy = sdg.clone();
+		final List<SDGEdge> summary = new ArrayList<SDGEdge>();
+		for (final SDGEdge e : copy.edgeSet()) {
+			if (e.getKind() == SDGEdge.Kind.SUMMARY) {
+				summary.add(e);
+			}
+		}
+
+		copy.removeAllEdges(summary);
+
+		return copy;
+	}
+
+	/**
+	 * Creates a work package with every procedure of the sdg as entry point.
+	 */
+	static WorkPackage createPackage(final SDG sdg) {
+		final Set<EntryPoint> entries = new HashSet<EntryPoint>();
+		for (final SDGNode n : RegressionSDGs.sortedNodes(sdg)) {
+			if (n.getKind() == SDGNode.Kind.ENTRY) {
+				entries.add(GraphUtil.extractEntryPoint(sdg, n));
+			}
+		}
+
+		return WorkPackage.create(sdg, entries, sdg.getName());
+	}
+
+	/**
+	 * Returns the summary edges of the sdg as "source -> target" strings.
+	 */
+	static Set<String> summaryEdges(final SDG sdg) {
+		final Set<String> summary = new HashSet<String>();
+		for (final SDGEdge e : sdg.edgeSet()) {
+			if (e.getKind() == SDGEdge.Kind.SUMMARY) {
+				summary.add(e.getSource().getId() + " -> " + e.getTarget().getId());
+			}
+		}
+
+		return summary;
+	}
+
+	/**
+	 * Returns the sorted formal-outs influenced by each formal-in of the entry points of the package.
+	 */
+	static TreeMap<Integer, String> formalSummaries(final WorkPackage pack) {
+		final TreeMap<Integer, String> summaries = new TreeMap<Integer, String>();
+		for (final EntryPoint ep : pack.getEntryPoints()) {
+			for (final TIntIterator it = ep.iterateFormalIns(); it.hasNext();) {
+				final int formIn = it.next();
+				final TIntList outs = ep.getInfluencedFormOuts(formIn);
+				final int[] sorted = (outs == null ? new int[0] : outs.toArray());
+				Arrays.sort(sorted);
+				summaries.put(formIn, ep.getEntryId() + ":" + Arrays.toString(sorted));
+			}
+		}
+
+		return summaries;
+	}
+
+	private static void compareWithReference(final SDG sdg) {
+		final SDG expected = withoutSummaryEdges(sdg);
+		final WorkPackage expectedPack = createPackage(expected);
+		final int expectedCount = ReferenceSummaryComputation.compute(expectedPack);
+
+		final SDG actual = withoutSummaryEdges(sdg);
+		final WorkPackage actualPack = createPackage(actual);
+		try {
+			final int actualCount = SummaryComputation.compute(actualPack, NullProgressMonitor.INSTANCE);
+			assertEquals(sdg.getName(), expectedCount, actualCount);
+		} catch (CancelException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+
+		final Set<String> expectedSummary = summaryEdges(expected);
+		assertFalse(sdg.getName() + " has no summary edges", expectedSummary.isEmpty());
+		assertEquals(sdg.getName(), expectedSummary, summaryEdges(actual));
+		assertEquals(sdg.getName(), formalSummaries(expectedPack), formalSummaries(actualPack));
+	}
+
+	@Test
+	public void summary_MatchesReference() {
+		for (final SDG sdg : RegressionSDGs.get()) {
+			compareWithReference(sdg);
+		}
+	}
+
+}